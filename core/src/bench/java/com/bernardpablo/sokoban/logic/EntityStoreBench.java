@@ -0,0 +1,114 @@
+package com.bernardpablo.sokoban.logic;
+
+import com.badlogic.gdx.utils.Array;
+import com.bernardpablo.sokoban.entities.factory.Crate;
+import com.bernardpablo.sokoban.entities.factory.Target;
+
+/**
+ * Comparaison des caisses en objets ({@link Crate}) et en colonnes ({@link EntityStore}) sur
+ * des niveaux générés de plus en plus grands.
+ * <p>
+ * Deux mesures par taille de niveau :
+ * </p>
+ * <ul>
+ *   <li>mémoire par état copié, comme lors d'une recherche qui conserve des états : une
+ *   liste de nouvelles caisses d'un côté, un {@code int[]} de cases de l'autre ;</li>
+ *   <li>temps du décompte des caisses bien placées : recherche de la caisse de chaque cible
+ *   dans la liste d'objets (l'ancien {@code isLevelCompleted}) d'un côté ; décompte tenu à
+ *   jour ({@link EntityStore#isSolved()}) et parcours complet des colonnes de l'autre.</li>
+ * </ul>
+ * <p>
+ * Options : {@code [états copiés par taille]}.
+ * </p>
+ * @author Bernard PABLO
+ */
+public final class EntityStoreBench {
+    private static final int[] CRATES = {25, 100, 400, 1600};
+    private static volatile Object sink;
+
+    private EntityStoreBench() {}
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /** Copie d'un état sous forme d'objets, comme le ferait une recherche sans colonnes. */
+    private static Array<Crate> copy(Array<Crate> crates) {
+        Array<Crate> copy = new Array<>(crates.size);
+        for (Crate crate : crates) copy.add(new Crate(crate.getX(), crate.getY(), crate.getTileId(), null));
+        return copy;
+    }
+
+    /** Décompte par objets : recherche linéaire de la caisse de chaque cible (ancien {@code isLevelCompleted}). */
+    private static int placedByObjects(Array<Crate> crates, Array<Target> targets) {
+        int placed = 0;
+        for (Target target : targets) {
+            for (Crate crate : crates) {
+                if (crate.getX() == target.getX() && crate.getY() == target.getY()) {
+                    if (SokobanRules.crateMatchesTarget(crate, target)) placed++;
+                    break;
+                }
+            }
+        }
+        return placed;
+    }
+
+    /** Parcours complet des colonnes : nombre de cibles satisfaites. */
+    private static int placedByColumns(EntityStore store) {
+        int placed = 0;
+        for (int i = 0, n = store.getCrateCount(); i < n; i++) {
+            if (store.isPlaced(i)) placed++;
+        }
+        return placed;
+    }
+
+    public static void main(String[] args) {
+        int states = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        System.out.println(String.format("%-7s %14s %14s %16s %16s %16s",
+            "Caisses", "Objets o/état", "Colonnes o/état", "Objets ns", "Décompte ns", "Colonnes ns"));
+
+        for (int crates : CRATES) {
+            int side = 8 + (int) Math.ceil(Math.sqrt(crates * 3.0));
+            LevelContent content = LevelGenerator.generate(crates, side, side, crates, crates / 2);
+            EntityStore store = new EntityStore();
+            store.load(content.grid, content.crates, content.targets);
+
+            // Mémoire par état copié
+            Object[] kept = new Object[states];
+            long before = usedMemory();
+            for (int i = 0; i < states; i++) kept[i] = copy(content.crates);
+            long objectBytes = (usedMemory() - before) / states;
+            sink = kept;
+            kept = new Object[states];
+            before = usedMemory();
+            for (int i = 0; i < states; i++) kept[i] = store.snapshot(null);
+            long columnBytes = (usedMemory() - before) / states;
+            sink = kept;
+
+            // Décompte des caisses bien placées (préchauffage puis mesure)
+            int repeats = Math.max(50, 4_000_000 / (crates * crates));
+            long objectNanos = 0, counterNanos = 0, columnNanos = 0;
+            for (int round = 0; round < 2; round++) {
+                long start = System.nanoTime();
+                boolean solved = false;
+                int placed = 0;
+                for (int r = 0; r < repeats; r++) placed += placedByObjects(content.crates, content.targets);
+                objectNanos = (System.nanoTime() - start) / repeats;
+
+                start = System.nanoTime();
+                for (int r = 0; r < repeats * 100; r++) solved ^= store.isSolved();
+                counterNanos = (System.nanoTime() - start) / (repeats * 100L);
+
+                start = System.nanoTime();
+                for (int r = 0; r < repeats; r++) placed += placedByColumns(store);
+                columnNanos = (System.nanoTime() - start) / repeats;
+                sink = solved + "/" + placed;
+            }
+
+            System.out.println(String.format("%-7d %14d %14d %16d %16d %16d",
+                crates, objectBytes, columnBytes, objectNanos, counterNanos, columnNanos));
+        }
+    }
+}
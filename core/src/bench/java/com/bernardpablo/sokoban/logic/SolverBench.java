@@ -0,0 +1,64 @@
+package com.bernardpablo.sokoban.logic;
+
+/**
+ * Comparaison des deux modes du {@link Solver} sur des niveaux générés de 10 à 30 caisses.
+ * <p>
+ * Pour chaque nombre de caisses, plusieurs niveaux sont produits par le
+ * {@link LevelGenerator} puis résolus en recherche simple et en recherche
+ * bidirectionnelle, avec la même limite d'états. Le rapport donne, par niveau et par mode,
+ * le nombre d'états développés, la longueur de la solution et le temps de résolution.
+ * </p>
+ * <p>
+ * Options : {@code [niveaux par taille] [limite d'états] [graine]}.
+ * </p>
+ * @author Bernard PABLO
+ */
+public final class SolverBench {
+    private static final int[] CRATES = {10, 15, 20, 25, 30};
+
+    private SolverBench() {}
+
+    public static void main(String[] args) {
+        int levels = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int maxStates = args.length > 1 ? Integer.parseInt(args[1]) : Solver.DEFAULT_MAX_STATES;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+
+        Solver solver = new Solver(maxStates);
+        // Préchauffage du compilateur à la volée sur un petit niveau
+        LevelContent warmup = LevelGenerator.generate(seed - 1, 10, 10, 6, 18);
+        for (int i = 0; i < 20; i++) {
+            solver.solve(warmup, Solver.Mode.FORWARD);
+            solver.solve(warmup, Solver.Mode.BIDIRECTIONAL);
+        }
+
+        System.out.println(String.format("%-7s %-8s %-15s %12s %10s %10s",
+            "Caisses", "Niveau", "Mode", "Développés", "Poussées", "Temps ms"));
+        long[] totalExpanded = new long[2];
+        long[] totalNanos = new long[2];
+        int[] solved = new int[2];
+        for (int crates : CRATES) {
+            int side = 10 + crates / 3;
+            for (int level = 0; level < levels; level++) {
+                LevelContent content = LevelGenerator.generate(seed + crates * 1000L + level, side, side, crates, crates);
+                for (Solver.Mode mode : Solver.Mode.values()) {
+                    Solver.Result result = solver.solve(content, mode);
+                    int m = mode.ordinal();
+                    totalExpanded[m] += result.getExpanded();
+                    totalNanos[m] += result.getNanos();
+                    if (result.isSolved()) solved[m]++;
+                    System.out.println(String.format("%-7d %-8d %-15s %12d %10s %10.1f",
+                        crates, level + 1, mode.name().toLowerCase(), result.getExpanded(),
+                        result.isSolved() ? Integer.toString(result.getPushes().size) : result.isLimitReached() ? "limite" : "-",
+                        result.getNanos() / 1e6));
+                }
+            }
+        }
+
+        int total = CRATES.length * levels;
+        for (Solver.Mode mode : Solver.Mode.values()) {
+            int m = mode.ordinal();
+            System.out.println(String.format("Total %-15s : %d/%d résolus, %d états développés, %.1f ms",
+                mode.name().toLowerCase(), solved[m], total, totalExpanded[m], totalNanos[m] / 1e6));
+        }
+    }
+}
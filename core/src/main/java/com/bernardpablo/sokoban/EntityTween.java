@@ -0,0 +1,105 @@
+package com.bernardpablo.sokoban;
+
+import com.badlogic.gdx.math.Interpolation;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.Pool;
+import com.bernardpablo.sokoban.entities.factory.Entity;
+
+/**
+ * Interpolation de la position affichée d'une entité vers sa position logique.
+ * <p>
+ * Une instance suit une entité le long d'une file de points de passage (une case par
+ * mouvement reçu). Les instances sont recyclées par un {@link Pool} : une fois la
+ * file vidée, le tween est rendu au pool par le {@link MoveAnimator}.
+ * </p>
+ * @author Bernard PABLO
+ */
+public class EntityTween implements Pool.Poolable {
+    /** Nombre maximal de points de passage conservés ; au-delà, les plus anciens sont fusionnés. */
+    static final int MAX_WAYPOINTS = 8;
+
+    Entity entity;
+    float x;
+    float y;
+    private float fromX;
+    private float fromY;
+    private float elapsed;
+    /** Points de passage restants, sous la forme (x0, y0, x1, y1, ...). */
+    private final FloatArray waypoints = new FloatArray(MAX_WAYPOINTS * 2);
+
+    /**
+     * Démarre le suivi d'une entité à partir d'une position affichée.
+     * @param entity L'entité suivie.
+     * @param x      Position X affichée au départ.
+     * @param y      Position Y affichée au départ.
+     */
+    void start(Entity entity, float x, float y) {
+        this.entity = entity;
+        this.x = x;
+        this.y = y;
+        this.fromX = x;
+        this.fromY = y;
+        this.elapsed = 0;
+    }
+
+    /**
+     * Ajoute un point de passage. Si la file est pleine, le segment en cours est
+     * abandonné et l'animation repart de la position affichée actuelle.
+     * @param toX Position X cible.
+     * @param toY Position Y cible.
+     */
+    void addWaypoint(float toX, float toY) {
+        if (waypoints.size >= MAX_WAYPOINTS * 2) {
+            waypoints.removeRange(0, 1);
+            fromX = x;
+            fromY = y;
+            elapsed = 0;
+        }
+        waypoints.add(toX, toY);
+    }
+
+    /**
+     * Fait avancer l'animation d'un pas de temps fixe.
+     * <p>
+     * La durée d'un segment est divisée par le nombre de segments en attente : plus les
+     * mouvements s'accumulent, plus l'animation accélère pour rattraper l'état logique.
+     * </p>
+     * @param delta         Pas de temps en secondes.
+     * @param stepDuration  Durée nominale d'un déplacement d'une case, en secondes.
+     * @param interpolation Courbe d'interpolation appliquée à chaque segment.
+     * @return true si l'animation est terminée (plus aucun point de passage).
+     */
+    boolean update(float delta, float stepDuration, Interpolation interpolation) {
+        while (waypoints.size > 0 && delta > 0) {
+            int pending = waypoints.size / 2;
+            float duration = stepDuration / pending;
+            float remaining = duration - elapsed;
+
+            if (delta < remaining) {
+                elapsed += delta;
+                float alpha = interpolation.apply(elapsed / duration);
+                x = fromX + (waypoints.get(0) - fromX) * alpha;
+                y = fromY + (waypoints.get(1) - fromY) * alpha;
+                return false;
+            }
+
+            // Segment terminé : on passe au point de passage suivant
+            delta -= remaining;
+            x = fromX = waypoints.get(0);
+            y = fromY = waypoints.get(1);
+            waypoints.removeRange(0, 1);
+            elapsed = 0;
+        }
+        return waypoints.size == 0;
+    }
+
+    /**
+     * Réinitialise le tween avant son retour dans le pool.
+     */
+    @Override
+    public void reset() {
+        entity = null;
+        waypoints.clear();
+        elapsed = 0;
+    }
+}
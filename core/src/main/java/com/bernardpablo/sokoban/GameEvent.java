@@ -0,0 +1,37 @@
+package com.bernardpablo.sokoban;
+
+/**
+ * Événements métier émis par le {@link SokobanModel}.
+ * <p>
+ * Chaque événement est diffusé sous deux formes : son nom ({@link #name()}) aux
+ * observateurs classiques ({@link java.util.Observer}), et la constante elle-même aux
+ * {@link Listener}, qui peuvent ainsi réagir par un simple {@code switch} sur l'énumération
+ * ou un accès indexé par {@link #ordinal()}, sans comparaison de chaînes.
+ * </p>
+ * @author Bernard PABLO
+ */
+public enum GameEvent {
+    /** Un niveau vient d'être chargé (ou rechargé). */
+    LEVEL_LOADED,
+    /** Le joueur a fait un pas, en poussant éventuellement une caisse. */
+    PLAYER_MOVED,
+    /** Le joueur a parcouru un trajet complet (clic ou glisser-déposer d'une caisse). */
+    PLAYER_WALKED,
+    /** Une caisse vient d'être poussée sur une cible de sa couleur. */
+    BOX_ON_TARGET,
+    /** Toutes les caisses sont sur leurs cibles. */
+    LEVEL_COMPLETED,
+    /** L'état du niveau a été remplacé par celui d'un autre coup de la ligne de temps. */
+    TIMELINE_SEEK;
+
+    /**
+     * Abonné typé aux événements du modèle.
+     */
+    public interface Listener {
+        /**
+         * Appelée sur le thread de rendu, après la notification des observateurs.
+         * @param event L'événement émis.
+         */
+        void onGameEvent(GameEvent event);
+    }
+}
@@ -0,0 +1,92 @@
+package com.bernardpablo.sokoban;
+
+/**
+ * File circulaire bornée de commandes de déplacement.
+ * <p>
+ * Chaque commande est un code de touche ({@link com.badlogic.gdx.Input.Keys}) associé à
+ * l'instant de sa saisie, ce qui permet de mesurer la latence entre l'entrée et la mise à
+ * jour de l'état du jeu. Les tableaux sont alloués une fois pour toutes : l'ajout et le
+ * retrait de commandes n'allouent aucun objet.
+ * </p>
+ * @author Bernard PABLO
+ */
+public class InputQueue {
+    private final int[] keys;
+    private final long[] times;
+    private int head;
+    private int size;
+
+    private long latencyTotal;
+    private long latencyMax;
+    private int latencySamples;
+
+    /**
+     * Crée une file vide.
+     * @param capacity Nombre maximal de commandes en attente.
+     */
+    public InputQueue(int capacity) {
+        this.keys = new int[capacity];
+        this.times = new long[capacity];
+    }
+
+    /**
+     * Ajoute une commande en fin de file.
+     * @param keycode Le code de la touche de direction.
+     * @param time    L'instant de la saisie ({@link System#nanoTime()}).
+     * @return false si la file est pleine (la commande n'est pas ajoutée).
+     */
+    public boolean offer(int keycode, long time) {
+        if (size == keys.length) return false;
+        int tail = (head + size) % keys.length;
+        keys[tail] = keycode;
+        times[tail] = time;
+        size++;
+        return true;
+    }
+
+    /** @return Le code de touche de la plus ancienne commande (la file ne doit pas être vide). */
+    public int peekKey() {
+        return keys[head];
+    }
+
+    /**
+     * Retire la plus ancienne commande et comptabilise sa latence.
+     * @param now L'instant où la commande a été appliquée à l'état du jeu.
+     */
+    public void poll(long now) {
+        long latency = now - times[head];
+        latencyTotal += latency;
+        latencyMax = Math.max(latencyMax, latency);
+        latencySamples++;
+        head = (head + 1) % keys.length;
+        size--;
+    }
+
+    /**
+     * Vide la file sans comptabiliser de latence (changement de niveau, fin de partie).
+     */
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    /** @return Le nombre de commandes en attente. */
+    public int size() {
+        return size;
+    }
+
+    /** @return true si aucune commande n'est en attente. */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** @return La latence moyenne entrée → état, en millisecondes. */
+    public double getAverageLatencyMs() {
+        return latencySamples == 0 ? 0 : latencyTotal / (double) latencySamples / 1_000_000.0;
+    }
+
+    /** @return La latence maximale entrée → état observée, en millisecondes. */
+    public double getMaxLatencyMs() {
+        return latencyMax / 1_000_000.0;
+    }
+}
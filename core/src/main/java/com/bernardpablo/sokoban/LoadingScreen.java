@@ -0,0 +1,66 @@
+package com.bernardpablo.sokoban;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
+
+/**
+ * Écran de chargement affiché pendant que {@link SokobanAssets} charge les ressources.
+ * <p>
+ * Il se limite à une barre de progression dessinée avec un {@link ShapeRenderer} :
+ * aucune police ni texture n'est nécessaire, il peut donc s'afficher dès la première image.
+ * </p>
+ * @author Bernard PABLO
+ */
+public class LoadingScreen {
+    private final ShapeRenderer shapeRenderer;
+    private final OrthographicCamera camera;
+
+    /**
+     * Constructeur : Initialise le moteur de formes et la caméra d'interface.
+     */
+    public LoadingScreen() {
+        this.shapeRenderer = new ShapeRenderer();
+        this.camera = new OrthographicCamera();
+        this.camera.setToOrtho(false, Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
+    }
+
+    /**
+     * Dessine la barre de progression au centre de l'écran.
+     * @param progress Progression du chargement, entre 0 et 1.
+     */
+    public void render(float progress) {
+        Gdx.gl.glClearColor(0, 0, 0, 1);
+        Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+
+        float barWidth = camera.viewportWidth * 0.6f;
+        float barHeight = 24;
+        float x = (camera.viewportWidth - barWidth) / 2;
+        float y = (camera.viewportHeight - barHeight) / 2;
+
+        shapeRenderer.setProjectionMatrix(camera.combined);
+        shapeRenderer.begin(ShapeRenderer.ShapeType.Filled);
+        shapeRenderer.setColor(0.25f, 0.25f, 0.25f, 1);
+        shapeRenderer.rect(x, y, barWidth, barHeight);
+        shapeRenderer.setColor(1, 1, 1, 1);
+        shapeRenderer.rect(x, y, barWidth * Math.min(1, Math.max(0, progress)), barHeight);
+        shapeRenderer.end();
+    }
+
+    /**
+     * Adapte la caméra à la nouvelle taille de la fenêtre.
+     * @param width  Nouvelle largeur en pixels.
+     * @param height Nouvelle hauteur en pixels.
+     */
+    public void resize(int width, int height) {
+        camera.setToOrtho(false, width, height);
+    }
+
+    /**
+     * Libère les ressources natives du {@link ShapeRenderer}.
+     */
+    public void dispose() {
+        shapeRenderer.dispose();
+    }
+}
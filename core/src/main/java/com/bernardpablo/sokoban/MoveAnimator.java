@@ -0,0 +1,267 @@
+package com.bernardpablo.sokoban;
+
+import com.badlogic.gdx.math.Interpolation;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IdentityMap;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.Pool;
+import com.bernardpablo.sokoban.entities.factory.Crate;
+import com.bernardpablo.sokoban.entities.factory.Entity;
+import com.bernardpablo.sokoban.logic.LevelGrid;
+
+import java.util.Observable;
+import java.util.Observer;
+
+/**
+ * Couche d'animation des déplacements, entièrement côté vue.
+ * <p>
+ * Le modèle applique chaque mouvement instantanément ; cette classe se contente de faire
+ * glisser la position <em>affichée</em> des entités vers leur position logique. La logique
+ * n'attend donc jamais l'animation : les mouvements reçus pendant une animation sont mis
+ * en file sur le tween de l'entité, qui accélère pour les rattraper.
+ * </p>
+ * <p>
+ * Les objets d'interpolation ({@link EntityTween}) proviennent d'un {@link Pool} et les
+ * structures internes sont réutilisées : une fois le niveau chargé, l'animation
+ * n'alloue plus aucun objet.
+ * </p>
+ * @author Bernard PABLO
+ */
+public class MoveAnimator implements Observer {
+    /** Durée nominale, en secondes, du déplacement d'une case. */
+    public static final float STEP_DURATION = 0.12f;
+
+    private final SokobanModel model;
+    private final Pool<EntityTween> pool = new Pool<EntityTween>(16) {
+        @Override
+        protected EntityTween newObject() {
+            return new EntityTween();
+        }
+    };
+    private final Array<EntityTween> active = new Array<>(false, 16);
+    private final IdentityMap<Entity, EntityTween> tweens = new IdentityMap<>();
+    /** Dernière position logique connue de chaque entité mobile. */
+    private final IdentityMap<Entity, Vector2> logical = new IdentityMap<>();
+    private boolean enabled = true;
+
+    /**
+     * Constructeur : Enregistre l'animateur comme observateur du modèle.
+     * @param model Le modèle dont les déplacements sont animés.
+     */
+    public MoveAnimator(SokobanModel model) {
+        this.model = model;
+        model.addObserver(this);
+    }
+
+    /**
+     * Réagit aux notifications du modèle : réinitialisation au chargement d'un niveau
+     * ou après un déplacement dans la ligne de temps,
+     * ajout de points de passage après un déplacement.
+     * @param o   Le modèle observé.
+     * @param arg L'événement envoyé par le modèle.
+     */
+    @Override
+    public void update(Observable o, Object arg) {
+        if (!(arg instanceof String)) return;
+
+        switch ((String) arg) {
+            case "LEVEL_LOADED":
+            case "TIMELINE_SEEK":
+                reset();
+                break;
+            case "PLAYER_MOVED":
+                if (model.getPlayer() != null) {
+                    follow(model.getPlayer());
+                }
+                for (Crate crate : model.getCrates()) {
+                    follow(crate);
+                }
+                break;
+            case "PLAYER_WALKED":
+                if (model.getPlayer() != null) {
+                    followWalk(model.getPlayer(), model.getLastWalk());
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Anime un trajet complet du joueur case par case, à partir de sa dernière position connue,
+     * y compris les caisses qu'il pousse en chemin (rejouées sur les positions connues).
+     * Seules les dernières étapes sont animées si le trajet dépasse la capacité d'un tween ;
+     * les étapes précédentes sont appliquées directement.
+     * @param player Le joueur.
+     * @param walk   La suite des directions empruntées.
+     */
+    private void followWalk(Entity player, IntArray walk) {
+        Vector2 last = logical.get(player);
+        if (last != null && walk.size > 0) {
+            int tile = model.getGrid().getTileSize();
+            int first = Math.max(0, walk.size - EntityTween.MAX_WAYPOINTS);
+            if (first > 0) {
+                // Saut direct au début de la portion animée
+                stop(player);
+            }
+
+            float x = last.x;
+            float y = last.y;
+            for (int i = 0; i < walk.size; i++) {
+                float dx = LevelGrid.DX[walk.get(i)] * tile;
+                float dy = LevelGrid.DY[walk.get(i)] * tile;
+                if (i >= first) {
+                    addWaypoint(player, x, y, x + dx, y + dy);
+                }
+                x += dx;
+                y += dy;
+
+                Crate pushed = crateAt(x, y);
+                if (pushed != null) {
+                    Vector2 crate = logical.get(pushed);
+                    if (i >= first) {
+                        addWaypoint(pushed, crate.x, crate.y, crate.x + dx, crate.y + dy);
+                    } else {
+                        stop(pushed);
+                    }
+                    crate.add(dx, dy);
+                }
+            }
+            last.set(x, y);
+        }
+
+        // Filet de sécurité : toute divergence restante est animée en ligne droite
+        follow(player);
+        for (Crate crate : model.getCrates()) {
+            follow(crate);
+        }
+    }
+
+    /**
+     * @return La caisse dont la dernière position connue est (x, y), ou null.
+     */
+    private Crate crateAt(float x, float y) {
+        Array<Crate> crates = model.getCrates();
+        for (int i = 0; i < crates.size; i++) {
+            Vector2 position = logical.get(crates.get(i));
+            if (position != null && position.x == x && position.y == y) return crates.get(i);
+        }
+        return null;
+    }
+
+    /**
+     * Compare la position logique d'une entité à la dernière connue et, si elle a changé,
+     * ajoute un point de passage à son animation.
+     * @param entity L'entité à suivre.
+     */
+    private void follow(Entity entity) {
+        Vector2 last = logical.get(entity);
+        if (last == null) {
+            logical.put(entity, new Vector2(entity.getX(), entity.getY()));
+            return;
+        }
+        if (last.x == entity.getX() && last.y == entity.getY()) return;
+
+        addWaypoint(entity, last.x, last.y, entity.getX(), entity.getY());
+        last.set(entity.getX(), entity.getY());
+    }
+
+    /**
+     * Ajoute un point de passage à l'animation d'une entité, en démarrant un tween
+     * depuis (fromX, fromY) si elle n'était pas déjà animée.
+     */
+    private void addWaypoint(Entity entity, float fromX, float fromY, float toX, float toY) {
+        if (!enabled) return;
+        EntityTween tween = tweens.get(entity);
+        if (tween == null) {
+            tween = pool.obtain();
+            tween.start(entity, fromX, fromY);
+            tweens.put(entity, tween);
+            active.add(tween);
+        }
+        tween.addWaypoint(toX, toY);
+    }
+
+    /**
+     * Interrompt l'animation d'une entité, qui sera affichée à sa position logique.
+     */
+    private void stop(Entity entity) {
+        EntityTween tween = tweens.remove(entity);
+        if (tween != null) {
+            active.removeValue(tween, true);
+            pool.free(tween);
+        }
+    }
+
+    /**
+     * Fait avancer toutes les animations en cours d'un pas de temps fixe.
+     * @param delta Pas de temps en secondes.
+     */
+    public void update(float delta) {
+        for (int i = active.size - 1; i >= 0; i--) {
+            EntityTween tween = active.get(i);
+            if (tween.update(delta, STEP_DURATION, Interpolation.smooth)) {
+                tweens.remove(tween.entity);
+                active.removeIndex(i);
+                pool.free(tween);
+            }
+        }
+    }
+
+    /**
+     * Termine immédiatement toutes les animations (les entités sont affichées à leur position logique).
+     */
+    public void finish() {
+        pool.freeAll(active);
+        active.clear();
+        tweens.clear();
+    }
+
+    /**
+     * Termine les animations et oublie les positions connues (nouveau niveau).
+     */
+    private void reset() {
+        finish();
+        logical.clear();
+        if (model.getPlayer() != null) {
+            follow(model.getPlayer());
+        }
+        for (Crate crate : model.getCrates()) {
+            follow(crate);
+        }
+    }
+
+    /**
+     * Active ou désactive l'animation (par exemple pendant un rejeu en bloc).
+     * La désactivation termine les animations en cours.
+     * @param enabled true pour animer les déplacements.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) finish();
+    }
+
+    /** @return true si au moins une entité est en cours d'animation. */
+    public boolean isAnimating() {
+        return active.size > 0;
+    }
+
+    /**
+     * @param entity L'entité à dessiner.
+     * @return La position X affichée de l'entité.
+     */
+    public float getX(Entity entity) {
+        EntityTween tween = tweens.get(entity);
+        return tween != null ? tween.x : entity.getX();
+    }
+
+    /**
+     * @param entity L'entité à dessiner.
+     * @return La position Y affichée de l'entité.
+     */
+    public float getY(Entity entity) {
+        EntityTween tween = tweens.get(entity);
+        return tween != null ? tween.y : entity.getY();
+    }
+}
@@ -0,0 +1,265 @@
+package com.bernardpablo.sokoban;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.ByteArray;
+import com.badlogic.gdx.utils.IntArray;
+import com.bernardpablo.sokoban.logic.LevelGrid;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Observable;
+import java.util.Observer;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sauvegarde automatique de la partie sous forme de journal de mouvements en ajout seul.
+ * <p>
+ * Chaque pas du joueur est enregistré sur un seul octet (sa direction). Le thread de rendu
+ * se contente d'ajouter ces octets à un tampon mémoire ; un thread d'écriture dédié vide
+ * périodiquement ce tampon à la fin du fichier et le synchronise sur le disque. Un arrêt
+ * brutal ne fait donc perdre, au pire, que les derniers mouvements non encore écrits.
+ * </p>
+ * <p>
+ * Format du fichier : un en-tête {@link #LEVEL} suivi du nom du niveau (UTF-8, longueur sur
+ * deux octets), puis une suite d'octets de direction, entrecoupée de marqueurs
+ * {@link #RESTART} lorsque le joueur recommence le niveau, et de marqueurs {@link #SEEK}
+ * (suivis du coup atteint, sur quatre octets) lorsque le joueur revient à un autre coup de
+ * la partie ({@link com.bernardpablo.sokoban.logic.Timeline}) : un déplacement dans la
+ * ligne de temps coûte cinq octets, quelle que soit la longueur de la partie. Au
+ * changement de niveau, le journal est réécrit depuis le début.
+ * </p>
+ * @author Bernard PABLO
+ */
+public class MoveJournal implements Observer {
+    /** Marqueur d'en-tête : le nom du niveau suit. */
+    static final byte LEVEL = 0x20;
+    /** Marqueur de redémarrage du niveau courant. */
+    static final byte RESTART = 0x10;
+    /** Marqueur de déplacement dans la ligne de temps : le coup atteint suit. */
+    static final byte SEEK = 0x30;
+    /** Intervalle d'écriture sur le disque, en millisecondes. */
+    private static final long FLUSH_INTERVAL_MS = 200;
+
+    private final SokobanModel model;
+    private final File file;
+    private final ScheduledExecutorService writer;
+
+    /** Octets en attente d'écriture (protégé par {@code this}). */
+    private ByteArray pending = new ByteArray(256);
+    /** Octets en cours d'écriture (protégé par {@link #flushLock}). */
+    private ByteArray writing = new ByteArray(256);
+    /** Un seul vidage à la fois : thread d'écriture, ou {@link #close()} s'il le devance. */
+    private final Object flushLock = new Object();
+    /** Vrai si le prochain vidage doit réécrire le fichier depuis le début. */
+    private boolean truncate;
+    private String level;
+
+    /** Partie lue dans le journal à l'ouverture, en attente de {@link #recover()}. */
+    private String savedLevel;
+    private final IntArray savedMoves = new IntArray();
+    /** Coup atteint dans {@link #savedMoves} (inférieur à sa taille après un retour en arrière). */
+    private int savedPosition;
+
+    private long appendNanos;
+    private long appendCount;
+
+    /**
+     * Constructeur : Lit le journal existant (voir {@link #recover()}), puis enregistre le
+     * journal comme observateur du modèle et démarre le thread d'écriture.
+     * @param model Le modèle dont les mouvements sont journalisés.
+     * @param file  Le fichier du journal.
+     */
+    public MoveJournal(SokobanModel model, File file) {
+        this.model = model;
+        this.file = file;
+        read();
+        levelLoaded(model.getCurrentLevelPath());
+        this.writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "sokoban-autosave");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        model.addObserver(this);
+    }
+
+    /**
+     * Enregistre les événements du modèle : nouveau niveau, redémarrage, pas du joueur,
+     * déplacement dans la ligne de temps.
+     * @param o   Le modèle observé.
+     * @param arg L'événement envoyé par le modèle.
+     */
+    @Override
+    public void update(Observable o, Object arg) {
+        if (!(arg instanceof String)) return;
+        long start = System.nanoTime();
+
+        switch ((String) arg) {
+            case "LEVEL_LOADED":
+                levelLoaded(model.getCurrentLevelPath());
+                break;
+            case "PLAYER_MOVED":
+                append(model.getLastDirection());
+                break;
+            case "PLAYER_WALKED":
+                IntArray walk = model.getLastWalk();
+                synchronized (this) {
+                    for (int i = 0; i < walk.size; i++) {
+                        pending.add((byte) walk.get(i));
+                    }
+                }
+                break;
+            case "TIMELINE_SEEK":
+                appendSeek(model.getTimeline().getPosition());
+                break;
+            default:
+                return;
+        }
+
+        appendNanos += System.nanoTime() - start;
+        appendCount++;
+    }
+
+    private synchronized void append(int direction) {
+        pending.add((byte) direction);
+    }
+
+    private synchronized void levelLoaded(String path) {
+        if (path.equals(level)) {
+            pending.add(RESTART);
+            return;
+        }
+        // Nouveau niveau : le journal repart de zéro
+        level = path;
+        truncate = true;
+        pending.clear();
+        byte[] name = path.getBytes(StandardCharsets.UTF_8);
+        pending.add(LEVEL);
+        pending.add((byte) (name.length >>> 8), (byte) name.length);
+        pending.addAll(name);
+    }
+
+    private synchronized void appendSeek(int move) {
+        pending.add(SEEK, (byte) (move >>> 24), (byte) (move >>> 16), (byte) (move >>> 8));
+        pending.add((byte) move);
+    }
+
+    /**
+     * Écrit le tampon en attente à la fin du fichier (thread d'écriture).
+     */
+    private void flush() {
+        synchronized (flushLock) {
+            boolean rewrite;
+            synchronized (this) {
+                if (pending.size == 0 && !truncate) return;
+                ByteArray swap = writing;
+                writing = pending;
+                pending = swap;
+                rewrite = truncate;
+                truncate = false;
+            }
+
+            try (FileOutputStream out = new FileOutputStream(file, !rewrite)) {
+                out.write(writing.items, 0, writing.size);
+                out.getFD().sync();
+            } catch (IOException e) {
+                System.err.println("Sauvegarde automatique impossible : " + e.getMessage());
+            }
+            writing.clear();
+        }
+    }
+
+    /**
+     * Lit le journal laissé par la session précédente. Une fin de fichier tronquée par un
+     * arrêt brutal est tolérée : seuls les enregistrements complets sont conservés.
+     */
+    private void read() {
+        if (!file.exists()) return;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                int record = in.read();
+                if (record < 0) break;
+                if (record == LEVEL) {
+                    byte[] name = new byte[in.readUnsignedShort()];
+                    in.readFully(name);
+                    savedLevel = new String(name, StandardCharsets.UTF_8);
+                    savedMoves.clear();
+                    savedPosition = 0;
+                } else if (record == RESTART) {
+                    savedMoves.clear();
+                    savedPosition = 0;
+                } else if (record == SEEK) {
+                    savedPosition = Math.max(0, Math.min(in.readInt(), savedMoves.size));
+                } else if (record <= LevelGrid.DOWN) {
+                    // Un pas joué après un retour en arrière efface la suite, comme dans la partie
+                    savedMoves.size = savedPosition;
+                    savedMoves.add(record);
+                    savedPosition++;
+                }
+            }
+        } catch (EOFException e) {
+            // En-tête tronqué par un arrêt brutal : on garde ce qui a été lu
+        } catch (IOException e) {
+            System.err.println("Journal de sauvegarde illisible : " + e.getMessage());
+            savedLevel = null;
+        }
+    }
+
+    /**
+     * Restaure la partie lue à l'ouverture du journal : recharge le niveau, rejoue les
+     * mouvements depuis le dernier redémarrage, puis revient au coup atteint si le joueur
+     * s'était déplacé dans la ligne de temps (les coups suivants restent accessibles). Les
+     * mouvements rejoués sont de nouveau journalisés, ce qui réécrit un journal équivalent.
+     * @return true si une partie a été restaurée.
+     */
+    public boolean recover() {
+        if (savedLevel == null) return false;
+        String level = savedLevel;
+        savedLevel = null;
+        if (!Gdx.files.internal(SokobanAssets.MAPS_DIR + level).exists()) return false;
+
+        model.loadLevel(level);
+        if (!level.equals(model.getCurrentLevelPath()) || model.getGrid() == null) return false;
+
+        int tile = model.getGrid().getTileSize();
+        for (int i = 0; i < savedMoves.size && level.equals(model.getCurrentLevelPath()); i++) {
+            int dir = savedMoves.get(i);
+            model.movePlayer(LevelGrid.DX[dir] * tile, LevelGrid.DY[dir] * tile);
+        }
+        if (savedPosition < savedMoves.size) {
+            model.seekTo(savedPosition);
+        }
+        System.out.println("Partie restaurée : " + level + " (" + savedPosition + " mouvements)");
+        savedMoves.clear();
+        return true;
+    }
+
+    /** @return Le coût moyen, sur le thread de rendu, de la journalisation d'un événement (ns). */
+    public double getAverageAppendNanos() {
+        return appendCount == 0 ? 0 : appendNanos / (double) appendCount;
+    }
+
+    /**
+     * Écrit les derniers mouvements en attente et arrête le thread d'écriture. Si celui-ci
+     * ne s'arrête pas à temps (disque lent), le dernier vidage attend la fin du sien.
+     */
+    public void close() {
+        model.deleteObserver(this);
+        writer.shutdown();
+        try {
+            writer.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+}
@@ -2,30 +2,98 @@ package com.bernardpablo.sokoban;
 
 import com.badlogic.gdx.ApplicationAdapter;
 import com.badlogic.gdx.Gdx;
+import com.bernardpablo.sokoban.cache.AnalysisCache;
+import com.bernardpablo.sokoban.logic.LevelLoader;
+import com.bernardpablo.sokoban.profiling.FlightRecorder;
+import com.bernardpablo.sokoban.profiling.ProfileEvent;
+import com.bernardpablo.sokoban.stats.StatsStore;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
 
 /**
  * Classe principale et point d'entrée du jeu Sokoban.
  * Cette classe étend {@link ApplicationAdapter} pour s'intégrer au cycle de vie de LibGDX.
+ * <p>
+ * Les ressources sont chargées de manière asynchrone par {@link SokobanAssets} : tant que
+ * le chargement initial n'est pas terminé, un {@link LoadingScreen} affiche la progression,
+ * puis les composants MVC sont construits à partir des ressources déjà en mémoire.
+ * </p>
  * @author Bernard PABLO
  */
 public class MySokoban extends ApplicationAdapter {
+    /** Pas de temps fixe de la mise à jour des entrées et des animations (120 Hz). */
+    private static final float TIME_STEP = 1 / 120f;
+    /** Temps maximal rattrapé en une image, pour éviter la spirale de rattrapage après une pause. */
+    private static final float MAX_FRAME_TIME = 0.25f;
+    /** Journal de sauvegarde automatique, relatif au répertoire de travail. */
+    private static final String AUTOSAVE_FILE = "autosave.journal";
+    /** Journal des statistiques de jeu (son index est stocké à côté). */
+    private static final String STATS_FILE = "stats.dat";
+    /** Répertoire du cache des analyses de niveaux (solutions, cases mortes, mesures). */
+    private static final String CACHE_DIR = "cache";
+
+    private SokobanAssets assets;
+    private LoadingScreen loadingScreen;
     private SokobanModel model;
     private SokobanView view;
     private SokobanController controller;
     private SokobanSound sound;
+    private MoveJournal journal;
+    private StatsRecorder stats;
+
+    private float accumulator;
+    private long createTime;
+    private boolean firstFrameReported;
 
     /**
-     * Initialise les composants du jeu au lancement de l'application.
+     * Initialise le pipeline de ressources et met en file d'attente le premier niveau.
      */
     @Override
     public void create() {
-        model = new SokobanModel();
-        view = new SokobanView(model);
-        sound = new SokobanSound(model);
+        createTime = System.nanoTime();
+        try {
+            LevelLoader.setAnalysisCache(new AnalysisCache(Gdx.files.local(CACHE_DIR).file(), AnalysisCache.DEFAULT_MAX_BYTES));
+        } catch (IOException e) {
+            System.err.println("Cache d'analyse désactivé : " + e.getMessage());
+        }
+        assets = new SokobanAssets();
+        assets.queueStartup(SokobanController.FIRST_LEVEL);
+        loadingScreen = new LoadingScreen();
+    }
+
+    /**
+     * Construit les composants du jeu une fois les ressources initiales chargées.
+     */
+    private void startGame() {
+        model = new SokobanModel(assets);
+        view = new SokobanView(model, assets);
+        sound = new SokobanSound(model, assets);
         controller = new SokobanController(model, view);
 
+        // Reprend la partie interrompue, sans animer le rejeu
+        journal = new MoveJournal(model, Gdx.files.local(AUTOSAVE_FILE).file());
+        view.getAnimator().setEnabled(false);
+        sound.setMuted(true);
+        journal.recover();
+        sound.setMuted(false);
+        view.getAnimator().setEnabled(true);
+
+        // Statistiques du profil (propriété système "sokoban.profile")
+        try {
+            StatsStore store = new StatsStore(Gdx.files.local(STATS_FILE).file());
+            stats = new StatsRecorder(model, store, System.getProperty("sokoban.profile", "joueur"));
+        } catch (IOException e) {
+            System.err.println("Statistiques désactivées : " + e.getMessage());
+        }
+
         // Définit le contrôleur comme processeur d'entrées par défaut
         Gdx.input.setInputProcessor(controller);
+
+        // L'écran de chargement n'est plus utile
+        loadingScreen.dispose();
+        loadingScreen = null;
     }
 
     /**
@@ -35,16 +103,85 @@ public class MySokoban extends ApplicationAdapter {
      */
     @Override
     public void resize(int width, int height) {
-        view.resize(width, height);
+        if (view != null) {
+            view.resize(width, height);
+        } else if (loadingScreen != null) {
+            loadingScreen.resize(width, height);
+        }
     }
 
     /**
      * Boucle de rendu principale.
-     * Délègue l'intégralité du dessin à l'objet {@link SokobanView}.
+     * Fait progresser le chargement des ressources et les animations (à pas de temps fixe),
+     * puis délègue l'intégralité du dessin à l'objet {@link SokobanView} (ou à l'écran de chargement).
      */
     @Override
     public void render() {
+        boolean loaded = assets.update();
+
+        if (model == null) {
+            if (!loaded) {
+                loadingScreen.render(assets.getProgress());
+                return;
+            }
+            startGame();
+        }
+
+        // Image lente : écriture de l'enregistrement JFR continu, s'il est actif
+        FlightRecorder.checkFrame(Gdx.graphics.getDeltaTime());
+
+        Object span = FlightRecorder.begin(ProfileEvent.FRAME_UPDATE);
+        accumulator += Math.min(Gdx.graphics.getDeltaTime(), MAX_FRAME_TIME);
+        while (accumulator >= TIME_STEP) {
+            controller.update(TIME_STEP);
+            view.update(TIME_STEP);
+            accumulator -= TIME_STEP;
+        }
+        sound.update(Gdx.graphics.getDeltaTime());
+        FlightRecorder.end(span, null, 0);
+
         view.render();
+
+        if (!firstFrameReported) {
+            firstFrameReported = true;
+            reportFirstFrame();
+        }
+    }
+
+    /**
+     * En mode banc d'essai (propriété système {@code sokoban.startupBenchmark}) seulement,
+     * affiche le temps écoulé jusqu'à la première image, puis le même temps mesuré depuis
+     * l'heure de lancement transmise par {@code sokoban.launchMillis} (le processus lui-même,
+     * JVM ou image native, est alors inclus) et la mémoire résidente du processus ;
+     * l'application se ferme aussitôt.
+     */
+    private void reportFirstFrame() {
+        if (!Boolean.getBoolean("sokoban.startupBenchmark")) return;
+        System.out.println("Temps jusqu'à la première image : "
+            + (System.nanoTime() - createTime) / 1_000_000 + " ms");
+
+        long launch = Long.getLong("sokoban.launchMillis", 0L);
+        long sinceLaunch = launch > 0 ? System.currentTimeMillis() - launch : -1;
+        // Ligne lue par la tâche Gradle startupBenchmark
+        System.out.println("STARTUP ttff_ms=" + sinceLaunch + " rss_kb=" + residentMemoryKb());
+        Gdx.app.exit();
+    }
+
+    /**
+     * @return La mémoire résidente du processus en Ko (Linux uniquement), ou -1.
+     */
+    private static long residentMemoryKb() {
+        try (BufferedReader reader = new BufferedReader(new FileReader("/proc/self/status"))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", ""));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Système sans /proc : mesure indisponible
+        }
+        return -1;
     }
 
     /**
@@ -52,12 +189,17 @@ public class MySokoban extends ApplicationAdapter {
      */
     @Override
     public void dispose() {
-        view.dispose();
-        sound.dispose();
-        if (model.getMap() != null) {
-            model.getMap().dispose();
+        if (journal != null) {
+            // Écrit les derniers mouvements avant de libérer le modèle
+            journal.close();
         }
+        if (stats != null) stats.dispose();
+        if (view != null) view.dispose();
+        if (sound != null) sound.dispose();
+        if (model != null) model.dispose();
+        if (loadingScreen != null) loadingScreen.dispose();
+        // Libère les cartes, le tileset partagé, les sons et la police encore chargés
+        assets.dispose();
+        FlightRecorder.stop();
     }
 }
-
-
@@ -0,0 +1,232 @@
+package com.bernardpablo.sokoban;
+
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.maps.MapLayer;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.IdentityMap;
+import com.badlogic.gdx.utils.ObjectSet;
+
+/**
+ * Registre des ressources natives détenues par le jeu.
+ * <p>
+ * Chaque composant (modèle, vue, son, pipeline de ressources) déclare ici les
+ * {@link Disposable} dont il est propriétaire au moment de leur création, et les retire
+ * au moment de leur libération. Le registre expose en continu le nombre de ressources
+ * vivantes et une estimation de leur empreinte mémoire, par catégorie, ce qui permet de
+ * détecter les fuites (une carte non libérée à chaque changement de niveau, par exemple).
+ * </p>
+ * <p>
+ * Les textures sont comptées par référence : le tileset partagé par plusieurs cartes
+ * n'est compté qu'une seule fois, et ne disparaît du registre qu'avec la dernière carte.
+ * </p>
+ * @author Bernard PABLO
+ */
+public class ResourceTracker {
+
+    /**
+     * Catégories de ressources suivies.
+     */
+    public enum Kind {
+        /** Texture OpenGL (tilesets, police). */
+        TEXTURE,
+        /** Effet sonore chargé en mémoire. */
+        SOUND,
+        /** Carte Tiled (couches et tuiles, hors textures). */
+        MAP,
+        /** Autres ressources natives (batchs, renderers). */
+        OTHER
+    }
+
+    /** Taille estimée des tampons d'un SpriteBatch par défaut (1000 sprites + indices). */
+    public static final long SPRITE_BATCH_BYTES = 1000 * 4 * 5 * 4 + 6000 * 2;
+    /** Taille estimée des tampons d'un ShapeRenderer par défaut (5000 sommets). */
+    public static final long SHAPE_RENDERER_BYTES = 5000 * 4 * 4;
+
+    /** Entrée du registre : catégorie, taille estimée et nombre de propriétaires. */
+    private static final class Entry {
+        final Kind kind;
+        final long bytes;
+        int references;
+
+        Entry(Kind kind, long bytes) {
+            this.kind = kind;
+            this.bytes = bytes;
+        }
+    }
+
+    private final IdentityMap<Object, Entry> live = new IdentityMap<>();
+    private final int[] counts = new int[Kind.values().length];
+    private final long[] bytes = new long[Kind.values().length];
+
+    /**
+     * Déclare une ressource détenue. Un second enregistrement de la même instance
+     * incrémente simplement son compteur de références.
+     * @param resource La ressource suivie.
+     * @param kind     Sa catégorie.
+     * @param size     Son empreinte estimée en octets.
+     * @param <T>      Type de la ressource.
+     * @return La ressource, pour permettre le chaînage à la création.
+     */
+    public synchronized <T> T track(T resource, Kind kind, long size) {
+        if (resource == null) return null;
+        Entry entry = live.get(resource);
+        if (entry == null) {
+            entry = new Entry(kind, size);
+            live.put(resource, entry);
+            counts[kind.ordinal()]++;
+            bytes[kind.ordinal()] += size;
+        }
+        entry.references++;
+        return resource;
+    }
+
+    /**
+     * Retire une référence sur une ressource, sans la libérer.
+     * @param resource La ressource suivie.
+     * @return true si c'était la dernière référence.
+     */
+    public synchronized boolean untrack(Object resource) {
+        if (resource == null) return false;
+        Entry entry = live.get(resource);
+        if (entry == null) return false;
+        if (--entry.references > 0) return false;
+
+        live.remove(resource);
+        counts[entry.kind.ordinal()]--;
+        bytes[entry.kind.ordinal()] -= entry.bytes;
+        return true;
+    }
+
+    /**
+     * Retire une référence sur une ressource et la libère s'il s'agissait de la dernière.
+     * @param resource La ressource à libérer.
+     */
+    public void dispose(Disposable resource) {
+        if (untrack(resource)) {
+            resource.dispose();
+        }
+    }
+
+    /**
+     * Déclare une carte Tiled ainsi que chacune des textures de ses tilesets.
+     * @param map La carte chargée.
+     * @return La carte.
+     */
+    public TiledMap trackMap(TiledMap map) {
+        if (map == null) return null;
+        track(map, Kind.MAP, estimateBytes(map));
+        for (Texture texture : texturesOf(map)) {
+            track(texture, Kind.TEXTURE, estimateBytes(texture));
+        }
+        return map;
+    }
+
+    /**
+     * Retire une carte du registre ainsi que sa référence sur chacune de ses textures.
+     * La libération effective reste à la charge du propriétaire (carte ou AssetManager).
+     * @param map La carte à retirer.
+     */
+    public void untrackMap(TiledMap map) {
+        if (map == null) return;
+        for (Texture texture : texturesOf(map)) {
+            untrack(texture);
+        }
+        untrack(map);
+    }
+
+    /**
+     * @param kind La catégorie interrogée.
+     * @return Le nombre de ressources vivantes de cette catégorie.
+     */
+    public synchronized int getCount(Kind kind) {
+        return counts[kind.ordinal()];
+    }
+
+    /**
+     * @param kind La catégorie interrogée.
+     * @return L'empreinte estimée, en octets, des ressources vivantes de cette catégorie.
+     */
+    public synchronized long getBytes(Kind kind) {
+        return bytes[kind.ordinal()];
+    }
+
+    /** @return L'empreinte estimée totale, en octets, de toutes les ressources vivantes. */
+    public synchronized long getTotalBytes() {
+        long total = 0;
+        for (long b : bytes) total += b;
+        return total;
+    }
+
+    /** @return Un résumé lisible de l'état du registre. */
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder("Ressources vivantes :");
+        for (Kind kind : Kind.values()) {
+            sb.append(' ').append(kind).append('=').append(counts[kind.ordinal()])
+                .append(" (").append(bytes[kind.ordinal()] / 1024).append(" Ko)");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Estime la mémoire vidéo occupée par une texture (sans mipmaps).
+     * @param texture La texture.
+     * @return Taille estimée en octets.
+     */
+    public static long estimateBytes(Texture texture) {
+        int bytesPerPixel = 4;
+        if (texture.getTextureData() != null && texture.getTextureData().getFormat() != null) {
+            bytesPerPixel = bytesPerPixel(texture.getTextureData().getFormat());
+        }
+        return (long) texture.getWidth() * texture.getHeight() * bytesPerPixel;
+    }
+
+    /**
+     * Estime la mémoire occupée par les couches de tuiles d'une carte (hors textures).
+     * @param map La carte.
+     * @return Taille estimée en octets (une référence de cellule par case).
+     */
+    public static long estimateBytes(TiledMap map) {
+        long size = 0;
+        for (MapLayer layer : map.getLayers()) {
+            if (layer instanceof TiledMapTileLayer) {
+                TiledMapTileLayer tiles = (TiledMapTileLayer) layer;
+                size += (long) tiles.getWidth() * tiles.getHeight() * 8;
+            }
+        }
+        return size;
+    }
+
+    private static int bytesPerPixel(Pixmap.Format format) {
+        switch (format) {
+            case Alpha:
+            case Intensity:
+                return 1;
+            case LuminanceAlpha:
+            case RGB565:
+            case RGBA4444:
+                return 2;
+            case RGB888:
+                return 3;
+            default:
+                return 4;
+        }
+    }
+
+    private static ObjectSet<Texture> texturesOf(TiledMap map) {
+        ObjectSet<Texture> textures = new ObjectSet<>();
+        for (TiledMapTileSet tileSet : map.getTileSets()) {
+            for (TiledMapTile tile : tileSet) {
+                if (tile.getTextureRegion() != null) {
+                    textures.add(tile.getTextureRegion().getTexture());
+                }
+            }
+        }
+        return textures;
+    }
+}
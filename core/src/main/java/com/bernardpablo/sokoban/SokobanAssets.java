@@ -0,0 +1,185 @@
+package com.bernardpablo.sokoban;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.BitmapFontLoader;
+import com.badlogic.gdx.assets.loaders.SoundLoader;
+import com.badlogic.gdx.assets.loaders.resolvers.ClasspathFileHandleResolver;
+import com.badlogic.gdx.assets.loaders.resolvers.InternalFileHandleResolver;
+import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.tiled.BaseTiledMapLoader;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TmxMapLoader;
+import com.bernardpablo.sokoban.audio.SoundCue;
+
+/**
+ * Pipeline centralisé de chargement des ressources du jeu.
+ * <p>
+ * Cette classe encapsule un {@link AssetManager} de LibGDX : les fichiers (cartes TMX,
+ * banque sonore, police) sont mis en file d'attente puis chargés progressivement, image par image,
+ * via {@link #update()}, ce qui évite de bloquer le thread de rendu au démarrage.
+ * </p>
+ * <p>
+ * Les dépendances sont comptées par référence par l'{@link AssetManager} : le tileset
+ * partagé par plusieurs niveaux n'est chargé qu'une seule fois et n'est libéré qu'au
+ * déchargement du dernier niveau qui l'utilise.
+ * </p>
+ * <p>
+ * Chaque ressource chargée est déclarée auprès d'un {@link ResourceTracker} dès la fin
+ * de son chargement, et retirée à son déchargement.
+ * </p>
+ * @author Bernard PABLO
+ */
+public class SokobanAssets {
+    /** Dossier (relatif aux assets) contenant les fichiers de niveaux. */
+    public static final String MAPS_DIR = "maps/";
+    /** Police par défaut de LibGDX, chargée depuis le classpath. */
+    public static final String DEFAULT_FONT = "com/badlogic/gdx/utils/lsans-15.fnt";
+
+    private final AssetManager manager;
+    private final ResourceTracker tracker;
+
+    /**
+     * Constructeur : Configure l'{@link AssetManager} et ses chargeurs spécifiques
+     * (cartes Tiled depuis les assets, police depuis le classpath).
+     */
+    public SokobanAssets() {
+        InternalFileHandleResolver resolver = new InternalFileHandleResolver();
+        this.manager = new AssetManager(resolver);
+        this.tracker = new ResourceTracker();
+        manager.setLoader(TiledMap.class, new TmxMapLoader(resolver));
+        manager.setLoader(BitmapFont.class, new BitmapFontLoader(new ClasspathFileHandleResolver()));
+    }
+
+    /**
+     * Met en file d'attente les ressources nécessaires à l'affichage du premier niveau.
+     * @param firstLevel Nom du fichier du premier niveau (ex: "sokoban_level1.tmx").
+     */
+    public void queueStartup(String firstLevel) {
+        SoundLoader.SoundParameter soundParams = new SoundLoader.SoundParameter();
+        soundParams.loadedCallback = (am, fileName, type) ->
+            tracker.track(am.get(fileName, Sound.class), ResourceTracker.Kind.SOUND, Gdx.files.internal(fileName).length());
+        // Banque sonore complète, chargée en arrière-plan avec le premier niveau
+        for (SoundCue cue : SoundCue.values()) {
+            manager.load(cue.getFile(), Sound.class, soundParams);
+        }
+
+        BitmapFontLoader.BitmapFontParameter fontParams = new BitmapFontLoader.BitmapFontParameter();
+        fontParams.loadedCallback = (am, fileName, type) -> {
+            for (TextureRegion region : am.get(fileName, BitmapFont.class).getRegions()) {
+                tracker.track(region.getTexture(), ResourceTracker.Kind.TEXTURE, ResourceTracker.estimateBytes(region.getTexture()));
+            }
+        };
+        manager.load(DEFAULT_FONT, BitmapFont.class, fontParams);
+
+        queueLevel(firstLevel);
+    }
+
+    /**
+     * Met un niveau en file d'attente pour un chargement asynchrone (préchargement).
+     * Sans effet si le niveau est déjà chargé ou en cours de chargement.
+     * @param levelPath Nom du fichier de niveau, relatif au dossier des cartes.
+     */
+    public void queueLevel(String levelPath) {
+        if (levelPath == null || levelPath.isEmpty()) return;
+        String fileName = MAPS_DIR + levelPath;
+        // Un second appel à load() incrémenterait le compteur de références
+        if (!manager.contains(fileName)) {
+            BaseTiledMapLoader.Parameters params = new BaseTiledMapLoader.Parameters();
+            params.loadedCallback = (am, name, type) -> tracker.trackMap(am.get(name, TiledMap.class));
+            manager.load(fileName, TiledMap.class, params);
+        }
+    }
+
+    /**
+     * Fait progresser le chargement des ressources en file d'attente.
+     * Doit être appelée à chaque image depuis le thread de rendu.
+     * @return true si toutes les ressources en attente sont chargées.
+     */
+    public boolean update() {
+        return manager.update();
+    }
+
+    /** @return La progression du chargement en cours, entre 0 et 1. */
+    public float getProgress() {
+        return manager.getProgress();
+    }
+
+    /**
+     * Récupère la carte d'un niveau, en terminant son chargement de manière bloquante
+     * s'il n'a pas pu être préchargé à temps.
+     * @param levelPath Nom du fichier de niveau.
+     * @return La {@link TiledMap} chargée.
+     */
+    public TiledMap getLevel(String levelPath) {
+        queueLevel(levelPath);
+        return manager.finishLoadingAsset(MAPS_DIR + levelPath);
+    }
+
+    /**
+     * Décharge la carte d'un niveau. Le tileset n'est libéré que si plus aucun
+     * niveau chargé ne l'utilise.
+     * @param levelPath Nom du fichier de niveau.
+     */
+    public void unloadLevel(String levelPath) {
+        String fileName = MAPS_DIR + levelPath;
+        if (manager.isLoaded(fileName, TiledMap.class)) {
+            tracker.untrackMap(manager.get(fileName, TiledMap.class));
+        }
+        if (manager.contains(fileName)) {
+            manager.unload(fileName);
+        }
+    }
+
+    /**
+     * @param cue Un effet de la banque sonore.
+     * @return Le son correspondant (chargement terminé de manière bloquante si nécessaire).
+     */
+    public Sound getSound(SoundCue cue) {
+        return manager.finishLoadingAsset(cue.getFile());
+    }
+
+    /** @return La police utilisée par les overlays. */
+    public BitmapFont getFont() {
+        return manager.finishLoadingAsset(DEFAULT_FONT);
+    }
+
+    /**
+     * Décharge une ressource quelconque gérée par ce pipeline.
+     * @param fileName Chemin de la ressource.
+     */
+    public void unload(String fileName) {
+        if (manager.isLoaded(fileName, Sound.class)) {
+            tracker.untrack(manager.get(fileName, Sound.class));
+        }
+        if (manager.contains(fileName)) {
+            manager.unload(fileName);
+        }
+    }
+
+    /** @return Le registre des ressources natives alimenté par ce pipeline. */
+    public ResourceTracker getTracker() {
+        return tracker;
+    }
+
+    /**
+     * Libère l'ensemble des ressources natives encore chargées.
+     */
+    public void dispose() {
+        for (String fileName : manager.getAssetNames()) {
+            Class<?> type = manager.getAssetType(fileName);
+            if (type == TiledMap.class) {
+                tracker.untrackMap(manager.get(fileName, TiledMap.class));
+            } else if (type == Sound.class) {
+                tracker.untrack(manager.get(fileName, Sound.class));
+            } else if (type == BitmapFont.class) {
+                for (TextureRegion region : manager.get(fileName, BitmapFont.class).getRegions()) {
+                    tracker.untrack(region.getTexture());
+                }
+            }
+        }
+        manager.dispose();
+    }
+}
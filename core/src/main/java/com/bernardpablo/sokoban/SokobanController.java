@@ -3,6 +3,9 @@ package com.bernardpablo.sokoban;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input;
 import com.badlogic.gdx.InputAdapter;
+import com.badlogic.gdx.math.Vector2;
+import com.bernardpablo.sokoban.entities.factory.Crate;
+import com.bernardpablo.sokoban.profiling.FlightRecorder;
 
 import java.util.Observable;
 import java.util.Observer;
@@ -13,16 +16,49 @@ import java.util.Observer;
  * Cette classe fait le lien entre l'utilisateur et le système. Elle capture les entrées
  * clavier via {@link InputAdapter} et pilote le {@link SokobanModel}.
  * </p>
+ * <p>
+ * Les déplacements ne sont pas appliqués directement dans les callbacks d'entrée : ils
+ * sont placés dans une {@link InputQueue} bornée, vidée à fréquence fixe par
+ * {@link #update(float)} (plusieurs mouvements par tick au maximum). Une touche de
+ * direction maintenue génère des répétitions automatiques configurables.
+ * </p>
+ * <p>
+ * Un clic sur une case libre y conduit le joueur par le plus court chemin ; une caisse
+ * peut être sélectionnée puis déposée sur une case, les poussées étant planifiées.
+ * Un clic ou un glissement sur la barre du bas ({@link TimelineBar}) ramène la partie au
+ * coup correspondant.
+ * </p>
  * @author Bernard PABLO
  */
 public class SokobanController extends InputAdapter implements Observer {
     /** Taille d'une tuile en pixels, utilisée pour définir l'amplitude des déplacements. */
     private static final int TILE_SIZE = 64;
+    /**
+     * Premier niveau chargé au lancement du jeu. La propriété système {@code sokoban.level}
+     * permet de commencer par un autre fichier (par exemple une collection importée).
+     */
+    public static final String FIRST_LEVEL = System.getProperty("sokoban.level", "sokoban_level1.tmx");
+    /** Capacité de la file de commandes de déplacement. */
+    private static final int QUEUE_CAPACITY = 64;
 
     private final SokobanModel model;
     private final SokobanView view;
+    private final InputQueue queue;
 
     private boolean gameCompleted;
+    private Crate selectedCrate;
+    /** Vrai pendant un glissement sur la barre de défilement de la partie. */
+    private boolean scrubbing;
+
+    private float tickInterval = 1 / 60f;
+    private int movesPerTick = 4;
+    private float repeatDelay = 0.2f;
+    private float repeatInterval = 0.07f;
+
+    private float tickAccumulator;
+    private int heldKey = -1;
+    private float heldTime;
+    private float nextRepeat;
 
     /**
      * Constructeur : Initialise le contrôleur, lie la vue et le modèle, et lance le premier niveau.
@@ -33,10 +69,11 @@ public class SokobanController extends InputAdapter implements Observer {
         this.model = model;
         this.view = view;
         this.gameCompleted = false;
+        this.queue = new InputQueue(QUEUE_CAPACITY);
 
         model.addObserver(this);
 
-        model.loadLevel("sokoban_level1.tmx");
+        model.loadLevel(FIRST_LEVEL);
         view.getTextOverlay().showHelp();
     }
 
@@ -44,7 +81,8 @@ public class SokobanController extends InputAdapter implements Observer {
      * Gère la saisie de caractères
      * <p>
      * Cette méthode traite les commandes globales :
-     * 'R' pour recommencer, 'H' pour l'aide et 'A' pour les informations.
+     * 'R' pour recommencer, 'H' pour l'aide, 'A' pour les informations et 'D' pour
+     * afficher la distance de chaque caisse à la solution.
      * Si un overlay est visible, n'importe quelle touche le fermera.
      * </p>
      * @param character Le caractère saisi.
@@ -71,6 +109,9 @@ public class SokobanController extends InputAdapter implements Observer {
             case 'a' :
                 view.getTextOverlay().showAbout();
                 return true;
+            case 'd' :
+                view.toggleDistances();
+                return true;
         }
         return false;
     }
@@ -79,7 +120,7 @@ public class SokobanController extends InputAdapter implements Observer {
      * Gère l'appui sur les touches sans caractère.
      * <p>
      * Traduit les flèches directionnelles en ordres de mouvement pour le joueur
-     * au sein du modèle.
+     * au sein du modèle. F9 écrit l'enregistrement JFR continu, s'il est actif.
      * </p>
      * @param keycode Le code de la touche appuyée (constantes Input.Keys).
      * @return true si l'entrée a été traitée.
@@ -94,16 +135,16 @@ public class SokobanController extends InputAdapter implements Observer {
 
         switch (keycode) {
             case Input.Keys.LEFT:
-                model.movePlayer(-TILE_SIZE, 0);
-                return true;
             case Input.Keys.RIGHT:
-                model.movePlayer(TILE_SIZE, 0);
-                return true;
             case Input.Keys.UP:
-                model.movePlayer(0, TILE_SIZE);
-                return true;
             case Input.Keys.DOWN:
-                model.movePlayer(0, -TILE_SIZE);
+                heldKey = keycode;
+                heldTime = 0;
+                nextRepeat = repeatDelay;
+                enqueueMove(keycode);
+                return true;
+            case Input.Keys.F9:
+                FlightRecorder.dump("manuel");
                 return true;
             case Input.Keys.ESCAPE:
                 Gdx.app.exit();
@@ -112,6 +153,231 @@ public class SokobanController extends InputAdapter implements Observer {
         return false;
     }
 
+    /**
+     * Arrête la répétition automatique lorsque la touche maintenue est relâchée.
+     * @param keycode Le code de la touche relâchée.
+     * @return true si l'entrée a été traitée.
+     */
+    @Override
+    public boolean keyUp(int keycode) {
+        if (keycode == heldKey) {
+            heldKey = -1;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gère le clic (ou le toucher) sur le plateau.
+     * <p>
+     * Un clic sur une caisse la sélectionne ; le clic suivant (ou le relâchement du bouton
+     * après un glisser-déposer) désigne sa destination, et le modèle planifie puis applique
+     * les poussées nécessaires. Sans caisse sélectionnée, un clic sur une case libre y
+     * conduit le joueur ("cliquer pour se déplacer").
+     * </p>
+     * <p>
+     * Les commandes clavier encore en attente sont appliquées d'abord pour respecter
+     * l'ordre de saisie, puis l'action complète est appliquée en un seul bloc par le modèle.
+     * </p>
+     * @param screenX Position X du clic à l'écran.
+     * @param screenY Position Y du clic à l'écran.
+     * @param pointer Index du pointeur.
+     * @param button  Bouton de la souris.
+     * @return true si l'entrée a été traitée.
+     */
+    @Override
+    public boolean touchDown(int screenX, int screenY, int pointer, int button) {
+        if (view.getTextOverlay().isVisible()) {
+            view.getTextOverlay().hide();
+            if (gameCompleted) Gdx.app.exit();
+            return true;
+        }
+        if (button != Input.Buttons.LEFT || model.getGrid() == null) return false;
+
+        drain(QUEUE_CAPACITY);
+        TimelineBar bar = view.getTimelineBar();
+        if (model.getTimeline().getSize() > 0 && bar.contains(screenX, screenY)) {
+            scrubbing = true;
+            selectCrate(null);
+            model.seekTo(bar.moveAt(screenX, model.getTimeline()));
+            return true;
+        }
+        Vector2 world = view.screenToWorld(screenX, screenY);
+        int cellX = model.getGrid().toCell(world.x);
+        int cellY = model.getGrid().toCell(world.y);
+        int tile = model.getGrid().getTileSize();
+
+        Crate crate = model.getCrateAt(cellX * tile, cellY * tile);
+        if (crate != null) {
+            selectCrate(crate == selectedCrate ? null : crate);
+        } else if (selectedCrate != null) {
+            Crate moving = selectedCrate;
+            selectCrate(null);
+            model.pushCrateTo(moving, cellX, cellY);
+        } else {
+            model.walkPlayerTo(cellX, cellY);
+        }
+        return true;
+    }
+
+    /**
+     * Termine un glisser-déposer : si le bouton est relâché ailleurs que sur la caisse
+     * sélectionnée, celle-ci est poussée jusqu'à la case de relâchement.
+     * @param screenX Position X à l'écran.
+     * @param screenY Position Y à l'écran.
+     * @param pointer Index du pointeur.
+     * @param button  Bouton de la souris.
+     * @return true si l'entrée a été traitée.
+     */
+    @Override
+    public boolean touchUp(int screenX, int screenY, int pointer, int button) {
+        if (scrubbing) {
+            scrubbing = false;
+            return true;
+        }
+        if (selectedCrate == null || button != Input.Buttons.LEFT) return false;
+
+        Vector2 world = view.screenToWorld(screenX, screenY);
+        int cellX = model.getGrid().toCell(world.x);
+        int cellY = model.getGrid().toCell(world.y);
+        if (cellX == model.getGrid().toCell(selectedCrate.getX()) && cellY == model.getGrid().toCell(selectedCrate.getY())) {
+            return false; // Simple clic : la caisse reste sélectionnée
+        }
+
+        Crate moving = selectedCrate;
+        selectCrate(null);
+        model.pushCrateTo(moving, cellX, cellY);
+        return true;
+    }
+
+    /**
+     * Suit un glissement sur la barre de défilement : la partie est ramenée au coup survolé.
+     * @param screenX Position X à l'écran.
+     * @param screenY Position Y à l'écran.
+     * @param pointer Index du pointeur.
+     * @return true si l'entrée a été traitée.
+     */
+    @Override
+    public boolean touchDragged(int screenX, int screenY, int pointer) {
+        if (!scrubbing) return false;
+        model.seekTo(view.getTimelineBar().moveAt(screenX, model.getTimeline()));
+        return true;
+    }
+
+    /**
+     * Sélectionne une caisse (ou annule la sélection) et en informe la vue.
+     * @param crate La caisse sélectionnée, ou null.
+     */
+    private void selectCrate(Crate crate) {
+        selectedCrate = crate;
+        view.setSelectedCrate(crate);
+    }
+
+    /**
+     * Ajoute un déplacement dans la file de commandes (saisie clavier ou entrée scriptée).
+     * <p>
+     * Si la file est pleine, la commande la plus ancienne est appliquée immédiatement :
+     * aucune commande n'est perdue et l'ordre de saisie est respecté.
+     * </p>
+     * @param keycode Une touche de direction ({@link Input.Keys#LEFT}, RIGHT, UP ou DOWN).
+     */
+    public void enqueueMove(int keycode) {
+        long now = System.nanoTime();
+        if (!queue.offer(keycode, now)) {
+            drain(1);
+            queue.offer(keycode, now);
+        }
+    }
+
+    /**
+     * Fait avancer le contrôleur d'un pas de temps : répétition automatique de la touche
+     * maintenue, puis application des commandes en attente à la fréquence de tick configurée.
+     * @param delta Temps écoulé en secondes.
+     */
+    public void update(float delta) {
+        if (heldKey != -1) {
+            heldTime += delta;
+            while (heldTime >= nextRepeat) {
+                // Les répétitions ne s'accumulent pas derrière des commandes encore en attente
+                if (queue.isEmpty()) {
+                    enqueueMove(heldKey);
+                }
+                nextRepeat += repeatInterval;
+            }
+        }
+
+        tickAccumulator += delta;
+        while (tickAccumulator >= tickInterval) {
+            tickAccumulator -= tickInterval;
+            drain(movesPerTick);
+        }
+    }
+
+    /**
+     * Applique au modèle, dans l'ordre, au plus {@code max} commandes en attente.
+     * @param max Nombre maximal de commandes à appliquer.
+     */
+    private void drain(int max) {
+        for (int i = 0; i < max && !queue.isEmpty(); i++) {
+            int keycode = queue.peekKey();
+            switch (keycode) {
+                case Input.Keys.LEFT:
+                    model.movePlayer(-TILE_SIZE, 0);
+                    break;
+                case Input.Keys.RIGHT:
+                    model.movePlayer(TILE_SIZE, 0);
+                    break;
+                case Input.Keys.UP:
+                    model.movePlayer(0, TILE_SIZE);
+                    break;
+                case Input.Keys.DOWN:
+                    model.movePlayer(0, -TILE_SIZE);
+                    break;
+                default:
+                    break;
+            }
+            // Un changement de niveau pendant le mouvement a pu vider la file
+            if (!queue.isEmpty()) {
+                queue.poll(System.nanoTime());
+            }
+        }
+    }
+
+    /**
+     * Configure la fréquence à laquelle la file de commandes est vidée.
+     * @param ticksPerSecond Nombre de ticks par seconde.
+     * @param movesPerTick   Nombre maximal de déplacements appliqués par tick.
+     * @throws IllegalArgumentException Si l'une des valeurs n'est pas strictement positive.
+     */
+    public void setTickRate(float ticksPerSecond, int movesPerTick) {
+        if (!(ticksPerSecond > 0) || Float.isInfinite(ticksPerSecond) || movesPerTick <= 0) {
+            throw new IllegalArgumentException("Fréquence de tick invalide : " + ticksPerSecond
+                + " tick(s)/s, " + movesPerTick + " déplacement(s) par tick.");
+        }
+        this.tickInterval = 1 / ticksPerSecond;
+        this.movesPerTick = movesPerTick;
+    }
+
+    /**
+     * Configure la répétition automatique d'une touche de direction maintenue.
+     * @param delay    Délai avant la première répétition, en secondes.
+     * @param interval Intervalle entre deux répétitions, en secondes.
+     * @throws IllegalArgumentException Si le délai est négatif ou si l'intervalle n'est pas
+     *         strictement positif (la répétition ne finirait jamais).
+     */
+    public void setKeyRepeat(float delay, float interval) {
+        if (!(delay >= 0) || !(interval > 0)) {
+            throw new IllegalArgumentException("Répétition invalide : délai " + delay + " s, intervalle " + interval + " s.");
+        }
+        this.repeatDelay = delay;
+        this.repeatInterval = interval;
+    }
+
+    /** @return La file de commandes, qui expose les mesures de latence entrée → état. */
+    public InputQueue getInputQueue() {
+        return queue;
+    }
+
     /**
      * Réagit aux notifications du modèle.
      * <p>
@@ -127,6 +393,13 @@ public class SokobanController extends InputAdapter implements Observer {
         String event = (String) arg;
 
         switch (event) {
+            case("LEVEL_LOADED"):
+                // Les commandes saisies pour le niveau précédent ne s'appliquent pas au suivant
+                queue.clear();
+                heldKey = -1;
+                scrubbing = false;
+                selectCrate(null);
+                break;
             case("LEVEL_COMPLETED"):
                 String nextLevel = model.getNextLevel();
                 if (nextLevel != null && !nextLevel.isEmpty()) {
@@ -135,6 +408,7 @@ public class SokobanController extends InputAdapter implements Observer {
                 } else {
                     System.out.println("Niveau completé! Plus du niveaux");
                     gameCompleted = true;
+                    queue.clear();
                     view.getTextOverlay().showMessage(
                         "BRAVO !\n\n" +
                             "Vous avez fini tous les niveaux \n\n" +
@@ -1,19 +1,25 @@
 package com.bernardpablo.sokoban;
 
 import com.badlogic.gdx.maps.tiled.TiledMap;
-import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
-import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
 import com.bernardpablo.sokoban.entities.factory.Crate;
+import com.bernardpablo.sokoban.logic.DistanceTables;
+import com.bernardpablo.sokoban.logic.EntityStore;
 import com.bernardpablo.sokoban.logic.ILevelState;
 import com.bernardpablo.sokoban.entities.factory.Player;
 import com.bernardpablo.sokoban.entities.factory.Target;
 import com.bernardpablo.sokoban.logic.LevelContent;
+import com.bernardpablo.sokoban.logic.LevelGrid;
 import com.bernardpablo.sokoban.logic.LevelLoader;
+import com.bernardpablo.sokoban.logic.PathFinder;
+import com.bernardpablo.sokoban.logic.PushEngine;
+import com.bernardpablo.sokoban.logic.PushPlanner;
 import com.bernardpablo.sokoban.logic.SokobanRules;
+import com.bernardpablo.sokoban.logic.Timeline;
+import com.bernardpablo.sokoban.profiling.FlightRecorder;
+import com.bernardpablo.sokoban.profiling.ProfileEvent;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Observable;
 
 /**
@@ -30,39 +36,151 @@ import java.util.Observable;
  * * @author Bernard PABLO
  */
 public class SokobanModel extends Observable implements ILevelState {
+    private final SokobanAssets assets;
+    private final ResourceTracker tracker;
     private TiledMap map;
+    private LevelGrid grid;
+    private DistanceTables distances;
     private String currentLevel;
     private String nextLevel;
     private Player player;
-    private Array<Crate> crates;
-    private Array<Target> targets;
+    /** Caisses et cibles, rangées en colonnes ; les listes d'entités en sont la vue. */
+    private final EntityStore store = new EntityStore();
+    private final PathFinder pathFinder = new PathFinder();
+    private final IntArray walkPath = new IntArray();
+    private int lastDirection = -1;
+    /** Nombre de pas et de poussées depuis le chargement du niveau. */
+    private int moveCount;
+    private int pushCount;
+    private final PushEngine pushEngine = new PushEngine();
+    private final PushPlanner pushPlanner = new PushPlanner();
+    private final IntArray pushPlan = new IntArray();
+    private final IntArray stepPath = new IntArray();
+    /** Journal des pas et images clés, pour revenir à n'importe quel coup de la partie. */
+    private final Timeline timeline = new Timeline();
+    private final Array<GameEvent.Listener> listeners = new Array<>(false, 4);
 
     /**
      * Initialise un nouveau modèle vide avec des listes d'entités prêtes à être chargées.
+     * Les cartes sont alors chargées de manière synchrone, sans {@link SokobanAssets}.
      */
     public SokobanModel() {
-        this.crates = new Array<>();
-        this.targets = new Array<>();
+        this(null);
+    }
+
+    /**
+     * Initialise un nouveau modèle dont les cartes sont fournies par le pipeline de ressources.
+     * @param assets Le pipeline de chargement asynchrone (peut être null).
+     */
+    public SokobanModel(SokobanAssets assets) {
+        this.assets = assets;
+        this.tracker = assets != null ? assets.getTracker() : new ResourceTracker();
     }
 
     /**
      * Charge un niveau à partir d'un fichier TMX et initialise l'état du jeu.
+     * <p>
+     * Si un pipeline de ressources est disponible, la carte précédente est déchargée
+     * (sauf en cas de redémarrage du même niveau) et le niveau suivant est mis en
+     * préchargement asynchrone.
+     * </p>
      * Notifie les observateurs avec l'événement "LEVEL_LOADED".
      * @param levelPath Chemin interne vers le fichier .tmx du niveau.
      */
     public void loadLevel(String levelPath) {
-        LevelContent content = LevelLoader.load(levelPath, this);
+        LevelContent content;
+        if (assets != null) {
+            // Attente de la carte si son préchargement n'est pas terminé
+            Object span = FlightRecorder.begin(ProfileEvent.LEVEL_PARSE);
+            TiledMap levelMap = assets.getLevel(levelPath);
+            FlightRecorder.end(span, levelPath, 0);
+            content = LevelLoader.load(levelPath, levelMap, this);
+        } else {
+            content = LevelLoader.load(levelPath, this);
+        }
         if (content == null) return;
 
+        releaseMap(levelPath);
+        if (assets == null) {
+            tracker.trackMap(content.map);
+        }
+
         this.map = content.map;
+        this.grid = content.grid;
+        this.distances = content.distances;
         this.player = content.player;
-        this.crates = content.crates;
-        this.targets = content.targets;
+        this.store.load(grid, content.crates, content.targets);
+        this.pushEngine.reset(store, content.pushChain);
         this.nextLevel = content.nextLevel;
         this.currentLevel = levelPath;
+        this.moveCount = 0;
+        this.pushCount = 0;
+        this.timeline.start(store, playerCell());
+
+        if (assets != null) {
+            assets.queueLevel(nextLevel);
+        }
+
+        fireEvent(GameEvent.LEVEL_LOADED);
+    }
+
+    /**
+     * Libère la carte actuellement détenue avant son remplacement.
+     * <p>
+     * Avec un pipeline de ressources, la carte n'est déchargée que si le niveau change
+     * (un redémarrage réutilise la carte déjà en mémoire). Sans pipeline, chaque chargement
+     * produit une nouvelle carte : l'ancienne est donc toujours libérée.
+     * </p>
+     * @param nextPath Le niveau sur le point d'être chargé (null pour tout libérer).
+     */
+    private void releaseMap(String nextPath) {
+        if (map == null) return;
+        if (assets != null) {
+            if (!currentLevel.equals(nextPath)) {
+                assets.unloadLevel(currentLevel);
+            }
+        } else {
+            tracker.untrackMap(map);
+            map.dispose();
+        }
+    }
+
+    /**
+     * Abonne un écouteur typé aux événements du modèle.
+     * @param listener L'écouteur à ajouter.
+     */
+    public void addEventListener(GameEvent.Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Désabonne un écouteur typé.
+     * @param listener L'écouteur à retirer.
+     */
+    public void removeEventListener(GameEvent.Listener listener) {
+        listeners.removeValue(listener, true);
+    }
 
+    /**
+     * Diffuse un événement : son nom aux observateurs, puis la constante aux écouteurs typés.
+     * @param event L'événement à diffuser.
+     */
+    private void fireEvent(GameEvent event) {
+        Object span = FlightRecorder.begin(ProfileEvent.OBSERVER_DISPATCH);
         setChanged();
-        notifyObservers("LEVEL_LOADED");
+        notifyObservers(event.name());
+        for (int i = 0; i < listeners.size; i++) {
+            listeners.get(i).onGameEvent(event);
+        }
+        FlightRecorder.end(span, event.name(), countObservers() + listeners.size);
+    }
+
+    /**
+     * Libère la carte du niveau courant. À appeler à la fermeture du jeu.
+     */
+    public void dispose() {
+        releaseMap(null);
+        map = null;
     }
 
     /**
@@ -70,82 +188,217 @@ public class SokobanModel extends Observable implements ILevelState {
      * @return true si le niveau est terminé avec succès.
      */
     public boolean isLevelCompleted() {
-        if (targets.isEmpty()) return false;
-        for (Target target : targets) {
-            Crate crate = getCrateAt(target.getX(), target.getY());
-            if (!SokobanRules.crateMatchesTarget(crate, target)) {
-                return false;
-            }
-        }
-        return true;
+        return store.isSolved();
     }
 
     /**
      * Tente de déplacer le joueur selon un vecteur de direction.
      * <p>
-     * Utilise un système de snapshot (capture d'état) pour détecter si une caisse
-     * a été poussée sur une cible et déclencher l'événement sonore approprié.
+     * Les caisses déplacées par le mouvement sont relevées par l'{@link EntityStore}, pour
+     * détecter si l'une d'elles a été poussée sur une cible et déclencher l'événement
+     * sonore approprié.
+     * Un déplacement réussi est notifié par l'événement "PLAYER_MOVED".
      * </p>
      * @param dx Déplacement horizontal en pixels.
      * @param dy Déplacement vertical en pixels.
      */
     public void movePlayer(int dx, int dy) {
-        Map<Crate, Vector2> positionsBefore = new HashMap<>();
-        for (Crate crate : crates) {
-            positionsBefore.put(crate, new Vector2(crate.getX(), crate.getY()));
-        }
-
+        Object span = FlightRecorder.begin(ProfileEvent.MOVE);
+        store.clearMoved();
         if (player.tryMove(dx, dy)) {
-            for (Crate crate : crates) {
-                Vector2 oldPos = positionsBefore.get(crate);
-                if (crate.getX() != oldPos.x || crate.getY() != oldPos.y) {
-                    Target target = getTargetAt(crate.getX(), crate.getY());
-                    if (target != null && SokobanRules.crateMatchesTarget(crate, target)) {
-                        setChanged();
-                        notifyObservers("BOX_ON_TARGET");
-                    }
+            lastDirection = LevelGrid.direction(dx, dy);
+            moveCount++;
+            IntArray moved = store.getMoved();
+            if (moved.size > 0) {
+                pushCount++;
+            }
+            timeline.record(lastDirection, moved.size > 0, store, playerCell());
+            fireEvent(GameEvent.PLAYER_MOVED);
+
+            for (int i = 0; i < moved.size; i++) {
+                if (store.isPlaced(moved.get(i))) {
+                    fireEvent(GameEvent.BOX_ON_TARGET);
                 }
             }
 
             if (isLevelCompleted()) {
-                setChanged();
-                notifyObservers("LEVEL_COMPLETED");
+                fireEvent(GameEvent.LEVEL_COMPLETED);
+            }
+        }
+        FlightRecorder.end(span, null, LevelGrid.direction(dx, dy));
+    }
+
+    /**
+     * Déplace le joueur jusqu'à une case, par le plus court chemin ne poussant aucune caisse.
+     * <p>
+     * Le trajet est appliqué en un seul bloc : les étapes intermédiaires ne déclenchent
+     * aucune notification, seul l'événement "PLAYER_WALKED" est émis à l'arrivée. La suite
+     * des directions empruntées reste consultable via {@link #getLastWalk()}.
+     * </p>
+     * @param cellX Colonne de destination.
+     * @param cellY Ligne de destination.
+     * @return true si le joueur s'est déplacé.
+     */
+    public boolean walkPlayerTo(int cellX, int cellY) {
+        int fromX = grid.toCell(player.getX());
+        int fromY = grid.toCell(player.getY());
+        if (!pathFinder.findPath(grid, store.getCrates(), fromX, fromY, cellX, cellY, walkPath) || walkPath.size == 0) {
+            return false;
+        }
+
+        int tile = grid.getTileSize();
+        for (int i = 0; i < walkPath.size; i++) {
+            int dir = walkPath.get(i);
+            player.tryMove(LevelGrid.DX[dir] * tile, LevelGrid.DY[dir] * tile);
+            timeline.record(dir, false, store, playerCell());
+        }
+        moveCount += walkPath.size;
+
+        fireEvent(GameEvent.PLAYER_WALKED);
+        return true;
+    }
+
+    /**
+     * Amène une caisse sur une case en planifiant la suite de poussées nécessaire.
+     * <p>
+     * Le {@link PushPlanner} calcule la plus courte suite de poussées ; chaque poussée est
+     * précédée du plus court trajet du joueur jusqu'à la case située derrière la caisse.
+     * L'ensemble est appliqué en un seul bloc, avec une seule notification "PLAYER_WALKED"
+     * (les déplacements du joueur sont consultables via {@link #getLastWalk()}), suivie
+     * des éventuels "BOX_ON_TARGET" et "LEVEL_COMPLETED".
+     * </p>
+     * <p>
+     * Si la suite ne peut pas être jouée jusqu'au bout, elle reste appliquée en partie (voir
+     * {@link #playPushPlan}) et la méthode renvoie false.
+     * </p>
+     * @param crate La caisse à déplacer.
+     * @param cellX Colonne de destination.
+     * @param cellY Ligne de destination.
+     * @return true si la caisse a été amenée sur la case.
+     */
+    public boolean pushCrateTo(Crate crate, int cellX, int cellY) {
+        int playerX = grid.toCell(player.getX());
+        int playerY = grid.toCell(player.getY());
+        if (!pushPlanner.plan(grid, store.getCrates(), crate, playerX, playerY, cellX, cellY, pushPlan) || pushPlan.size == 0) {
+            return false;
+        }
+        return playPushPlan(crate, pushPlan);
+    }
+
+    /**
+     * Joue une suite de poussées d'une caisse, chacune précédée du plus court trajet du
+     * joueur jusqu'à la case située derrière la caisse.
+     * <p>
+     * La suite s'arrête au premier trajet introuvable ou à la première poussée refusée. Les
+     * pas déjà joués ne sont pas annulés : ils sont comptés, enregistrés dans la
+     * {@link Timeline} et notifiés comme un trajet complet, de sorte que la vue et la
+     * partie restent cohérentes.
+     * </p>
+     * @param crate La caisse à déplacer.
+     * @param plan  Les directions de poussée.
+     * @return true si toute la suite a été jouée.
+     */
+    boolean playPushPlan(Crate crate, IntArray plan) {
+        int tile = grid.getTileSize();
+        int pushes = pushCount;
+        boolean complete = true;
+        walkPath.clear();
+        for (int i = 0; i < plan.size; i++) {
+            int dir = plan.get(i);
+            int behindX = grid.toCell(crate.getX()) - LevelGrid.DX[dir];
+            int behindY = grid.toCell(crate.getY()) - LevelGrid.DY[dir];
+            if (!pathFinder.findPath(grid, store.getCrates(), grid.toCell(player.getX()), grid.toCell(player.getY()),
+                behindX, behindY, stepPath)) {
+                complete = false;
+                break;
+            }
+            for (int j = 0; j < stepPath.size; j++) {
+                int step = stepPath.get(j);
+                player.tryMove(LevelGrid.DX[step] * tile, LevelGrid.DY[step] * tile);
+                timeline.record(step, false, store, playerCell());
             }
+            walkPath.addAll(stepPath);
+            if (!player.tryMove(LevelGrid.DX[dir] * tile, LevelGrid.DY[dir] * tile)) {
+                complete = false;
+                break;
+            }
+            walkPath.add(dir);
+            pushCount++;
+            timeline.record(dir, true, store, playerCell());
+        }
+        moveCount += walkPath.size;
+
+        if (walkPath.size > 0) {
+            fireEvent(GameEvent.PLAYER_WALKED);
         }
+        if (pushCount > pushes && SokobanRules.crateMatchesTarget(crate, getTargetAt(crate.getX(), crate.getY()))) {
+            fireEvent(GameEvent.BOX_ON_TARGET);
+        }
+        if (pushCount > pushes && isLevelCompleted()) {
+            fireEvent(GameEvent.LEVEL_COMPLETED);
+        }
+        return complete;
+    }
+
+    /**
+     * Replace le niveau dans l'état qui suit un coup de la partie en cours (voir
+     * {@link Timeline}) : caisses, joueur et compteurs. Le prochain mouvement efface les
+     * coups suivants de la ligne de temps.
+     * Notifie les observateurs avec l'événement "TIMELINE_SEEK".
+     * @param move Le nombre de pas joués dans l'état voulu (borné à la partie enregistrée).
+     * @return true si l'état a changé.
+     */
+    public boolean seekTo(int move) {
+        if (grid == null) return false;
+        move = Math.max(0, Math.min(move, timeline.getSize()));
+        if (move == timeline.getPosition()) return false;
+
+        int cell = timeline.seek(move, store, pushEngine);
+        int tile = grid.getTileSize();
+        player.placeAt(cell % grid.getWidth() * tile, cell / grid.getWidth() * tile);
+        moveCount = timeline.getPosition();
+        pushCount = timeline.getPushCount();
+
+        fireEvent(GameEvent.TIMELINE_SEEK);
+        return true;
+    }
+
+    /** @return La case du joueur, en index de grille. */
+    private int playerCell() {
+        return grid.index(grid.toCell(player.getX()), grid.toCell(player.getY()));
     }
 
     /**
-     * Détermine si une position donnée est occupée par un mur dans la TiledMap.
+     * Détermine si une position donnée est occupée par un mur (couche "Walls" de la TiledMap,
+     * pré-calculée sous forme de bitset au chargement du niveau).
      * @param x Coordonnée X en pixels.
      * @param y Coordonnée Y en pixels.
      * @return true si la case appartient à la couche "Walls" (ou si hors carte).
      */
     @Override
     public boolean isWall(float x, float y) {
-        int tileX = (int) (x / 64);
-        int tileY = (int) (y / 64);
-        TiledMapTileLayer wallsLayer = (TiledMapTileLayer) map.getLayers().get("Walls");
-
-        if (tileX < 0 || tileY < 0 || tileX >= wallsLayer.getWidth() || tileY >= wallsLayer.getHeight()) {
-            return true;
-        }
-
-        TiledMapTileLayer.Cell cell = wallsLayer.getCell(tileX, tileY);
-        return cell != null && cell.getTile() != null;
+        return grid.isWall(grid.toCell(x), grid.toCell(y));
     }
 
     /**
-     * Recherche une caisse à des coordonnées précises.
+     * Recherche une caisse à des coordonnées précises, par l'index des caisses du
+     * {@link PushEngine} (en temps constant).
      * @param x Coordonnée X en pixels.
      * @param y Coordonnée Y en pixels.
      * @return La {@link Crate} trouvée, ou null sinon
      */
     @Override
     public Crate getCrateAt(float x, float y) {
-        for (Crate crate : crates) {
-            if (crate.getX() == x && crate.getY() == y) return crate;
-        }
-        return null;
+        return grid != null ? pushEngine.getCrateAt(x, y) : null;
+    }
+
+    /**
+     * Pousse une file de caisses selon la règle du niveau (propriété de carte
+     * {@link PushEngine#CHAIN_PROPERTY}).
+     */
+    @Override
+    public int pushCrates(Crate crate, int dx, int dy) {
+        return pushEngine.push(crate, dx, dy);
     }
 
     /**
@@ -156,17 +409,36 @@ public class SokobanModel extends Observable implements ILevelState {
      */
     @Override
     public Target getTargetAt(float x, float y) {
-        for (Target target : targets) {
-            if (target.getX() == x && target.getY() == y) return target;
-        }
-        return null;
+        if (grid == null) return null;
+        int cellX = grid.toCell(x);
+        int cellY = grid.toCell(y);
+        if (cellX < 0 || cellY < 0 || cellX >= grid.getWidth() || cellY >= grid.getHeight()) return null;
+        int index = store.targetAt(grid.index(cellX, cellY));
+        if (index < 0) return null;
+        Target target = store.getTargets().get(index);
+        return target.getX() == x && target.getY() == y ? target : null;
     }
 
     // Getters
     public TiledMap getMap() { return map; }
+    public LevelGrid getGrid() { return grid; }
+    public DistanceTables getDistanceTables() { return distances; }
+    public IntArray getLastWalk() { return walkPath; }
+    public int getLastDirection() { return lastDirection; }
+    public int getMoveCount() { return moveCount; }
+    public int getPushCount() { return pushCount; }
+    /** @return La longueur maximale d'une file de caisses poussée dans ce niveau. */
+    public int getMaxChain() { return pushEngine.getMaxChain(); }
     public String getNextLevel() { return nextLevel; }
-    public Array<Crate> getCrates() { return crates; }
-    public Array<Target> getTargets() { return targets; }
+    /** @return Les caisses et cibles du niveau en colonnes (cases, couleurs, index par case). */
+    public EntityStore getEntityStore() { return store; }
+    /** @return La ligne de temps de la partie en cours (pas joués et images clés). */
+    public Timeline getTimeline() { return timeline; }
+    /** @return Les caisses (vue de compatibilité de l'{@link EntityStore}). */
+    public Array<Crate> getCrates() { return store.getCrates(); }
+    /** @return Les cibles (vue de compatibilité de l'{@link EntityStore}). */
+    public Array<Target> getTargets() { return store.getTargets(); }
     public Player getPlayer() { return player; }
     public String getCurrentLevelPath() { return currentLevel; }
+    public ResourceTracker getResourceTracker() { return tracker; }
 }
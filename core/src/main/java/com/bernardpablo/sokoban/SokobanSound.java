@@ -1,56 +1,104 @@
 package com.bernardpablo.sokoban;
 
 import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.audio.Sound;
-
-import java.util.Observable;
-import java.util.Observer;
+import com.bernardpablo.sokoban.audio.AudioEngine;
+import com.bernardpablo.sokoban.audio.SoundCue;
 
 /**
  * Gère les effets sonores du jeu Sokoban.
  * <p>
- * Cette classe agit en tant qu'observateur du {@link SokobanModel}. Elle réagit
- * aux événements métier spécifiques pour déclencher des retours auditifs (audio feedback)
- * à l'utilisateur, sans interférer avec la logique de calcul ou l'affichage.
+ * Cette classe est abonnée aux événements typés du {@link SokobanModel}
+ * ({@link GameEvent.Listener}). Elle traduit chaque événement métier en effet de la banque
+ * sonore ({@link SoundCue}) et le confie à l'{@link AudioEngine}, qui fusionne les rafales
+ * et limite le nombre de voix, sans interférer avec la logique de calcul ou l'affichage.
  * </p>
  * @author Bernard PABLO
  */
-public class SokobanSound implements Observer {
-    private final Sound crateOnTargetSound;
+public class SokobanSound implements GameEvent.Listener {
+    private final SokobanModel model;
+    private final SokobanAssets assets;
+    private final AudioEngine engine;
+    private int lastPushCount;
+
+    private long eventNanos;
+    private long eventCount;
 
     /**
-     * Constructeur : Charge les ressources audio et enregistre cette instance
-     * comme observateur du modèle.
-     * @param model Le modèle logique à écouter pour déclencher les sons.
+     * Constructeur : Récupère la banque sonore préchargée et abonne cette instance aux
+     * événements du modèle.
+     * @param model  Le modèle logique à écouter pour déclencher les sons.
+     * @param assets Le pipeline de ressources ayant chargé les sons.
      */
-    public SokobanSound(SokobanModel model) {
-        model.addObserver(this);
-        // Chargement du fichier audio depuis le dossier assets
-        crateOnTargetSound = Gdx.audio.newSound(Gdx.files.internal("sounds/crate_on_target.wav"));
+    public SokobanSound(SokobanModel model, SokobanAssets assets) {
+        this.model = model;
+        this.assets = assets;
+        this.engine = new AudioEngine();
+        for (SoundCue cue : SoundCue.values()) {
+            engine.setSound(cue, assets.getSound(cue), AudioEngine.wavDuration(Gdx.files.internal(cue.getFile())));
+        }
+        lastPushCount = model.getPushCount();
+        model.addEventListener(this);
     }
 
     /**
-     * Méthode de mise à jour appelée par le modèle lors d'un changement d'état.
-     * <p>
-     * Filtre les événements pour ne jouer le son que lors de l'action "BOX_ON_TARGET".
-     * </p>
-     * @param o   Le modèle observé.
-     * @param arg L'identifiant de l'événement (attendu sous forme de {@link String}).
+     * Associe un effet sonore à chaque événement du modèle. Un pas ayant poussé une caisse
+     * (le compteur de poussées a augmenté) joue {@link SoundCue#PUSH} plutôt que
+     * {@link SoundCue#STEP}.
+     * @param event L'événement émis par le modèle.
      */
     @Override
-    public void update(Observable o, Object arg) {
-        if (!(arg instanceof String)) return;
-
-        String event = (String) arg;
+    public void onGameEvent(GameEvent event) {
+        long start = System.nanoTime();
 
         switch (event) {
-            case "BOX_ON_TARGET":
-                // Déclenche la lecture de l'effet sonore
-                crateOnTargetSound.play();
+            case LEVEL_LOADED:
+            case TIMELINE_SEEK:
+                lastPushCount = model.getPushCount();
                 break;
-            default :
+            case PLAYER_MOVED:
+            case PLAYER_WALKED:
+                int pushes = model.getPushCount();
+                engine.trigger(pushes != lastPushCount ? SoundCue.PUSH : SoundCue.STEP);
+                lastPushCount = pushes;
+                break;
+            case BOX_ON_TARGET:
+                engine.trigger(SoundCue.BOX_ON_TARGET);
+                break;
+            case LEVEL_COMPLETED:
+                engine.trigger(SoundCue.LEVEL_COMPLETED);
+                break;
+            default:
                 break;
         }
+
+        eventNanos += System.nanoTime() - start;
+        eventCount++;
+    }
+
+    /**
+     * Démarre les effets demandés depuis l'image précédente.
+     * @param delta Temps écoulé depuis l'image précédente, en secondes.
+     */
+    public void update(float delta) {
+        engine.update(delta);
+    }
+
+    /**
+     * Coupe ou rétablit le son (par exemple pendant le rejeu d'une partie sauvegardée).
+     * @param muted true pour couper le son.
+     */
+    public void setMuted(boolean muted) {
+        engine.setMuted(muted);
+    }
+
+    /** @return Le moteur de mixage utilisé. */
+    public AudioEngine getEngine() {
+        return engine;
+    }
+
+    /** @return Le coût moyen, sur le thread de rendu, du traitement d'un événement (ns). */
+    public double getAverageEventNanos() {
+        return eventCount == 0 ? 0 : eventNanos / (double) eventCount;
     }
 
     /**
@@ -61,6 +109,10 @@ public class SokobanSound implements Observer {
      * </p>
      */
     public void dispose() {
-        crateOnTargetSound.dispose();
+        model.removeEventListener(this);
+        engine.stopAll();
+        for (SoundCue cue : SoundCue.values()) {
+            assets.unload(cue.getFile());
+        }
     }
 }
@@ -1,18 +1,26 @@
 package com.bernardpablo.sokoban;
 
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.maps.tiled.TiledMap;
 import com.badlogic.gdx.maps.tiled.TiledMapTile;
 import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.viewport.FitViewport;
 import com.badlogic.gdx.utils.viewport.Viewport;
 import com.bernardpablo.sokoban.entities.factory.Crate;
 import com.bernardpablo.sokoban.entities.factory.Entity;
-import com.bernardpablo.sokoban.entities.factory.Target;
+import com.bernardpablo.sokoban.logic.DistanceTables;
+import com.bernardpablo.sokoban.logic.EntityStore;
+import com.bernardpablo.sokoban.logic.LevelGrid;
+import com.bernardpablo.sokoban.profiling.FlightRecorder;
+import com.bernardpablo.sokoban.profiling.ProfileEvent;
 
 import java.util.Observable;
 import java.util.Observer;
@@ -25,7 +33,8 @@ import java.util.Observer;
  * </p>
  * <p>
  * Elle gère le rendu de la carte Tiled (.tmx), des entités dynamiques (joueur, caisses, cibles)
- * ainsi que de l'interface utilisateur ({@link TextOverlay}).
+ * ainsi que de l'interface utilisateur ({@link TextOverlay}, barre de défilement de la
+ * partie {@link TimelineBar}).
  * </p>
  * @author Bernard PABLO
  */
@@ -36,20 +45,37 @@ public class SokobanView implements Observer {
     private final Viewport viewport;
     private final SpriteBatch batch;
     private final TextOverlay textOverlay;
+    private final TimelineBar timelineBar;
+    private final MoveAnimator animator;
+    private final Vector2 touchPoint = new Vector2();
+    private Crate selectedCrate;
+    private final BitmapFont hintFont;
+    private boolean showDistances;
+    /** Libellés des distances, construits une fois pour éviter toute allocation par image. */
+    private static final String[] DISTANCE_LABELS = new String[100];
+    static {
+        for (int i = 0; i < DISTANCE_LABELS.length; i++) DISTANCE_LABELS[i] = Integer.toString(i);
+    }
+    private final ResourceTracker tracker;
 
     /**
      * Constructeur : Initialise le moteur de rendu, la caméra et le système de vue.
      * Enregistre également cette vue comme observateur du modèle.
-     * @param model Le modèle logique auquel la vue doit s'abonner.
+     * @param model  Le modèle logique auquel la vue doit s'abonner.
+     * @param assets Le pipeline de ressources fournissant la police des overlays.
      */
-    public SokobanView(SokobanModel model) {
+    public SokobanView(SokobanModel model, SokobanAssets assets) {
         this.model = model;
         model.addObserver(this);
-        tiledMapRenderer = new OrthogonalTiledMapRenderer(null);
+        tracker = assets.getTracker();
+        tiledMapRenderer = tracker.track(new OrthogonalTiledMapRenderer(null), ResourceTracker.Kind.OTHER, ResourceTracker.SPRITE_BATCH_BYTES);
         camera = new OrthographicCamera();
         viewport = new FitViewport(800, 600, camera);
-        batch = new SpriteBatch();
-        textOverlay = new TextOverlay();
+        batch = tracker.track(new SpriteBatch(), ResourceTracker.Kind.OTHER, ResourceTracker.SPRITE_BATCH_BYTES);
+        textOverlay = new TextOverlay(assets.getFont(), tracker);
+        timelineBar = new TimelineBar(tracker);
+        hintFont = assets.getFont();
+        animator = new MoveAnimator(model);
     }
 
     /**
@@ -65,8 +91,10 @@ public class SokobanView implements Observer {
         switch (event) {
             case("LEVEL_LOADED") :
                 // Met à jour la carte et ajuste la caméra à la nouvelle taille du niveau
+                Object span = FlightRecorder.begin(ProfileEvent.LEVEL_VIEWPORT);
                 tiledMapRenderer.setMap(model.getMap());
                 updateViewport();
+                FlightRecorder.end(span, model.getCurrentLevelPath(), 0);
                 break;
             default:
                 break;
@@ -97,10 +125,11 @@ public class SokobanView implements Observer {
      * Boucle de rendu principale.
      * <p>
      * Efface l'écran, dessine la carte statique, puis appelle le rendu des objets
-     * dynamiques et de l'interface textuelle (Overlay).
+     * dynamiques, de la barre de défilement de la partie et de l'interface textuelle (Overlay).
      * </p>
      */
     public void render() {
+        Object span = FlightRecorder.begin(ProfileEvent.FRAME_MAP);
         // Nettoyage de l'écran (fond noir)
         Gdx.gl.glClearColor(0, 0, 0, 1);
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
@@ -108,46 +137,130 @@ public class SokobanView implements Observer {
         camera.update();
         tiledMapRenderer.setView(camera);
         tiledMapRenderer.render();
+        FlightRecorder.end(span, null, 0);
 
+        span = FlightRecorder.begin(ProfileEvent.FRAME_ENTITIES);
         batch.setProjectionMatrix(camera.combined);
         batch.begin();
         renderDynamicObjects();
-        batch.end();
+        FlightRecorder.end(span, null, model.getEntityStore().getCrateCount());
 
-        batch.begin();
+        span = FlightRecorder.begin(ProfileEvent.FRAME_OVERLAY);
+        timelineBar.render(batch, model.getTimeline());
         textOverlay.render(batch);
         batch.end();
+        FlightRecorder.end(span, null, 0);
     }
 
     /**
-     * Parcourt et dessine les entités mobiles ou interactives du jeu.
+     * Parcourt et dessine les entités mobiles ou interactives du jeu, directement dans les
+     * colonnes de l'{@link EntityStore} : les cibles, immobiles, sont placées d'après leur
+     * case ; chaque caisse est dessinée à sa position affichée (éventuellement animée).
      * L'ordre de rendu est : Cibles -> Caisses -> Joueur.
      */
     private void renderDynamicObjects() {
         TiledMap map = model.getMap();
-        for (Target target : model.getTargets()) {
-            drawEntity(target, map);
+        EntityStore store = model.getEntityStore();
+        LevelGrid grid = model.getGrid();
+        int width = grid.getWidth();
+        int tile = grid.getTileSize();
+        for (int i = 0, n = store.getTargetCount(); i < n; i++) {
+            TextureRegion region = region(map, store.getTargetTileId(i));
+            int cell = store.getTargetCell(i);
+            if (region != null) batch.draw(region, cell % width * tile, cell / width * tile);
         }
-        for (Crate crate : model.getCrates()) {
-            drawEntity(crate, map);
+        Array<Crate> crates = store.getCrates();
+        for (int i = 0, n = store.getCrateCount(); i < n; i++) {
+            TextureRegion region = region(map, store.getCrateTileId(i));
+            if (region == null) continue;
+            Crate crate = crates.get(i);
+            if (crate == selectedCrate) {
+                // Caisse sélectionnée pour un glisser-déposer : teinte de surbrillance
+                batch.setColor(0.6f, 1f, 0.6f, 1f);
+                batch.draw(region, animator.getX(crate), animator.getY(crate));
+                batch.setColor(Color.WHITE);
+            } else {
+                batch.draw(region, animator.getX(crate), animator.getY(crate));
+            }
         }
         drawEntity(model.getPlayer(), map);
+
+        if (showDistances && model.getDistanceTables() != null) {
+            renderDistances();
+        }
+    }
+
+    /**
+     * Affiche sur chaque caisse sa distance de poussée jusqu'à la plus proche cible compatible
+     * ("X" si la caisse ne peut plus atteindre aucune cible).
+     */
+    private void renderDistances() {
+        float scale = hintFont.getData().scaleX;
+        hintFont.getData().setScale(2f);
+        for (Crate crate : model.getCrates()) {
+            int distance = model.getDistanceTables().distance(crate);
+            String label = distance == DistanceTables.UNREACHABLE ? "X"
+                : distance < DISTANCE_LABELS.length ? DISTANCE_LABELS[distance] : "+";
+            hintFont.draw(batch, label, animator.getX(crate) + 6, animator.getY(crate) + 58);
+        }
+        hintFont.getData().setScale(scale);
     }
 
     /**
      * Dessine une entité spécifique en récupérant la texture correspondante
-     * dans le tileset de la carte.
+     * dans le tileset de la carte, à sa position affichée (éventuellement animée).
      * @param entity L'entité à dessiner (Player, Crate ou Target).
      * @param map    La carte contenant les définitions de textures (tilesets).
      */
     private void drawEntity(Entity entity, TiledMap map) {
-        TiledMapTile tile = map.getTileSets().getTile(entity.getTileId());
-        if (tile != null) {
-            TextureRegion region = tile.getTextureRegion();
-            batch.draw(region, entity.getX(), entity.getY());
+        TextureRegion region = region(map, entity.getTileId());
+        if (region != null) {
+            batch.draw(region, animator.getX(entity), animator.getY(entity));
         }
     }
 
+    /**
+     * @return La texture d'une tuile du tileset de la carte, ou null si elle n'existe pas.
+     */
+    private static TextureRegion region(TiledMap map, int tileId) {
+        TiledMapTile tile = map.getTileSets().getTile(tileId);
+        return tile != null ? tile.getTextureRegion() : null;
+    }
+
+    /**
+     * Fait avancer les animations de déplacement d'un pas de temps fixe.
+     * @param delta Pas de temps en secondes.
+     */
+    public void update(float delta) {
+        animator.update(delta);
+    }
+
+    /**
+     * Affiche ou masque la distance de chaque caisse à la solution.
+     */
+    public void toggleDistances() {
+        showDistances = !showDistances;
+    }
+
+    /**
+     * Définit la caisse à mettre en surbrillance (sélection pour un glisser-déposer).
+     * @param crate La caisse sélectionnée, ou null.
+     */
+    public void setSelectedCrate(Crate crate) {
+        this.selectedCrate = crate;
+    }
+
+    /**
+     * Convertit une position à l'écran (clic, toucher) en coordonnées du monde.
+     * Le vecteur retourné est réutilisé d'un appel à l'autre.
+     * @param screenX Position X à l'écran, en pixels.
+     * @param screenY Position Y à l'écran, en pixels (origine en haut).
+     * @return La position correspondante dans le monde, en pixels de carte.
+     */
+    public Vector2 screenToWorld(int screenX, int screenY) {
+        return viewport.unproject(touchPoint.set(screenX, screenY));
+    }
+
     /**
      * Gère le redimensionnement de la fenêtre de jeu. (non autorisée)
      * @param width  Nouvelle largeur en pixels.
@@ -163,9 +276,24 @@ public class SokobanView implements Observer {
      * Libère les ressources natives de LibGDX (Batch, Renderer et Overlay).
      */
     public void dispose() {
-        batch.dispose();
-        tiledMapRenderer.dispose();
+        tracker.dispose(batch);
+        tracker.dispose(tiledMapRenderer);
         textOverlay.dispose();
+        timelineBar.dispose();
+    }
+
+    /**
+     * @return L'animateur des déplacements utilisé par cette vue.
+     */
+    public MoveAnimator getAnimator() {
+        return animator;
+    }
+
+    /**
+     * @return La barre de défilement de la partie.
+     */
+    public TimelineBar getTimelineBar() {
+        return timelineBar;
     }
 
     /**
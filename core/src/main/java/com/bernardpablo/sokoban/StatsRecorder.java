@@ -0,0 +1,82 @@
+package com.bernardpablo.sokoban;
+
+import com.bernardpablo.sokoban.stats.StatsStore;
+
+import java.io.IOException;
+import java.util.Observable;
+import java.util.Observer;
+
+/**
+ * Enregistre les statistiques de jeu d'un profil à partir des événements du modèle.
+ * <p>
+ * Chaque "LEVEL_LOADED" compte une tentative et démarre le chronomètre du niveau ;
+ * "LEVEL_COMPLETED" enregistre le nombre de pas, de poussées et la durée de la résolution
+ * dans le {@link StatsStore}.
+ * </p>
+ * @author Bernard PABLO
+ */
+public class StatsRecorder implements Observer {
+    private final SokobanModel model;
+    private final StatsStore store;
+    private final String profile;
+    private long levelStart;
+    private boolean completed;
+
+    /**
+     * Constructeur : Enregistre cette instance comme observateur du modèle.
+     * @param model   Le modèle dont les événements sont enregistrés.
+     * @param store   Le stockage des statistiques.
+     * @param profile Le profil du joueur courant.
+     */
+    public StatsRecorder(SokobanModel model, StatsStore store, String profile) {
+        this.model = model;
+        this.store = store;
+        this.profile = profile;
+        model.addObserver(this);
+        // Le niveau courant est déjà chargé : il compte comme une tentative
+        update(model, "LEVEL_LOADED");
+    }
+
+    /**
+     * Met à jour les statistiques lors d'un chargement ou d'une résolution de niveau.
+     * @param o   Le modèle observé.
+     * @param arg L'événement envoyé par le modèle.
+     */
+    @Override
+    public void update(Observable o, Object arg) {
+        if (!(arg instanceof String)) return;
+
+        try {
+            switch ((String) arg) {
+                case "LEVEL_LOADED":
+                    levelStart = System.currentTimeMillis();
+                    completed = false;
+                    store.recordAttempt(profile, model.getCurrentLevelPath());
+                    break;
+                case "LEVEL_COMPLETED":
+                    // Un seul enregistrement par résolution
+                    if (completed) break;
+                    completed = true;
+                    store.recordCompletion(profile, model.getCurrentLevelPath(),
+                        model.getMoveCount(), model.getPushCount(), System.currentTimeMillis() - levelStart);
+                    break;
+                default:
+                    break;
+            }
+        } catch (IOException e) {
+            System.err.println("Enregistrement des statistiques impossible : " + e.getMessage());
+        }
+    }
+
+    /**
+     * Cesse d'observer le modèle et ferme le stockage.
+     */
+    public void dispose() {
+        model.deleteObserver(this);
+        try {
+            store.close();
+        } catch (IOException e) {
+            System.err.println("Fermeture des statistiques impossible : " + e.getMessage());
+        }
+    }
+}
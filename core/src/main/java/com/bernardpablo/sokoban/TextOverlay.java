@@ -3,10 +3,12 @@ package com.bernardpablo.sokoban;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.BitmapFontCache;
 import com.badlogic.gdx.graphics.g2d.GlyphLayout;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
-import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
 import com.badlogic.gdx.utils.Align;
 
 /**
@@ -17,6 +19,12 @@ import com.badlogic.gdx.utils.Align;
  * pour garantir que l'overlay s'adapte toujours à la taille de la fenêtre,
  * indépendamment du niveau chargé.
  * </p>
+ * <p>
+ * La mise en page du texte ({@link GlyphLayout}) et ses sommets ({@link BitmapFontCache})
+ * ne sont recalculés que lorsque le message ou la taille de l'écran change ; une image
+ * ordinaire se contente de redessiner le cache. Le fond est un quad texturé dessiné par
+ * le même {@link SpriteBatch} que le texte, sans interrompre le batch.
+ * </p>
  * @author Bernard PABLO
  */
 public class TextOverlay {
@@ -35,20 +43,37 @@ public class TextOverlay {
         MESSAGE
     }
 
+    /** Hauteur d'écran (en pixels) correspondant à un facteur d'échelle de 1 de la police. */
+    private static final float PIXELS_PER_SCALE = 216f;
+    /** Opacité du fond noir. */
+    private static final float BACKGROUND_ALPHA = 0.8f;
+
     private OverlayType currentType;
     private String message;
     private final BitmapFont font;
     private final GlyphLayout layout;
-    private final ShapeRenderer shapeRenderer;
+    private final BitmapFontCache textCache;
+    /** Texture blanche 1x1, étirée pour dessiner le fond. */
+    private final Texture background;
     private final OrthographicCamera camera;
+    private final ResourceTracker tracker;
     private boolean visible;
 
+    /** Vrai si le texte doit être remis en page avant le prochain rendu. */
+    private boolean dirty;
+    private int cachedWidth;
+    private int cachedHeight;
+
     /** Texte statique affiché dans le menu d'aide. */
     private static final String HELP_TEXT =
         "CONTROLES\n\n" +
             "Fleches directionnelles - Se deplacer\n" +
+            "Clic - Aller a une case\n" +
+            "Clic caisse puis case - Pousser la caisse\n" +
+            "Barre du bas - Revenir a un coup\n" +
             "R - Restart le niveau\n" +
             "H - Help\n" +
+            "D - Distances des caisses\n" +
             "A - About (Règles) \n" +
             "ESC - Exit\n\n" +
             "Appuyer sur une touche pour quitter";
@@ -62,17 +87,26 @@ public class TextOverlay {
             "Appuyer sur une touche pour quitter";
 
     /**
-     * Constructeur : Initialise les ressources graphiques (Font, ShapeRenderer)
+     * Constructeur : Initialise les ressources graphiques (texture du fond, cache du texte)
      * et configure la caméra d'interface.
+     * @param font    La police préchargée par {@link SokobanAssets} (non libérée par l'overlay).
+     * @param tracker Le registre auquel déclarer les ressources natives de l'overlay.
      */
-    public TextOverlay() {
-        this.font = new BitmapFont();
-        this.font.getData().setScale(5.f);
-        this.font.setColor(Color.WHITE);
+    public TextOverlay(BitmapFont font, ResourceTracker tracker) {
+        this.tracker = tracker;
+        this.font = font;
         this.layout = new GlyphLayout();
-        this.shapeRenderer = new ShapeRenderer();
+        this.textCache = font.newFontCache();
+        // Police bitmap agrandie d'un facteur entier : filtrage au plus proche et positions entières
+        this.textCache.setUseIntegerPositions(true);
+
+        Pixmap white = new Pixmap(1, 1, Pixmap.Format.RGBA8888);
+        white.setColor(Color.WHITE);
+        white.fill();
+        this.background = tracker.track(new Texture(white), ResourceTracker.Kind.TEXTURE, 4);
+        white.dispose();
+
         this.camera = new OrthographicCamera();
-        this.camera.setToOrtho(false, Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
         this.currentType = OverlayType.NONE;
         this.visible = false;
         this.message = "";
@@ -83,8 +117,7 @@ public class TextOverlay {
      */
     public void showHelp() {
         this.currentType = OverlayType.HELP;
-        this.message = HELP_TEXT;
-        this.visible = true;
+        setMessage(HELP_TEXT);
     }
 
     /**
@@ -92,8 +125,7 @@ public class TextOverlay {
      */
     public void showAbout() {
         this.currentType = OverlayType.ABOUT;
-        this.message = ABOUT_TEXT;
-        this.visible = true;
+        setMessage(ABOUT_TEXT);
     }
 
     /**
@@ -102,7 +134,14 @@ public class TextOverlay {
      */
     public void showMessage(String text) {
         this.currentType = OverlayType.MESSAGE;
-        this.message = text;
+        setMessage(text);
+    }
+
+    private void setMessage(String text) {
+        if (!text.equals(message)) {
+            this.message = text;
+            this.dirty = true;
+        }
         this.visible = true;
     }
 
@@ -112,7 +151,6 @@ public class TextOverlay {
     public void hide() {
         this.visible = false;
         this.currentType = OverlayType.NONE;
-        this.message = "";
     }
 
     /** @return true si l'overlay est actuellement visible à l'écran. */
@@ -126,13 +164,12 @@ public class TextOverlay {
     }
 
     /**
-     * Effectue le rendu de l'overlay.
+     * Effectue le rendu de l'overlay dans un batch déjà démarré.
      * <p>
-     * <strong>Note :</strong> Cette méthode interrompt temporairement le SpriteBatch passé
-     * en paramètre pour dessiner le fond opaque avec un ShapeRenderer, puis relance le
-     * batch pour le rendu du texte.
+     * Le batch passe en coordonnées écran (sa matrice de projection est remplacée) ; le fond
+     * et le texte sont ensuite dessinés sans aucun end/begin supplémentaire.
      * </p>
-     * @param batch Le SpriteBatch principal du jeu.
+     * @param batch Le SpriteBatch principal du jeu, entre begin() et end().
      */
     public void render(SpriteBatch batch) {
         if (!visible || message.isEmpty()) {
@@ -141,31 +178,38 @@ public class TextOverlay {
 
         int screenWidth = Gdx.graphics.getWidth();
         int screenHeight = Gdx.graphics.getHeight();
+        if (dirty || screenWidth != cachedWidth || screenHeight != cachedHeight) {
+            rebuild(screenWidth, screenHeight);
+        }
 
-        camera.setToOrtho(false, screenWidth, screenHeight);
-        camera.update();
-
-        // On arrête le batch pour utiliser le ShapeRenderer (rendu de formes)
-        batch.end();
+        batch.setProjectionMatrix(camera.combined);
+        Color previous = batch.getColor();
+        float r = previous.r, g = previous.g, b = previous.b, a = previous.a;
+        batch.setColor(0, 0, 0, BACKGROUND_ALPHA);
+        batch.draw(background, 0, 0, screenWidth, screenHeight);
+        batch.setColor(r, g, b, a);
 
-        // Activation du mélange (blending) pour la semi-transparence du fond
-        Gdx.gl.glEnable(com.badlogic.gdx.graphics.GL20.GL_BLEND);
-        Gdx.gl.glBlendFunc(
-            com.badlogic.gdx.graphics.GL20.GL_SRC_ALPHA,
-            com.badlogic.gdx.graphics.GL20.GL_ONE_MINUS_SRC_ALPHA
-        );
+        textCache.draw(batch);
+    }
 
-        shapeRenderer.setProjectionMatrix(camera.combined);
-        shapeRenderer.begin(ShapeRenderer.ShapeType.Filled);
-        shapeRenderer.setColor(0, 0, 0, 0.8f); // Noir avec 80% d'opacité
-        shapeRenderer.rect(0, 0, screenWidth, screenHeight);
-        shapeRenderer.end();
+    /**
+     * Recalcule la caméra, la mise en page du texte et ses sommets pour une taille d'écran.
+     * <p>
+     * La police est agrandie d'un facteur entier proportionnel à la hauteur de l'écran
+     * (5 en 1080p) : les glyphes restent nets. L'échelle de la police partagée n'est
+     * modifiée que le temps de la mise en page, le cache conservant les sommets calculés.
+     * </p>
+     */
+    private void rebuild(int screenWidth, int screenHeight) {
+        cachedWidth = screenWidth;
+        cachedHeight = screenHeight;
+        dirty = false;
 
-        Gdx.gl.glDisable(com.badlogic.gdx.graphics.GL20.GL_BLEND);
+        camera.setToOrtho(false, screenWidth, screenHeight);
+        camera.update();
 
-        // On redémarre le batch pour le texte
-        batch.setProjectionMatrix(camera.combined);
-        batch.begin();
+        float previousScale = font.getData().scaleX;
+        font.getData().setScale(Math.max(1, Math.round(screenHeight / PIXELS_PER_SCALE)));
 
         float targetWidth = screenWidth * 0.8f;
         layout.setText(font, message, Color.WHITE, targetWidth, Align.center, true);
@@ -173,15 +217,15 @@ public class TextOverlay {
         // Calcul du centrage vertical et horizontal
         float x = (screenWidth - targetWidth) / 2;
         float y = (float) screenHeight / 2 + layout.height / 2;
+        textCache.setText(layout, x, y);
 
-        font.draw(batch, layout, x, y);
+        font.getData().setScale(previousScale);
     }
 
     /**
-     * Libère les ressources natives (Font et ShapeRenderer).
+     * Libère les ressources natives (texture du fond). La police appartient à {@link SokobanAssets}.
      */
     public void dispose() {
-        font.dispose();
-        shapeRenderer.dispose();
+        tracker.dispose(background);
     }
 }
@@ -0,0 +1,109 @@
+package com.bernardpablo.sokoban;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.bernardpablo.sokoban.logic.Timeline;
+
+/**
+ * Barre de défilement de la partie, affichée en bas de l'écran.
+ * <p>
+ * La barre représente la {@link Timeline} du niveau : sa longueur totale correspond aux pas
+ * enregistrés, la partie remplie à la position courante. Un clic ou un glissement sur la
+ * barre désigne un coup (voir {@link #moveAt}), que le contrôleur demande au modèle de
+ * restaurer. Comme {@link TextOverlay}, elle est dessinée en coordonnées écran avec une
+ * texture blanche 1x1 étirée, sans interrompre le batch.
+ * </p>
+ * @author Bernard PABLO
+ */
+public class TimelineBar {
+    /** Marge autour de la barre, en pixels d'écran. */
+    private static final int MARGIN = 8;
+    /** Épaisseur de la barre dessinée. */
+    private static final int HEIGHT = 6;
+    /** Hauteur de la zone cliquable, plus large que la barre pour faciliter la saisie. */
+    private static final int HIT_HEIGHT = 24;
+    private static final int KNOB = 12;
+
+    private final Texture white;
+    private final OrthographicCamera camera = new OrthographicCamera();
+    private final ResourceTracker tracker;
+    private int cachedWidth;
+    private int cachedHeight;
+
+    /**
+     * Constructeur : crée la texture de la barre.
+     * @param tracker Le registre auquel déclarer la texture.
+     */
+    public TimelineBar(ResourceTracker tracker) {
+        this.tracker = tracker;
+        Pixmap pixmap = new Pixmap(1, 1, Pixmap.Format.RGBA8888);
+        pixmap.setColor(Color.WHITE);
+        pixmap.fill();
+        this.white = tracker.track(new Texture(pixmap), ResourceTracker.Kind.TEXTURE, 4);
+        pixmap.dispose();
+    }
+
+    /**
+     * Dessine la barre dans un batch déjà démarré (sa matrice de projection est remplacée).
+     * Rien n'est dessiné tant qu'aucun pas n'a été joué.
+     * @param batch    Le SpriteBatch principal du jeu, entre begin() et end().
+     * @param timeline La ligne de temps du niveau.
+     */
+    public void render(SpriteBatch batch, Timeline timeline) {
+        if (timeline.getSize() == 0) return;
+
+        int screenWidth = Gdx.graphics.getWidth();
+        int screenHeight = Gdx.graphics.getHeight();
+        if (screenWidth != cachedWidth || screenHeight != cachedHeight) {
+            cachedWidth = screenWidth;
+            cachedHeight = screenHeight;
+            camera.setToOrtho(false, screenWidth, screenHeight);
+            camera.update();
+        }
+
+        float length = screenWidth - 2 * MARGIN;
+        float filled = length * timeline.getPosition() / timeline.getSize();
+        batch.setProjectionMatrix(camera.combined);
+        Color previous = batch.getColor();
+        float r = previous.r, g = previous.g, b = previous.b, a = previous.a;
+        batch.setColor(0.3f, 0.3f, 0.3f, 0.7f);
+        batch.draw(white, MARGIN, MARGIN, length, HEIGHT);
+        batch.setColor(0.9f, 0.8f, 0.3f, 0.9f);
+        batch.draw(white, MARGIN, MARGIN, filled, HEIGHT);
+        batch.draw(white, MARGIN + filled - KNOB / 2f, MARGIN + HEIGHT / 2f - KNOB / 2f, KNOB, KNOB);
+        batch.setColor(r, g, b, a);
+    }
+
+    /**
+     * @param screenX Position X à l'écran, en pixels.
+     * @param screenY Position Y à l'écran, en pixels (origine en haut).
+     * @return true si la position tombe sur la zone cliquable de la barre.
+     */
+    public boolean contains(int screenX, int screenY) {
+        int fromBottom = Gdx.graphics.getHeight() - screenY;
+        return fromBottom >= 0 && fromBottom <= MARGIN + HIT_HEIGHT
+            && screenX >= 0 && screenX <= Gdx.graphics.getWidth();
+    }
+
+    /**
+     * @param screenX  Position X à l'écran, bornée aux extrémités de la barre.
+     * @param timeline La ligne de temps du niveau.
+     * @return Le coup correspondant à cette position (nombre de pas joués).
+     */
+    public int moveAt(int screenX, Timeline timeline) {
+        float length = Gdx.graphics.getWidth() - 2 * MARGIN;
+        float ratio = Math.max(0f, Math.min(1f, (screenX - MARGIN) / length));
+        return Math.round(ratio * timeline.getSize());
+    }
+
+    /**
+     * Libère la texture de la barre.
+     */
+    public void dispose() {
+        tracker.dispose(white);
+    }
+}
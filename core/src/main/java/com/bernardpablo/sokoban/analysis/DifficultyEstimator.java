@@ -0,0 +1,96 @@
+package com.bernardpablo.sokoban.analysis;
+
+import com.bernardpablo.sokoban.cache.AnalysisCache;
+import com.bernardpablo.sokoban.cache.LevelAnalysis;
+import com.bernardpablo.sokoban.logic.DistanceTables;
+import com.bernardpablo.sokoban.logic.LevelContent;
+import com.bernardpablo.sokoban.logic.LevelLoader;
+import com.bernardpablo.sokoban.logic.Solver;
+
+import java.io.File;
+
+/**
+ * Estimation de la difficulté d'un niveau à partir de ses caractéristiques.
+ * <p>
+ * Le score est une somme pondérée : l'effort de recherche du solveur (logarithme du nombre
+ * d'états développés) domine, la longueur de la solution, le nombre de caisses et de
+ * couleurs, les cases mortes (pièges) et le facteur de branchement l'affinent. Les poids
+ * sont empiriques : seul l'ordre des scores d'un même paquet de niveaux a un sens.
+ * </p>
+ * <p>
+ * Le nombre d'états développés dépend du mode de recherche : tous les niveaux sont donc
+ * résolus dans un même mode ({@link #SCORING_MODE} par défaut), quelle que soit la
+ * propriété {@link Solver#MODE_PROPERTY} de leur carte.
+ * </p>
+ * <p>
+ * Une instance n'est pas partagée entre plusieurs threads (elle possède son
+ * {@link Solver}) ; le cache d'analyse, lui, peut l'être.
+ * </p>
+ * @author Bernard PABLO
+ */
+public final class DifficultyEstimator {
+    static final double SEARCH_WEIGHT = 10;
+    static final double PUSH_WEIGHT = 0.5;
+    static final double CRATE_WEIGHT = 1;
+    static final double COLOUR_WEIGHT = 2;
+    static final double DEAD_SQUARE_WEIGHT = 0.1;
+    static final double BRANCHING_WEIGHT = 1;
+    /** Mode de recherche des scores : la recherche simple s'applique à tous les niveaux. */
+    public static final Solver.Mode SCORING_MODE = Solver.Mode.FORWARD;
+
+    private final Solver solver;
+    private final AnalysisCache cache;
+    private final Solver.Mode mode;
+
+    /**
+     * @param maxStates Limite d'états du solveur par niveau.
+     * @param cache     Cache d'analyse (null pour toujours résoudre).
+     * @param mode      Mode de recherche de tous les niveaux, ou null pour {@link #SCORING_MODE}.
+     */
+    public DifficultyEstimator(int maxStates, AnalysisCache cache, Solver.Mode mode) {
+        this.solver = new Solver(maxStates);
+        this.cache = cache;
+        this.mode = mode != null ? mode : SCORING_MODE;
+    }
+
+    /**
+     * Analyse un fichier de niveau.
+     * @param file Le fichier .tmx.
+     * @return Ses caractéristiques et son score.
+     * @throws IllegalArgumentException Si la carte est mal formée.
+     */
+    public LevelFeatures estimate(File file) {
+        LevelContent content = LevelLoader.read(file);
+        LevelAnalysis analysis;
+        if (cache != null) {
+            content.contentHash = AnalysisCache.contentHash(content);
+            content.analysis = cache.lookup(content.contentHash);
+            if (content.analysis != null) {
+                content.distances = content.analysis.toDistanceTables(content.grid);
+            } else {
+                content.distances = DistanceTables.build(content.grid, content.targets);
+                content.analysis = LevelAnalysis.of(content);
+            }
+            analysis = cache.solve(content, solver, mode);
+        } else {
+            content.distances = DistanceTables.build(content.grid, content.targets);
+            analysis = LevelAnalysis.of(content);
+            analysis.setSolution(solver.solve(content, mode));
+        }
+        return new LevelFeatures(file, content.nextLevel, analysis, score(analysis));
+    }
+
+    /**
+     * @param analysis L'analyse d'un niveau, solution comprise.
+     * @return Son score de difficulté (infini s'il n'est pas résolu).
+     */
+    public static double score(LevelAnalysis analysis) {
+        if (!analysis.isSolved()) return Double.POSITIVE_INFINITY;
+        return SEARCH_WEIGHT * Math.log10(1 + analysis.getExpanded())
+            + PUSH_WEIGHT * analysis.getPushes().size
+            + CRATE_WEIGHT * analysis.getCrateCount()
+            + COLOUR_WEIGHT * (analysis.getColourCount() - 1)
+            + DEAD_SQUARE_WEIGHT * analysis.getDeadSquareCount()
+            + BRANCHING_WEIGHT * analysis.getBranchingFactor();
+    }
+}
@@ -0,0 +1,83 @@
+package com.bernardpablo.sokoban.analysis;
+
+import com.bernardpablo.sokoban.cache.LevelAnalysis;
+
+import java.io.File;
+import java.util.Comparator;
+import java.util.Locale;
+
+/**
+ * Caractéristiques d'un niveau et score de difficulté estimé par le {@link DifficultyEstimator}.
+ * <p>
+ * Un niveau que le solveur n'a pas résolu reçoit un score infini : il est classé après
+ * tous les autres.
+ * </p>
+ * @author Bernard PABLO
+ */
+public final class LevelFeatures {
+    /** Ordre de difficulté croissante, puis par nom de fichier. */
+    public static final Comparator<LevelFeatures> BY_SCORE = (a, b) -> {
+        int c = Double.compare(a.score, b.score);
+        return c != 0 ? c : a.getName().compareTo(b.getName());
+    };
+
+    final File file;
+    final String nextLevel;
+    final int crates;
+    final int colours;
+    final int deadSquares;
+    final boolean solved;
+    final int pushes;
+    final int steps;
+    final long expanded;
+    final double branching;
+    final long solveNanos;
+    final double score;
+
+    LevelFeatures(File file, String nextLevel, LevelAnalysis analysis, double score) {
+        this.file = file;
+        this.nextLevel = nextLevel;
+        this.crates = analysis.getCrateCount();
+        this.colours = analysis.getColourCount();
+        this.deadSquares = analysis.getDeadSquareCount();
+        this.solved = analysis.isSolved();
+        this.pushes = analysis.getPushes().size;
+        this.steps = analysis.getSteps().size;
+        this.expanded = analysis.getExpanded();
+        this.branching = analysis.getBranchingFactor();
+        this.solveNanos = analysis.getSolveNanos();
+        this.score = score;
+    }
+
+    /**
+     * @return Une ligne de rapport : nom, caractéristiques et score.
+     */
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%-24s %7d %8d %8d %9s %6s %12d %11.2f %9s",
+            getName(), crates, colours, deadSquares,
+            solved ? Integer.toString(pushes) : "-", solved ? Integer.toString(steps) : "-",
+            expanded, branching, solved ? String.format(Locale.ROOT, "%.1f", score) : "non résolu");
+    }
+
+    /** @return L'en-tête des colonnes de {@link #toString()}. */
+    public static String header() {
+        return String.format("%-24s %7s %8s %8s %9s %6s %12s %11s %9s",
+            "Niveau", "Caisses", "Couleurs", "Mortes", "Poussées", "Pas", "Développés", "Branchement", "Score");
+    }
+
+    public File getFile() { return file; }
+    public String getName() { return file.getName(); }
+    /** @return Le niveau suivant actuellement déclaré par la carte (null pour le dernier). */
+    public String getNextLevel() { return nextLevel; }
+    public int getCrateCount() { return crates; }
+    public int getColourCount() { return colours; }
+    public int getDeadSquareCount() { return deadSquares; }
+    public boolean isSolved() { return solved; }
+    public int getPushCount() { return pushes; }
+    public int getStepCount() { return steps; }
+    public long getExpanded() { return expanded; }
+    public double getBranchingFactor() { return branching; }
+    public long getSolveNanos() { return solveNanos; }
+    public double getScore() { return score; }
+}
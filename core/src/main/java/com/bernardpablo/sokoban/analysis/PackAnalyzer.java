@@ -0,0 +1,194 @@
+package com.bernardpablo.sokoban.analysis;
+
+import com.bernardpablo.sokoban.cache.AnalysisCache;
+import com.bernardpablo.sokoban.logic.Solver;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+/**
+ * Analyse d'un paquet de niveaux : difficulté de chacun et ordre de jeu suggéré.
+ * <p>
+ * Les niveaux sont analysés en parallèle, un {@link DifficultyEstimator} par thread, avec
+ * un {@link AnalysisCache} partagé : une seconde analyse d'un paquet inchangé ne relance
+ * aucune recherche. L'ordre suggéré est celui des scores croissants ; il peut être écrit
+ * dans les cartes en réécrivant leur propriété "nextLevel".
+ * </p>
+ * <p>
+ * Usage : {@code PackAnalyzer [dossier] [--write] [--threads=N] [--states=N]
+ * [--mode=forward|bidirectional] [--cache=dossier]}. Sans {@code --write}, l'ordre est
+ * seulement affiché. Tous les niveaux sont résolus dans le même mode, pour que leurs scores
+ * restent comparables.
+ * </p>
+ * @author Bernard PABLO
+ */
+public final class PackAnalyzer {
+    private static final Pattern NEXT_LEVEL = Pattern.compile("[ \\t]*<property name=\"nextLevel\" value=\"[^\"]*\"/>\\r?\\n");
+    private static final Pattern EMPTY_PROPERTIES = Pattern.compile("[ \\t]*<properties>\\s*</properties>\\r?\\n");
+
+    private PackAnalyzer() {}
+
+    /**
+     * Analyse des niveaux en parallèle.
+     * @param files     Les fichiers .tmx.
+     * @param threads   Nombre de threads d'analyse.
+     * @param maxStates Limite d'états du solveur par niveau.
+     * @param cache     Cache d'analyse partagé (peut être null).
+     * @param mode      Mode de recherche de tous les niveaux, ou null pour
+     *                  {@link DifficultyEstimator#SCORING_MODE}.
+     * @return Les caractéristiques des niveaux, dans l'ordre des fichiers.
+     * @throws IOException Si un niveau ne peut pas être analysé.
+     */
+    public static List<LevelFeatures> analyze(List<File> files, int threads, int maxStates, AnalysisCache cache,
+                                              Solver.Mode mode) throws IOException {
+        ThreadLocal<DifficultyEstimator> estimators =
+            ThreadLocal.withInitial(() -> new DifficultyEstimator(maxStates, cache, mode));
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            Thread thread = new Thread(r, "analyse-niveaux");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<LevelFeatures>> futures = new ArrayList<>(files.size());
+            for (File file : files) {
+                futures.add(executor.submit(() -> estimators.get().estimate(file)));
+            }
+            List<LevelFeatures> result = new ArrayList<>(files.size());
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    result.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    throw new IOException("Analyse impossible de " + files.get(i).getName() + " : " + e.getCause(), e.getCause());
+                }
+            }
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Analyse interrompue", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @param levels Les niveaux analysés.
+     * @return Les mêmes niveaux, du plus facile au plus difficile.
+     */
+    public static List<LevelFeatures> suggestOrder(List<LevelFeatures> levels) {
+        List<LevelFeatures> order = new ArrayList<>(levels);
+        order.sort(LevelFeatures.BY_SCORE);
+        return order;
+    }
+
+    /**
+     * Réécrit la chaîne "nextLevel" des cartes pour qu'elle suive l'ordre donné. Le dernier
+     * niveau perd sa propriété ; les cartes déjà correctes ne sont pas réécrites.
+     * @param order Les niveaux, dans l'ordre de jeu souhaité.
+     * @return Le nombre de cartes réécrites.
+     * @throws IOException En cas d'erreur de lecture ou d'écriture.
+     */
+    public static int rewriteChain(List<LevelFeatures> order) throws IOException {
+        int rewritten = 0;
+        for (int i = 0; i < order.size(); i++) {
+            LevelFeatures level = order.get(i);
+            String next = i + 1 < order.size() ? order.get(i + 1).getName() : null;
+            if (next == null ? level.getNextLevel() == null : next.equals(level.getNextLevel())) continue;
+
+            File file = level.getFile();
+            String tmx = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+            File tmp = new File(file.getPath() + ".tmp");
+            Files.write(tmp.toPath(), withNextLevel(tmx, next).getBytes(StandardCharsets.UTF_8));
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            rewritten++;
+        }
+        return rewritten;
+    }
+
+    /**
+     * Remplace la propriété "nextLevel" d'une carte. Seules les propriétés de la carte,
+     * placées avant le premier tileset, sont modifiées (les objets ont aussi les leurs).
+     * @param tmx  Le contenu du fichier .tmx.
+     * @param next Le niveau suivant, ou null pour retirer la propriété.
+     * @return Le contenu modifié.
+     */
+    static String withNextLevel(String tmx, String next) {
+        int end = tmx.indexOf("<tileset");
+        if (end < 0) end = tmx.indexOf("<layer");
+        if (end < 0) throw new IllegalArgumentException("Carte TMX sans tileset ni couche.");
+        end = tmx.lastIndexOf('\n', end) + 1;
+        String head = NEXT_LEVEL.matcher(tmx.substring(0, end)).replaceAll("");
+
+        if (next != null) {
+            String property = "  <property name=\"nextLevel\" value=\"" + next + "\"/>\n";
+            int properties = head.indexOf("<properties>");
+            if (properties >= 0) {
+                int line = head.indexOf('\n', properties) + 1;
+                head = head.substring(0, line) + property + head.substring(line);
+            } else {
+                head = head + " <properties>\n" + property + " </properties>\n";
+            }
+        } else {
+            head = EMPTY_PROPERTIES.matcher(head).replaceAll("");
+        }
+        return head + tmx.substring(end);
+    }
+
+    private static String option(String[] args, String name, String fallback) {
+        for (String arg : args) {
+            if (arg.startsWith("--" + name + "=")) return arg.substring(name.length() + 3);
+        }
+        return fallback;
+    }
+
+    public static void main(String[] args) throws IOException {
+        File directory = new File(args.length > 0 && !args[0].startsWith("--") ? args[0] : "maps");
+        boolean write = Arrays.asList(args).contains("--write");
+        int threads = Integer.parseInt(option(args, "threads", Integer.toString(Runtime.getRuntime().availableProcessors())));
+        int maxStates = Integer.parseInt(option(args, "states", Integer.toString(Solver.DEFAULT_MAX_STATES)));
+        String modeName = option(args, "mode", null);
+        Solver.Mode mode = null;
+        try {
+            if (modeName != null) mode = Solver.Mode.of(modeName);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+        AnalysisCache cache = new AnalysisCache(new File(option(args, "cache", "cache")), AnalysisCache.DEFAULT_MAX_BYTES);
+
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(".tmx"));
+        if (files == null || files.length == 0) {
+            System.err.println("Aucune carte .tmx dans " + directory);
+            System.exit(1);
+        }
+        Arrays.sort(files);
+
+        long start = System.nanoTime();
+        List<LevelFeatures> levels = analyze(Arrays.asList(files), threads, maxStates, cache, mode);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println(LevelFeatures.header());
+        for (LevelFeatures level : levels) System.out.println(level);
+        System.out.printf("%d niveaux analysés en %.2f s sur %d thread(s)%n", levels.size(), seconds, threads);
+        System.out.println(cache);
+
+        List<LevelFeatures> order = suggestOrder(levels);
+        StringBuilder chain = new StringBuilder("Ordre suggéré : ");
+        for (int i = 0; i < order.size(); i++) chain.append(i > 0 ? " -> " : "").append(order.get(i).getName());
+        System.out.println(chain);
+        if (write) {
+            System.out.println(rewriteChain(order) + " carte(s) réécrite(s). Premier niveau : -Dsokoban.level="
+                + order.get(0).getName());
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.bernardpablo.sokoban.audio;
+
+import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.files.FileHandle;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Moteur de mixage des effets sonores, à nombre de voix borné.
+ * <p>
+ * Les demandes de lecture ({@link #trigger}) ne jouent rien immédiatement : elles marquent
+ * l'effet comme « en attente » pour l'image courante. Une rafale de demandes identiques
+ * (rejeu d'une partie, trajet poussant plusieurs caisses) ne produit donc qu'une seule
+ * lecture. À chaque image, {@link #update} démarre les effets en attente par priorité
+ * décroissante, dans la limite de {@link #MAX_STARTS_PER_FRAME} démarrages par image et de
+ * {@link #MAX_VOICES} voix simultanées.
+ * </p>
+ * <p>
+ * Les voix sont des emplacements préalloués (identifiant de lecture, effet, date de fin) :
+ * aucune allocation n'a lieu pendant la partie. Quand toutes les voix sont occupées, un
+ * effet interrompt la voix de plus faible priorité, si elle est strictement inférieure à la
+ * sienne ; sinon il est abandonné.
+ * </p>
+ * @author Bernard PABLO
+ */
+public final class AudioEngine {
+    /** Nombre maximal de voix jouées simultanément. */
+    public static final int MAX_VOICES = 4;
+    /** Nombre maximal d'effets démarrés au cours d'une même image. */
+    public static final int MAX_STARTS_PER_FRAME = 2;
+    /** Durée supposée d'un effet dont le fichier n'est pas un WAV lisible, en secondes. */
+    static final float DEFAULT_DURATION = 0.5f;
+
+    private final Sound[] sounds = new Sound[SoundCue.COUNT];
+    private final float[] durations = new float[SoundCue.COUNT];
+    /** Effets par priorité décroissante. */
+    private final SoundCue[] byPriority;
+    /** Nombre de demandes reçues depuis la dernière image, par effet. */
+    private final int[] requests = new int[SoundCue.COUNT];
+    private boolean pending;
+
+    private final long[] voiceIds = new long[MAX_VOICES];
+    private final SoundCue[] voiceCues = new SoundCue[MAX_VOICES];
+    private final float[] voiceEnds = new float[MAX_VOICES];
+    private float time;
+    private boolean muted;
+
+    private long triggered;
+    private long played;
+    private long merged;
+    private long dropped;
+    private long stolen;
+
+    /**
+     * Crée un moteur sans aucun son : chaque effet doit être fourni par {@link #setSound}.
+     */
+    public AudioEngine() {
+        byPriority = SoundCue.values();
+        Arrays.sort(byPriority, (a, b) -> Integer.compare(b.getPriority(), a.getPriority()));
+    }
+
+    /**
+     * Associe un son chargé à un effet de la banque.
+     * @param cue      L'effet.
+     * @param sound    Le son chargé (null pour rendre l'effet muet).
+     * @param duration Durée du son en secondes, utilisée pour libérer sa voix.
+     */
+    public void setSound(SoundCue cue, Sound sound, float duration) {
+        sounds[cue.ordinal()] = sound;
+        durations[cue.ordinal()] = duration;
+    }
+
+    /**
+     * Demande la lecture d'un effet à la prochaine image. Les demandes répétées d'un même
+     * effet avant cette image sont fusionnées ; la demande est ignorée si le son est coupé.
+     * @param cue L'effet à jouer.
+     */
+    public void trigger(SoundCue cue) {
+        if (muted) return;
+        triggered++;
+        requests[cue.ordinal()]++;
+        pending = true;
+    }
+
+    /**
+     * Libère les voix terminées puis démarre les effets en attente.
+     * Doit être appelée une fois par image depuis le thread de rendu.
+     * @param delta Temps écoulé depuis l'image précédente, en secondes.
+     */
+    public void update(float delta) {
+        time += delta;
+        if (!pending) return;
+        pending = false;
+
+        int starts = 0;
+        for (SoundCue cue : byPriority) {
+            int count = requests[cue.ordinal()];
+            if (count == 0) continue;
+            requests[cue.ordinal()] = 0;
+            merged += count - 1;
+
+            Sound sound = sounds[cue.ordinal()];
+            if (sound == null || muted) continue;
+            if (starts == MAX_STARTS_PER_FRAME) {
+                dropped++;
+                continue;
+            }
+            int voice = allocateVoice(cue);
+            if (voice < 0) {
+                dropped++;
+                continue;
+            }
+
+            long id = sound.play(cue.getVolume(), cue.getPitch(), 0f);
+            if (id == -1) {
+                // Le périphérique audio n'a plus de source disponible
+                dropped++;
+                continue;
+            }
+            voiceIds[voice] = id;
+            voiceCues[voice] = cue;
+            voiceEnds[voice] = time + durations[cue.ordinal()] / cue.getPitch();
+            starts++;
+            played++;
+        }
+    }
+
+    /**
+     * Trouve une voix libre, ou interrompt la voix de plus faible priorité si elle est
+     * inférieure à celle de l'effet.
+     * @return L'indice de la voix, ou -1 si l'effet doit être abandonné.
+     */
+    private int allocateVoice(SoundCue cue) {
+        int weakest = -1;
+        for (int i = 0; i < MAX_VOICES; i++) {
+            if (voiceCues[i] == null || voiceEnds[i] <= time) {
+                voiceCues[i] = null;
+                return i;
+            }
+            if (weakest < 0 || voiceCues[i].getPriority() < voiceCues[weakest].getPriority()) {
+                weakest = i;
+            }
+        }
+        if (voiceCues[weakest].getPriority() >= cue.getPriority()) return -1;
+
+        sounds[voiceCues[weakest].ordinal()].stop(voiceIds[weakest]);
+        voiceCues[weakest] = null;
+        stolen++;
+        return weakest;
+    }
+
+    /**
+     * Coupe ou rétablit le son. Les effets demandés pendant que le son est coupé sont
+     * ignorés.
+     * @param muted true pour couper le son.
+     */
+    public void setMuted(boolean muted) {
+        this.muted = muted;
+        if (muted) stopAll();
+    }
+
+    /**
+     * Interrompt toutes les voix en cours et oublie les effets en attente.
+     */
+    public void stopAll() {
+        for (int i = 0; i < MAX_VOICES; i++) {
+            if (voiceCues[i] != null) {
+                sounds[voiceCues[i].ordinal()].stop(voiceIds[i]);
+                voiceCues[i] = null;
+            }
+        }
+        Arrays.fill(requests, 0);
+        pending = false;
+    }
+
+    /** @return Le nombre de voix en cours de lecture. */
+    public int getActiveVoices() {
+        int active = 0;
+        for (int i = 0; i < MAX_VOICES; i++) {
+            if (voiceCues[i] != null && voiceEnds[i] > time) active++;
+        }
+        return active;
+    }
+
+    /** @return Le nombre de demandes de lecture reçues par {@link #trigger}. */
+    public long getTriggeredCount() { return triggered; }
+    /** @return Le nombre d'effets effectivement démarrés. */
+    public long getPlayedCount() { return played; }
+    /** @return Le nombre de demandes fusionnées avec une demande du même effet dans la même image. */
+    public long getMergedCount() { return merged; }
+    /** @return Le nombre d'effets abandonnés (démarrages de l'image épuisés, aucune voix ou source libre). */
+    public long getDroppedCount() { return dropped; }
+    /** @return Le nombre de voix interrompues au profit d'un effet plus prioritaire. */
+    public long getStolenCount() { return stolen; }
+
+    /**
+     * Lit la durée d'un fichier WAV dans ses en-têtes, sans charger les échantillons.
+     * @param file Le fichier sonore.
+     * @return Sa durée en secondes, ou {@link #DEFAULT_DURATION} si elle ne peut être lue.
+     */
+    public static float wavDuration(FileHandle file) {
+        try (DataInputStream in = new DataInputStream(file.read(64))) {
+            if (in.readInt() != 0x52494646) return DEFAULT_DURATION; // "RIFF"
+            in.readInt();
+            if (in.readInt() != 0x57415645) return DEFAULT_DURATION; // "WAVE"
+
+            int byteRate = 0;
+            while (true) {
+                int chunk = in.readInt();
+                int size = Integer.reverseBytes(in.readInt());
+                if (chunk == 0x666d7420) { // "fmt "
+                    in.readInt(); // Format et nombre de canaux
+                    in.readInt(); // Fréquence d'échantillonnage
+                    byteRate = Integer.reverseBytes(in.readInt());
+                    in.skipBytes(size - 12);
+                } else if (chunk == 0x64617461) { // "data"
+                    return byteRate > 0 ? (float) size / byteRate : DEFAULT_DURATION;
+                } else {
+                    in.skipBytes(size + (size & 1));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            return DEFAULT_DURATION;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Audio : " + triggered + " demandes, " + played + " lectures, " + merged + " fusionnées, "
+            + dropped + " abandonnées, " + stolen + " voix interrompues";
+    }
+}
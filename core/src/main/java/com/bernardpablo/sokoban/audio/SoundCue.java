@@ -0,0 +1,45 @@
+package com.bernardpablo.sokoban.audio;
+
+/**
+ * Banque des effets sonores du jeu.
+ * <p>
+ * Chaque effet associe un fichier (relatif aux assets) à un volume, une hauteur de lecture
+ * et une priorité : lorsque toutes les voix de l'{@link AudioEngine} sont occupées, un
+ * effet ne peut interrompre qu'une voix de priorité strictement inférieure.
+ * </p>
+ * @author Bernard PABLO
+ */
+public enum SoundCue {
+    /** Pas du joueur. */
+    STEP("sounds/step.wav", 0.35f, 1f, 0),
+    /** Caisse poussée. */
+    PUSH("sounds/push.wav", 0.6f, 1f, 1),
+    /** Caisse placée sur une cible de sa couleur. */
+    BOX_ON_TARGET("sounds/crate_on_target.wav", 1f, 1f, 2),
+    /** Niveau terminé. */
+    LEVEL_COMPLETED("sounds/level_complete.wav", 0.8f, 1f, 3);
+
+    /** Nombre d'effets de la banque. */
+    public static final int COUNT = values().length;
+
+    private final String file;
+    private final float volume;
+    private final float pitch;
+    private final int priority;
+
+    SoundCue(String file, float volume, float pitch, int priority) {
+        this.file = file;
+        this.volume = volume;
+        this.pitch = pitch;
+        this.priority = priority;
+    }
+
+    /** @return Le chemin du fichier sonore, relatif aux assets. */
+    public String getFile() { return file; }
+    /** @return Le volume de lecture, entre 0 et 1. */
+    public float getVolume() { return volume; }
+    /** @return La hauteur de lecture (1 : vitesse normale). */
+    public float getPitch() { return pitch; }
+    /** @return La priorité de l'effet : la plus haute interrompt les autres. */
+    public int getPriority() { return priority; }
+}
@@ -0,0 +1,275 @@
+package com.bernardpablo.sokoban.cache;
+
+import com.bernardpablo.sokoban.entities.factory.Crate;
+import com.bernardpablo.sokoban.entities.factory.Target;
+import com.bernardpablo.sokoban.logic.LevelContent;
+import com.bernardpablo.sokoban.logic.LevelGrid;
+import com.bernardpablo.sokoban.logic.Solver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Cache disque des analyses de niveaux ({@link LevelAnalysis}), adressé par contenu.
+ * <p>
+ * La clé d'un niveau est une empreinte de son contenu analysé ({@link #contentHash}) :
+ * dimensions, murs, cibles, caisses et joueur. Renommer ou déplacer un fichier TMX conserve
+ * donc ses analyses, tandis que toute modification du plateau les invalide. Chaque analyse
+ * occupe un fichier compressé du répertoire du cache, nommé d'après l'empreinte.
+ * </p>
+ * <p>
+ * La taille totale du répertoire est bornée : au-delà, les fichiers les moins récemment
+ * utilisés sont supprimés. L'ordre d'utilisation est tenu en mémoire et reporté sur la date
+ * de modification des fichiers, qui le restitue à l'ouverture suivante. Un fichier
+ * illisible ou d'une autre version du format est supprimé et traité comme absent. Les
+ * méthodes sont synchronisées : le cache peut être partagé par des analyses parallèles.
+ * </p>
+ * @author Bernard PABLO
+ */
+public class AnalysisCache {
+    private static final int MAGIC = 0x534F4B43; // "SOKC"
+    private static final String EXTENSION = ".lvc";
+    /** Taille maximale par défaut du répertoire du cache. */
+    public static final long DEFAULT_MAX_BYTES = 4 * 1024 * 1024;
+
+    private final File directory;
+    private final long maxBytes;
+    private long totalBytes;
+    /** Taille de chaque fichier, du moins récemment utilisé au plus récent. */
+    private final LinkedHashMap<String, Long> recency = new LinkedHashMap<>(16, 0.75f, true);
+
+    private int hits;
+    private int misses;
+    private int writes;
+    private int evictions;
+    private long readNanos;
+    private long writeNanos;
+
+    /**
+     * Ouvre (ou crée) le cache.
+     * @param directory Le répertoire du cache.
+     * @param maxBytes  Taille maximale du répertoire, en octets.
+     * @throws IOException Si le répertoire ne peut pas être créé.
+     */
+    public AnalysisCache(File directory, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Impossible de créer le répertoire " + directory);
+        }
+        File[] files = entries();
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File file : files) {
+            recency.put(file.getName(), file.length());
+            totalBytes += file.length();
+        }
+    }
+
+    /**
+     * Calcule l'empreinte du contenu d'un niveau : 128 bits d'un SHA-256 de sa description
+     * canonique. Les cibles et les caisses sont triées, leur ordre dans la carte est donc
+     * sans effet. La règle de file ({@link LevelContent#pushChain}), qui change les
+     * solutions, fait partie de l'empreinte.
+     * @param content Le niveau chargé (grille, cibles, caisses, joueur et règle de file).
+     * @return L'empreinte, en hexadécimal.
+     */
+    public static String contentHash(LevelContent content) {
+        LevelGrid grid = content.grid;
+        int width = grid.getWidth();
+        int height = grid.getHeight();
+        long[] objects = new long[content.targets.size + content.crates.size];
+        int n = 0;
+        for (Target target : content.targets) {
+            objects[n++] = (long) cell(grid, target.getX(), target.getY()) << 32 | target.getTileId();
+        }
+        Arrays.sort(objects, 0, n);
+        for (Crate crate : content.crates) {
+            objects[n++] = (long) cell(grid, crate.getX(), crate.getY()) << 32 | crate.getTileId();
+        }
+        Arrays.sort(objects, content.targets.size, n);
+
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+        byte[] buffer = new byte[8];
+        update(digest, buffer, width);
+        update(digest, buffer, height);
+        update(digest, buffer, content.targets.size);
+        update(digest, buffer, content.crates.size);
+        long bits = 0;
+        for (int cell = 0, cells = width * height; cell < cells; cell++) {
+            if (grid.isWall(cell)) bits |= 1L << (cell & 63);
+            if ((cell & 63) == 63 || cell == cells - 1) {
+                update(digest, buffer, bits);
+                bits = 0;
+            }
+        }
+        for (long object : objects) update(digest, buffer, object);
+        update(digest, buffer, content.player != null ? cell(grid, content.player.getX(), content.player.getY()) : -1);
+        update(digest, buffer, content.pushChain);
+
+        byte[] hash = digest.digest();
+        StringBuilder hex = new StringBuilder(32);
+        for (int i = 0; i < 16; i++) {
+            hex.append(Character.forDigit(hash[i] >> 4 & 15, 16)).append(Character.forDigit(hash[i] & 15, 16));
+        }
+        return hex.toString();
+    }
+
+    private static int cell(LevelGrid grid, float x, float y) {
+        return grid.index(grid.toCell(x), grid.toCell(y));
+    }
+
+    private static void update(MessageDigest digest, byte[] buffer, long value) {
+        for (int i = 0; i < 8; i++) buffer[i] = (byte) (value >>> (56 - 8 * i));
+        digest.update(buffer, 0, 8);
+    }
+
+    /**
+     * Cherche l'analyse d'un niveau.
+     * @param hash L'empreinte du niveau ({@link #contentHash}).
+     * @return L'analyse conservée, ou null si elle est absente ou illisible.
+     */
+    public synchronized LevelAnalysis lookup(String hash) {
+        long start = System.nanoTime();
+        File file = file(hash);
+        LevelAnalysis analysis = null;
+        if (file.isFile()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new InflaterInputStream(new FileInputStream(file))))) {
+                if (in.readInt() == MAGIC) analysis = LevelAnalysis.read(in);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Cache d'analyse : fichier illisible ignoré (" + file.getName() + ")");
+            }
+            if (analysis == null) {
+                remove(file);
+            } else {
+                recency.get(file.getName());
+                file.setLastModified(System.currentTimeMillis());
+            }
+        }
+        if (analysis != null) hits++; else misses++;
+        readNanos += System.nanoTime() - start;
+        return analysis;
+    }
+
+    /**
+     * Enregistre (ou remplace) l'analyse d'un niveau, puis fait respecter la taille maximale.
+     * @param hash     L'empreinte du niveau.
+     * @param analysis L'analyse à conserver.
+     */
+    public synchronized void store(String hash, LevelAnalysis analysis) {
+        long start = System.nanoTime();
+        File file = file(hash);
+        File tmp = new File(directory, hash + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new DeflaterOutputStream(new FileOutputStream(tmp))))) {
+                out.writeInt(MAGIC);
+                analysis.write(out);
+            }
+            Long previous = recency.remove(file.getName());
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            recency.put(file.getName(), file.length());
+            totalBytes += file.length() - (previous != null ? previous : 0);
+            writes++;
+        } catch (IOException e) {
+            System.err.println("Cache d'analyse : écriture impossible (" + e.getMessage() + ")");
+            tmp.delete();
+        }
+        if (totalBytes > maxBytes) evict(file.getName());
+        writeNanos += System.nanoTime() - start;
+    }
+
+    /**
+     * Résout un niveau, ou reprend la solution déjà conservée pour son contenu. La recherche
+     * est relancée si la solution conservée a été demandée dans un autre mode, ou si elle
+     * avait atteint sa limite d'états et que le solveur en accepte davantage ; le nouveau
+     * résultat remplace alors l'ancien.
+     * @param content Le niveau chargé.
+     * @param solver  Le solveur à utiliser en l'absence de solution.
+     * @param mode    Le mode de recherche.
+     * @return L'analyse du niveau, solution comprise.
+     */
+    public LevelAnalysis solve(LevelContent content, Solver solver, Solver.Mode mode) {
+        String hash = content.contentHash != null ? content.contentHash : contentHash(content);
+        LevelAnalysis analysis = content.analysis != null ? content.analysis : lookup(hash);
+        if (analysis == null) analysis = LevelAnalysis.of(content);
+        if (!analysis.hasSolution() || analysis.getRequestedMode() != mode
+            || analysis.isLimitReached() && analysis.getStates() < solver.getMaxStates()) {
+            analysis.setSolution(solver.solve(content, mode));
+            store(hash, analysis);
+        }
+        content.contentHash = hash;
+        content.analysis = analysis;
+        return analysis;
+    }
+
+    /**
+     * Supprime les fichiers les moins récemment utilisés jusqu'à repasser sous la taille
+     * maximale. Le fichier qui vient d'être écrit est conservé.
+     */
+    private void evict(String keep) {
+        Iterator<Map.Entry<String, Long>> it = recency.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Long> entry = it.next();
+            if (entry.getKey().equals(keep)) continue;
+            File file = new File(directory, entry.getKey());
+            if (file.delete() || !file.exists()) {
+                it.remove();
+                totalBytes -= entry.getValue();
+                evictions++;
+            }
+        }
+    }
+
+    private void remove(File file) {
+        Long length = recency.remove(file.getName());
+        if (file.delete() && length != null) totalBytes -= length;
+    }
+
+    private File[] entries() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(EXTENSION));
+        return files != null ? files : new File[0];
+    }
+
+    private File file(String hash) {
+        return new File(directory, hash + EXTENSION);
+    }
+
+    public synchronized int getHitCount() { return hits; }
+    public synchronized int getMissCount() { return misses; }
+    public synchronized int getEvictionCount() { return evictions; }
+    public synchronized int getWriteCount() { return writes; }
+    /** @return La taille actuelle du répertoire du cache, en octets. */
+    public synchronized long getTotalBytes() { return totalBytes; }
+
+    @Override
+    public synchronized String toString() {
+        int lookups = hits + misses;
+        return "Cache d'analyse : " + hits + "/" + lookups + " succès, " + writes + " écritures, "
+            + evictions + " évictions, " + totalBytes + " octets ; lecture "
+            + (lookups > 0 ? readNanos / lookups / 1000 : 0) + " µs, écriture "
+            + (writes > 0 ? writeNanos / writes / 1000 : 0) + " µs en moyenne";
+    }
+}
@@ -0,0 +1,194 @@
+package com.bernardpablo.sokoban.cache;
+
+import com.badlogic.gdx.utils.IntArray;
+import com.bernardpablo.sokoban.logic.DistanceTables;
+import com.bernardpablo.sokoban.logic.LevelContent;
+import com.bernardpablo.sokoban.logic.LevelGrid;
+import com.bernardpablo.sokoban.logic.Solver;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Résultats d'analyse d'un niveau, conservés par l'{@link AnalysisCache}.
+ * <p>
+ * L'analyse comprend toujours les tables de distances (cases mortes comprises) et les
+ * mesures de base du niveau. La solution et les mesures de recherche ne sont présentes
+ * qu'une fois le niveau résolu ({@link #hasSolution()}) ; un niveau que le solveur n'a pas
+ * su résoudre est mémorisé comme tel, pour ne pas relancer une recherche vaine.
+ * </p>
+ * @author Bernard PABLO
+ */
+public final class LevelAnalysis {
+    /** Version du format sur disque : un fichier d'une autre version est ignoré. */
+    static final int FORMAT_VERSION = 3;
+
+    int crates;
+    int colourCount;
+    int deadSquares;
+    int cells;
+    int[] colours;
+    short[][] tables;
+
+    boolean searched;
+    boolean solved;
+    boolean limitReached;
+    Solver.Mode requestedMode;
+    Solver.Mode mode;
+    final IntArray pushes = new IntArray();
+    final IntArray steps = new IntArray();
+    long expanded;
+    long generated;
+    int states;
+    long solveNanos;
+
+    LevelAnalysis() {}
+
+    /**
+     * Analyse de base d'un niveau dont les tables de distances sont construites.
+     * @param content Le niveau chargé.
+     * @return L'analyse, sans solution.
+     */
+    public static LevelAnalysis of(LevelContent content) {
+        LevelAnalysis analysis = new LevelAnalysis();
+        DistanceTables distances = content.distances;
+        analysis.crates = content.crates.size;
+        analysis.cells = content.grid.getWidth() * content.grid.getHeight();
+        analysis.colours = distances.getColours();
+        analysis.colourCount = analysis.colours.length;
+        analysis.tables = new short[analysis.colourCount][];
+        for (int i = 0; i < analysis.colourCount; i++) {
+            analysis.tables[i] = distances.getTable(analysis.colours[i]);
+        }
+        analysis.deadSquares = distances.countDeadSquares();
+        return analysis;
+    }
+
+    /**
+     * Intègre le résultat d'une recherche.
+     * @param result Le résultat du {@link Solver}.
+     */
+    public void setSolution(Solver.Result result) {
+        searched = true;
+        solved = result.isSolved();
+        limitReached = result.isLimitReached();
+        requestedMode = result.getRequestedMode();
+        mode = result.getMode();
+        pushes.clear();
+        pushes.addAll(result.getPushes());
+        steps.clear();
+        steps.addAll(result.getSteps());
+        expanded = result.getExpanded();
+        generated = result.getGenerated();
+        states = result.getStates();
+        solveNanos = result.getNanos();
+    }
+
+    /**
+     * @param grid La grille du niveau analysé.
+     * @return Les tables de distances conservées.
+     */
+    public DistanceTables toDistanceTables(LevelGrid grid) {
+        return DistanceTables.of(grid, colours, tables);
+    }
+
+    /**
+     * Écrit l'analyse. Les pas de la solution sont compactés à deux bits par direction.
+     */
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(crates);
+        out.writeInt(deadSquares);
+        out.writeInt(cells);
+        out.writeByte(colourCount);
+        for (int i = 0; i < colourCount; i++) {
+            out.writeInt(colours[i]);
+            for (short distance : tables[i]) out.writeShort(distance);
+        }
+
+        out.writeBoolean(searched);
+        if (!searched) return;
+        out.writeBoolean(solved);
+        out.writeBoolean(limitReached);
+        out.writeByte(requestedMode.ordinal());
+        out.writeByte(mode.ordinal());
+        out.writeLong(expanded);
+        out.writeLong(generated);
+        out.writeInt(states);
+        out.writeLong(solveNanos);
+        out.writeInt(pushes.size);
+        for (int i = 0; i < pushes.size; i++) out.writeInt(pushes.get(i));
+        out.writeInt(steps.size);
+        for (int i = 0; i < steps.size; i += 4) {
+            int packed = 0;
+            for (int k = 0; k < 4 && i + k < steps.size; k++) packed |= steps.get(i + k) << (k * 2);
+            out.writeByte(packed);
+        }
+    }
+
+    /**
+     * Relit une analyse écrite par {@link #write}.
+     * @return L'analyse, ou null si le format n'est pas celui de cette version.
+     */
+    static LevelAnalysis read(DataInputStream in) throws IOException {
+        if (in.readInt() != FORMAT_VERSION) return null;
+        LevelAnalysis analysis = new LevelAnalysis();
+        analysis.crates = in.readInt();
+        analysis.deadSquares = in.readInt();
+        analysis.cells = in.readInt();
+        analysis.colourCount = in.readUnsignedByte();
+        analysis.colours = new int[analysis.colourCount];
+        analysis.tables = new short[analysis.colourCount][analysis.cells];
+        for (int i = 0; i < analysis.colourCount; i++) {
+            analysis.colours[i] = in.readInt();
+            short[] table = analysis.tables[i];
+            for (int cell = 0; cell < table.length; cell++) table[cell] = in.readShort();
+        }
+
+        analysis.searched = in.readBoolean();
+        if (!analysis.searched) return analysis;
+        analysis.solved = in.readBoolean();
+        analysis.limitReached = in.readBoolean();
+        analysis.requestedMode = Solver.Mode.values()[in.readUnsignedByte()];
+        analysis.mode = Solver.Mode.values()[in.readUnsignedByte()];
+        analysis.expanded = in.readLong();
+        analysis.generated = in.readLong();
+        analysis.states = in.readInt();
+        analysis.solveNanos = in.readLong();
+        int pushCount = in.readInt();
+        analysis.pushes.ensureCapacity(pushCount);
+        for (int i = 0; i < pushCount; i++) analysis.pushes.add(in.readInt());
+        int stepCount = in.readInt();
+        analysis.steps.ensureCapacity(stepCount);
+        for (int i = 0; i < stepCount; i += 4) {
+            int packed = in.readUnsignedByte();
+            for (int k = 0; k < 4 && i + k < stepCount; k++) analysis.steps.add(packed >> (k * 2) & 3);
+        }
+        return analysis;
+    }
+
+    /** @return true si une recherche a déjà été menée (résolue ou non). */
+    public boolean hasSolution() { return searched; }
+    public boolean isSolved() { return solved; }
+    /** @return true si la recherche a été interrompue par la limite d'états du solveur. */
+    public boolean isLimitReached() { return limitReached; }
+    /** @return Le mode de recherche demandé au solveur, ou null sans recherche. */
+    public Solver.Mode getRequestedMode() { return requestedMode; }
+    /** @return Le mode de recherche utilisé, ou null sans recherche. */
+    public Solver.Mode getMode() { return mode; }
+    public IntArray getPushes() { return pushes; }
+    public IntArray getSteps() { return steps; }
+    public long getExpanded() { return expanded; }
+    public long getGenerated() { return generated; }
+    public int getStates() { return states; }
+    public long getSolveNanos() { return solveNanos; }
+    public int getCrateCount() { return crates; }
+    public int getColourCount() { return colourCount; }
+    public int getDeadSquareCount() { return deadSquares; }
+
+    /** @return Le facteur de branchement moyen de la recherche : successeurs par état développé. */
+    public double getBranchingFactor() {
+        return expanded > 0 ? (double) generated / expanded : 0;
+    }
+}
@@ -1,5 +1,6 @@
 package com.bernardpablo.sokoban.entities.factory;
 
+import com.bernardpablo.sokoban.logic.CrateAccess;
 import com.bernardpablo.sokoban.logic.ILevelState;
 
 /**
@@ -7,6 +8,15 @@ import com.bernardpablo.sokoban.logic.ILevelState;
  * @author Bernard PABLO
  */
 public class Crate extends Entity {
+    static {
+        CrateAccess.register(new CrateAccess() {
+            @Override
+            protected void moveBy(Crate crate, int dx, int dy) {
+                crate.moveBy(dx, dy);
+            }
+        });
+    }
+
     private final ILevelState level;
 
     /**
@@ -22,33 +32,25 @@ public class Crate extends Entity {
     }
 
     /**
-     * Tente de déplacer la caisse suite à une poussée.
-     * Cette méthode utilise une logique récursive pour gérer les collisions (pas dans les règles du Sokoban "de base")
+     * Tente de déplacer la caisse suite à une poussée, avec la file de caisses qui la suit.
+     * La file est validée en entier puis déplacée d'un bloc par le moteur de poussée du
+     * niveau (voir {@link com.bernardpablo.sokoban.logic.PushEngine}).
      * @param dx Déplacement horizontal souhaité.
      * @param dy Déplacement vertical souhaité.
      * @return {@code true} si la caisse a pu être déplacée, {@code false} sinon.
      */
     public boolean push(int dx, int dy) {
-        float nextX = x + dx;
-        float nextY = y + dy;
-
-        // Collision avec les murs du niveau
-        if (level.isWall(nextX, nextY)) {
-            return false;
-        }
-
-        // Détection d'une autre caisse sur la trajectoire
-        Crate nextCrate = level.getCrateAt(nextX, nextY);
-        if (nextCrate != null) {
-            // Tentative de pousser la caisse suivante (propagation du mouvement)
-            if (!nextCrate.push(dx, dy)) {
-                return false;
-            }
-        }
+        return level.pushCrates(this, dx, dy) > 0;
+    }
 
-        // Finalisation du mouvement
-        x = nextX;
-        y = nextY;
-        return true;
+    /**
+     * Décale la caisse sans aucun contrôle. Réservé à l'{@link com.bernardpablo.sokoban.logic.EntityStore},
+     * qui tient à jour l'index des caisses par case (voir {@link CrateAccess}).
+     * @param dx Déplacement horizontal en pixels.
+     * @param dy Déplacement vertical en pixels.
+     */
+    void moveBy(int dx, int dy) {
+        x += dx;
+        y += dy;
     }
 }
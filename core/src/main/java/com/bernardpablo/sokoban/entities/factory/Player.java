@@ -51,4 +51,15 @@ public class Player extends Entity {
         this.y = nextY;
         return true;
     }
+
+    /**
+     * Place le joueur sans aucun contrôle. Réservé au déplacement dans la ligne de temps
+     * de la partie, qui restaure un état complet du niveau.
+     * @param x Position X en pixels.
+     * @param y Position Y en pixels.
+     */
+    public void placeAt(float x, float y) {
+        this.x = x;
+        this.y = y;
+    }
 }
@@ -0,0 +1,79 @@
+package com.bernardpablo.sokoban.importer;
+
+import java.util.Arrays;
+
+/**
+ * Ensemble d'empreintes de 128 bits à mémoire bornée, en adressage ouvert.
+ * <p>
+ * Les deux moitiés des empreintes sont rangées dans deux tableaux de {@code long} dont la
+ * taille est fixée à la construction d'après le budget mémoire : l'ensemble ne grandit
+ * jamais. Il accepte au plus {@link #getLimit()} empreintes (trois quarts des places) ;
+ * au-delà, {@link #add} refuse l'insertion et c'est à l'appelant de découper son travail
+ * (voir {@link PackDeduplicator}).
+ * </p>
+ * @author Bernard PABLO
+ */
+final class FingerprintSet {
+    /** Octets occupés par une place de la table. */
+    static final int BYTES_PER_SLOT = 16;
+
+    private final long[] highs;
+    private final long[] lows;
+    private final int mask;
+    private final int limit;
+    /** La place vide est codée (0, 0) : cette empreinte est suivie à part. */
+    private boolean containsZero;
+    private int size;
+
+    /**
+     * @param maxBytes Budget mémoire de la table (64 places au minimum).
+     */
+    FingerprintSet(long maxBytes) {
+        long slots = Math.max(64, maxBytes / BYTES_PER_SLOT);
+        int capacity = Integer.highestOneBit((int) Math.min(slots, 1 << 30));
+        highs = new long[capacity];
+        lows = new long[capacity];
+        mask = capacity - 1;
+        limit = capacity / 4 * 3;
+    }
+
+    /**
+     * Ajoute une empreinte.
+     * @return true si elle était absente, false si elle était déjà présente.
+     * @throws IllegalStateException Si l'ensemble est plein.
+     */
+    boolean add(long high, long low) {
+        if (high == 0 && low == 0) {
+            if (containsZero) return false;
+            ensureRoom();
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int slot = (int) (high ^ high >>> 32) & mask;
+        while (highs[slot] != 0 || lows[slot] != 0) {
+            if (highs[slot] == high && lows[slot] == low) return false;
+            slot = (slot + 1) & mask;
+        }
+        ensureRoom();
+        highs[slot] = high;
+        lows[slot] = low;
+        size++;
+        return true;
+    }
+
+    private void ensureRoom() {
+        if (size >= limit) throw new IllegalStateException("Ensemble d'empreintes plein (" + limit + ")");
+    }
+
+    void clear() {
+        Arrays.fill(highs, 0);
+        Arrays.fill(lows, 0);
+        containsZero = false;
+        size = 0;
+    }
+
+    int size() { return size; }
+    /** @return Le nombre maximal d'empreintes. */
+    int getLimit() { return limit; }
+}
@@ -0,0 +1,269 @@
+package com.bernardpablo.sokoban.importer;
+
+import com.bernardpablo.sokoban.entities.factory.Crate;
+import com.bernardpablo.sokoban.entities.factory.Target;
+import com.bernardpablo.sokoban.logic.LevelContent;
+import com.bernardpablo.sokoban.logic.LevelGrid;
+import com.bernardpablo.sokoban.logic.SokobanRules;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Empreinte canonique de 128 bits d'un niveau, identique pour toutes ses variantes
+ * géométriques : rotations, symétries, translations et murs extérieurs superflus.
+ * <p>
+ * Le plateau est d'abord réduit à la zone accessible depuis le joueur (les caisses ne
+ * bloquent pas ce parcours) : tout ce qui l'entoure est traité comme du mur, puis la grille
+ * est recadrée sur cette zone. Les huit images du plateau par les symétries du carré sont
+ * ensuite codées case par case, et la plus petite dans l'ordre lexicographique est hachée
+ * (SHA-256 tronqué). Comme pour le {@link com.bernardpablo.sokoban.logic.Solver}, la
+ * position du joueur est normalisée : seule compte la zone qu'il atteint sans pousser de
+ * caisse, représentée par sa première case dans l'ordre de lecture de chaque image.
+ * </p>
+ * <p>
+ * Les couleurs des caisses et des cibles font partie du codage : un niveau XSB et sa
+ * conversion TMX ont la même empreinte. Les méthodes sont utilisables depuis plusieurs
+ * threads.
+ * </p>
+ * @author Bernard PABLO
+ */
+public final class LevelFingerprint {
+    /** Codage d'une case : 0 pour un mur ou l'extérieur, sinon {@code FLOOR | cible | caisse | joueur}. */
+    static final int FLOOR = 1;
+    static final int TARGET_SHIFT = 1;
+    static final int CRATE_SHIFT = 4;
+    static final int COLOUR_MASK = 7;
+    static final int PLAYER = 0x80;
+    /** Couleur des niveaux XSB, qui n'en ont qu'une. */
+    private static final int XSB_COLOUR = colourOf(SokobanRules.DEFAULT_CRATE_TILE_ID);
+
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    });
+
+    private final long high;
+    private final long low;
+
+    public LevelFingerprint(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    /**
+     * @param level Un niveau XSB (lu pendant l'appel au visiteur de l'{@link XsbImporter}).
+     * @return Son empreinte canonique.
+     */
+    public static LevelFingerprint of(XsbLevel level) {
+        return of(level.getWidth(), level.getHeight(), cells(level));
+    }
+
+    /**
+     * @param content Un niveau chargé ou généré (la carte Tiled n'est pas utilisée).
+     * @return Son empreinte canonique.
+     */
+    public static LevelFingerprint of(LevelContent content) {
+        LevelGrid grid = content.grid;
+        return of(grid.getWidth(), grid.getHeight(), cells(content));
+    }
+
+    /**
+     * Code les cases d'un niveau XSB, ligne 0 en haut.
+     * @param level Le niveau.
+     * @return Les {@code largeur × hauteur} cases codées.
+     */
+    static byte[] cells(XsbLevel level) {
+        int width = level.getWidth();
+        byte[] cells = new byte[width * level.getHeight()];
+        for (int row = 0; row < level.getHeight(); row++) {
+            for (int x = 0; x < width; x++) {
+                if (level.isWall(x, row)) continue;
+                int code = FLOOR;
+                if (level.hasTarget(x, row)) code |= XSB_COLOUR << TARGET_SHIFT;
+                if (level.hasCrate(x, row)) code |= XSB_COLOUR << CRATE_SHIFT;
+                if (level.hasPlayer(x, row)) code |= PLAYER;
+                cells[row * width + x] = (byte) code;
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Code les cases d'un niveau chargé, ligne 0 en bas (l'orientation est indifférente).
+     */
+    static byte[] cells(LevelContent content) {
+        LevelGrid grid = content.grid;
+        byte[] cells = new byte[grid.getWidth() * grid.getHeight()];
+        for (int i = 0; i < cells.length; i++) {
+            if (!grid.isWall(i)) cells[i] = FLOOR;
+        }
+        for (Target target : content.targets) {
+            cells[cell(grid, target.getX(), target.getY())] |= targetColourOf(target.getTileId()) << TARGET_SHIFT;
+        }
+        for (Crate crate : content.crates) {
+            cells[cell(grid, crate.getX(), crate.getY())] |= colourOf(crate.getTileId()) << CRATE_SHIFT;
+        }
+        cells[cell(grid, content.player.getX(), content.player.getY())] |= PLAYER;
+        return cells;
+    }
+
+    private static int cell(LevelGrid grid, float x, float y) {
+        return grid.index(grid.toCell(x), grid.toCell(y));
+    }
+
+    /** @return L'indice de couleur (1 à 5) d'une caisse, 7 pour une tuile inconnue. */
+    private static int colourOf(int crateTileId) {
+        int colour = crateTileId - SokobanRules.DEFAULT_CRATE_TILE_ID + 1;
+        return colour >= 1 && colour < COLOUR_MASK ? colour : COLOUR_MASK;
+    }
+
+    /** @return L'indice de couleur de la caisse attendue par une cible. */
+    private static int targetColourOf(int targetTileId) {
+        for (int crate = SokobanRules.DEFAULT_CRATE_TILE_ID; crate < SokobanRules.DEFAULT_CRATE_TILE_ID + COLOUR_MASK - 1; crate++) {
+            if (SokobanRules.getExpectedTargetTileId(crate) == targetTileId) return colourOf(crate);
+        }
+        return COLOUR_MASK;
+    }
+
+    /**
+     * Calcule l'empreinte canonique d'un plateau codé.
+     * @param width  Largeur de la grille.
+     * @param height Hauteur de la grille.
+     * @param cells  Les cases codées (voir {@link #FLOOR}), une seule portant {@link #PLAYER}.
+     * @return L'empreinte.
+     * @throws IllegalArgumentException Si le plateau n'a pas de joueur.
+     */
+    static LevelFingerprint of(int width, int height, byte[] cells) {
+        int player = -1;
+        for (int i = 0; i < cells.length && player < 0; i++) {
+            if ((cells[i] & PLAYER) != 0) player = i;
+        }
+        if (player < 0) throw new IllegalArgumentException("Niveau sans joueur.");
+
+        // Zone accessible (caisses comprises) et zone du joueur (caisses exclues)
+        int[] queue = new int[cells.length];
+        boolean[] inside = new boolean[cells.length];
+        flood(cells, width, height, player, inside, queue, false);
+        boolean[] region = new boolean[cells.length];
+        flood(cells, width, height, player, region, queue, true);
+
+        int minX = width, minY = height, maxX = -1, maxY = -1;
+        for (int i = 0; i < cells.length; i++) {
+            if (!inside[i]) continue;
+            int x = i % width, y = i / width;
+            minX = Math.min(minX, x);
+            maxX = Math.max(maxX, x);
+            minY = Math.min(minY, y);
+            maxY = Math.max(maxY, y);
+        }
+        int boxWidth = maxX - minX + 1;
+        int boxHeight = maxY - minY + 1;
+
+        // Huit images : transposition, retournement horizontal, retournement vertical
+        byte[] best = null;
+        byte[] image = new byte[4 + boxWidth * boxHeight];
+        for (int symmetry = 0; symmetry < 8; symmetry++) {
+            boolean transpose = (symmetry & 1) != 0;
+            boolean flipX = (symmetry & 2) != 0;
+            boolean flipY = (symmetry & 4) != 0;
+            int w = transpose ? boxHeight : boxWidth;
+            int h = transpose ? boxWidth : boxHeight;
+            image[0] = (byte) (w >>> 8);
+            image[1] = (byte) w;
+            image[2] = (byte) (h >>> 8);
+            image[3] = (byte) h;
+            boolean playerPlaced = false;
+            int n = 4;
+            for (int v = 0; v < h; v++) {
+                int fv = flipY ? h - 1 - v : v;
+                for (int u = 0; u < w; u++) {
+                    int fu = flipX ? w - 1 - u : u;
+                    int source = transpose
+                        ? (minY + fu) * width + minX + fv
+                        : (minY + fv) * width + minX + fu;
+                    int code = inside[source] ? cells[source] & ~PLAYER : 0;
+                    if (!playerPlaced && region[source]) {
+                        code |= PLAYER;
+                        playerPlaced = true;
+                    }
+                    image[n++] = (byte) code;
+                }
+            }
+            if (best == null || compare(image, best) < 0) {
+                byte[] previous = best;
+                best = image;
+                image = previous != null ? previous : new byte[image.length];
+            }
+        }
+
+        MessageDigest digest = DIGEST.get();
+        digest.reset();
+        byte[] hash = digest.digest(best);
+        long high = 0, low = 0;
+        for (int i = 0; i < 8; i++) {
+            high = high << 8 | (hash[i] & 0xFF);
+            low = low << 8 | (hash[8 + i] & 0xFF);
+        }
+        return new LevelFingerprint(high, low);
+    }
+
+    /**
+     * Parcours en largeur depuis le joueur.
+     * @param cratesBlock true si les caisses arrêtent le parcours.
+     */
+    private static void flood(byte[] cells, int width, int height, int start, boolean[] seen, int[] queue,
+                              boolean cratesBlock) {
+        int head = 0, tail = 0;
+        seen[start] = true;
+        queue[tail++] = start;
+        while (head < tail) {
+            int cell = queue[head++];
+            int x = cell % width, y = cell / width;
+            for (int dir = 0; dir < 4; dir++) {
+                int nx = x + LevelGrid.DX[dir], ny = y + LevelGrid.DY[dir];
+                if (nx < 0 || ny < 0 || nx >= width || ny >= height) continue;
+                int next = ny * width + nx;
+                int code = cells[next] & 0xFF;
+                if (seen[next] || code == 0) continue;
+                if (cratesBlock && (code >> CRATE_SHIFT & COLOUR_MASK) != 0) continue;
+                seen[next] = true;
+                queue[tail++] = next;
+            }
+        }
+    }
+
+    /** Comparaison lexicographique non signée de deux images de même longueur. */
+    private static int compare(byte[] a, byte[] b) {
+        for (int i = 0; i < a.length; i++) {
+            int c = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (c != 0) return c;
+        }
+        return 0;
+    }
+
+    public long getHigh() { return high; }
+    public long getLow() { return low; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof LevelFingerprint)) return false;
+        LevelFingerprint other = (LevelFingerprint) o;
+        return high == other.high && low == other.low;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (high ^ high >>> 32);
+    }
+
+    /** @return L'empreinte en hexadécimal (32 caractères). */
+    @Override
+    public String toString() {
+        return String.format("%016x%016x", high, low);
+    }
+}
@@ -0,0 +1,251 @@
+package com.bernardpablo.sokoban.importer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Retire d'une collection XSB/SOK les niveaux en double, à une symétrie ou une translation
+ * près (voir {@link LevelFingerprint}). Le premier exemplaire de chaque niveau est conservé,
+ * dans l'ordre de la collection.
+ * <p>
+ * La collection est lue trois fois en flux, sans jamais être chargée en mémoire :
+ * </p>
+ * <ol>
+ *   <li>les empreintes sont calculées en parallèle, par lots, et écrites dans l'ordre dans
+ *   un fichier temporaire (16 octets par niveau) ;</li>
+ *   <li>les doublons sont repérés avec un {@link FingerprintSet} de taille bornée. Si le
+ *   budget mémoire ne suffit pas pour toute la collection, les empreintes sont réparties en
+ *   plusieurs passes sur le fichier temporaire, chacune ne retenant qu'une tranche ;</li>
+ *   <li>les niveaux uniques sont recopiés dans la collection de sortie.</li>
+ * </ol>
+ * <p>
+ * En dehors du budget de l'ensemble, la mémoire utilisée se limite à un bit par niveau et
+ * aux lots en cours de calcul. Usage : {@code PackDeduplicator <collection.xsb> <sortie.xsb>
+ * [--threads=N] [--memory=Mo]}.
+ * </p>
+ * @author Bernard PABLO
+ */
+public final class PackDeduplicator {
+    /** Budget mémoire par défaut de l'ensemble des empreintes. */
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+    /** Nombre de niveaux par tâche de calcul d'empreintes. */
+    private static final int BATCH_SIZE = 256;
+
+    private final int threads;
+    private final long maxBytes;
+    private int levelCount;
+    private int duplicateCount;
+    private int passCount;
+
+    /**
+     * @param threads  Nombre de threads de calcul des empreintes.
+     * @param maxBytes Budget mémoire de l'ensemble des empreintes.
+     */
+    public PackDeduplicator(int threads, long maxBytes) {
+        this.threads = Math.max(1, threads);
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Recopie les niveaux uniques d'une collection.
+     * @param input  La collection à lire.
+     * @param output La destination de la collection sans doublons (elle n'est pas fermée).
+     * @return Le nombre de niveaux écrits.
+     * @throws IOException En cas d'erreur de lecture ou d'écriture.
+     */
+    public int deduplicate(File input, Writer output) throws IOException {
+        File fingerprints = File.createTempFile("empreintes", ".bin");
+        try {
+            levelCount = writeFingerprints(input, fingerprints);
+            BitSet duplicates = new BitSet(levelCount);
+            FingerprintSet seen = new FingerprintSet(maxBytes);
+            passCount = Math.max(1, (int) Math.ceil(levelCount / (seen.getLimit() * 0.9)));
+            // Une tranche plus garnie que prévu ne tient pas dans l'ensemble : on la redécoupe
+            while (!markDuplicates(fingerprints, seen, duplicates)) {
+                passCount *= 2;
+            }
+            duplicateCount = duplicates.cardinality();
+            return writeUnique(input, output, duplicates);
+        } finally {
+            if (!fingerprints.delete()) fingerprints.deleteOnExit();
+        }
+    }
+
+    /**
+     * Première lecture : calcule les empreintes en parallèle et les écrit dans l'ordre.
+     * @return Le nombre de niveaux lus.
+     */
+    private int writeFingerprints(File input, File fingerprints) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "empreintes-niveaux");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (Reader reader = new InputStreamReader(new FileInputStream(input), StandardCharsets.UTF_8);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fingerprints), 1 << 16))) {
+            ArrayDeque<Future<long[]>> pending = new ArrayDeque<>();
+            int[] count = {0};
+            Batch[] batch = {new Batch()};
+            try {
+                new XsbImporter().read(reader, level -> {
+                    batch[0].add(level);
+                    count[0]++;
+                    if (batch[0].size == BATCH_SIZE) {
+                        pending.add(executor.submit(batch[0]));
+                        batch[0] = new Batch();
+                        // Les lots en attente sont bornés : la lecture attend le calcul
+                        while (pending.size() > threads * 2) drain(pending.poll(), out);
+                    }
+                });
+                if (batch[0].size > 0) pending.add(executor.submit(batch[0]));
+                while (!pending.isEmpty()) drain(pending.poll(), out);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return count[0];
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void drain(Future<long[]> future, DataOutputStream out) {
+        try {
+            for (long value : future.get()) out.writeLong(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ExecutionException e) {
+            throw new UncheckedIOException(new IOException("Empreinte impossible : " + e.getCause(), e.getCause()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new IOException("Calcul des empreintes interrompu", e));
+        }
+    }
+
+    /**
+     * Seconde étape : repère les doublons, en {@link #passCount} passes sur le fichier des empreintes.
+     * @return false si une tranche n'a pas tenu dans l'ensemble.
+     */
+    private boolean markDuplicates(File fingerprints, FingerprintSet seen, BitSet duplicates) throws IOException {
+        duplicates.clear();
+        for (int pass = 0; pass < passCount; pass++) {
+            seen.clear();
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(fingerprints), 1 << 16))) {
+                for (int i = 0; i < levelCount; i++) {
+                    long high = in.readLong();
+                    long low = in.readLong();
+                    if (passCount > 1 && Long.remainderUnsigned(low, passCount) != pass) continue;
+                    if (seen.size() == seen.getLimit()) return false;
+                    if (!seen.add(high, low)) duplicates.set(i);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Dernière lecture : recopie les niveaux non marqués, titre compris.
+     * @return Le nombre de niveaux écrits.
+     */
+    private int writeUnique(File input, Writer output, BitSet duplicates) throws IOException {
+        int[] index = {0};
+        int[] written = {0};
+        try (Reader reader = new InputStreamReader(new FileInputStream(input), StandardCharsets.UTF_8)) {
+            new XsbImporter().read(reader, level -> {
+                if (duplicates.get(index[0]++)) return;
+                try {
+                    if (written[0]++ > 0) output.write('\n');
+                    output.write(level.toString());
+                    output.write("Title: " + level.getTitle() + "\n");
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return written[0];
+    }
+
+    /** @return Le nombre de niveaux valides lus lors du dernier appel. */
+    public int getLevelCount() { return levelCount; }
+    /** @return Le nombre de doublons retirés lors du dernier appel. */
+    public int getDuplicateCount() { return duplicateCount; }
+    /** @return Le nombre de passes de détection des doublons lors du dernier appel. */
+    public int getPassCount() { return passCount; }
+
+    /**
+     * Lot de niveaux copiés depuis l'{@link XsbImporter}, dont l'empreinte est calculée par
+     * un thread de calcul.
+     */
+    private static final class Batch implements Callable<long[]> {
+        final int[] widths = new int[BATCH_SIZE];
+        final int[] heights = new int[BATCH_SIZE];
+        final byte[][] cells = new byte[BATCH_SIZE][];
+        int size;
+
+        void add(XsbLevel level) {
+            widths[size] = level.getWidth();
+            heights[size] = level.getHeight();
+            cells[size] = LevelFingerprint.cells(level);
+            size++;
+        }
+
+        @Override
+        public long[] call() {
+            long[] result = new long[size * 2];
+            for (int i = 0; i < size; i++) {
+                LevelFingerprint fingerprint = LevelFingerprint.of(widths[i], heights[i], cells[i]);
+                result[i * 2] = fingerprint.getHigh();
+                result[i * 2 + 1] = fingerprint.getLow();
+            }
+            return result;
+        }
+    }
+
+    private static String option(String[] args, String name, String fallback) {
+        for (String arg : args) {
+            if (arg.startsWith("--" + name + "=")) return arg.substring(name.length() + 3);
+        }
+        return fallback;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args[0].startsWith("--") || args[1].startsWith("--")) {
+            System.err.println("Usage : PackDeduplicator <collection.xsb> <sortie.xsb> [--threads=N] [--memory=Mo]");
+            System.exit(1);
+        }
+        int threads = Integer.parseInt(option(args, "threads", Integer.toString(Runtime.getRuntime().availableProcessors())));
+        long maxBytes = Long.parseLong(option(args, "memory", Long.toString(DEFAULT_MAX_BYTES >> 20))) << 20;
+        PackDeduplicator deduplicator = new PackDeduplicator(threads, maxBytes);
+
+        long start = System.nanoTime();
+        int unique;
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(args[1]), StandardCharsets.UTF_8))) {
+            unique = deduplicator.deduplicate(new File(args[0]), out);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d niveaux lus, %d doublons retirés, %d conservés, en %.2f s (%d thread(s), %d passe(s)) -> %s%n",
+            deduplicator.getLevelCount(), deduplicator.getDuplicateCount(), unique, seconds, threads,
+            deduplicator.getPassCount(), args[1]);
+    }
+}
@@ -0,0 +1,109 @@
+package com.bernardpablo.sokoban.importer;
+
+import com.bernardpablo.sokoban.logic.SokobanRules;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Convertit un {@link XsbLevel} en carte Tiled (.tmx) lisible par le
+ * {@link com.bernardpablo.sokoban.logic.LevelLoader}.
+ * <p>
+ * La carte reprend la structure des niveaux du jeu : couches "Floor" et "Walls" en CSV,
+ * groupes d'objets "player", "targets" et "crates", tileset partagé et propriété
+ * "nextLevel". Le format XSB ne connaissant qu'une seule couleur, caisses et cibles
+ * reçoivent la paire par défaut de {@link SokobanRules}.
+ * </p>
+ * @author Bernard PABLO
+ */
+public final class TmxWriter {
+    /** Tileset des niveaux, relatif au dossier des cartes. */
+    public static final String TILESET = "../tilesets/sokoban_tiles.tsx";
+    static final int TILE_SIZE = 64;
+    static final int FLOOR_TILE = 89;
+    static final int WALL_TILE = 85;
+    static final int PLAYER_TILE = 53;
+
+    private TmxWriter() {}
+
+    /**
+     * Écrit la carte d'un niveau.
+     * @param level     Le niveau à convertir.
+     * @param nextLevel Nom du fichier du niveau suivant (null pour le dernier niveau).
+     * @param out       La destination (elle n'est pas fermée).
+     * @throws IOException En cas d'erreur d'écriture.
+     */
+    public static void write(XsbLevel level, String nextLevel, Writer out) throws IOException {
+        int width = level.getWidth();
+        int height = level.getHeight();
+
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        out.write("<map version=\"1.10\" orientation=\"orthogonal\" renderorder=\"right-down\" width=\"" + width
+            + "\" height=\"" + height + "\" tilewidth=\"" + TILE_SIZE + "\" tileheight=\"" + TILE_SIZE
+            + "\" infinite=\"0\">\n");
+        out.write(" <properties>\n");
+        out.write("  <property name=\"title\" value=\"" + escape(level.getTitle()) + "\"/>\n");
+        if (nextLevel != null) {
+            out.write("  <property name=\"nextLevel\" value=\"" + escape(nextLevel) + "\"/>\n");
+        }
+        out.write(" </properties>\n");
+        out.write(" <tileset firstgid=\"1\" source=\"" + TILESET + "\"/>\n");
+
+        writeLayer(level, 1, "Floor", false, out);
+        writeLayer(level, 2, "Walls", true, out);
+
+        int id = 1;
+        out.write(" <objectgroup id=\"3\" name=\"player\">\n");
+        for (int row = 0; row < height; row++) {
+            for (int x = 0; x < width; x++) {
+                if (level.hasPlayer(x, row)) writeObject(id++, PLAYER_TILE, x, row, out);
+            }
+        }
+        out.write(" </objectgroup>\n");
+        out.write(" <objectgroup id=\"4\" name=\"targets\">\n");
+        for (int row = 0; row < height; row++) {
+            for (int x = 0; x < width; x++) {
+                if (level.hasTarget(x, row)) writeObject(id++, SokobanRules.DEFAULT_TARGET_TILE_ID, x, row, out);
+            }
+        }
+        out.write(" </objectgroup>\n");
+        out.write(" <objectgroup id=\"5\" name=\"crates\">\n");
+        for (int row = 0; row < height; row++) {
+            for (int x = 0; x < width; x++) {
+                if (level.hasCrate(x, row)) writeObject(id++, SokobanRules.DEFAULT_CRATE_TILE_ID, x, row, out);
+            }
+        }
+        out.write(" </objectgroup>\n");
+        out.write("</map>\n");
+    }
+
+    private static void writeLayer(XsbLevel level, int id, String name, boolean walls, Writer out) throws IOException {
+        int width = level.getWidth();
+        int height = level.getHeight();
+        out.write(" <layer id=\"" + id + "\" name=\"" + name + "\" width=\"" + width + "\" height=\"" + height + "\">\n");
+        out.write("  <data encoding=\"csv\">\n");
+        for (int row = 0; row < height; row++) {
+            for (int x = 0; x < width; x++) {
+                int tile = walls ? (level.isWall(x, row) ? WALL_TILE : 0) : FLOOR_TILE;
+                out.write(Integer.toString(tile));
+                if (x < width - 1 || row < height - 1) out.write(',');
+            }
+            out.write('\n');
+        }
+        out.write("</data>\n");
+        out.write(" </layer>\n");
+    }
+
+    /**
+     * Écrit un objet-tuile. Dans Tiled, l'ordonnée d'un tel objet est celle de son bord
+     * inférieur, l'axe Y étant orienté vers le bas.
+     */
+    private static void writeObject(int id, int gid, int x, int row, Writer out) throws IOException {
+        out.write("  <object id=\"" + id + "\" gid=\"" + gid + "\" x=\"" + x * TILE_SIZE + "\" y=\""
+            + (row + 1) * TILE_SIZE + "\" width=\"" + TILE_SIZE + "\" height=\"" + TILE_SIZE + "\"/>\n");
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("\"", "&quot;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
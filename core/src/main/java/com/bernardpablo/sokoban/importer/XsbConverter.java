@@ -0,0 +1,114 @@
+package com.bernardpablo.sokoban.importer;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Outil en ligne de commande : convertit une collection XSB/SOK en cartes TMX jouables.
+ * <p>
+ * Usage : {@code XsbConverter <collection.xsb> [dossier de sortie] [préfixe]}. Chaque niveau
+ * valide devient {@code <préfixe>_0001.tmx}, {@code <préfixe>_0002.tmx}… (dossier "maps" et
+ * nom de la collection par défaut), chaîné au suivant par la propriété "nextLevel". La
+ * collection est lue en flux : la mémoire utilisée ne dépend pas de sa taille.
+ * </p>
+ * <p>
+ * Les cartes écrites dans {@code assets/maps} se jouent en lançant le jeu avec
+ * {@code -Dsokoban.level=<préfixe>_0001.tmx}.
+ * </p>
+ * @author Bernard PABLO
+ */
+public final class XsbConverter implements XsbImporter.Visitor {
+    private final File outputDir;
+    private final String prefix;
+    /** Dernier niveau lu, écrit dès que le suivant est connu (ou à la fin de la collection). */
+    private final XsbLevel pending = new XsbLevel();
+    private int count;
+
+    private XsbConverter(File outputDir, String prefix) {
+        this.outputDir = outputDir;
+        this.prefix = prefix;
+    }
+
+    /**
+     * @param index Position du niveau converti (à partir de 1).
+     * @return Le nom du fichier de carte correspondant.
+     */
+    private String fileName(int index) {
+        return String.format("%s_%04d.tmx", prefix, index);
+    }
+
+    /**
+     * Écrit le niveau précédent, dont le suivant est désormais connu, puis conserve celui-ci.
+     * @param level Le niveau lu.
+     */
+    @Override
+    public void visit(XsbLevel level) {
+        count++;
+        if (count > 1) {
+            try {
+                writePending(count - 1, fileName(count));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        pending.copyFrom(level);
+    }
+
+    /**
+     * Écrit le dernier niveau converti, sans niveau suivant.
+     */
+    private void finish() throws IOException {
+        if (count > 0) writePending(count, null);
+    }
+
+    /**
+     * Écrit la carte du niveau conservé.
+     * @param number    Position du niveau parmi les niveaux convertis (à partir de 1).
+     * @param nextLevel Nom du fichier du niveau suivant (null pour le dernier niveau).
+     */
+    private void writePending(int number, String nextLevel) throws IOException {
+        File file = new File(outputDir, fileName(number));
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            TmxWriter.write(pending, nextLevel, out);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage : XsbConverter <collection.xsb> [dossier de sortie] [préfixe]");
+            System.exit(1);
+        }
+        File input = new File(args[0]);
+        File outputDir = new File(args.length > 1 ? args[1] : "maps");
+        String prefix = args.length > 2 ? args[2] : input.getName().replaceFirst("\\.[^.]*$", "").toLowerCase();
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            System.err.println("Dossier de sortie impossible à créer : " + outputDir);
+            System.exit(1);
+        }
+
+        XsbImporter importer = new XsbImporter();
+        XsbConverter converter = new XsbConverter(outputDir, prefix);
+        long start = System.nanoTime();
+        try (Reader reader = new InputStreamReader(new FileInputStream(input), StandardCharsets.UTF_8)) {
+            importer.read(reader, converter);
+        }
+        converter.finish();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d niveaux convertis, %d ignorés, en %.2f s (%.0f niveaux/min) -> %s%n",
+            importer.getImportedCount(), importer.getRejectedCount(), seconds,
+            importer.getImportedCount() / seconds * 60, outputDir);
+        if (converter.count > 0) {
+            System.out.println("Pour jouer : -Dsokoban.level=" + converter.fileName(1));
+        }
+    }
+}
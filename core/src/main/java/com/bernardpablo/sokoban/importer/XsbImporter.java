@@ -0,0 +1,181 @@
+package com.bernardpablo.sokoban.importer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Lecteur en flux des collections de niveaux au format XSB/SOK.
+ * <p>
+ * Le fichier est lu ligne par ligne et chaque niveau est transmis au {@link Visitor} dès que
+ * son plateau est terminé : la mémoire utilisée ne dépend que de la taille du plus grand
+ * niveau, jamais de celle de la collection. Une seule instance de {@link XsbLevel} est
+ * réutilisée d'un niveau à l'autre.
+ * </p>
+ * <p>
+ * Une ligne de plateau n'est composée que des symboles {@code # $ . @ * + - _}, d'espaces
+ * et éventuellement de chiffres (répétition du symbole suivant, format RLE) et de
+ * {@code |} (séparateur de rangées RLE) ; elle contient au moins un mur. Toute autre ligne
+ * est du texte : une ligne {@code Title:} donne son titre au niveau qui la précède, sinon
+ * la première ligne de texte précédant un plateau (commentaire {@code ;} compris) est
+ * retenue comme titre. Les niveaux incohérents (aucune caisse, caisses et cibles en
+ * nombres différents, zéro ou plusieurs joueurs) sont ignorés et comptés.
+ * </p>
+ * @author Bernard PABLO
+ */
+public final class XsbImporter {
+    /**
+     * Destinataire des niveaux lus.
+     */
+    public interface Visitor {
+        /**
+         * @param level Le niveau lu, valide uniquement pendant cet appel.
+         */
+        void visit(XsbLevel level);
+    }
+
+    private final XsbLevel level = new XsbLevel();
+    private char[] row = new char[256];
+    private boolean inBoard;
+    private boolean hasLevel;
+    /** Première ligne de texte depuis la fin du dernier plateau : titre du suivant. */
+    private String pendingTitle;
+
+    private int index;
+    private int imported;
+    private int rejected;
+
+    /**
+     * Lit une collection complète et transmet chacun de ses niveaux valides au visiteur.
+     * @param reader  La source du texte (elle n'est pas fermée).
+     * @param visitor Le destinataire des niveaux.
+     * @return Le nombre de niveaux transmis par cet appel.
+     * @throws IOException En cas d'erreur de lecture.
+     */
+    public int read(Reader reader, Visitor visitor) throws IOException {
+        BufferedReader in = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader, 1 << 16);
+        int before = imported;
+        inBoard = false;
+        hasLevel = false;
+        pendingTitle = null;
+
+        String line;
+        while ((line = in.readLine()) != null) {
+            int end = line.length();
+            while (end > 0 && Character.isWhitespace(line.charAt(end - 1))) end--;
+
+            if (end > 0 && isBoardLine(line, end)) {
+                if (!inBoard) {
+                    // Nouveau plateau : le niveau précédent est complet (titre compris)
+                    emit(visitor);
+                    level.reset(++index);
+                    level.setTitle(pendingTitle);
+                    pendingTitle = null;
+                    inBoard = true;
+                    hasLevel = true;
+                }
+                addRows(line, end);
+            } else {
+                inBoard = false;
+                if (end > 0) text(line.substring(0, end).trim());
+            }
+        }
+        emit(visitor);
+        return imported - before;
+    }
+
+    /**
+     * Interprète une ligne de texte située entre deux plateaux.
+     */
+    private void text(String text) {
+        if (text.regionMatches(true, 0, "Title:", 0, 6)) {
+            String title = text.substring(6).trim();
+            if (hasLevel) {
+                level.setTitle(title);
+            } else {
+                pendingTitle = title;
+            }
+            return;
+        }
+        if (pendingTitle == null && !text.contains(":")) {
+            // Commentaire ou numéro précédant le plateau suivant
+            String title = text.startsWith(";") ? text.substring(1).trim() : text;
+            if (!title.isEmpty()) pendingTitle = title;
+        }
+    }
+
+    private void emit(Visitor visitor) {
+        if (!hasLevel) return;
+        hasLevel = false;
+        level.finish();
+
+        int crates = level.getCrateCount();
+        if (crates == 0 || crates != level.getTargetCount() || level.getPlayerCount() != 1) {
+            rejected++;
+            return;
+        }
+        imported++;
+        visitor.visit(level);
+    }
+
+    /**
+     * @return true si la ligne ne contient que des symboles de plateau et au moins un mur.
+     */
+    private static boolean isBoardLine(String line, int end) {
+        boolean wall = false;
+        for (int i = 0; i < end; i++) {
+            char c = line.charAt(i);
+            switch (c) {
+                case '#':
+                    wall = true;
+                    break;
+                case ' ': case '-': case '_': case '$': case '.': case '@': case '*': case '+': case '|':
+                    break;
+                default:
+                    if (c < '0' || c > '9') return false;
+            }
+        }
+        return wall;
+    }
+
+    /**
+     * Décode une ligne de plateau (répétitions RLE et séparateurs {@code |} compris) et
+     * ajoute la ou les rangées obtenues au niveau courant.
+     */
+    private void addRows(String line, int end) {
+        int length = 0;
+        int repeat = 0;
+        for (int i = 0; i < end; i++) {
+            char c = line.charAt(i);
+            if (c >= '0' && c <= '9') {
+                repeat = repeat * 10 + (c - '0');
+                continue;
+            }
+            if (c == '|') {
+                level.addRow(row, length);
+                length = 0;
+                repeat = 0;
+                continue;
+            }
+            char cell = c == '-' || c == '_' ? XsbLevel.FLOOR : c;
+            int count = Math.max(1, repeat);
+            if (length + count > row.length) {
+                row = Arrays.copyOf(row, Math.max(row.length * 2, length + count));
+            }
+            for (int k = 0; k < count; k++) row[length++] = cell;
+            repeat = 0;
+        }
+        level.addRow(row, length);
+    }
+
+    /** @return Le nombre total de niveaux transmis. */
+    public int getImportedCount() {
+        return imported;
+    }
+
+    /** @return Le nombre de niveaux ignorés car incohérents. */
+    public int getRejectedCount() {
+        return rejected;
+    }
+}
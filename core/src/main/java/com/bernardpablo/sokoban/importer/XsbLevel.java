@@ -0,0 +1,211 @@
+package com.bernardpablo.sokoban.importer;
+
+import com.bernardpablo.sokoban.logic.LevelGrid;
+
+import java.util.Arrays;
+
+/**
+ * Niveau lu dans une collection au format XSB/SOK.
+ * <p>
+ * Les cases sont conservées telles qu'écrites dans le fichier, ligne 0 en haut, sous forme
+ * normalisée : {@link #WALL}, {@link #FLOOR}, {@link #CRATE}, {@link #TARGET},
+ * {@link #PLAYER}, {@link #CRATE_ON_TARGET} et {@link #PLAYER_ON_TARGET}. Les autres
+ * conventions de sol ({@code -} et {@code _}) sont converties en {@link #FLOOR}.
+ * </p>
+ * <p>
+ * L'{@link XsbImporter} réutilise une seule instance pour toute la collection : un niveau
+ * n'est valide que pendant l'appel au {@link XsbImporter.Visitor}, qui doit en copier ce
+ * qu'il souhaite conserver.
+ * </p>
+ * @author Bernard PABLO
+ */
+public final class XsbLevel {
+    public static final char WALL = '#';
+    public static final char FLOOR = ' ';
+    public static final char CRATE = '$';
+    public static final char TARGET = '.';
+    public static final char PLAYER = '@';
+    public static final char CRATE_ON_TARGET = '*';
+    public static final char PLAYER_ON_TARGET = '+';
+
+    private char[] cells = new char[1024];
+    private int width;
+    private int height;
+    private int index;
+    private String title;
+
+    /** Lignes en cours de lecture : longueur de chacune (la largeur n'est connue qu'à la fin). */
+    private int[] rowLengths = new int[64];
+    /** Nombre de cases lues, les lignes étant rangées bout à bout. */
+    private int packedLength;
+
+    XsbLevel() {}
+
+    /**
+     * Prépare la lecture d'un nouveau niveau.
+     * @param index Position du niveau dans la collection (à partir de 1).
+     */
+    void reset(int index) {
+        this.index = index;
+        this.width = 0;
+        this.height = 0;
+        this.packedLength = 0;
+        this.title = null;
+    }
+
+    /**
+     * Ajoute une ligne du plateau. Les lignes sont rangées bout à bout, puis remises au
+     * format rectangulaire par {@link #finish()}.
+     * @param row    Les cases de la ligne, déjà normalisées.
+     * @param length Nombre de cases de la ligne.
+     */
+    void addRow(char[] row, int length) {
+        if (height == rowLengths.length) {
+            rowLengths = Arrays.copyOf(rowLengths, height * 2);
+        }
+        if (packedLength + length > cells.length) {
+            cells = Arrays.copyOf(cells, Math.max(cells.length * 2, packedLength + length));
+        }
+        System.arraycopy(row, 0, cells, packedLength, length);
+        packedLength += length;
+        rowLengths[height++] = length;
+        width = Math.max(width, length);
+    }
+
+    /**
+     * Réaligne les lignes lues sur une grille rectangulaire de {@code width × height} cases,
+     * en complétant les lignes courtes par du sol.
+     */
+    void finish() {
+        int packed = packedLength;
+        int size = width * height;
+        if (size > cells.length) {
+            cells = Arrays.copyOf(cells, size);
+        }
+        // De la dernière ligne à la première : la destination ne recouvre jamais une ligne non lue
+        for (int row = height - 1; row >= 0; row--) {
+            packed -= rowLengths[row];
+            System.arraycopy(cells, packed, cells, row * width, rowLengths[row]);
+            Arrays.fill(cells, row * width + rowLengths[row], (row + 1) * width, FLOOR);
+        }
+    }
+
+    void setTitle(String title) {
+        this.title = title;
+    }
+
+    /**
+     * Recopie un niveau lu, pour le conserver au-delà de l'appel au
+     * {@link XsbImporter.Visitor}.
+     * @param other Le niveau à recopier.
+     */
+    void copyFrom(XsbLevel other) {
+        int size = other.width * other.height;
+        if (cells.length < size) cells = new char[size];
+        System.arraycopy(other.cells, 0, cells, 0, size);
+        width = other.width;
+        height = other.height;
+        index = other.index;
+        title = other.title;
+        packedLength = size;
+    }
+
+    /**
+     * @param x   Colonne.
+     * @param row Ligne, comptée depuis le haut du plateau.
+     * @return Le contenu normalisé de la case ({@link #FLOOR} hors du plateau).
+     */
+    public char at(int x, int row) {
+        if (x < 0 || row < 0 || x >= width || row >= height) return FLOOR;
+        return cells[row * width + x];
+    }
+
+    /** @return true si la case est un mur. */
+    public boolean isWall(int x, int row) {
+        return at(x, row) == WALL;
+    }
+
+    /** @return true si la case porte une caisse, sur une cible ou non. */
+    public boolean hasCrate(int x, int row) {
+        char c = at(x, row);
+        return c == CRATE || c == CRATE_ON_TARGET;
+    }
+
+    /** @return true si la case porte une cible, libre ou occupée. */
+    public boolean hasTarget(int x, int row) {
+        char c = at(x, row);
+        return c == TARGET || c == CRATE_ON_TARGET || c == PLAYER_ON_TARGET;
+    }
+
+    /** @return true si le joueur se trouve sur la case. */
+    public boolean hasPlayer(int x, int row) {
+        char c = at(x, row);
+        return c == PLAYER || c == PLAYER_ON_TARGET;
+    }
+
+    /** @return Le nombre de cases portant le symbole donné (ou l'un des symboles combinés). */
+    private int count(char a, char b, char c) {
+        int n = 0;
+        for (int i = 0, size = width * height; i < size; i++) {
+            char cell = cells[i];
+            if (cell == a || cell == b || cell == c) n++;
+        }
+        return n;
+    }
+
+    /** @return Le nombre de caisses du niveau. */
+    public int getCrateCount() {
+        return count(CRATE, CRATE_ON_TARGET, CRATE);
+    }
+
+    /** @return Le nombre de cibles du niveau. */
+    public int getTargetCount() {
+        return count(TARGET, CRATE_ON_TARGET, PLAYER_ON_TARGET);
+    }
+
+    /** @return Le nombre de joueurs du niveau (un niveau valide en compte un seul). */
+    public int getPlayerCount() {
+        return count(PLAYER, PLAYER_ON_TARGET, PLAYER);
+    }
+
+    /**
+     * Construit la grille des murs du niveau, dans le repère du jeu (axe Y vers le haut).
+     * @param tileSize Taille d'une case en pixels.
+     * @return La grille correspondante.
+     */
+    public LevelGrid toGrid(int tileSize) {
+        LevelGrid grid = new LevelGrid(width, height, tileSize);
+        for (int row = 0; row < height; row++) {
+            for (int x = 0; x < width; x++) {
+                if (cells[row * width + x] == WALL) grid.setWall(x, height - 1 - row);
+            }
+        }
+        return grid;
+    }
+
+    /** @return Le titre du niveau, ou son numéro dans la collection s'il n'en a pas. */
+    public String getTitle() {
+        return title != null ? title : Integer.toString(index);
+    }
+
+    /** @return La position du niveau dans la collection (à partir de 1). */
+    public int getIndex() { return index; }
+    /** @return La largeur du plateau, en cases (ligne la plus longue). */
+    public int getWidth() { return width; }
+    /** @return La hauteur du plateau, en lignes. */
+    public int getHeight() { return height; }
+
+    /**
+     * @return Le plateau au format XSB, une ligne par rangée.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(height * (width + 1));
+        for (int row = 0; row < height; row++) {
+            int end = width;
+            while (end > 0 && cells[row * width + end - 1] == FLOOR) end--;
+            sb.append(cells, row * width, end).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,382 @@
+package com.bernardpablo.sokoban.logic;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.bernardpablo.sokoban.entities.factory.Crate;
+import com.bernardpablo.sokoban.entities.factory.Player;
+import com.bernardpablo.sokoban.entities.factory.Target;
+
+import java.util.Arrays;
+
+/**
+ * État d'un niveau sous forme de bitboards, pour la recherche et la simulation en masse.
+ * <p>
+ * Le sol, les caisses de chaque couleur et les cibles de chaque couleur sont des masques
+ * {@code long[]}. Les cases sont rangées ligne par ligne avec une colonne de bourrage
+ * (toujours un mur) en fin de ligne : un décalage d'un bit vers la gauche ou la droite ne
+ * déborde donc jamais sur la ligne voisine, et un décalage d'une ligne vaut un décalage de
+ * {@code stride = width + 1} bits. Les opérations de masse (zone accessible au joueur,
+ * poussées légales) s'écrivent alors en quelques décalages et opérations logiques par mot
+ * de 64 cases.
+ * </p>
+ * <p>
+ * Les règles sont celles de {@link Player#tryMove} et {@link Crate#push} : pousser une
+ * caisse pousse aussi toute la file de caisses qui la suit, pourvu que la case derrière la
+ * dernière ne soit pas un mur et que la file ne dépasse pas la longueur maximale du niveau
+ * ({@link #setMaxChain}, illimitée par défaut comme dans le {@link PushEngine}). Les cases
+ * et poussées exposées utilisent l'index de {@link LevelGrid} ({@code y * width + x}, axe Y
+ * vers le haut).
+ * </p>
+ * @author Bernard PABLO
+ */
+public final class BitBoard {
+    /** Résultats de {@link #move}, combinables. */
+    public static final int MOVED = 1, PUSHED = 2;
+
+    private final int width;
+    private final int height;
+    private final int stride;
+    private final int words;
+    /** Cases franchissables (ni mur, ni bourrage). */
+    private final long[] floor;
+    /** Identifiant de tuile de la cible associée à chaque couleur. */
+    private final int[] colourTargets;
+    private final long[][] crates;
+    private final long[][] targets;
+    /** Union des caisses de toutes les couleurs. */
+    private final long[] allCrates;
+    private int player;
+    private int maxChain = PushEngine.UNLIMITED;
+
+    // Tampons de travail, réutilisés d'un appel à l'autre
+    private final long[] reach;
+    private final long[] frontier;
+    private final long[] shifted;
+
+    private BitBoard(int width, int height, int colours) {
+        this.width = width;
+        this.height = height;
+        this.stride = width + 1;
+        this.words = (stride * height + 63) >>> 6;
+        this.floor = new long[words];
+        this.colourTargets = new int[colours];
+        this.crates = new long[colours][words];
+        this.targets = new long[colours][words];
+        this.allCrates = new long[words];
+        this.reach = new long[words];
+        this.frontier = new long[words];
+        this.shifted = new long[words];
+    }
+
+    /**
+     * Construit le bitboard d'un niveau à partir de ses entités.
+     * @param grid    La grille du niveau (murs).
+     * @param crates  Les caisses.
+     * @param targets Les cibles.
+     * @param player  Le joueur.
+     * @return L'état correspondant.
+     */
+    public static BitBoard of(LevelGrid grid, Array<Crate> crates, Array<Target> targets, Player player) {
+        // Une couleur par identifiant de cible, plus celles des caisses sans cible correspondante
+        IntArray colours = new IntArray();
+        for (Target target : targets) {
+            if (!colours.contains(target.getTileId())) colours.add(target.getTileId());
+        }
+        for (Crate crate : crates) {
+            int expected = SokobanRules.getExpectedTargetTileId(crate.getTileId());
+            if (!colours.contains(expected)) colours.add(expected);
+        }
+
+        BitBoard board = new BitBoard(grid.getWidth(), grid.getHeight(), colours.size);
+        System.arraycopy(colours.items, 0, board.colourTargets, 0, colours.size);
+        for (int y = 0; y < board.height; y++) {
+            for (int x = 0; x < board.width; x++) {
+                if (!grid.isWall(x, y)) set(board.floor, board.bit(x, y));
+            }
+        }
+        for (Target target : targets) {
+            int bit = board.bit(grid.toCell(target.getX()), grid.toCell(target.getY()));
+            set(board.targets[colours.indexOf(target.getTileId())], bit);
+        }
+        for (Crate crate : crates) {
+            int bit = board.bit(grid.toCell(crate.getX()), grid.toCell(crate.getY()));
+            set(board.crates[colours.indexOf(SokobanRules.getExpectedTargetTileId(crate.getTileId()))], bit);
+            set(board.allCrates, bit);
+        }
+        board.player = board.bit(grid.toCell(player.getX()), grid.toCell(player.getY()));
+        return board;
+    }
+
+    private int bit(int x, int y) {
+        return y * stride + x;
+    }
+
+    /** Convertit un bit en index de {@link LevelGrid}. */
+    private int toCell(int bit) {
+        return bit / stride * width + bit % stride;
+    }
+
+    /** Convertit un index de {@link LevelGrid} en bit. */
+    private int toBit(int cell) {
+        return cell / width * stride + cell % width;
+    }
+
+    /** Décalage d'une case (en bits) dans chaque direction de {@link LevelGrid}. */
+    private int offset(int dir) {
+        return LevelGrid.DX[dir] + LevelGrid.DY[dir] * stride;
+    }
+
+    private static boolean test(long[] mask, int bit) {
+        return bit >= 0 && (bit >>> 6) < mask.length && (mask[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    private static void set(long[] mask, int bit) {
+        mask[bit >>> 6] |= 1L << bit;
+    }
+
+    private static void clear(long[] mask, int bit) {
+        mask[bit >>> 6] &= ~(1L << bit);
+    }
+
+    /**
+     * Décale un masque de {@code n} bits : vers les index croissants si {@code n > 0},
+     * décroissants sinon. Les bits sortant du masque sont perdus.
+     */
+    private static void shift(long[] src, int n, long[] dst) {
+        int len = src.length;
+        if (n > 0 && n < 64) {
+            long previous = 0;
+            for (int i = 0; i < len; i++) {
+                long current = src[i];
+                dst[i] = current << n | previous >>> (64 - n);
+                previous = current;
+            }
+        } else if (n < 0 && n > -64) {
+            long next = 0;
+            for (int i = len - 1; i >= 0; i--) {
+                long current = src[i];
+                dst[i] = current >>> -n | next << (64 + n);
+                next = current;
+            }
+        } else if (n >= 0) {
+            int w = n >>> 6, b = n & 63;
+            for (int i = len - 1; i >= 0; i--) {
+                int j = i - w;
+                long hi = j >= 0 ? src[j] << b : 0;
+                long lo = b != 0 && j - 1 >= 0 ? src[j - 1] >>> (64 - b) : 0;
+                dst[i] = hi | lo;
+            }
+        } else {
+            n = -n;
+            int w = n >>> 6, b = n & 63;
+            for (int i = 0; i < len; i++) {
+                int j = i + w;
+                long lo = j < len ? src[j] >>> b : 0;
+                long hi = b != 0 && j + 1 < len ? src[j + 1] << (64 - b) : 0;
+                dst[i] = lo | hi;
+            }
+        }
+    }
+
+    /**
+     * Calcule en une passe l'union des quatre voisins de chaque case d'un masque. Pour les
+     * grilles étroites ({@code stride < 64}), un décalage ne touche que le mot voisin.
+     */
+    private void neighbours(long[] src, long[] dst) {
+        if (stride >= 64) {
+            Arrays.fill(dst, 0);
+            for (int dir = 0; dir < 4; dir++) {
+                shift(src, offset(dir), shifted);
+                for (int i = 0; i < words; i++) dst[i] |= shifted[i];
+            }
+            return;
+        }
+        int s = stride;
+        long previous = 0;
+        for (int i = 0; i < words; i++) {
+            long current = src[i];
+            long next = i + 1 < words ? src[i + 1] : 0;
+            dst[i] = current << 1 | previous >>> 63
+                | current >>> 1 | next << 63
+                | current << s | previous >>> (64 - s)
+                | current >>> s | next << (64 - s);
+            previous = current;
+        }
+    }
+
+    /**
+     * Zone accessible au joueur sans pousser de caisse, par propagation de masques : à
+     * chaque itération, la zone s'étend d'une case dans les quatre directions.
+     * @return Le masque interne de la zone (valide jusqu'au prochain appel).
+     */
+    private long[] flood() {
+        Arrays.fill(reach, 0);
+        set(reach, player);
+        boolean grown = true;
+        while (grown) {
+            grown = false;
+            neighbours(reach, frontier);
+            for (int i = 0; i < words; i++) {
+                long next = reach[i] | (frontier[i] & floor[i] & ~allCrates[i]);
+                if (next != reach[i]) {
+                    reach[i] = next;
+                    grown = true;
+                }
+            }
+        }
+        return reach;
+    }
+
+    /**
+     * @param cell Index d'une case.
+     * @return true si le joueur peut atteindre la case sans pousser de caisse.
+     */
+    public boolean isReachable(int cell) {
+        return test(flood(), toBit(cell));
+    }
+
+    /**
+     * Énumère les poussées légales : les caisses voisines de la zone accessible au joueur
+     * sont obtenues par un décalage de la zone par direction ; seule la file de caisses de
+     * chaque candidate est ensuite parcourue, jusqu'à la première case non occupée.
+     * @param out Reçoit les poussées codées {@code (case de la caisse << 2) | direction} ; vidé au préalable.
+     * @return Le nombre de poussées trouvées.
+     */
+    public int legalPushes(IntArray out) {
+        out.clear();
+        long[] zone = flood();
+        long[] pushers = frontier; // La propagation est terminée : tampon libre
+        for (int dir = 0; dir < 4; dir++) {
+            int off = offset(dir);
+            shift(zone, off, pushers);
+            for (int i = 0; i < words; i++) {
+                long candidates = pushers[i] & allCrates[i];
+                while (candidates != 0) {
+                    int bit = (i << 6) + Long.numberOfTrailingZeros(candidates);
+                    candidates &= candidates - 1;
+                    int end = endOfChain(bit, off);
+                    if (end >= 0 && test(floor, end)) out.add(toCell(bit) << 2 | dir);
+                }
+            }
+        }
+        return out.size;
+    }
+
+    /**
+     * Applique un pas du joueur, selon les règles de {@link Player#tryMove}.
+     * @param dir La direction ({@link LevelGrid#LEFT}, ...).
+     * @return 0 si le pas est impossible, sinon {@link #MOVED}, avec {@link #PUSHED} si
+     *         au moins une caisse a été poussée.
+     */
+    public int move(int dir) {
+        int off = offset(dir);
+        int next = player + off;
+        if (!test(floor, next)) return 0;
+        if (!test(allCrates, next)) {
+            player = next;
+            return MOVED;
+        }
+
+        int end = endOfChain(next, off);
+        if (end < 0 || !test(floor, end)) return 0;
+
+        // Chaque caisse de la file avance d'une case, de la dernière à la première
+        for (int from = end - off; ; from -= off) {
+            int colour = colourAt(from);
+            clear(crates[colour], from);
+            set(crates[colour], from + off);
+            clear(allCrates, from);
+            set(allCrates, from + off);
+            if (from == next) break;
+        }
+        player = next;
+        return MOVED | PUSHED;
+    }
+
+    /**
+     * @param first Bit de la première caisse de la file.
+     * @param off   Décalage de la poussée.
+     * @return Le bit de la première case non occupée après la file, ou -1 si la file est
+     *         plus longue que {@link #setMaxChain permis}.
+     */
+    private int endOfChain(int first, int off) {
+        int end = first;
+        for (int length = 0; test(allCrates, end); length++) {
+            if (length == maxChain) return -1;
+            end += off;
+        }
+        return end;
+    }
+
+    /**
+     * Joue une poussée renvoyée par {@link #legalPushes} : le joueur rejoint la case
+     * derrière la caisse puis la pousse.
+     * @param push La poussée codée.
+     * @return true si la poussée a été appliquée.
+     */
+    public boolean applyPush(int push) {
+        int dir = push & 3;
+        int crate = toBit(push >>> 2);
+        int behind = crate - offset(dir);
+        if (!test(flood(), behind)) return false;
+        int saved = player;
+        player = behind;
+        if (move(dir) != (MOVED | PUSHED)) {
+            player = saved;
+            return false;
+        }
+        return true;
+    }
+
+    private int colourAt(int bit) {
+        for (int c = 0; c < crates.length; c++) {
+            if (test(crates[c], bit)) return c;
+        }
+        throw new IllegalStateException("Aucune caisse sur la case " + toCell(bit));
+    }
+
+    /**
+     * @return true si chaque cible porte une caisse de sa couleur (aucune cible : false),
+     *         comme {@code SokobanModel.isLevelCompleted}.
+     */
+    public boolean isSolved() {
+        boolean any = false;
+        for (int c = 0; c < targets.length; c++) {
+            long[] t = targets[c];
+            long[] k = crates[c];
+            for (int i = 0; i < words; i++) {
+                if ((t[i] & ~k[i]) != 0) return false;
+                any |= t[i] != 0;
+            }
+        }
+        return any;
+    }
+
+    /** @return La case du joueur (index de {@link LevelGrid}). */
+    public int getPlayerCell() {
+        return toCell(player);
+    }
+
+    /**
+     * @param cell Index d'une case.
+     * @return L'identifiant de tuile de la cible associée à la couleur de la caisse posée
+     *         sur la case, ou 0 si la case est vide.
+     */
+    public int crateColourAt(int cell) {
+        int bit = toBit(cell);
+        if (!test(allCrates, bit)) return 0;
+        return colourTargets[colourAt(bit)];
+    }
+
+    /**
+     * @param maxChain Longueur maximale d'une file de caisses poussée
+     *                 ({@link PushEngine#CLASSIC}, {@link PushEngine#UNLIMITED}...).
+     */
+    public void setMaxChain(int maxChain) {
+        this.maxChain = Math.max(1, maxChain);
+    }
+
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public int getMaxChain() { return maxChain; }
+}
@@ -0,0 +1,44 @@
+package com.bernardpablo.sokoban.logic;
+
+import com.bernardpablo.sokoban.entities.factory.Crate;
+
+/**
+ * Accès du package {@code logic} aux opérations des caisses qui ne font pas partie de leur
+ * API publique.
+ * <p>
+ * Seul l'{@link EntityStore}, qui tient à jour l'index des caisses par case, doit déplacer
+ * une caisse sans contrôle. La classe {@link Crate} enregistre l'unique implémentation de
+ * cet accès lors de son initialisation ; l'instance n'est visible que de ce package.
+ * </p>
+ * @author Bernard PABLO
+ */
+public abstract class CrateAccess {
+    private static volatile CrateAccess instance;
+
+    /**
+     * Enregistre l'implémentation. Appelée une seule fois, par l'initialisation de la
+     * classe {@link Crate}.
+     * @param access L'implémentation fournie par {@link Crate}.
+     * @throws IllegalStateException Si une implémentation est déjà enregistrée.
+     */
+    public static synchronized void register(CrateAccess access) {
+        if (instance != null) throw new IllegalStateException("Accès aux caisses déjà enregistré.");
+        instance = access;
+    }
+
+    /**
+     * @return L'implémentation enregistrée ; la classe {@link Crate} est déjà initialisée
+     *         dès qu'une caisse existe.
+     */
+    static CrateAccess get() {
+        return instance;
+    }
+
+    /**
+     * Décale une caisse sans aucun contrôle.
+     * @param crate La caisse.
+     * @param dx    Déplacement horizontal en pixels.
+     * @param dy    Déplacement vertical en pixels.
+     */
+    protected abstract void moveBy(Crate crate, int dx, int dy);
+}
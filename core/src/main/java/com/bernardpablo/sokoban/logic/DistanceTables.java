@@ -0,0 +1,206 @@
+package com.bernardpablo.sokoban.logic;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntMap;
+import com.bernardpablo.sokoban.entities.factory.Crate;
+import com.bernardpablo.sokoban.entities.factory.Target;
+
+import java.util.Arrays;
+
+/**
+ * Tables de distances de poussée, une par couleur de cible.
+ * <p>
+ * Pour chaque couleur, la table donne, pour chaque case, le nombre minimal de poussées
+ * nécessaires pour amener une caisse de cette couleur sur l'une des cibles qui lui
+ * correspondent ({@link SokobanRules#crateMatchesTarget}), en ne tenant compte que des
+ * murs. Elle est obtenue par un parcours en largeur inverse depuis les cibles, en
+ * « tirant » la caisse : tirer une caisse de {@code c} vers {@code c + d} suppose que le
+ * joueur se tienne en {@code c + d} et recule en {@code c + 2d}.
+ * </p>
+ * <p>
+ * Les distances sont stockées dans des {@code short[]} compacts ; {@link #UNREACHABLE}
+ * signale une case d'où la caisse ne peut jamais atteindre une cible (case morte).
+ * </p>
+ * @author Bernard PABLO
+ */
+public final class DistanceTables {
+    /** Valeur des cases depuis lesquelles aucune cible de la couleur n'est atteignable. */
+    public static final short UNREACHABLE = Short.MAX_VALUE;
+
+    private final LevelGrid grid;
+    /** Tables indexées par l'identifiant de tuile de la cible. */
+    private final IntMap<short[]> tables = new IntMap<>();
+    private long buildNanos;
+
+    private DistanceTables(LevelGrid grid) {
+        this.grid = grid;
+    }
+
+    /**
+     * Construit les tables de distances d'un niveau.
+     * @param grid    La grille du niveau (murs).
+     * @param targets Les cibles du niveau.
+     * @return Les tables, une par couleur de cible présente.
+     */
+    public static DistanceTables build(LevelGrid grid, Array<Target> targets) {
+        long start = System.nanoTime();
+        DistanceTables result = new DistanceTables(grid);
+        int cells = grid.getWidth() * grid.getHeight();
+        int[] queue = new int[cells];
+
+        for (int i = 0; i < targets.size; i++) {
+            int colour = targets.get(i).getTileId();
+            if (result.tables.containsKey(colour)) continue;
+
+            short[] table = new short[cells];
+            Arrays.fill(table, UNREACHABLE);
+            int tail = 0;
+            // Parcours multi-source : toutes les cibles de la couleur partent à distance 0
+            for (int j = i; j < targets.size; j++) {
+                Target target = targets.get(j);
+                if (target.getTileId() != colour) continue;
+                int x = grid.toCell(target.getX());
+                int y = grid.toCell(target.getY());
+                if (grid.isWall(x, y)) continue;
+                int index = grid.index(x, y);
+                if (table[index] == UNREACHABLE) {
+                    table[index] = 0;
+                    queue[tail++] = index;
+                }
+            }
+            result.pull(table, queue, tail);
+            result.tables.put(colour, table);
+        }
+
+        result.buildNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    /**
+     * Reconstruit des tables déjà calculées (par exemple relues depuis un cache).
+     * @param grid    La grille du niveau.
+     * @param colours Les identifiants de tuile des cibles, un par table.
+     * @param tables  Les tables, dans l'ordre de {@code colours}.
+     * @return Les tables de distances.
+     * @throws IllegalArgumentException Si une table ne correspond pas à la taille de la grille.
+     */
+    public static DistanceTables of(LevelGrid grid, int[] colours, short[][] tables) {
+        DistanceTables result = new DistanceTables(grid);
+        int cells = grid.getWidth() * grid.getHeight();
+        for (int i = 0; i < colours.length; i++) {
+            if (tables[i].length != cells) {
+                throw new IllegalArgumentException("Table de distances de " + tables[i].length + " cases pour une grille de " + cells);
+            }
+            result.tables.put(colours[i], tables[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Parcours en largeur inverse : propage les distances en tirant la caisse.
+     */
+    private void pull(short[] table, int[] queue, int tail) {
+        int width = grid.getWidth();
+        int head = 0;
+        while (head < tail) {
+            int cell = queue[head++];
+            int cx = cell % width;
+            int cy = cell / width;
+            for (int dir = 0; dir < 4; dir++) {
+                int nx = cx + LevelGrid.DX[dir];
+                int ny = cy + LevelGrid.DY[dir];
+                // Le joueur doit pouvoir reculer d'une case supplémentaire
+                if (grid.isWall(nx, ny) || grid.isWall(nx + LevelGrid.DX[dir], ny + LevelGrid.DY[dir])) continue;
+
+                int next = grid.index(nx, ny);
+                if (table[next] != UNREACHABLE) continue;
+                table[next] = (short) (table[cell] + 1);
+                queue[tail++] = next;
+            }
+        }
+    }
+
+    /**
+     * @param targetTileId Identifiant de tuile d'une couleur de cible.
+     * @return La table de cette couleur, ou null si le niveau n'a aucune cible de cette couleur.
+     */
+    public short[] getTable(int targetTileId) {
+        return tables.get(targetTileId);
+    }
+
+    /**
+     * Distance de poussée d'une caisse placée sur une case jusqu'à la plus proche cible compatible.
+     * @param crateTileId Identifiant de tuile de la caisse.
+     * @param cellX       Colonne.
+     * @param cellY       Ligne.
+     * @return Le nombre minimal de poussées, ou {@link #UNREACHABLE}.
+     */
+    public int distance(int crateTileId, int cellX, int cellY) {
+        short[] table = tables.get(SokobanRules.getExpectedTargetTileId(crateTileId));
+        if (table == null || grid.isWall(cellX, cellY)) return UNREACHABLE;
+        return table[grid.index(cellX, cellY)];
+    }
+
+    /**
+     * @param crate Une caisse du niveau.
+     * @return Sa distance de poussée jusqu'à la plus proche cible compatible.
+     */
+    public int distance(Crate crate) {
+        return distance(crate.getTileId(), grid.toCell(crate.getX()), grid.toCell(crate.getY()));
+    }
+
+    /**
+     * Somme des distances de toutes les caisses : minorant du nombre de poussées restantes.
+     * @param crates Les caisses du niveau.
+     * @return La somme, ou {@link #UNREACHABLE} si une caisse ne peut plus atteindre de cible.
+     */
+    public int totalDistance(Array<Crate> crates) {
+        int total = 0;
+        for (int i = 0; i < crates.size; i++) {
+            int d = distance(crates.get(i));
+            if (d == UNREACHABLE) return UNREACHABLE;
+            total += d;
+        }
+        return total;
+    }
+
+    /** @return Les identifiants de tuile des couleurs de cible, par ordre croissant. */
+    public int[] getColours() {
+        int[] colours = tables.keys().toArray().toArray();
+        Arrays.sort(colours);
+        return colours;
+    }
+
+    /**
+     * @return Le nombre de cases libres mortes pour toutes les couleurs : aucune caisse
+     *         poussée sur l'une d'elles ne peut plus atteindre de cible.
+     */
+    public int countDeadSquares() {
+        int[] colours = getColours();
+        int dead = 0;
+        for (int cell = 0, cells = grid.getWidth() * grid.getHeight(); cell < cells; cell++) {
+            if (grid.isWall(cell)) continue;
+            boolean reachable = false;
+            for (int colour : colours) {
+                reachable |= tables.get(colour)[cell] != UNREACHABLE;
+            }
+            if (!reachable) dead++;
+        }
+        return dead;
+    }
+
+    /** @return Le nombre de couleurs (tables) construites. */
+    public int getColourCount() {
+        return tables.size;
+    }
+
+    /** @return La mémoire occupée par les tables, en octets. */
+    public long getMemoryBytes() {
+        return (long) tables.size * grid.getWidth() * grid.getHeight() * 2;
+    }
+
+    /** @return Le temps de construction des tables, en nanosecondes. */
+    public long getBuildNanos() {
+        return buildNanos;
+    }
+}
@@ -0,0 +1,270 @@
+package com.bernardpablo.sokoban.logic;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.bernardpablo.sokoban.entities.factory.Crate;
+import com.bernardpablo.sokoban.entities.factory.Target;
+
+import java.util.Arrays;
+
+/**
+ * Stockage en colonnes (« struct of arrays ») des caisses et des cibles d'un niveau.
+ * <p>
+ * Chaque caisse est un index : sa case dans {@code crateCell}, sa couleur dans
+ * {@code crateColour}. Les cibles, immobiles, sont rangées de la même façon. Deux index par
+ * case ({@code crateAt}, {@code targetAt}) donnent la caisse ou la cible d'une case en
+ * temps constant, et le nombre de caisses posées sur une cible de leur couleur est tenu à
+ * jour à chaque déplacement : la victoire se teste sans parcourir les cibles. L'état
+ * variable d'un niveau tient donc dans un {@code int[]} (voir {@link #snapshot}).
+ * </p>
+ * <p>
+ * Les couleurs sont les indices (à partir de 1) d'une palette propre au niveau, associant
+ * l'identifiant de tuile d'une caisse à celui de sa cible (voir
+ * {@link SokobanRules#getExpectedTargetTileId}) : une caisse est bien placée lorsque sa
+ * couleur est celle de la cible de sa case.
+ * </p>
+ * <p>
+ * Les objets {@link Crate} et {@link Target} du niveau sont conservés comme vue de
+ * compatibilité, dans l'ordre des index : {@link #moveCrate} tient la position des caisses
+ * à jour, pour le rendu animé et les appelants de {@code getCrates()}.
+ * </p>
+ * @author Bernard PABLO
+ */
+public final class EntityStore {
+    private LevelGrid grid;
+    private int crateCount;
+    private int[] crateCell = new int[0];
+    private byte[] crateColour = new byte[0];
+    private int targetCount;
+    private int[] targetCell = new int[0];
+    private byte[] targetColour = new byte[0];
+    /** Index + 1 de la caisse (resp. de la cible) de chaque case, 0 si aucune. */
+    private int[] crateAt = new int[0];
+    private int[] targetAt = new int[0];
+    /** Palette : tuile de la caisse et de la cible de chaque couleur (-1 si sans objet). */
+    private final IntArray paletteCrates = new IntArray();
+    private final IntArray paletteTargets = new IntArray();
+    private int matched;
+    /** Caisses déplacées depuis le dernier {@link #clearMoved()}. */
+    private final IntArray moved = new IntArray();
+    private Array<Crate> crates = new Array<>();
+    private Array<Target> targets = new Array<>();
+
+    /**
+     * Remplit le stockage à partir des entités d'un niveau.
+     * @param grid    La grille du niveau.
+     * @param crates  Les caisses, conservées comme vue de compatibilité.
+     * @param targets Les cibles, conservées comme vue de compatibilité.
+     * @throws IllegalArgumentException Si le niveau compte plus de couleurs que le format ne le permet.
+     */
+    public void load(LevelGrid grid, Array<Crate> crates, Array<Target> targets) {
+        this.grid = grid;
+        this.crates = crates;
+        this.targets = targets;
+        int cells = grid.getWidth() * grid.getHeight();
+        if (crateAt.length < cells) {
+            crateAt = new int[cells];
+            targetAt = new int[cells];
+        } else {
+            Arrays.fill(crateAt, 0);
+            Arrays.fill(targetAt, 0);
+        }
+        paletteCrates.clear();
+        paletteTargets.clear();
+        paletteCrates.add(-1); // La couleur 0 est réservée
+        paletteTargets.add(-1);
+
+        crateCount = crates.size;
+        if (crateCell.length < crateCount) {
+            crateCell = new int[crateCount];
+            crateColour = new byte[crateCount];
+        }
+        for (int i = 0; i < crateCount; i++) {
+            Crate crate = crates.get(i);
+            int cell = cellOf(crate.getX(), crate.getY());
+            crateCell[i] = cell;
+            crateColour[i] = crateColourOf(crate.getTileId());
+            crateAt[cell] = i + 1;
+        }
+
+        targetCount = targets.size;
+        if (targetCell.length < targetCount) {
+            targetCell = new int[targetCount];
+            targetColour = new byte[targetCount];
+        }
+        for (int i = 0; i < targetCount; i++) {
+            Target target = targets.get(i);
+            int cell = cellOf(target.getX(), target.getY());
+            targetCell[i] = cell;
+            targetColour[i] = targetColourOf(target.getTileId());
+            targetAt[cell] = i + 1;
+        }
+
+        matched = 0;
+        for (int i = 0; i < crateCount; i++) {
+            if (isPlaced(i)) matched++;
+        }
+        moved.clear();
+    }
+
+    private byte crateColourOf(int tileId) {
+        int colour = paletteCrates.indexOf(tileId);
+        if (colour < 0) {
+            colour = addColour(tileId, SokobanRules.getExpectedTargetTileId(tileId));
+        }
+        return (byte) colour;
+    }
+
+    private byte targetColourOf(int tileId) {
+        int colour = paletteTargets.indexOf(tileId);
+        if (colour <= 0) {
+            // Cible sans caisse de sa couleur dans le niveau : couleur propre, jamais satisfaite
+            colour = addColour(-1, tileId);
+        }
+        return (byte) colour;
+    }
+
+    private int addColour(int crateTileId, int targetTileId) {
+        if (paletteCrates.size > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Trop de couleurs dans le niveau.");
+        }
+        paletteCrates.add(crateTileId);
+        paletteTargets.add(targetTileId);
+        return paletteCrates.size - 1;
+    }
+
+    private int cellOf(float x, float y) {
+        return grid.index(grid.toCell(x), grid.toCell(y));
+    }
+
+    /**
+     * Déplace une caisse et met à jour les index, le décompte des caisses bien placées et la
+     * position de sa vue {@link Crate}. La case d'arrivée doit être libre.
+     * @param crate Index de la caisse.
+     * @param to    Case d'arrivée.
+     */
+    public void moveCrate(int crate, int to) {
+        int from = crateCell[crate];
+        if (isPlaced(crate)) matched--;
+        crateAt[from] = 0;
+        crateAt[to] = crate + 1;
+        crateCell[crate] = to;
+        if (isPlaced(crate)) matched++;
+        moved.add(crate);
+
+        int width = grid.getWidth();
+        int tile = grid.getTileSize();
+        CrateAccess.get().moveBy(crates.get(crate), (to % width - from % width) * tile,
+            (to / width - from / width) * tile);
+    }
+
+    /**
+     * Copie l'état variable du niveau (case de chaque caisse).
+     * @param out Le tableau de destination, réutilisé s'il est assez grand (peut être null).
+     * @return Le tableau rempli.
+     */
+    public int[] snapshot(int[] out) {
+        if (out == null || out.length < crateCount) out = new int[crateCount];
+        System.arraycopy(crateCell, 0, out, 0, crateCount);
+        return out;
+    }
+
+    /**
+     * Replace les caisses dans un état copié par {@link #snapshot}.
+     * @param cells La case de chaque caisse.
+     */
+    public void restore(int[] cells) {
+        for (int i = 0; i < crateCount; i++) crateAt[crateCell[i]] = 0;
+        for (int i = 0; i < crateCount; i++) {
+            if (cells[i] != crateCell[i]) {
+                int width = grid.getWidth();
+                int tile = grid.getTileSize();
+                CrateAccess.get().moveBy(crates.get(i), (cells[i] % width - crateCell[i] % width) * tile,
+                    (cells[i] / width - crateCell[i] / width) * tile);
+                crateCell[i] = cells[i];
+            }
+            crateAt[cells[i]] = i + 1;
+        }
+        matched = 0;
+        for (int i = 0; i < crateCount; i++) {
+            if (isPlaced(i)) matched++;
+        }
+        moved.clear();
+    }
+
+    /**
+     * @param crate Index d'une caisse.
+     * @return true si la caisse est posée sur une cible de sa couleur.
+     */
+    public boolean isPlaced(int crate) {
+        int target = targetAt[crateCell[crate]];
+        return target != 0 && targetColour[target - 1] == crateColour[crate];
+    }
+
+    /**
+     * Une case ne porte qu'une caisse et qu'une cible : chaque caisse bien placée satisfait
+     * une cible distincte, et le décompte suffit.
+     * @return true si chaque cible porte une caisse de sa couleur (aucune cible : false).
+     */
+    public boolean isSolved() {
+        return targetCount > 0 && matched == targetCount;
+    }
+
+    /**
+     * @param cell Une case de la grille.
+     * @return L'index de la caisse de la case, ou -1.
+     */
+    public int crateAt(int cell) {
+        return cell >= 0 && cell < crateAt.length ? crateAt[cell] - 1 : -1;
+    }
+
+    /**
+     * @param cell Une case de la grille.
+     * @return L'index de la cible de la case, ou -1.
+     */
+    public int targetAt(int cell) {
+        return cell >= 0 && cell < targetAt.length ? targetAt[cell] - 1 : -1;
+    }
+
+    /** Oublie la liste des caisses déplacées (début d'un mouvement). */
+    public void clearMoved() {
+        moved.clear();
+    }
+
+    /** @return Les index des caisses déplacées depuis le dernier {@link #clearMoved()}. */
+    public IntArray getMoved() { return moved; }
+
+    /**
+     * @return Une estimation de la mémoire occupée par les colonnes et les index, en octets.
+     */
+    public long getMemoryBytes() {
+        return 16 + crateCell.length * 5L + 16 + targetCell.length * 5L + 32 + crateAt.length * 8L;
+    }
+
+    /** @return La grille du niveau chargé. */
+    public LevelGrid getGrid() { return grid; }
+    /** @return Le nombre de caisses du niveau. */
+    public int getCrateCount() { return crateCount; }
+    /** @return La case (index de {@link LevelGrid}) de la caisse d'index {@code crate}. */
+    public int getCrateCell(int crate) { return crateCell[crate]; }
+    /** @return La couleur (indice de palette, à partir de 1) de la caisse d'index {@code crate}. */
+    public int getCrateColour(int crate) { return crateColour[crate]; }
+    /** @return L'identifiant de tuile de la caisse d'index {@code crate}. */
+    public int getCrateTileId(int crate) { return paletteCrates.get(crateColour[crate]); }
+    /** @return Le nombre de cibles du niveau. */
+    public int getTargetCount() { return targetCount; }
+    /** @return La case (index de {@link LevelGrid}) de la cible d'index {@code target}. */
+    public int getTargetCell(int target) { return targetCell[target]; }
+    /** @return La couleur (indice de palette, à partir de 1) de la cible d'index {@code target}. */
+    public int getTargetColour(int target) { return targetColour[target]; }
+    /** @return L'identifiant de tuile de la cible d'index {@code target}. */
+    public int getTargetTileId(int target) { return paletteTargets.get(targetColour[target]); }
+    /** @return Le nombre de couleurs de la palette du niveau (couleur 0 non comprise). */
+    public int getColourCount() { return paletteCrates.size - 1; }
+    /** @return Le nombre de caisses posées sur une cible de leur couleur. */
+    public int getPlacedCount() { return matched; }
+    /** @return Les caisses, dans l'ordre des index (vue de compatibilité). */
+    public Array<Crate> getCrates() { return crates; }
+    /** @return Les cibles, dans l'ordre des index (vue de compatibilité). */
+    public Array<Target> getTargets() { return targets; }
+}
@@ -28,6 +28,16 @@ public interface ILevelState {
      */
     Crate getCrateAt(float x, float y);
 
+    /**
+     * Pousse une caisse et la file de caisses alignées derrière elle, selon la règle de
+     * poussée du niveau. Aucune caisse ne bouge si la poussée est impossible.
+     * @param crate La caisse poussée par le joueur.
+     * @param dx    Déplacement horizontal en pixels.
+     * @param dy    Déplacement vertical en pixels.
+     * @return Le nombre de caisses déplacées, ou 0 si la poussée est impossible.
+     */
+    int pushCrates(Crate crate, int dx, int dy);
+
     /**
      * Identifie si une cible se trouve à une position donnée.
      * @param x Coordonnée X
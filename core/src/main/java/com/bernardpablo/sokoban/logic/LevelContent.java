@@ -2,6 +2,7 @@ package com.bernardpablo.sokoban.logic;
 
 import com.badlogic.gdx.maps.tiled.TiledMap;
 import com.badlogic.gdx.utils.Array;
+import com.bernardpablo.sokoban.cache.LevelAnalysis;
 import com.bernardpablo.sokoban.entities.factory.Crate;
 import com.bernardpablo.sokoban.entities.factory.Player;
 import com.bernardpablo.sokoban.entities.factory.Target;
@@ -16,8 +17,18 @@ import com.bernardpablo.sokoban.entities.factory.Target;
  */
 public class LevelContent {
     public TiledMap map;
+    public LevelGrid grid;
+    public DistanceTables distances;
     public String nextLevel;
+    /** Mode de résolution choisi par la propriété {@link Solver#MODE_PROPERTY} de la carte. */
+    public Solver.Mode solverMode = Solver.Mode.FORWARD;
+    /** Longueur maximale d'une file de caisses poussée ({@link PushEngine#CHAIN_PROPERTY}). */
+    public int pushChain = PushEngine.UNLIMITED;
     public Player player;
     public Array<Crate> crates = new Array<>();
     public Array<Target> targets = new Array<>();
+    /** Empreinte du contenu, renseignée lorsque le cache d'analyse est actif. */
+    public String contentHash;
+    /** Analyse conservée par le cache d'analyse (null sans cache). */
+    public LevelAnalysis analysis;
 }
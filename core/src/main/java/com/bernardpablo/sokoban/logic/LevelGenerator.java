@@ -0,0 +1,169 @@
+package com.bernardpablo.sokoban.logic;
+
+import com.bernardpablo.sokoban.entities.factory.Crate;
+import com.bernardpablo.sokoban.entities.factory.Player;
+import com.bernardpablo.sokoban.entities.factory.Target;
+
+import java.util.Random;
+
+/**
+ * Générateur de niveaux aléatoires, toujours solubles, pour les mesures et les tests.
+ * <p>
+ * La salle est un rectangle fermé parsemé de murs, réduit à sa plus grande zone connexe.
+ * Les caisses sont d'abord posées sur leurs cibles, puis le joueur les en écarte par une
+ * suite de tractions aléatoires : rejouées à l'envers, ces tractions forment une solution
+ * n'utilisant que des poussées simples. Une caisse sur cinq est de la seconde couleur.
+ * </p>
+ * <p>
+ * Les entités créées n'ont pas d'{@link ILevelState} : le niveau se prête à l'analyse
+ * ({@link Solver}, {@link BitBoard}), pas au jeu.
+ * </p>
+ * @author Bernard PABLO
+ */
+public final class LevelGenerator {
+    private static final int TILE_SIZE = 64;
+    private static final int PLAYER_TILE = 53;
+    private static final int SECOND_CRATE_TILE_ID = 3;
+    /** Proportion de murs intérieurs. */
+    private static final float WALL_DENSITY = 0.12f;
+
+    private LevelGenerator() {}
+
+    /**
+     * Génère un niveau.
+     * @param seed   Graine du générateur (un même appel donne toujours le même niveau).
+     * @param width  Largeur en cases, murs extérieurs compris.
+     * @param height Hauteur en cases, murs extérieurs compris.
+     * @param crates Nombre de caisses.
+     * @param pulls  Nombre de tractions appliquées depuis la configuration finale.
+     * @return Le niveau, sans carte Tiled.
+     * @throws IllegalArgumentException Si la salle est trop petite pour les caisses.
+     */
+    public static LevelContent generate(long seed, int width, int height, int crates, int pulls) {
+        Random random = new Random(seed);
+        int cells = width * height;
+        boolean[] floor = new boolean[cells];
+        for (int y = 1; y < height - 1; y++) {
+            for (int x = 1; x < width - 1; x++) {
+                floor[y * width + x] = random.nextFloat() >= WALL_DENSITY;
+            }
+        }
+        keepLargestRegion(floor, width, height);
+
+        int free = 0;
+        for (boolean f : floor) if (f) free++;
+        if (free < crates * 2 + 1) {
+            throw new IllegalArgumentException("Salle trop petite pour " + crates + " caisses.");
+        }
+
+        // Cibles au hasard, caisses posées dessus, joueur sur une case libre
+        int[] crateCells = new int[crates];
+        int[] occupant = new int[cells];
+        for (int i = 0; i < crates; i++) {
+            int cell = randomFloor(random, floor, occupant);
+            crateCells[i] = cell;
+            occupant[cell] = i + 1;
+        }
+        int[] targetCells = crateCells.clone();
+        int player = randomFloor(random, floor, occupant);
+
+        // Tractions : le joueur, collé à une caisse, recule en l'entraînant
+        int[] reach = new int[cells];
+        int[] queue = new int[cells];
+        int[] candidates = new int[crates * 4];
+        for (int pull = 0, stamp = 1; pull < pulls; pull++, stamp++) {
+            flood(player, floor, occupant, width, reach, stamp, queue);
+            int found = 0;
+            for (int i = 0; i < crates; i++) {
+                for (int dir = 0; dir < 4; dir++) {
+                    int front = step(crateCells[i], dir, width);
+                    int back = step(front, dir, width);
+                    if (reach[front] == stamp && floor[back] && occupant[back] == 0) candidates[found++] = i << 2 | dir;
+                }
+            }
+            if (found == 0) break;
+            int chosen = candidates[random.nextInt(found)];
+            int i = chosen >> 2;
+            int dir = chosen & 3;
+            int front = step(crateCells[i], dir, width);
+            occupant[crateCells[i]] = 0;
+            occupant[front] = i + 1;
+            crateCells[i] = front;
+            player = step(front, dir, width);
+        }
+
+        LevelContent content = new LevelContent();
+        content.grid = new LevelGrid(width, height, TILE_SIZE);
+        for (int cell = 0; cell < cells; cell++) {
+            if (!floor[cell]) content.grid.setWall(cell % width, cell / width);
+        }
+        for (int i = 0; i < crates; i++) {
+            int tile = i % 5 == 4 ? SECOND_CRATE_TILE_ID : SokobanRules.DEFAULT_CRATE_TILE_ID;
+            content.crates.add(new Crate(x(crateCells[i], width), y(crateCells[i], width), tile, null));
+            content.targets.add(new Target(x(targetCells[i], width), y(targetCells[i], width),
+                SokobanRules.getExpectedTargetTileId(tile)));
+        }
+        content.player = new Player(x(player, width), y(player, width), PLAYER_TILE, null);
+        content.distances = DistanceTables.build(content.grid, content.targets);
+        return content;
+    }
+
+    private static float x(int cell, int width) {
+        return (float) (cell % width) * TILE_SIZE;
+    }
+
+    private static float y(int cell, int width) {
+        return (float) (cell / width) * TILE_SIZE;
+    }
+
+    /** La bordure étant murée, un pas depuis une case de sol reste dans la grille. */
+    private static int step(int cell, int dir, int width) {
+        return cell + LevelGrid.DX[dir] + LevelGrid.DY[dir] * width;
+    }
+
+    private static int randomFloor(Random random, boolean[] floor, int[] occupant) {
+        while (true) {
+            int cell = random.nextInt(floor.length);
+            if (floor[cell] && occupant[cell] == 0) return cell;
+        }
+    }
+
+    private static int flood(int from, boolean[] floor, int[] occupant, int width, int[] mark, int stamp, int[] queue) {
+        int head = 0;
+        int tail = 0;
+        mark[from] = stamp;
+        queue[tail++] = from;
+        while (head < tail) {
+            int cell = queue[head++];
+            for (int dir = 0; dir < 4; dir++) {
+                int n = step(cell, dir, width);
+                if (!floor[n] || occupant[n] != 0 || mark[n] == stamp) continue;
+                mark[n] = stamp;
+                queue[tail++] = n;
+            }
+        }
+        return tail;
+    }
+
+    /** Transforme en murs toutes les cases de sol hors de la plus grande zone connexe. */
+    private static void keepLargestRegion(boolean[] floor, int width, int height) {
+        int cells = width * height;
+        int[] region = new int[cells];
+        int[] queue = new int[cells];
+        int[] none = new int[cells];
+        int best = 0;
+        int bestSize = 0;
+        for (int cell = 0, id = 1; cell < cells; cell++) {
+            if (!floor[cell] || region[cell] != 0) continue;
+            int size = flood(cell, floor, none, width, region, id, queue);
+            if (size > bestSize) {
+                bestSize = size;
+                best = id;
+            }
+            id++;
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            if (region[cell] != best) floor[cell] = false;
+        }
+    }
+}
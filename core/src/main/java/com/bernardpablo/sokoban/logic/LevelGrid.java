@@ -0,0 +1,125 @@
+package com.bernardpablo.sokoban.logic;
+
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+
+/**
+ * Grille statique d'un niveau : dimensions et murs, stockés sous forme de bitset.
+ * <p>
+ * Les cases sont indexées en ligne par ligne ({@code index = y * width + x}), l'axe Y
+ * étant orienté vers le haut comme dans LibGDX. Toute case hors de la grille est
+ * considérée comme un mur.
+ * </p>
+ * @author Bernard PABLO
+ */
+public final class LevelGrid {
+    /** Directions de déplacement, dans l'ordre des tableaux {@link #DX} et {@link #DY}. */
+    public static final int LEFT = 0, RIGHT = 1, UP = 2, DOWN = 3;
+    /** Déplacement horizontal (en cases) associé à chaque direction. */
+    public static final int[] DX = {-1, 1, 0, 0};
+    /** Déplacement vertical (en cases) associé à chaque direction. */
+    public static final int[] DY = {0, 0, 1, -1};
+
+    /**
+     * Convertit un vecteur de déplacement en direction.
+     * @param dx Déplacement horizontal (seul le signe compte).
+     * @param dy Déplacement vertical (seul le signe compte).
+     * @return La direction correspondante, ou -1 pour un déplacement nul.
+     */
+    public static int direction(int dx, int dy) {
+        if (dx < 0) return LEFT;
+        if (dx > 0) return RIGHT;
+        if (dy > 0) return UP;
+        if (dy < 0) return DOWN;
+        return -1;
+    }
+
+    private final int width;
+    private final int height;
+    private final int tileSize;
+    private final long[] walls;
+
+    /**
+     * Crée une grille sans murs.
+     * @param width    Largeur en cases.
+     * @param height   Hauteur en cases.
+     * @param tileSize Taille d'une case en pixels.
+     */
+    public LevelGrid(int width, int height, int tileSize) {
+        this.width = width;
+        this.height = height;
+        this.tileSize = tileSize;
+        this.walls = new long[(width * height + 63) >>> 6];
+    }
+
+    /**
+     * Construit la grille d'un niveau à partir de la couche "Walls" d'une carte Tiled.
+     * @param map La carte chargée.
+     * @return La grille correspondante.
+     */
+    public static LevelGrid fromMap(TiledMap map) {
+        TiledMapTileLayer wallsLayer = (TiledMapTileLayer) map.getLayers().get("Walls");
+        int tileSize = map.getProperties().get("tilewidth", 64, Integer.class);
+        LevelGrid grid = new LevelGrid(wallsLayer.getWidth(), wallsLayer.getHeight(), tileSize);
+
+        for (int y = 0; y < grid.height; y++) {
+            for (int x = 0; x < grid.width; x++) {
+                TiledMapTileLayer.Cell cell = wallsLayer.getCell(x, y);
+                if (cell != null && cell.getTile() != null) {
+                    grid.setWall(x, y);
+                }
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Marque une case comme mur.
+     * @param x Colonne.
+     * @param y Ligne.
+     */
+    public void setWall(int x, int y) {
+        int index = index(x, y);
+        walls[index >>> 6] |= 1L << index;
+    }
+
+    /**
+     * @param x Colonne.
+     * @param y Ligne.
+     * @return true si la case est un mur ou se trouve hors de la grille.
+     */
+    public boolean isWall(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) return true;
+        return isWall(index(x, y));
+    }
+
+    /**
+     * @param index Index d'une case de la grille.
+     * @return true si la case est un mur.
+     */
+    public boolean isWall(int index) {
+        return (walls[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * @param x Colonne.
+     * @param y Ligne.
+     * @return L'index linéaire de la case.
+     */
+    public int index(int x, int y) {
+        return y * width + x;
+    }
+
+    /**
+     * Convertit une coordonnée en pixels en numéro de case.
+     * @param pixels Coordonnée en pixels.
+     * @return Le numéro de colonne ou de ligne correspondant.
+     */
+    public int toCell(float pixels) {
+        return (int) Math.floor(pixels / tileSize);
+    }
+
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public int getTileSize() { return tileSize; }
+}
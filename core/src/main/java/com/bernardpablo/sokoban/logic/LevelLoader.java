@@ -1,9 +1,18 @@
 package com.bernardpablo.sokoban.logic;
 
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.maps.MapObjects;
+import com.badlogic.gdx.maps.tiled.TiledMap;
 import com.badlogic.gdx.maps.tiled.TmxMapLoader;
 import com.badlogic.gdx.maps.tiled.objects.TiledMapTileMapObject;
+import com.badlogic.gdx.utils.XmlReader;
+import com.bernardpablo.sokoban.cache.AnalysisCache;
+import com.bernardpablo.sokoban.cache.LevelAnalysis;
 import com.bernardpablo.sokoban.entities.factory.*;
+import com.bernardpablo.sokoban.profiling.FlightRecorder;
+import com.bernardpablo.sokoban.profiling.ProfileEvent;
+
+import java.io.File;
 
 /**
  * Chargeur de niveaux pour le moteur Sokoban.
@@ -12,11 +21,30 @@ import com.bernardpablo.sokoban.entities.factory.*;
  * de l'univers de jeu. Elle analyse les différentes couches (layers) de la carte pour extraire
  * les murs, les cibles, les caisses et le joueur.
  * </p>
+ * <p>
+ * Lorsqu'un {@link AnalysisCache} est installé, les tables de distances d'un niveau dont le
+ * contenu a déjà été analysé sont relues depuis le cache au lieu d'être recalculées.
+ * </p>
  * @author Bernard PABLO
  */
 public final class LevelLoader {
+    private static AnalysisCache analysisCache;
+
     private LevelLoader() {}
 
+    /**
+     * Installe le cache d'analyse consulté à chaque chargement.
+     * @param cache Le cache, ou null pour le désactiver.
+     */
+    public static void setAnalysisCache(AnalysisCache cache) {
+        analysisCache = cache;
+    }
+
+    /** @return Le cache d'analyse installé, ou null. */
+    public static AnalysisCache getAnalysisCache() {
+        return analysisCache;
+    }
+
     /**
      * Charge un niveau complet à partir d'un chemin de fichier.
      * @param path  Le nom du fichier de niveau (ex: "level1.tmx") situé dans le dossier assets/maps/.
@@ -25,12 +53,41 @@ public final class LevelLoader {
      * @throws IllegalArgumentException Si la carte est mal formée ou si des couches essentielles sont manquantes.
      */
     public static LevelContent load(String path, ILevelState model) {
+        TiledMap map;
+        Object span = FlightRecorder.begin(ProfileEvent.LEVEL_PARSE);
+        try {
+            map = new TmxMapLoader().load("maps/" + path);
+            FlightRecorder.end(span, path, 0);
+        } catch (Exception e) {
+            System.err.println("Erreur fatale : Impossible de charger le fichier " + path);
+            System.exit(-1); // Arrêt propre en cas de ressource manquante critique
+            return null;
+        }
+        return load(path, map, model);
+    }
+
+    /**
+     * Construit le contenu d'un niveau à partir d'une carte déjà chargée
+     * (par exemple de manière asynchrone via un {@link com.badlogic.gdx.assets.AssetManager}).
+     * @param path  Le nom du fichier de niveau, utilisé pour les messages d'erreur.
+     * @param map   La carte Tiled déjà chargée.
+     * @param model L'état actuel du niveau ({@link ILevelState}) injecté dans les entités pour la gestion des collisions.
+     * @return Un objet {@link LevelContent} contenant toutes les données du niveau chargé, ou null en cas d'erreur critique.
+     */
+    public static LevelContent load(String path, TiledMap map, ILevelState model) {
+        Object span = FlightRecorder.begin(ProfileEvent.LEVEL_ENTITIES);
+        LevelContent content = build(path, map, model);
+        FlightRecorder.end(span, path, content != null ? content.crates.size : 0);
+        return content;
+    }
+
+    private static LevelContent build(String path, TiledMap map, ILevelState model) {
         LevelContent content = new LevelContent();
 
         EntityCreationContext ec = EntityCreationContext.builder().levelState(model).build();
 
         try {
-            content.map = new TmxMapLoader().load("maps/" + path);
+            content.map = map;
 
             if (content.map.getLayers().get("Walls") == null) {
                 throw new IllegalArgumentException("Couche 'Walls' manquante dans le fichier TMX.");
@@ -46,11 +103,22 @@ public final class LevelLoader {
             return null;
         }
 
+        // Murs sous forme de bitset, pour les tests de collision et la recherche de chemin
+        if (content.map.getLayers().get("Walls") != null) {
+            content.grid = LevelGrid.fromMap(content.map);
+        }
+
         try {
             content.nextLevel = content.map.getProperties().get("nextLevel", String.class);
         } catch (Exception e) {
             System.out.println("Information : Aucun niveau suivant défini (Dernier niveau).");
         }
+        try {
+            content.solverMode = Solver.Mode.forMap(content.map);
+        } catch (IllegalArgumentException i) {
+            System.err.println("Erreur de configuration de carte : " + i);
+        }
+        content.pushChain = PushEngine.chainFor(content.map);
 
         // Chargement des Cibles
         MapObjects targetObjects = content.map.getLayers().get("targets").getObjects();
@@ -84,6 +152,101 @@ public final class LevelLoader {
             System.err.println("Erreur : Aucun point de départ pour le joueur n'a été trouvé.");
         }
 
+        // Tables de distances de poussée par couleur de cible (heuristiques et indices)
+        if (content.grid != null) {
+            AnalysisCache cache = analysisCache;
+            if (cache != null && content.player != null) {
+                content.contentHash = AnalysisCache.contentHash(content);
+                content.analysis = cache.lookup(content.contentHash);
+                if (content.analysis != null) content.distances = content.analysis.toDistanceTables(content.grid);
+            }
+            if (content.distances == null) {
+                content.distances = DistanceTables.build(content.grid, content.targets);
+                if (content.contentHash != null) {
+                    content.analysis = LevelAnalysis.of(content);
+                    cache.store(content.contentHash, content.analysis);
+                }
+            }
+        }
+
+        return content;
+    }
+
+    /**
+     * Lit la disposition d'un niveau directement dans son fichier TMX, avec {@link XmlReader}
+     * et sans {@code TmxMapLoader} : ni contexte graphique ni textures ne sont nécessaires.
+     * Destinée aux outils d'analyse, elle ne fournit ni carte ({@code map} est null) ni
+     * tables de distances, et les entités n'ont pas d'{@link ILevelState}.
+     * @param file Le fichier .tmx (couche "Walls" en CSV, calques d'objets "targets",
+     *             "crates" et "player").
+     * @return Le contenu du niveau.
+     * @throws IllegalArgumentException Si la carte est mal formée ou si des couches essentielles sont manquantes.
+     */
+    public static LevelContent read(File file) {
+        XmlReader.Element map = new XmlReader().parse(new FileHandle(file));
+        if (map.getBooleanAttribute("infinite", false)) {
+            throw new IllegalArgumentException("Les cartes de taille infinie ne sont pas supportées.");
+        }
+        int width = map.getIntAttribute("width");
+        int height = map.getIntAttribute("height");
+        int tileSize = map.getIntAttribute("tilewidth");
+        LevelContent content = new LevelContent();
+        content.grid = new LevelGrid(width, height, tileSize);
+
+        XmlReader.Element properties = map.getChildByName("properties");
+        if (properties != null) {
+            for (XmlReader.Element property : properties.getChildrenByName("property")) {
+                String name = property.getAttribute("name", null);
+                if ("nextLevel".equals(name)) content.nextLevel = property.getAttribute("value", null);
+                if (Solver.MODE_PROPERTY.equals(name)) content.solverMode = Solver.Mode.of(property.getAttribute("value", null));
+                if (PushEngine.CHAIN_PROPERTY.equals(name)) content.pushChain = PushEngine.parseChain(property.getAttribute("value", null));
+            }
+        }
+
+        boolean walls = false;
+        for (XmlReader.Element layer : map.getChildrenByName("layer")) {
+            if (!"Walls".equals(layer.getAttribute("name", null))) continue;
+            XmlReader.Element data = layer.getChildByName("data");
+            if (!"csv".equals(data.getAttribute("encoding", null))) {
+                throw new IllegalArgumentException("Seul l'encodage CSV de la couche 'Walls' est supporté.");
+            }
+            String[] gids = data.getText().trim().split("\\s*,\\s*");
+            for (int i = 0; i < gids.length && i < width * height; i++) {
+                // Les lignes du fichier vont de haut en bas, l'axe Y du jeu vers le haut
+                if (Long.parseLong(gids[i]) != 0) content.grid.setWall(i % width, height - 1 - i / width);
+            }
+            walls = true;
+        }
+        if (!walls) {
+            throw new IllegalArgumentException("Couche 'Walls' manquante dans le fichier TMX.");
+        }
+
+        for (XmlReader.Element group : map.getChildrenByName("objectgroup")) {
+            String layerName = group.getAttribute("name", "");
+            for (XmlReader.Element object : group.getChildrenByName("object")) {
+                int gid = object.getIntAttribute("gid", 0);
+                if (gid == 0) continue;
+                float x = object.getFloatAttribute("x");
+                // Tiled place l'origine des objets tuiles en bas à gauche, l'axe Y vers le bas
+                float y = height * tileSize - object.getFloatAttribute("y");
+                switch (layerName) {
+                    case "targets":
+                        content.targets.add(new Target(x, y, gid));
+                        break;
+                    case "crates":
+                        content.crates.add(new Crate(x, y, gid, null));
+                        break;
+                    case "player":
+                        if (content.player == null) content.player = new Player(x, y, gid, null);
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        if (content.player == null) {
+            throw new IllegalArgumentException("Aucun point de départ pour le joueur dans " + file.getName());
+        }
         return content;
     }
 }
@@ -0,0 +1,126 @@
+package com.bernardpablo.sokoban.logic;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.bernardpablo.sokoban.entities.factory.Crate;
+
+import java.util.Arrays;
+
+/**
+ * Recherche de chemin du joueur (parcours en largeur) sur la grille d'un niveau.
+ * <p>
+ * Seules les cases libres sont explorées : ni mur, ni caisse. Le chemin trouvé est donc
+ * le plus court trajet qui ne pousse aucune caisse. Tous les tableaux de travail (file,
+ * marquage, directions d'arrivée, occupation des caisses) sont conservés d'une recherche
+ * à l'autre : une recherche n'alloue rien tant que la taille de la grille ne change pas.
+ * </p>
+ * @author Bernard PABLO
+ */
+public class PathFinder {
+    private int[] queue = new int[0];
+    private int[] visited = new int[0];
+    private byte[] cameFrom = new byte[0];
+    private long[] crates = new long[0];
+    private int stamp;
+
+    /**
+     * Cherche le plus court chemin du joueur entre deux cases, sans pousser de caisse.
+     * @param grid      La grille du niveau (murs).
+     * @param crateList Les caisses du niveau, traitées comme des obstacles.
+     * @param fromX     Colonne de départ.
+     * @param fromY     Ligne de départ.
+     * @param toX       Colonne d'arrivée.
+     * @param toY       Ligne d'arrivée.
+     * @param path      Reçoit la suite des directions ({@link LevelGrid#LEFT}, ...) ; vidée au préalable.
+     * @return true si un chemin existe (éventuellement vide si départ = arrivée).
+     */
+    public boolean findPath(LevelGrid grid, Array<Crate> crateList, int fromX, int fromY, int toX, int toY, IntArray path) {
+        path.clear();
+        if (grid.isWall(toX, toY) || grid.isWall(fromX, fromY)) return false;
+
+        int width = grid.getWidth();
+        int size = width * grid.getHeight();
+        ensureCapacity(size);
+        markCrates(grid, crateList);
+
+        int start = grid.index(fromX, fromY);
+        int goal = grid.index(toX, toY);
+        if (start == goal) return true;
+        if (isCrate(goal)) return false;
+
+        if (++stamp == 0) {
+            // Débordement du compteur : on repart d'un marquage propre
+            Arrays.fill(visited, 0);
+            stamp = 1;
+        }
+
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        visited[start] = stamp;
+
+        while (head < tail) {
+            int cell = queue[head++];
+            int cx = cell % width;
+            int cy = cell / width;
+
+            for (int dir = 0; dir < 4; dir++) {
+                int nx = cx + LevelGrid.DX[dir];
+                int ny = cy + LevelGrid.DY[dir];
+                if (grid.isWall(nx, ny)) continue;
+
+                int next = grid.index(nx, ny);
+                if (visited[next] == stamp || isCrate(next)) continue;
+
+                visited[next] = stamp;
+                cameFrom[next] = (byte) dir;
+                if (next == goal) {
+                    buildPath(grid, start, goal, path);
+                    return true;
+                }
+                queue[tail++] = next;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reconstruit le chemin en remontant les directions d'arrivée depuis la case d'arrivée.
+     */
+    private void buildPath(LevelGrid grid, int start, int goal, IntArray path) {
+        int width = grid.getWidth();
+        int cell = goal;
+        while (cell != start) {
+            int dir = cameFrom[cell];
+            path.add(dir);
+            cell = grid.index(cell % width - LevelGrid.DX[dir], cell / width - LevelGrid.DY[dir]);
+        }
+        path.reverse();
+    }
+
+    private void ensureCapacity(int size) {
+        if (queue.length < size) {
+            queue = new int[size];
+            visited = new int[size];
+            cameFrom = new byte[size];
+            crates = new long[(size + 63) >>> 6];
+            stamp = 0;
+        }
+    }
+
+    private void markCrates(LevelGrid grid, Array<Crate> crateList) {
+        Arrays.fill(crates, 0);
+        for (int i = 0; i < crateList.size; i++) {
+            Crate crate = crateList.get(i);
+            int x = grid.toCell(crate.getX());
+            int y = grid.toCell(crate.getY());
+            if (x < 0 || y < 0 || x >= grid.getWidth() || y >= grid.getHeight()) continue;
+            int index = grid.index(x, y);
+            crates[index >>> 6] |= 1L << index;
+        }
+    }
+
+    private boolean isCrate(int index) {
+        return (crates[index >>> 6] & (1L << index)) != 0;
+    }
+}
@@ -0,0 +1,153 @@
+package com.bernardpablo.sokoban.logic;
+
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.utils.IntArray;
+import com.bernardpablo.sokoban.entities.factory.Crate;
+import com.bernardpablo.sokoban.profiling.FlightRecorder;
+import com.bernardpablo.sokoban.profiling.ProfileEvent;
+
+/**
+ * Moteur de poussée des caisses, appliquant la règle de file du niveau.
+ * <p>
+ * La file de caisses alignées devant le joueur est parcourue de façon itérative, case par
+ * case, grâce à l'index des caisses par case de l'{@link EntityStore} : le coût d'une
+ * poussée est proportionnel à la longueur de la file, sans récursion. La file entière est
+ * validée (murs, longueur maximale) avant que la moindre caisse ne bouge ; les caisses
+ * sont ensuite décalées d'un bloc, de la dernière à la première. Une poussée refusée ne
+ * laisse donc aucune caisse déplacée.
+ * </p>
+ * <p>
+ * La longueur maximale d'une file est choisie par la propriété de carte
+ * {@link #CHAIN_PROPERTY} : {@code classic} (une seule caisse, règle du Sokoban
+ * classique), {@code unlimited} (valeur par défaut, règle historique du jeu) ou un nombre
+ * de caisses.
+ * </p>
+ * @author Bernard PABLO
+ */
+public final class PushEngine {
+    /** Propriété de carte fixant la longueur maximale d'une file de caisses poussée. */
+    public static final String CHAIN_PROPERTY = "pushChain";
+    /** Règle classique : une seule caisse à la fois. */
+    public static final int CLASSIC = 1;
+    /** Files de longueur quelconque. */
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private EntityStore store;
+    private LevelGrid grid;
+    private int maxChain = UNLIMITED;
+    /** Index des caisses de la file en cours de validation. */
+    private final IntArray chain = new IntArray(16);
+
+    /**
+     * @param value La valeur de la propriété {@link #CHAIN_PROPERTY} (peut être null).
+     * @return La longueur maximale d'une file correspondante.
+     */
+    public static int parseChain(String value) {
+        if (value == null) return UNLIMITED;
+        String rule = value.trim();
+        if (rule.equalsIgnoreCase("classic")) return CLASSIC;
+        if (rule.equalsIgnoreCase("unlimited")) return UNLIMITED;
+        try {
+            int length = Integer.parseInt(rule);
+            if (length >= 1) return length;
+        } catch (NumberFormatException ignored) {
+            // Signalé ci-dessous
+        }
+        System.err.println("Attention : règle de poussée inconnue '" + value + "', files illimitées utilisées.");
+        return UNLIMITED;
+    }
+
+    /**
+     * @param map La carte d'un niveau (peut être null).
+     * @return La longueur maximale d'une file choisie par la carte.
+     */
+    public static int chainFor(TiledMap map) {
+        if (map == null) return UNLIMITED;
+        Object value = map.getProperties().get(CHAIN_PROPERTY);
+        return parseChain(value != null ? value.toString() : null);
+    }
+
+    /**
+     * Prépare le moteur pour un niveau.
+     * @param store    Les caisses du niveau, qui ne doivent plus être déplacées qu'au travers de {@link #push}.
+     * @param maxChain Longueur maximale d'une file ({@link #CLASSIC}, {@link #UNLIMITED}...).
+     */
+    public void reset(EntityStore store, int maxChain) {
+        this.store = store;
+        this.grid = store.getGrid();
+        this.maxChain = Math.max(1, maxChain);
+    }
+
+    /**
+     * @param x Coordonnée X en pixels.
+     * @param y Coordonnée Y en pixels.
+     * @return La caisse située à cette position, ou null.
+     */
+    public Crate getCrateAt(float x, float y) {
+        int cellX = grid.toCell(x);
+        int cellY = grid.toCell(y);
+        if (cellX < 0 || cellY < 0 || cellX >= grid.getWidth() || cellY >= grid.getHeight()) return null;
+        int index = store.crateAt(grid.index(cellX, cellY));
+        if (index < 0) return null;
+        Crate crate = store.getCrates().get(index);
+        return crate.getX() == x && crate.getY() == y ? crate : null;
+    }
+
+    /**
+     * Pousse une caisse et la file de caisses qui la suit.
+     * @param first La caisse poussée par le joueur.
+     * @param dx    Déplacement horizontal en pixels (une case au plus).
+     * @param dy    Déplacement vertical en pixels.
+     * @return Le nombre de caisses déplacées, 0 si la poussée est impossible (mur derrière la
+     *         file ou file trop longue).
+     */
+    public int push(Crate first, int dx, int dy) {
+        return pushAt(grid.index(grid.toCell(first.getX()), grid.toCell(first.getY())),
+            Integer.signum(dx), Integer.signum(dy));
+    }
+
+    /**
+     * Pousse la file de caisses commençant à une case (rejeu d'un mouvement enregistré).
+     * @param cell  La case de la première caisse.
+     * @param stepX Direction horizontale (-1, 0 ou 1).
+     * @param stepY Direction verticale (-1, 0 ou 1).
+     * @return Le nombre de caisses déplacées, 0 si la poussée est impossible.
+     */
+    public int pushAt(int cell, int stepX, int stepY) {
+        Object span = FlightRecorder.begin(ProfileEvent.PUSH);
+        int moved = shift(cell, stepX, stepY);
+        FlightRecorder.end(span, null, moved);
+        return moved;
+    }
+
+    private int shift(int cell, int stepX, int stepY) {
+        int width = grid.getWidth();
+        int x = cell % width;
+        int y = cell / width;
+
+        // Validation de toute la file avant le moindre déplacement
+        chain.clear();
+        int crate = store.crateAt(cell);
+        while (crate >= 0) {
+            if (chain.size == maxChain) return 0;
+            chain.add(crate);
+            x += stepX;
+            y += stepY;
+            if (grid.isWall(x, y)) return 0;
+            crate = store.crateAt(grid.index(x, y));
+        }
+
+        // Décalage d'un bloc, de la dernière caisse à la première
+        int step = stepX + stepY * width;
+        for (int i = chain.size - 1; i >= 0; i--) {
+            int moving = chain.get(i);
+            store.moveCrate(moving, store.getCrateCell(moving) + step);
+        }
+        return chain.size;
+    }
+
+    /** @return La longueur maximale d'une file pour le niveau courant. */
+    public int getMaxChain() {
+        return maxChain;
+    }
+}
@@ -0,0 +1,241 @@
+package com.bernardpablo.sokoban.logic;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.bernardpablo.sokoban.entities.factory.Crate;
+
+import java.util.Arrays;
+
+/**
+ * Planificateur de poussées : trouve la plus courte suite de poussées amenant une caisse
+ * sur une case donnée, les autres caisses restant immobiles.
+ * <p>
+ * La recherche se fait en largeur sur des états (case de la caisse, région du joueur).
+ * Lorsque la caisse occupe une case, les cases libres restantes se divisent en régions
+ * connexes ; deux positions du joueur dans la même région sont équivalentes. Ces régions
+ * sont précalculées une fois par planification à l'aide d'un parcours en profondeur de
+ * Tarjan (points d'articulation) : savoir si deux voisins de la caisse restent reliés
+ * lorsque celle-ci occupe une case se résout alors en temps constant, sans nouveau
+ * parcours de la grille.
+ * </p>
+ * @author Bernard PABLO
+ */
+public class PushPlanner {
+    /** Région « côté parent » dans l'arbre de parcours (voir {@link #regionOf(int, int)}). */
+    private static final int PARENT_SIDE = -1;
+
+    private LevelGrid grid;
+    private int width;
+    private long[] blocked = new long[0];
+
+    // Parcours en profondeur (Tarjan)
+    private int[] disc = new int[0];
+    private int[] low = new int[0];
+    private int[] size = new int[0];
+    private int[] parent = new int[0];
+    private int[] stack = new int[0];
+    private byte[] nextDir = new byte[0];
+    private int root;
+
+    // Recherche sur les états (case * 4 + côté du joueur)
+    private int[] queue = new int[0];
+    private int[] cameFrom = new int[0];
+    private byte[] pushDir = new byte[0];
+
+    /**
+     * Planifie les poussées amenant une caisse sur une case.
+     * @param grid     La grille du niveau (murs).
+     * @param crates   Toutes les caisses du niveau ; celles autres que {@code crate} sont des obstacles.
+     * @param crate    La caisse à déplacer.
+     * @param playerX  Colonne du joueur.
+     * @param playerY  Ligne du joueur.
+     * @param goalX    Colonne de destination de la caisse.
+     * @param goalY    Ligne de destination de la caisse.
+     * @param pushes   Reçoit la suite des directions de poussée ; vidée au préalable.
+     * @return true si la caisse peut atteindre la destination.
+     */
+    public boolean plan(LevelGrid grid, Array<Crate> crates, Crate crate, int playerX, int playerY,
+                        int goalX, int goalY, IntArray pushes) {
+        pushes.clear();
+        this.grid = grid;
+        this.width = grid.getWidth();
+        int cells = width * grid.getHeight();
+        ensureCapacity(cells);
+
+        int start = grid.index(grid.toCell(crate.getX()), grid.toCell(crate.getY()));
+        markObstacles(crates, crate);
+        if (!isFree(goalX, goalY)) return false;
+        int goal = grid.index(goalX, goalY);
+        if (goal == start) return true;
+        if (!isFree(playerX, playerY)) return false;
+
+        computeRegions(start);
+        int player = grid.index(playerX, playerY);
+        if (disc[player] == 0) return false; // Joueur et caisse dans deux zones disjointes
+
+        int side = canonicalSide(start, regionOf(start, player));
+        if (side < 0) return false;
+
+        Arrays.fill(cameFrom, 0, cells * 4, -2);
+        int head = 0;
+        int tail = 0;
+        int first = start * 4 + side;
+        queue[tail++] = first;
+        cameFrom[first] = -1;
+
+        while (head < tail) {
+            int state = queue[head++];
+            int cell = state >> 2;
+            int region = regionOf(cell, neighbour(cell, state & 3));
+            int cx = cell % width;
+            int cy = cell / width;
+
+            for (int dir = 0; dir < 4; dir++) {
+                // Le joueur se place derrière la caisse et pousse dans la direction dir
+                int px = cx - LevelGrid.DX[dir];
+                int py = cy - LevelGrid.DY[dir];
+                int tx = cx + LevelGrid.DX[dir];
+                int ty = cy + LevelGrid.DY[dir];
+                if (!isFree(px, py) || !isFree(tx, ty)) continue;
+                if (regionOf(cell, grid.index(px, py)) != region) continue;
+
+                int target = grid.index(tx, ty);
+                int nextSide = canonicalSide(target, regionOf(target, cell));
+                int next = target * 4 + nextSide;
+                if (cameFrom[next] != -2) continue;
+
+                cameFrom[next] = state;
+                pushDir[next] = (byte) dir;
+                if (target == goal) {
+                    for (int s = next; cameFrom[s] != -1; s = cameFrom[s]) {
+                        pushes.add(pushDir[s]);
+                    }
+                    pushes.reverse();
+                    return true;
+                }
+                queue[tail++] = next;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parcours en profondeur itératif depuis la case de départ de la caisse : calcule les
+     * numéros de découverte, les valeurs « low » de Tarjan et la taille des sous-arbres.
+     */
+    private void computeRegions(int start) {
+        int cells = width * grid.getHeight();
+        Arrays.fill(disc, 0, cells, 0);
+        root = start;
+        int time = 0;
+        int top = 0;
+        stack[top++] = start;
+        disc[start] = low[start] = ++time;
+        parent[start] = -1;
+        nextDir[start] = 0;
+        size[start] = 1;
+
+        while (top > 0) {
+            int cell = stack[top - 1];
+            if (nextDir[cell] < 4) {
+                int dir = nextDir[cell]++;
+                int nx = cell % width + LevelGrid.DX[dir];
+                int ny = cell / width + LevelGrid.DY[dir];
+                if (!isFree(nx, ny)) continue;
+                int next = grid.index(nx, ny);
+                if (disc[next] == 0) {
+                    disc[next] = low[next] = ++time;
+                    parent[next] = cell;
+                    nextDir[next] = 0;
+                    size[next] = 1;
+                    stack[top++] = next;
+                } else if (next != parent[cell]) {
+                    low[cell] = Math.min(low[cell], disc[next]);
+                }
+            } else {
+                top--;
+                int up = parent[cell];
+                if (up >= 0) {
+                    low[up] = Math.min(low[up], low[cell]);
+                    size[up] += size[cell];
+                }
+            }
+        }
+    }
+
+    /**
+     * Identifie la région contenant une case lorsque la caisse occupe {@code crateCell}.
+     * @param crateCell La case occupée par la caisse.
+     * @param cell      Une case libre, différente de {@code crateCell}.
+     * @return L'enfant de {@code crateCell} dans l'arbre de parcours dont le sous-arbre forme
+     *         une région séparée et contient la case, ou {@link #PARENT_SIDE}.
+     */
+    private int regionOf(int crateCell, int cell) {
+        int from = disc[crateCell];
+        int d = disc[cell];
+        if (d > from && d < from + size[crateCell]) {
+            // Descendant : on cherche l'enfant direct dont le sous-arbre contient la case
+            for (int dir = 0; dir < 4; dir++) {
+                int child = neighbour(crateCell, dir);
+                if (child < 0 || disc[child] == 0 || parent[child] != crateCell) continue;
+                if (d >= disc[child] && d < disc[child] + size[child]) {
+                    return crateCell == root || low[child] >= from ? child : PARENT_SIDE;
+                }
+            }
+        }
+        return PARENT_SIDE;
+    }
+
+    /**
+     * @return La plus petite direction menant à un voisin libre de la caisse situé dans la
+     *         région donnée, ou -1 si aucun voisin n'y appartient.
+     */
+    private int canonicalSide(int crateCell, int region) {
+        for (int dir = 0; dir < 4; dir++) {
+            int n = neighbour(crateCell, dir);
+            if (n >= 0 && regionOf(crateCell, n) == region) return dir;
+        }
+        return -1;
+    }
+
+    /** @return L'index du voisin libre dans la direction donnée, ou -1 s'il est bloqué. */
+    private int neighbour(int cell, int dir) {
+        int nx = cell % width + LevelGrid.DX[dir];
+        int ny = cell / width + LevelGrid.DY[dir];
+        return isFree(nx, ny) ? grid.index(nx, ny) : -1;
+    }
+
+    private boolean isFree(int x, int y) {
+        if (grid.isWall(x, y)) return false;
+        int index = grid.index(x, y);
+        return (blocked[index >>> 6] & (1L << index)) == 0;
+    }
+
+    private void markObstacles(Array<Crate> crates, Crate moving) {
+        Arrays.fill(blocked, 0);
+        for (int i = 0; i < crates.size; i++) {
+            Crate other = crates.get(i);
+            if (other == moving) continue;
+            int x = grid.toCell(other.getX());
+            int y = grid.toCell(other.getY());
+            if (grid.isWall(x, y)) continue;
+            int index = grid.index(x, y);
+            blocked[index >>> 6] |= 1L << index;
+        }
+    }
+
+    private void ensureCapacity(int cells) {
+        if (disc.length < cells) {
+            blocked = new long[(cells + 63) >>> 6];
+            disc = new int[cells];
+            low = new int[cells];
+            size = new int[cells];
+            parent = new int[cells];
+            stack = new int[cells];
+            nextDir = new byte[cells];
+            queue = new int[cells * 4];
+            cameFrom = new int[cells * 4];
+            pushDir = new byte[cells * 4];
+        }
+    }
+}
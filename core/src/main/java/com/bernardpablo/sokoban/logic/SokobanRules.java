@@ -13,6 +13,10 @@ import com.bernardpablo.sokoban.entities.factory.Target;
  * @author Bernard PABLO
  */
 public class SokobanRules {
+    /** Couleur de caisse attribuée par défaut aux niveaux sans couleurs (format XSB). */
+    public static final int DEFAULT_CRATE_TILE_ID = 2;
+    /** Cible correspondant à {@link #DEFAULT_CRATE_TILE_ID}. */
+    public static final int DEFAULT_TARGET_TILE_ID = getExpectedTargetTileId(DEFAULT_CRATE_TILE_ID);
 
     /**
      * Vérifie si une caisse donnée est placée sur une cible qui lui correspond.
@@ -37,7 +41,7 @@ public class SokobanRules {
      * @param crateTileId L'ID de la tuile de la caisse.
      * @return L'ID de la cible correspondante, ou -1 si aucune règle n'est définie.
      */
-    private static int getExpectedTargetTileId(int crateTileId) {
+    public static int getExpectedTargetTileId(int crateTileId) {
         switch (crateTileId) {
             case 2: return 26;
             case 3: return 39;
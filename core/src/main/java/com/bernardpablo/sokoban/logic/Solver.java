@@ -0,0 +1,786 @@
+package com.bernardpablo.sokoban.logic;
+
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.bernardpablo.sokoban.entities.factory.Crate;
+import com.bernardpablo.sokoban.entities.factory.Target;
+
+import java.util.Arrays;
+
+/**
+ * Solveur de niveaux par recherche en largeur sur les poussées.
+ * <p>
+ * Un état est la position des caisses et la zone accessible au joueur, représentée par sa
+ * plus petite case (normalisation) : deux positions du joueur dans la même zone donnent le
+ * même état. Les caisses d'une même couleur étant interchangeables, leurs cases sont
+ * triées dans la clé. Les états sont rangés bout à bout dans un tableau {@code short[]} et
+ * indexés par une table de hachage à adressage ouvert.
+ * </p>
+ * <p>
+ * Deux modes sont disponibles ({@link Mode}) :
+ * </p>
+ * <ul>
+ *     <li>{@link Mode#FORWARD} : recherche depuis l'état initial jusqu'à un état où chaque
+ *     cible porte une caisse acceptée par {@link SokobanRules#crateMatchesTarget} ;</li>
+ *     <li>{@link Mode#BIDIRECTIONAL} : une seconde recherche part des configurations finales
+ *     (chaque caisse sur une cible de sa couleur, le joueur dans chacune des zones possibles)
+ *     et applique des tractions, inverses des poussées. Les deux recherches partagent la même
+ *     table d'états et s'arrêtent dès que l'une produit un état déjà atteint par l'autre ;
+ *     la couche la plus petite est développée en premier.</li>
+ * </ul>
+ * <p>
+ * Les poussées suivent la règle de file du niveau ({@link LevelContent#pushChain}, voir
+ * {@link PushEngine}) : une poussée décale toute la file de caisses alignées devant le
+ * joueur, dans la limite de sa longueur maximale, et les tractions de la recherche arrière
+ * tirent de même une file de une à {@code pushChain} caisses. Une solution trouvée se joue
+ * donc telle quelle dans le jeu. Les caisses poussées sur une case morte
+ * ({@link DistanceTables#UNREACHABLE}) sont élaguées ; avec la règle classique (une seule
+ * caisse à la fois), les caisses bloquées dans un carré de murs et de caisses le sont
+ * aussi, une file pouvant sinon les dégager.
+ * </p>
+ * @author Bernard PABLO
+ */
+public final class Solver {
+    /** Propriété de carte Tiled choisissant le mode de résolution du niveau. */
+    public static final String MODE_PROPERTY = "solver";
+    /**
+     * Nombre d'états mémorisés au-delà duquel la recherche abandonne, par défaut. Le niveau 2
+     * livré avec le jeu en mémorise environ 1,7 million en recherche simple : la limite
+     * laisse une marge d'un facteur deux au-dessus des cartes livrées.
+     */
+    public static final int DEFAULT_MAX_STATES = 4_000_000;
+
+    private static final byte FORWARD_SIDE = 1, BACKWARD_SIDE = 2;
+
+    /**
+     * Mode de recherche.
+     */
+    public enum Mode {
+        FORWARD, BIDIRECTIONAL;
+
+        /**
+         * @param name Nom du mode, sans tenir compte de la casse (null pour le mode par défaut).
+         * @return Le mode correspondant.
+         * @throws IllegalArgumentException Si le nom ne désigne aucun mode.
+         */
+        public static Mode of(String name) {
+            if (name == null) return FORWARD;
+            for (Mode mode : values()) {
+                if (mode.name().equalsIgnoreCase(name.trim())) return mode;
+            }
+            throw new IllegalArgumentException("Mode de résolution inconnu : '" + name + "'.");
+        }
+
+        /**
+         * @param map La carte d'un niveau (peut être null).
+         * @return Le mode choisi par la propriété {@link #MODE_PROPERTY} de la carte.
+         * @throws IllegalArgumentException Si la propriété ne désigne aucun mode.
+         */
+        public static Mode forMap(TiledMap map) {
+            return map == null ? FORWARD : of(map.getProperties().get(MODE_PROPERTY, String.class));
+        }
+    }
+
+    /**
+     * Résultat d'une résolution.
+     */
+    public static final class Result {
+        private final Mode requestedMode;
+        private final Mode mode;
+        private final IntArray pushes = new IntArray();
+        private final IntArray steps = new IntArray();
+        private boolean solved;
+        private boolean limitReached;
+        private long forwardExpanded;
+        private long backwardExpanded;
+        private long generated;
+        private int states;
+        private long nanos;
+
+        private Result(Mode requestedMode, Mode mode) {
+            this.requestedMode = requestedMode;
+            this.mode = mode;
+        }
+
+        /** @return Le mode demandé à {@link #solve(LevelContent, Mode)}. */
+        public Mode getRequestedMode() { return requestedMode; }
+        /** @return Le mode effectivement utilisé. */
+        public Mode getMode() { return mode; }
+        public boolean isSolved() { return solved; }
+        /** @return true si la recherche a été interrompue par la limite d'états. */
+        public boolean isLimitReached() { return limitReached; }
+
+        /**
+         * @return Les poussées de la solution, codées {@code (case << 2) | direction} avec l'index
+         *         de {@link LevelGrid} de la caisse avant la poussée.
+         */
+        public IntArray getPushes() { return pushes; }
+
+        /** @return Les pas du joueur (directions de {@link LevelGrid}) jouant la solution. */
+        public IntArray getSteps() { return steps; }
+
+        /** @return Le nombre total d'états développés. */
+        public long getExpanded() { return forwardExpanded + backwardExpanded; }
+        public long getForwardExpanded() { return forwardExpanded; }
+        public long getBackwardExpanded() { return backwardExpanded; }
+        /** @return Le nombre de successeurs produits (poussées ou tractions légales, doublons compris). */
+        public long getGenerated() { return generated; }
+
+        /** @return Le facteur de branchement moyen : successeurs produits par état développé. */
+        public double getBranchingFactor() {
+            long expanded = getExpanded();
+            return expanded > 0 ? (double) generated / expanded : 0;
+        }
+        /** @return Le nombre d'états mémorisés. */
+        public int getStates() { return states; }
+        public long getNanos() { return nanos; }
+
+        @Override
+        public String toString() {
+            String outcome = solved ? "résolu en " + pushes.size + " poussées, " + steps.size + " pas"
+                : limitReached ? "abandon (limite d'états)" : "sans solution";
+            return (mode == Mode.FORWARD ? "Recherche simple" : "Recherche bidirectionnelle") + " : " + outcome
+                + ", " + getExpanded() + " états développés (" + forwardExpanded + " avant, " + backwardExpanded
+                + " arrière), " + states + " mémorisés, " + nanos / 1_000_000 + " ms";
+        }
+    }
+
+    private final int maxStates;
+
+    // Description du niveau en cours de résolution
+    private int cells;
+    private int count;
+    private int keySize;
+    /** Longueur maximale d'une file de caisses poussée. */
+    private int maxChain;
+    /** Position dans la clé de chaque caisse du niveau, groupées par couleur. */
+    private int[] order;
+    /** Case voisine de chaque case dans chaque direction, -1 pour un mur ou la bordure. */
+    private int[] neighbours;
+    /** Identifiant de tuile de cible attendu par la caisse de chaque emplacement de la clé. */
+    private int[] slotColour;
+    /** Début et fin (exclue) du groupe de même couleur de chaque emplacement. */
+    private int[] groupStart;
+    private int[] groupEnd;
+    /** Table de distances de chaque emplacement (null : aucune cible de sa couleur). */
+    private short[][] slotDistances;
+    /** Couleur de la cible de chaque case (0 : aucune cible). */
+    private int[] targetColour;
+    private int targetCount;
+
+    // États mémorisés : clés bout à bout, parent, mouvement d'origine et sens de recherche
+    private short[] keys;
+    private int[] parents;
+    private int[] moves;
+    private byte[] sides;
+    private int size;
+    private int[] table;
+    private int tableMask;
+
+    // Tampons de travail
+    private int[] current;
+    private int[] child;
+    /** Emplacement + 1 de la caisse occupant chaque case de l'état développé, 0 si libre. */
+    private int[] occupant;
+    private int[] reach;
+    private int reachStamp;
+    private int[] mark;
+    private int markStamp;
+    private int[] queue;
+
+    public Solver() {
+        this(DEFAULT_MAX_STATES);
+    }
+
+    /**
+     * @param maxStates Nombre d'états mémorisés au-delà duquel la recherche abandonne.
+     * @throws IllegalArgumentException Si la limite est inférieure à 1.
+     */
+    public Solver(int maxStates) {
+        if (maxStates < 1) {
+            throw new IllegalArgumentException("Limite d'états invalide : " + maxStates);
+        }
+        this.maxStates = maxStates;
+    }
+
+    /** @return Le nombre d'états mémorisés au-delà duquel la recherche abandonne. */
+    public int getMaxStates() {
+        return maxStates;
+    }
+
+    /**
+     * Résout un niveau chargé dans le mode choisi par sa carte ({@link LevelContent#solverMode}).
+     * @param content Le contenu du niveau.
+     * @return Le résultat de la recherche.
+     */
+    public Result solve(LevelContent content) {
+        return solve(content, content.solverMode);
+    }
+
+    /**
+     * Résout un niveau chargé.
+     * @param content Le contenu du niveau (grille, caisses, cibles et joueur).
+     * @param mode    Le mode de recherche souhaité. Le mode bidirectionnel suppose autant de
+     *                caisses que de cibles pour chaque couleur ; à défaut, la recherche simple
+     *                est utilisée.
+     * @return Le résultat de la recherche.
+     */
+    public Result solve(LevelContent content, Mode mode) {
+        long start = System.nanoTime();
+        LevelGrid grid = content.grid;
+        DistanceTables distances = content.distances != null ? content.distances
+            : DistanceTables.build(grid, content.targets);
+        prepare(grid, content.crates, content.targets, distances);
+        maxChain = Math.max(1, content.pushChain);
+        Mode requestedMode = mode;
+        if (mode == Mode.BIDIRECTIONAL && !coloursBalanced()) mode = Mode.FORWARD;
+
+        Result result = new Result(requestedMode, mode);
+        int[] initial = new int[keySize];
+        for (int i = 0; i < count; i++) {
+            Crate crate = content.crates.get(i);
+            initial[order[i]] = grid.index(grid.toCell(crate.getX()), grid.toCell(crate.getY()));
+        }
+        int player = grid.index(grid.toCell(content.player.getX()), grid.toCell(content.player.getY()));
+        sortGroups(initial);
+        for (int slot = 0; slot < count; slot++) occupant[initial[slot]] = slot + 1;
+        initial[count] = normalize(player);
+        for (int slot = 0; slot < count; slot++) occupant[initial[slot]] = 0;
+
+        search(initial, mode, result);
+        if (result.solved) expand(initial, player, result.pushes, result.steps);
+        result.states = size;
+        result.nanos = System.nanoTime() - start;
+        return result;
+    }
+
+    private void prepare(LevelGrid grid, Array<Crate> crates, Array<Target> targets, DistanceTables distances) {
+        int width = grid.getWidth();
+        cells = width * grid.getHeight();
+        if (cells > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Grille trop grande pour le solveur : " + cells + " cases.");
+        }
+        count = crates.size;
+        keySize = count + 1;
+
+        neighbours = new int[cells * 4];
+        for (int cell = 0; cell < cells; cell++) {
+            int x = cell % width;
+            int y = cell / width;
+            for (int dir = 0; dir < 4; dir++) {
+                int nx = x + LevelGrid.DX[dir];
+                int ny = y + LevelGrid.DY[dir];
+                neighbours[cell * 4 + dir] = grid.isWall(nx, ny) ? -1 : grid.index(nx, ny);
+            }
+        }
+
+        targetColour = new int[cells];
+        targetCount = 0;
+        for (Target target : targets) {
+            int x = grid.toCell(target.getX());
+            int y = grid.toCell(target.getY());
+            if (grid.isWall(x, y)) continue;
+            targetColour[grid.index(x, y)] = target.getTileId();
+            targetCount++;
+        }
+
+        // Emplacements de la clé : caisses triées par couleur, un groupe par couleur
+        Integer[] byColour = new Integer[count];
+        for (int i = 0; i < count; i++) byColour[i] = i;
+        Arrays.sort(byColour, (a, b) -> Integer.compare(crates.get(a).getTileId(), crates.get(b).getTileId()));
+        order = new int[count];
+        slotColour = new int[count];
+        slotDistances = new short[count][];
+        for (int slot = 0; slot < count; slot++) {
+            int crate = byColour[slot];
+            order[crate] = slot;
+            slotColour[slot] = SokobanRules.getExpectedTargetTileId(crates.get(crate).getTileId());
+            slotDistances[slot] = distances.getTable(slotColour[slot]);
+        }
+        groupStart = new int[count];
+        groupEnd = new int[count];
+        for (int slot = 0; slot < count; ) {
+            int end = slot;
+            while (end < count && slotColour[end] == slotColour[slot]) end++;
+            for (int i = slot; i < end; i++) {
+                groupStart[i] = slot;
+                groupEnd[i] = end;
+            }
+            slot = end;
+        }
+
+        int capacity = Math.min(maxStates, 1 << 16);
+        keys = new short[capacity * keySize];
+        parents = new int[capacity];
+        moves = new int[capacity];
+        sides = new byte[capacity];
+        table = new int[Integer.highestOneBit(capacity) * 4];
+        tableMask = table.length - 1;
+        size = 0;
+
+        current = new int[keySize];
+        child = new int[keySize];
+        occupant = new int[cells];
+        reach = new int[cells];
+        mark = new int[cells];
+        reachStamp = 0;
+        markStamp = 0;
+        queue = new int[cells];
+    }
+
+    /**
+     * @return true si chaque couleur compte autant de caisses que de cibles : les
+     *         configurations finales sont alors entièrement déterminées.
+     */
+    private boolean coloursBalanced() {
+        if (count != targetCount) return false;
+        for (int slot = 0; slot < count; slot = groupEnd[slot]) {
+            int targets = 0;
+            for (int cell = 0; cell < cells; cell++) {
+                if (targetColour[cell] == slotColour[slot]) targets++;
+            }
+            if (targets != groupEnd[slot] - groupStart[slot]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Parcours en largeur par couches. En mode bidirectionnel, chaque tour développe la
+     * couche la plus petite des deux recherches.
+     */
+    private void search(int[] initial, Mode mode, Result result) {
+        if (isGoal(initial)) {
+            result.solved = true;
+            return;
+        }
+        IntArray forward = new IntArray();
+        IntArray backward = new IntArray();
+        IntArray next = new IntArray();
+        forward.add(store(initial, probe(initial), -1, -1, FORWARD_SIDE));
+        if (mode == Mode.BIDIRECTIONAL && !addGoalStates(backward)) {
+            result.limitReached = true;
+            return;
+        }
+
+        while (forward.size > 0 && (mode == Mode.FORWARD || backward.size > 0)) {
+            boolean forwardTurn = mode == Mode.FORWARD || forward.size <= backward.size;
+            IntArray layer = forwardTurn ? forward : backward;
+            next.clear();
+            for (int i = 0; i < layer.size; i++) {
+                if (forwardTurn) result.forwardExpanded++; else result.backwardExpanded++;
+                int meeting = expandState(layer.get(i), forwardTurn, mode == Mode.FORWARD, next, result);
+                if (meeting != 0) {
+                    result.solved = meeting > 0;
+                    result.limitReached = meeting < 0;
+                    return;
+                }
+            }
+            layer.clear();
+            layer.addAll(next);
+        }
+    }
+
+    /**
+     * Développe un état : toutes les poussées (ou tractions) de toutes les caisses depuis la
+     * zone du joueur.
+     * @return 1 si la solution est trouvée, -1 si la limite d'états est atteinte, 0 sinon.
+     */
+    private int expandState(int node, boolean forward, boolean goalTest, IntArray next, Result result) {
+        toInts(node, current);
+        for (int slot = 0; slot < count; slot++) occupant[current[slot]] = slot + 1;
+        flood(current[count]);
+
+        int outcome = 0;
+        search:
+        for (int slot = 0; slot < count; slot++) {
+            int cell = current[slot];
+            for (int dir = 0; dir < 4; dir++) {
+                int move = cell << 2 | dir;
+                if (forward) {
+                    // Le joueur, derrière la caisse, pousse d'une case la file qu'elle ouvre
+                    int behind = neighbours[cell * 4 + (dir ^ 1)];
+                    if (behind < 0 || reach[behind] != reachStamp) continue;
+                    int length = 0;
+                    int end = cell;
+                    while (end >= 0 && occupant[end] != 0) {
+                        int to = length < maxChain ? neighbours[end * 4 + dir] : -1;
+                        short[] distances = to >= 0 ? slotDistances[occupant[end] - 1] : null;
+                        if (distances != null && distances[to] == DistanceTables.UNREACHABLE) to = -1;
+                        end = to;
+                        length++;
+                    }
+                    if (end < 0) continue;
+                    shiftLine(neighbours[end * 4 + (dir ^ 1)], dir, length);
+                    outcome = addChild(node, move, cell, end, cell, forward, goalTest, next, result);
+                    if (outcome != 0) break search;
+                } else {
+                    // Le joueur, devant la caisse, recule d'une case en tirant la file qui la suit
+                    int to = neighbours[cell * 4 + dir];
+                    if (to < 0 || reach[to] != reachStamp) continue;
+                    int player = neighbours[to * 4 + dir];
+                    if (player < 0 || occupant[player] != 0) continue;
+                    for (int length = 1, last = cell; length <= maxChain && last >= 0 && occupant[last] != 0;
+                         length++, last = neighbours[last * 4 + (dir ^ 1)]) {
+                        shiftLine(cell, dir, length);
+                        outcome = addChild(node, move, last, to, player, forward, goalTest, next, result);
+                        if (outcome != 0) break search;
+                    }
+                }
+            }
+        }
+        for (int slot = 0; slot < count; slot++) occupant[current[slot]] = 0;
+        return outcome;
+    }
+
+    /**
+     * Copie l'état développé dans {@link #child} en décalant d'une case, dans la direction
+     * {@code dir}, la file de {@code length} caisses dont la tête est en {@code head} et qui
+     * s'étend dans la direction opposée. Les groupes de couleur sont ensuite remis en ordre.
+     */
+    private void shiftLine(int head, int dir, int length) {
+        System.arraycopy(current, 0, child, 0, count);
+        int cell = head;
+        for (int i = 0; i < length; i++) {
+            child[occupant[cell] - 1] = neighbours[cell * 4 + dir];
+            cell = neighbours[cell * 4 + (dir ^ 1)];
+        }
+        if (length == 1) {
+            sortGroup(child, occupant[head] - 1);
+        } else {
+            sortGroups(child);
+        }
+    }
+
+    /**
+     * Enregistre l'état {@link #child} produit par un mouvement depuis l'état {@code node}.
+     * @param freed    Case libérée par le mouvement.
+     * @param occupied Case nouvellement occupée par une caisse.
+     * @param player   Case du joueur après le mouvement.
+     * @return 1 si la solution est trouvée, -1 si la limite d'états est atteinte, 0 sinon.
+     */
+    private int addChild(int node, int move, int freed, int occupied, int player, boolean forward, boolean goalTest,
+                         IntArray next, Result result) {
+        // Seules les extrémités de la file changent : une case se libère, une autre se remplit
+        occupant[occupied] = occupant[freed];
+        occupant[freed] = 0;
+        boolean frozen = forward && maxChain == 1 && isFrozenSquare(occupied);
+        if (!frozen) child[count] = normalize(player);
+        occupant[freed] = occupant[occupied];
+        occupant[occupied] = 0;
+        if (frozen) return 0;
+
+        result.generated++;
+        int pos = probe(child);
+        int found = table[pos] - 1;
+        if (found >= 0) {
+            if (sides[found] != (forward ? FORWARD_SIDE : BACKWARD_SIDE)) {
+                joinPaths(forward ? node : found, forward ? move : -1, forward ? found : node,
+                    forward ? -1 : move, result.pushes);
+                return 1;
+            }
+            return 0;
+        }
+        int stored = store(child, pos, node, move, forward ? FORWARD_SIDE : BACKWARD_SIDE);
+        if (stored < 0) return -1;
+        if (goalTest && isGoal(child)) {
+            forwardPath(stored, result.pushes);
+            return 1;
+        }
+        next.add(stored);
+        return 0;
+    }
+
+    /**
+     * Ajoute les configurations finales : chaque caisse sur une cible de sa couleur, le
+     * joueur dans chacune des zones libres bordant au moins une caisse.
+     * @return false si la limite d'états est atteinte.
+     */
+    private boolean addGoalStates(IntArray backward) {
+        int[] goal = new int[keySize];
+        for (int slot = 0; slot < count; slot = groupEnd[slot]) {
+            int next = slot;
+            for (int cell = 0; cell < cells; cell++) {
+                if (targetColour[cell] == slotColour[slot]) goal[next++] = cell;
+            }
+        }
+        for (int slot = 0; slot < count; slot++) occupant[goal[slot]] = slot + 1;
+
+        reachStamp++;
+        for (int slot = 0; slot < count; slot++) {
+            for (int dir = 0; dir < 4; dir++) {
+                int start = neighbours[goal[slot] * 4 + dir];
+                if (start < 0 || occupant[start] != 0 || reach[start] == reachStamp) continue;
+                // Nouvelle zone : marquée pour ne pas la compter deux fois
+                goal[count] = normalize(start);
+                for (int cell = 0; cell < cells; cell++) {
+                    if (mark[cell] == markStamp) reach[cell] = reachStamp;
+                }
+                int pos = probe(goal);
+                if (table[pos] != 0) continue;
+                int stored = store(goal, pos, -1, -1, BACKWARD_SIDE);
+                if (stored < 0) {
+                    Arrays.fill(occupant, 0);
+                    return false;
+                }
+                backward.add(stored);
+            }
+        }
+        for (int slot = 0; slot < count; slot++) occupant[goal[slot]] = 0;
+        return true;
+    }
+
+    /**
+     * Marque ({@link #reach}) la zone accessible au joueur dans l'état développé.
+     */
+    private void flood(int from) {
+        int stamp = ++reachStamp;
+        int head = 0;
+        int tail = 0;
+        reach[from] = stamp;
+        queue[tail++] = from;
+        while (head < tail) {
+            int cell = queue[head++];
+            for (int dir = 0; dir < 4; dir++) {
+                int n = neighbours[cell * 4 + dir];
+                if (n < 0 || reach[n] == stamp || occupant[n] != 0) continue;
+                reach[n] = stamp;
+                queue[tail++] = n;
+            }
+        }
+    }
+
+    /**
+     * Parcourt ({@link #mark}) la zone du joueur en tenant compte de {@link #occupant}.
+     * @return La plus petite case de la zone, représentant du joueur dans la clé.
+     */
+    private int normalize(int from) {
+        int stamp = ++markStamp;
+        int head = 0;
+        int tail = 0;
+        int min = from;
+        mark[from] = stamp;
+        queue[tail++] = from;
+        while (head < tail) {
+            int cell = queue[head++];
+            if (cell < min) min = cell;
+            for (int dir = 0; dir < 4; dir++) {
+                int n = neighbours[cell * 4 + dir];
+                if (n < 0 || mark[n] == stamp || occupant[n] != 0) continue;
+                mark[n] = stamp;
+                queue[tail++] = n;
+            }
+        }
+        return min;
+    }
+
+    /**
+     * Blocage en carré : une caisse poussée en {@code cell} complète un carré de 2 × 2 cases
+     * entièrement occupé par des murs et des caisses. Aucune de ces caisses ne pouvant plus
+     * bouger, l'état est perdu si l'une d'elles n'est pas sur une cible de sa couleur.
+     */
+    private boolean isFrozenSquare(int cell) {
+        for (int h = 0; h <= 1; h++) {
+            int side = neighbours[cell * 4 + h];
+            for (int v = 2; v <= 3; v++) {
+                int vertical = neighbours[cell * 4 + v];
+                int corner = side >= 0 ? neighbours[side * 4 + v] : vertical >= 0 ? neighbours[vertical * 4 + h] : -1;
+                if (blocks(side) && blocks(vertical) && blocks(corner)
+                    && (misplaced(cell) || misplaced(side) || misplaced(vertical) || misplaced(corner))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /** @return true si la case est un mur ou porte une caisse. */
+    private boolean blocks(int cell) {
+        return cell < 0 || occupant[cell] != 0;
+    }
+
+    /** @return true si la case porte une caisse qui n'est pas sur une cible de sa couleur. */
+    private boolean misplaced(int cell) {
+        return cell >= 0 && occupant[cell] != 0 && targetColour[cell] != slotColour[occupant[cell] - 1];
+    }
+
+    /**
+     * @return true si chaque cible porte une caisse de sa couleur.
+     */
+    private boolean isGoal(int[] key) {
+        int matched = 0;
+        for (int slot = 0; slot < count; slot++) {
+            if (targetColour[key[slot]] == slotColour[slot]) matched++;
+        }
+        return matched == targetCount && targetCount > 0;
+    }
+
+    /** Trie les cases de chaque groupe de couleur. */
+    private void sortGroups(int[] key) {
+        for (int slot = 0; slot < count; slot = groupEnd[slot]) {
+            Arrays.sort(key, slot, groupEnd[slot]);
+        }
+    }
+
+    /** Remet en ordre le groupe d'un emplacement après le déplacement de sa caisse. */
+    private void sortGroup(int[] key, int slot) {
+        int value = key[slot];
+        int i = slot;
+        while (i > groupStart[slot] && key[i - 1] > value) {
+            key[i] = key[i - 1];
+            i--;
+        }
+        while (i < groupEnd[slot] - 1 && key[i + 1] < value) {
+            key[i] = key[i + 1];
+            i++;
+        }
+        key[i] = value;
+    }
+
+    private int hash(int[] key) {
+        int h = 0;
+        for (int i = 0; i < keySize; i++) {
+            h = (h ^ key[i]) * 0x9E3779B1;
+        }
+        return h ^ h >>> 15;
+    }
+
+    /**
+     * @return La position de la clé dans la table, ou celle de la case vide où l'insérer.
+     */
+    private int probe(int[] key) {
+        int pos = hash(key) & tableMask;
+        while (true) {
+            int node = table[pos];
+            if (node == 0 || sameKey(node - 1, key)) return pos;
+            pos = (pos + 1) & tableMask;
+        }
+    }
+
+    private boolean sameKey(int node, int[] key) {
+        int base = node * keySize;
+        for (int i = 0; i < keySize; i++) {
+            if (keys[base + i] != key[i]) return false;
+        }
+        return true;
+    }
+
+    private int[] toInts(int node, int[] out) {
+        int base = node * keySize;
+        for (int i = 0; i < keySize; i++) out[i] = keys[base + i];
+        return out;
+    }
+
+    /**
+     * Mémorise un nouvel état à la position libre {@code pos} de la table.
+     * @return L'index de l'état, ou -1 si la limite d'états est atteinte.
+     */
+    private int store(int[] key, int pos, int parent, int move, byte side) {
+        if (size >= maxStates) return -1;
+        if (size == parents.length) {
+            int capacity = (int) Math.min(maxStates, (long) size * 2);
+            keys = Arrays.copyOf(keys, capacity * keySize);
+            parents = Arrays.copyOf(parents, capacity);
+            moves = Arrays.copyOf(moves, capacity);
+            sides = Arrays.copyOf(sides, capacity);
+        }
+        int node = size++;
+        int base = node * keySize;
+        for (int i = 0; i < keySize; i++) keys[base + i] = (short) key[i];
+        parents[node] = parent;
+        moves[node] = move;
+        sides[node] = side;
+        table[pos] = node + 1;
+        if (size * 2 > table.length) rehash();
+        return node;
+    }
+
+    private void rehash() {
+        table = new int[table.length * 2];
+        tableMask = table.length - 1;
+        int[] key = new int[keySize];
+        for (int node = 0; node < size; node++) {
+            table[probe(toInts(node, key))] = node + 1;
+        }
+    }
+
+    /**
+     * Ajoute les poussées menant de l'état initial à un état de la recherche avant.
+     */
+    private void forwardPath(int node, IntArray pushes) {
+        int from = pushes.size;
+        for (int n = node; parents[n] >= 0; n = parents[n]) pushes.add(moves[n]);
+        for (int i = from, j = pushes.size - 1; i < j; i++, j--) pushes.swap(i, j);
+    }
+
+    /**
+     * Raccorde les deux recherches : chemin avant jusqu'à {@code forwardNode}, mouvement de
+     * jonction éventuel, puis tractions de {@code backwardNode} jusqu'à une configuration
+     * finale, rejouées à l'envers sous forme de poussées.
+     */
+    private void joinPaths(int forwardNode, int forwardMove, int backwardNode, int backwardMove, IntArray pushes) {
+        forwardPath(forwardNode, pushes);
+        if (forwardMove >= 0) pushes.add(forwardMove);
+        if (backwardMove >= 0) pushes.add(pullToPush(backwardMove));
+        for (int n = backwardNode; parents[n] >= 0; n = parents[n]) pushes.add(pullToPush(moves[n]));
+    }
+
+    /**
+     * Une traction de la caisse de {@code c} vers son voisin {@code c + d} s'annule en
+     * poussant depuis ce voisin dans la direction opposée.
+     */
+    private int pullToPush(int pull) {
+        int dir = pull & 3;
+        return neighbours[(pull >> 2) * 4 + dir] << 2 | (dir ^ 1);
+    }
+
+    /**
+     * Traduit les poussées en pas du joueur : chemin le plus court jusqu'à la case derrière
+     * la caisse, puis la poussée de sa file.
+     */
+    private void expand(int[] initial, int player, IntArray pushes, IntArray steps) {
+        for (int slot = 0; slot < count; slot++) occupant[initial[slot]] = slot + 1;
+        int[] from = new int[cells];
+        for (int i = 0; i < pushes.size; i++) {
+            int cell = pushes.get(i) >> 2;
+            int dir = pushes.get(i) & 3;
+            int behind = neighbours[cell * 4 + (dir ^ 1)];
+            walk(player, behind, from, steps);
+            steps.add(dir);
+            int end = cell;
+            while (occupant[end] != 0) end = neighbours[end * 4 + dir];
+            for (int to = end; to != cell; ) {
+                int previous = neighbours[to * 4 + (dir ^ 1)];
+                occupant[to] = occupant[previous];
+                to = previous;
+            }
+            occupant[cell] = 0;
+            player = cell;
+        }
+        Arrays.fill(occupant, 0);
+    }
+
+    /** Ajoute les pas du plus court chemin du joueur entre deux cases libres. */
+    private void walk(int start, int goal, int[] from, IntArray steps) {
+        if (start == goal) return;
+        int stamp = ++markStamp;
+        int head = 0;
+        int tail = 0;
+        mark[start] = stamp;
+        queue[tail++] = start;
+        while (head < tail) {
+            int cell = queue[head++];
+            if (cell == goal) break;
+            for (int dir = 0; dir < 4; dir++) {
+                int n = neighbours[cell * 4 + dir];
+                if (n < 0 || mark[n] == stamp || occupant[n] != 0) continue;
+                mark[n] = stamp;
+                from[n] = cell << 2 | dir;
+                queue[tail++] = n;
+            }
+        }
+        int first = steps.size;
+        for (int cell = goal; cell != start; cell = from[cell] >> 2) steps.add(from[cell] & 3);
+        for (int i = first, j = steps.size - 1; i < j; i++, j--) steps.swap(i, j);
+    }
+}
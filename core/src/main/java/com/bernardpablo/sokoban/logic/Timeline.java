@@ -0,0 +1,157 @@
+package com.bernardpablo.sokoban.logic;
+
+import com.badlogic.gdx.utils.ByteArray;
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * Ligne de temps d'une partie : le journal des mouvements et des images clés de l'état.
+ * <p>
+ * Chaque pas est enregistré sur un octet (sa direction, et un bit signalant une poussée).
+ * Tous les {@link #getInterval()} pas, une image clé complète est ajoutée : case du joueur,
+ * nombre de poussées et case de chaque caisse ({@link EntityStore#snapshot}). Se placer
+ * sur un coup quelconque restaure l'image clé qui le précède puis rejoue au plus
+ * {@code interval - 1} pas : le coût d'un déplacement dans la ligne de temps ne dépend pas
+ * de la longueur de la partie, seulement du nombre de caisses et de l'intervalle.
+ * </p>
+ * <p>
+ * Après un retour en arrière, le mouvement suivant efface la suite de la ligne de temps,
+ * comme une annulation classique ; tant qu'aucun mouvement n'est joué, on peut revenir
+ * vers la fin.
+ * </p>
+ * @author Bernard PABLO
+ */
+public final class Timeline {
+    /** Intervalle par défaut, en pas, entre deux images clés. */
+    public static final int DEFAULT_INTERVAL = 64;
+    /** Bit d'un pas ayant poussé au moins une caisse. */
+    static final int PUSHED = 0x04;
+    private static final int DIRECTION_MASK = 0x03;
+
+    private final int interval;
+    /** Un octet par pas : direction et bit {@link #PUSHED}. */
+    private final ByteArray moves = new ByteArray(1024);
+    /** Images clés à la suite : case du joueur, poussées, puis case de chaque caisse. */
+    private final IntArray keyframes = new IntArray(256);
+    private int stride;
+    private int width;
+    private int position;
+    private int pushCount;
+    private int[] scratch = new int[0];
+    private long lastSeekNanos;
+
+    /** Ligne de temps avec une image clé tous les {@link #DEFAULT_INTERVAL} pas. */
+    public Timeline() {
+        this(DEFAULT_INTERVAL);
+    }
+
+    /**
+     * @param interval Nombre de pas entre deux images clés (borne le rejeu d'un déplacement).
+     */
+    public Timeline(int interval) {
+        if (interval < 1) throw new IllegalArgumentException("Intervalle invalide : " + interval);
+        this.interval = interval;
+    }
+
+    /**
+     * Repart de zéro pour un niveau qui vient d'être chargé.
+     * @param store      Les caisses du niveau, dans leur état initial.
+     * @param playerCell La case de départ du joueur.
+     */
+    public void start(EntityStore store, int playerCell) {
+        width = store.getGrid().getWidth();
+        stride = store.getCrateCount() + 2;
+        if (scratch.length < store.getCrateCount()) scratch = new int[store.getCrateCount()];
+        moves.clear();
+        keyframes.clear();
+        position = 0;
+        pushCount = 0;
+        addKeyframe(store, playerCell);
+    }
+
+    /**
+     * Enregistre un pas déjà appliqué. Si la ligne de temps n'est pas à sa fin (après un
+     * {@link #seek}), la suite est d'abord effacée.
+     * @param direction  La direction du pas ({@link LevelGrid#LEFT}...).
+     * @param pushed     true si le pas a poussé au moins une caisse.
+     * @param store      Les caisses, dans l'état qui suit le pas.
+     * @param playerCell La case du joueur après le pas.
+     */
+    public void record(int direction, boolean pushed, EntityStore store, int playerCell) {
+        if (position < moves.size) {
+            moves.size = position;
+            keyframes.size = (position / interval + 1) * stride;
+        }
+        moves.add((byte) (direction | (pushed ? PUSHED : 0)));
+        position++;
+        if (pushed) pushCount++;
+        if (position % interval == 0) {
+            addKeyframe(store, playerCell);
+        }
+    }
+
+    private void addKeyframe(EntityStore store, int playerCell) {
+        int crates = stride - 2;
+        keyframes.ensureCapacity(stride);
+        keyframes.add(playerCell, pushCount);
+        store.snapshot(scratch);
+        keyframes.addAll(scratch, 0, crates);
+    }
+
+    /**
+     * Replace le niveau dans l'état qui suit un coup : l'image clé précédente est restaurée,
+     * puis les pas suivants sont rejoués par le moteur de poussée du niveau.
+     * @param move   Le nombre de pas joués dans l'état voulu (borné à la taille de la ligne de temps).
+     * @param store  Les caisses du niveau (modifiées).
+     * @param engine Le moteur de poussée du niveau, branché sur {@code store}.
+     * @return La case du joueur dans l'état atteint.
+     */
+    public int seek(int move, EntityStore store, PushEngine engine) {
+        long start = System.nanoTime();
+        move = Math.max(0, Math.min(move, moves.size));
+        int base = move / interval * stride;
+        int player = keyframes.get(base);
+        int pushes = keyframes.get(base + 1);
+        System.arraycopy(keyframes.items, base + 2, scratch, 0, stride - 2);
+        store.restore(scratch);
+
+        for (int i = move / interval * interval; i < move; i++) {
+            int code = moves.get(i);
+            int dir = code & DIRECTION_MASK;
+            player += LevelGrid.DX[dir] + LevelGrid.DY[dir] * width;
+            if ((code & PUSHED) != 0) {
+                engine.pushAt(player, LevelGrid.DX[dir], LevelGrid.DY[dir]);
+                pushes++;
+            }
+        }
+        store.clearMoved();
+
+        position = move;
+        pushCount = pushes;
+        lastSeekNanos = System.nanoTime() - start;
+        return player;
+    }
+
+    /**
+     * @param index Index d'un pas enregistré.
+     * @return Sa direction ({@link LevelGrid#LEFT}...).
+     */
+    public int getDirection(int index) {
+        return moves.get(index) & DIRECTION_MASK;
+    }
+
+    /** @return Le nombre de pas enregistrés (y compris ceux situés après la position courante). */
+    public int getSize() { return moves.size; }
+    /** @return Le nombre de pas joués dans l'état courant. */
+    public int getPosition() { return position; }
+    /** @return Le nombre de poussées dans l'état courant. */
+    public int getPushCount() { return pushCount; }
+    public int getInterval() { return interval; }
+    public int getKeyframeCount() { return stride == 0 ? 0 : keyframes.size / stride; }
+    /** @return La durée du dernier {@link #seek}, en nanosecondes. */
+    public long getLastSeekNanos() { return lastSeekNanos; }
+
+    /** @return La mémoire occupée par le journal et les images clés, en octets. */
+    public long getMemoryBytes() {
+        return moves.items.length + keyframes.items.length * 4L;
+    }
+}
@@ -0,0 +1,294 @@
+package com.bernardpablo.sokoban.profiling;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enregistrement continu du jeu avec Java Flight Recorder (JFR).
+ * <p>
+ * Les points de mesure du jeu encadrent une opération par {@link #begin} et {@link #end} :
+ * chaque paire produit un événement JFR {@link ProfileEvent} avec sa durée. Tant que
+ * l'enregistrement n'est pas démarré, {@link #begin} se contente de lire un booléen
+ * statique et renvoie null, que {@link #end} ignore : aucun objet n'est alloué.
+ * </p>
+ * <p>
+ * Le jeu reste compilé pour Java 8, dont l'API ne contient pas {@code jdk.jfr} : les types
+ * d'événements sont créés à l'exécution par {@code jdk.jfr.EventFactory} et
+ * l'enregistrement est piloté par réflexion. Sur une JVM sans JFR, {@link #start} échoue
+ * proprement et le jeu tourne sans enregistrement.
+ * </p>
+ * <p>
+ * L'enregistrement est un tampon circulaire sur disque : seuls les derniers événements
+ * (durée ou taille maximale) sont conservés. Ils sont écrits dans un fichier {@code .jfr}
+ * à la demande ({@link #dump}) ou automatiquement après une image plus longue que le seuil
+ * fixé au démarrage ({@link #checkFrame}), au plus une fois toutes les 30 secondes.
+ * L'écriture a lieu sur un thread dédié.
+ * </p>
+ * @author Bernard PABLO
+ */
+public final class FlightRecorder {
+    /** Répertoire par défaut des enregistrements, relatif au répertoire de travail. */
+    public static final String DUMP_DIR = "recordings";
+    /** Durée conservée par défaut dans le tampon circulaire, en secondes. */
+    public static final int DEFAULT_MAX_AGE_SECONDS = 120;
+    /** Taille maximale par défaut du tampon circulaire, en octets. */
+    public static final long DEFAULT_MAX_BYTES = 64L << 20;
+    /** Durée d'image par défaut au-delà de laquelle l'enregistrement est écrit, en millisecondes. */
+    public static final int DEFAULT_SLOW_FRAME_MS = 100;
+    /** Intervalle minimal entre deux écritures déclenchées par une image lente. */
+    private static final long SLOW_DUMP_COOLDOWN_NANOS = 30_000_000_000L;
+
+    /** Vrai pendant un enregistrement : seul champ lu par les points de mesure sinon. */
+    private static boolean active;
+    private static Object recording;
+    private static final Object[] factories = new Object[ProfileEvent.values().length];
+    private static MethodHandle newEvent;
+    private static MethodHandle beginEvent;
+    private static MethodHandle endEvent;
+    private static MethodHandle shouldCommit;
+    private static MethodHandle setField;
+    private static MethodHandle commitEvent;
+    private static MethodHandle dumpRecording;
+    private static MethodHandle closeRecording;
+    private static ExecutorService dumper;
+    private static File directory;
+    private static long slowFrameNanos;
+    private static long lastSlowDump;
+    private static boolean slowDumped;
+
+    private FlightRecorder() {}
+
+    /** @return true si la JVM courante fournit Java Flight Recorder. */
+    public static boolean isSupported() {
+        try {
+            Class.forName("jdk.jfr.EventFactory");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /** @return true si un enregistrement est en cours. */
+    public static boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Démarre l'enregistrement continu.
+     * @param maxAgeSeconds Durée conservée dans le tampon circulaire, en secondes.
+     * @param maxBytes      Taille maximale du tampon circulaire, en octets.
+     * @param slowFrameMs   Durée d'image déclenchant une écriture (0 : jamais).
+     * @param dir           Répertoire des fichiers {@code .jfr} écrits.
+     * @return true si l'enregistrement a démarré.
+     */
+    public static synchronized boolean start(int maxAgeSeconds, long maxBytes, int slowFrameMs, File dir) {
+        if (active) return true;
+        try {
+            defineEvents();
+            Class<?> configuration = Class.forName("jdk.jfr.Configuration");
+            Class<?> recordingClass = Class.forName("jdk.jfr.Recording");
+            Object config = configuration.getMethod("getConfiguration", String.class).invoke(null, "default");
+            Object started = recordingClass.getConstructor(configuration).newInstance(config);
+            recordingClass.getMethod("setName", String.class).invoke(started, "sokoban");
+            recordingClass.getMethod("setToDisk", boolean.class).invoke(started, true);
+            recordingClass.getMethod("setMaxAge", Duration.class).invoke(started, Duration.ofSeconds(maxAgeSeconds));
+            recordingClass.getMethod("setMaxSize", long.class).invoke(started, maxBytes);
+            recordingClass.getMethod("start").invoke(started);
+
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            dumpRecording = lookup.findVirtual(recordingClass, "dump", MethodType.methodType(void.class, Path.class));
+            closeRecording = lookup.findVirtual(recordingClass, "close", MethodType.methodType(void.class));
+            recording = started;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            System.err.println("Enregistrement JFR indisponible : " + e);
+            return false;
+        }
+
+        directory = dir;
+        slowFrameNanos = slowFrameMs * 1_000_000L;
+        slowDumped = false;
+        dumper = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "sokoban-jfr");
+            thread.setDaemon(true);
+            return thread;
+        });
+        active = true;
+        System.out.println("Enregistrement JFR continu : " + maxAgeSeconds + " s conservées, écriture dans "
+            + dir.getPath() + (slowFrameMs > 0 ? " (et après toute image de plus de " + slowFrameMs + " ms)" : ""));
+        return true;
+    }
+
+    /**
+     * Crée un type d'événement JFR par {@link ProfileEvent}, avec ses champs
+     * {@code detail} (texte) et {@code value} (entier), sans pile d'appels.
+     */
+    @SuppressWarnings("unchecked")
+    private static void defineEvents() throws ReflectiveOperationException {
+        Class<?> factoryClass = Class.forName("jdk.jfr.EventFactory");
+        Class<?> eventClass = Class.forName("jdk.jfr.Event");
+        Class<?> annotationElement = Class.forName("jdk.jfr.AnnotationElement");
+        Class<?> valueDescriptor = Class.forName("jdk.jfr.ValueDescriptor");
+        Constructor<?> annotation = annotationElement.getConstructor(Class.class, Object.class);
+        Constructor<?> field = valueDescriptor.getConstructor(Class.class, String.class);
+        Class<? extends Annotation> name = (Class<? extends Annotation>) Class.forName("jdk.jfr.Name");
+        Class<? extends Annotation> label = (Class<? extends Annotation>) Class.forName("jdk.jfr.Label");
+        Class<? extends Annotation> category = (Class<? extends Annotation>) Class.forName("jdk.jfr.Category");
+        Class<? extends Annotation> stackTrace = (Class<? extends Annotation>) Class.forName("jdk.jfr.StackTrace");
+
+        List<Object> fields = Arrays.asList(field.newInstance(String.class, "detail"), field.newInstance(long.class, "value"));
+        for (ProfileEvent type : ProfileEvent.values()) {
+            List<Object> annotations = new ArrayList<>();
+            annotations.add(annotation.newInstance(name, type.getEventName()));
+            annotations.add(annotation.newInstance(label, type.getLabel()));
+            annotations.add(annotation.newInstance(category, new String[] {"Sokoban", type.getCategory()}));
+            annotations.add(annotation.newInstance(stackTrace, false));
+            factories[type.ordinal()] = factoryClass.getMethod("create", List.class, List.class)
+                .invoke(null, annotations, fields);
+        }
+
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        newEvent = lookup.findVirtual(factoryClass, "newEvent", MethodType.methodType(eventClass));
+        beginEvent = lookup.findVirtual(eventClass, "begin", MethodType.methodType(void.class));
+        endEvent = lookup.findVirtual(eventClass, "end", MethodType.methodType(void.class));
+        shouldCommit = lookup.findVirtual(eventClass, "shouldCommit", MethodType.methodType(boolean.class));
+        setField = lookup.findVirtual(eventClass, "set", MethodType.methodType(void.class, int.class, Object.class));
+        commitEvent = lookup.findVirtual(eventClass, "commit", MethodType.methodType(void.class));
+    }
+
+    /**
+     * Ouvre la mesure d'une opération.
+     * @param type Le type d'événement.
+     * @return L'événement en cours, à passer à {@link #end} ; null si l'enregistrement est arrêté.
+     */
+    public static Object begin(ProfileEvent type) {
+        if (!active) return null;
+        try {
+            Object event = newEvent.invoke(factories[type.ordinal()]);
+            beginEvent.invoke(event);
+            return event;
+        } catch (Throwable t) {
+            fail(t);
+            return null;
+        }
+    }
+
+    /**
+     * Termine la mesure d'une opération et enregistre l'événement.
+     * @param span   La valeur renvoyée par {@link #begin} (null : rien à faire).
+     * @param detail Détail textuel (peut être null).
+     * @param value  Valeur associée (direction, nombre de caisses...).
+     */
+    public static void end(Object span, String detail, long value) {
+        if (span == null) return;
+        try {
+            endEvent.invoke(span);
+            if ((boolean) shouldCommit.invoke(span)) {
+                setField.invoke(span, 0, detail);
+                setField.invoke(span, 1, value);
+                commitEvent.invoke(span);
+            }
+        } catch (Throwable t) {
+            fail(t);
+        }
+    }
+
+    private static void fail(Throwable t) {
+        active = false;
+        System.err.println("Enregistrement JFR interrompu : " + t);
+    }
+
+    /**
+     * Vérifie la durée d'une image et écrit l'enregistrement si elle dépasse le seuil.
+     * @param deltaSeconds Temps écoulé depuis l'image précédente, en secondes.
+     */
+    public static void checkFrame(float deltaSeconds) {
+        if (!active || slowFrameNanos == 0 || deltaSeconds * 1e9f < slowFrameNanos) return;
+        long now = System.nanoTime();
+        if (slowDumped && now - lastSlowDump < SLOW_DUMP_COOLDOWN_NANOS) return;
+        slowDumped = true;
+        lastSlowDump = now;
+        dump("image-lente-" + Math.round(deltaSeconds * 1000) + "ms");
+    }
+
+    /**
+     * Écrit le contenu du tampon circulaire dans un nouveau fichier, sur le thread dédié.
+     * @param reason Motif ajouté au nom du fichier.
+     */
+    public static void dump(String reason) {
+        if (!active) return;
+        dumper.execute(() -> {
+            try {
+                File file = dumpNow(reason);
+                System.out.println("Enregistrement JFR écrit : " + file.getPath());
+            } catch (IOException e) {
+                System.err.println("Écriture de l'enregistrement JFR impossible : " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Écrit le contenu du tampon circulaire dans un nouveau fichier, sur le thread appelant.
+     * @param reason Motif ajouté au nom du fichier.
+     * @return Le fichier écrit.
+     * @throws IOException Si l'enregistrement est arrêté ou si l'écriture échoue.
+     */
+    public static synchronized File dumpNow(String reason) throws IOException {
+        if (!active) throw new IOException("Aucun enregistrement en cours.");
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Répertoire impossible à créer : " + directory);
+        }
+        String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date());
+        File file = new File(directory, "sokoban-" + stamp + "-" + reason + ".jfr");
+        try {
+            dumpRecording.invoke(recording, file.toPath());
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IOException(t);
+        }
+        return file;
+    }
+
+    /**
+     * Termine les écritures en cours, puis arrête l'enregistrement et libère le tampon.
+     */
+    public static void stop() {
+        ExecutorService pending;
+        synchronized (FlightRecorder.class) {
+            if (!active) return;
+            pending = dumper;
+        }
+        pending.shutdown();
+        try {
+            pending.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        close();
+    }
+
+    private static synchronized void close() {
+        active = false;
+        try {
+            closeRecording.invoke(recording);
+        } catch (Throwable t) {
+            System.err.println("Arrêt de l'enregistrement JFR : " + t);
+        }
+        recording = null;
+    }
+}
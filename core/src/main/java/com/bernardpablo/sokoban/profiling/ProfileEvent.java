@@ -0,0 +1,49 @@
+package com.bernardpablo.sokoban.profiling;
+
+/**
+ * Événements de profilage du jeu, enregistrés par le {@link FlightRecorder}.
+ * <p>
+ * Chaque constante devient un type d'événement Java Flight Recorder (nom
+ * {@code sokoban.*}), rangé dans une catégorie de l'arbre des événements de JDK Mission
+ * Control. Tous portent les mêmes champs : une durée, un détail textuel et une valeur.
+ * </p>
+ * @author Bernard PABLO
+ */
+public enum ProfileEvent {
+    /** Lecture de la carte d'un niveau (fichier TMX ou attente du chargement asynchrone). */
+    LEVEL_PARSE("sokoban.LevelParse", "Lecture de la carte", "Niveau"),
+    /** Construction des entités et des tables de distances d'un niveau. */
+    LEVEL_ENTITIES("sokoban.LevelEntities", "Construction des entités", "Niveau"),
+    /** Adaptation de la caméra et du rendu de la carte au nouveau niveau. */
+    LEVEL_VIEWPORT("sokoban.LevelViewport", "Mise à jour de la vue", "Niveau"),
+    /** Pas du joueur (valeur : direction). */
+    MOVE("sokoban.Move", "Pas du joueur", "Partie"),
+    /** Poussée d'une file de caisses (valeur : nombre de caisses déplacées). */
+    PUSH("sokoban.Push", "Poussée", "Partie"),
+    /** Diffusion d'un événement du modèle (détail : événement, valeur : abonnés). */
+    OBSERVER_DISPATCH("sokoban.ObserverDispatch", "Diffusion d'un événement", "Partie"),
+    /** Entrées, animations et sons d'une image. */
+    FRAME_UPDATE("sokoban.FrameUpdate", "Mise à jour", "Image"),
+    /** Rendu de la carte statique. */
+    FRAME_MAP("sokoban.FrameMap", "Rendu de la carte", "Image"),
+    /** Rendu des cibles, caisses et joueur. */
+    FRAME_ENTITIES("sokoban.FrameEntities", "Rendu des entités", "Image"),
+    /** Rendu de la barre de défilement et des overlays. */
+    FRAME_OVERLAY("sokoban.FrameOverlay", "Rendu de l'interface", "Image");
+
+    private final String eventName;
+    private final String label;
+    private final String category;
+
+    ProfileEvent(String eventName, String label, String category) {
+        this.eventName = eventName;
+        this.label = label;
+        this.category = category;
+    }
+
+    /** @return Le nom de l'événement JFR. */
+    public String getEventName() { return eventName; }
+    public String getLabel() { return label; }
+    /** @return La catégorie de l'événement, sous la catégorie « Sokoban ». */
+    public String getCategory() { return category; }
+}
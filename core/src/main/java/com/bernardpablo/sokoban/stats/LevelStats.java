@@ -0,0 +1,68 @@
+package com.bernardpablo.sokoban.stats;
+
+/**
+ * Statistiques cumulées d'un profil de joueur sur un niveau.
+ * <p>
+ * Les meilleurs scores sont indépendants : le meilleur nombre de poussées peut provenir
+ * d'une autre résolution que le meilleur nombre de pas. Une valeur de
+ * {@link #NONE} signifie que le niveau n'a encore jamais été terminé.
+ * </p>
+ * @author Bernard PABLO
+ */
+public final class LevelStats {
+    /** Valeur d'un meilleur score encore inexistant. */
+    public static final int NONE = Integer.MAX_VALUE;
+
+    final String profile;
+    final String level;
+    int attempts;
+    int completions;
+    int bestMoves = NONE;
+    int bestPushes = NONE;
+    long bestTimeMs = NONE;
+    long firstCompletedAt;
+    long lastCompletedAt;
+
+    LevelStats(String profile, String level) {
+        this.profile = profile;
+        this.level = level;
+    }
+
+    /**
+     * Intègre une résolution du niveau.
+     * @param moves  Nombre de pas.
+     * @param pushes Nombre de poussées.
+     * @param timeMs Durée de la résolution en millisecondes.
+     * @param now    Date de la résolution (millisecondes depuis l'époque Unix).
+     */
+    void complete(int moves, int pushes, long timeMs, long now) {
+        completions++;
+        bestMoves = Math.min(bestMoves, moves);
+        bestPushes = Math.min(bestPushes, pushes);
+        bestTimeMs = Math.min(bestTimeMs, timeMs);
+        if (firstCompletedAt == 0) firstCompletedAt = now;
+        lastCompletedAt = now;
+    }
+
+    /** @return true si le niveau a été terminé au moins une fois. */
+    public boolean isCompleted() {
+        return completions > 0;
+    }
+
+    // Getters
+    public String getProfile() { return profile; }
+    public String getLevel() { return level; }
+    public int getAttempts() { return attempts; }
+    public int getCompletions() { return completions; }
+    public int getBestMoves() { return bestMoves; }
+    public int getBestPushes() { return bestPushes; }
+    public long getBestTimeMs() { return bestTimeMs; }
+    public long getFirstCompletedAt() { return firstCompletedAt; }
+    public long getLastCompletedAt() { return lastCompletedAt; }
+
+    @Override
+    public String toString() {
+        return profile + " / " + level + " : " + completions + "/" + attempts + " réussite(s)"
+            + (isCompleted() ? ", " + bestMoves + " pas, " + bestPushes + " poussées, " + bestTimeMs + " ms" : "");
+    }
+}
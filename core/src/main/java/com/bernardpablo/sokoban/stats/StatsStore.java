@@ -0,0 +1,345 @@
+package com.bernardpablo.sokoban.stats;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stockage persistant des statistiques de jeu, par profil et par niveau.
+ * <p>
+ * Les données sont conservées dans un journal en ajout seul : chaque mise à jour ajoute
+ * la nouvelle version de l'enregistrement {@link LevelStats} concerné à la fin du fichier.
+ * Un index en mémoire associe à chaque couple (niveau, profil) la position de sa dernière
+ * version ; une requête ne lit donc que les enregistrements dont elle a besoin (un
+ * classement ne lit que ceux du niveau demandé).
+ * </p>
+ * <p>
+ * L'index est sauvegardé dans un fichier voisin ({@code .idx}) à la fermeture : à
+ * l'ouverture suivante, seule la fin du journal écrite après cette sauvegarde est relue.
+ * Les anciennes versions s'accumulant, le journal est compacté (réécrit avec les seules
+ * versions vivantes) dès qu'elles représentent plus de la moitié de sa taille.
+ * </p>
+ * @author Bernard PABLO
+ */
+public class StatsStore {
+    private static final int INDEX_MAGIC = 0x534F4B31; // "SOK1"
+    /** Taille en dessous de laquelle le journal n'est jamais compacté. */
+    private static final long COMPACT_MIN_BYTES = 64 * 1024;
+
+    /** Ordre des classements : moins de pas, puis moins de poussées, puis le plus rapide. */
+    public static final Comparator<LevelStats> BY_MOVES = (a, b) -> {
+        if (a.bestMoves != b.bestMoves) return Integer.compare(a.bestMoves, b.bestMoves);
+        if (a.bestPushes != b.bestPushes) return Integer.compare(a.bestPushes, b.bestPushes);
+        return Long.compare(a.bestTimeMs, b.bestTimeMs);
+    };
+
+    private final File dataFile;
+    private final File indexFile;
+    private RandomAccessFile data;
+
+    /** Position de la dernière version de chaque enregistrement, par niveau puis par profil. */
+    private final Map<String, Map<String, Long>> index = new HashMap<>();
+    private int recordCount;
+    /** Taille cumulée des versions vivantes, en octets. */
+    private long liveBytes;
+    private final HashMap<Long, Integer> sizes = new HashMap<>();
+
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(128);
+    private final DataOutputStream out = new DataOutputStream(buffer);
+
+    /**
+     * Ouvre (ou crée) le stockage et reconstruit son index.
+     * @param dataFile Le fichier journal ; l'index est stocké à côté, avec l'extension {@code .idx}.
+     * @throws IOException Si le fichier ne peut pas être ouvert.
+     */
+    public StatsStore(File dataFile) throws IOException {
+        this.dataFile = dataFile;
+        this.indexFile = new File(dataFile.getPath() + ".idx");
+        this.data = new RandomAccessFile(dataFile, "rw");
+
+        long scanFrom = loadIndex();
+        scan(scanFrom);
+    }
+
+    /**
+     * Enregistre une nouvelle tentative (chargement ou redémarrage) d'un niveau.
+     * @param profile Le profil du joueur.
+     * @param level   Le chemin du niveau.
+     */
+    public void recordAttempt(String profile, String level) throws IOException {
+        LevelStats stats = getOrCreate(profile, level);
+        stats.attempts++;
+        write(stats);
+    }
+
+    /**
+     * Enregistre la résolution d'un niveau et met à jour les meilleurs scores.
+     * @param profile Le profil du joueur.
+     * @param level   Le chemin du niveau.
+     * @param moves   Nombre de pas.
+     * @param pushes  Nombre de poussées.
+     * @param timeMs  Durée de la résolution en millisecondes.
+     * @return Les statistiques mises à jour.
+     */
+    public LevelStats recordCompletion(String profile, String level, int moves, int pushes, long timeMs)
+        throws IOException {
+        LevelStats stats = getOrCreate(profile, level);
+        if (stats.attempts == 0) stats.attempts = 1;
+        stats.complete(moves, pushes, timeMs, System.currentTimeMillis());
+        write(stats);
+        return stats;
+    }
+
+    /**
+     * @param profile Le profil du joueur.
+     * @param level   Le chemin du niveau.
+     * @return Les statistiques du profil sur ce niveau, ou null s'il n'y a jamais joué.
+     */
+    public LevelStats getStats(String profile, String level) throws IOException {
+        Map<String, Long> profiles = index.get(level);
+        Long offset = profiles != null ? profiles.get(profile) : null;
+        return offset != null ? read(offset) : null;
+    }
+
+    /**
+     * Classement d'un niveau : seuls les enregistrements de ce niveau sont lus.
+     * @param level Le chemin du niveau.
+     * @param limit Nombre maximal d'entrées retournées.
+     * @return Les profils ayant terminé le niveau, du meilleur au moins bon ({@link #BY_MOVES}).
+     */
+    public List<LevelStats> leaderboard(String level, int limit) throws IOException {
+        Map<String, Long> profiles = index.get(level);
+        if (profiles == null) return Collections.emptyList();
+
+        List<LevelStats> result = new ArrayList<>(profiles.size());
+        for (Long offset : profiles.values()) {
+            LevelStats stats = read(offset);
+            if (stats.isCompleted()) result.add(stats);
+        }
+        result.sort(BY_MOVES);
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    private LevelStats getOrCreate(String profile, String level) throws IOException {
+        LevelStats stats = getStats(profile, level);
+        return stats != null ? stats : new LevelStats(profile, level);
+    }
+
+    /**
+     * Ajoute la nouvelle version d'un enregistrement à la fin du journal et met l'index à jour.
+     */
+    private void write(LevelStats stats) throws IOException {
+        buffer.reset();
+        out.writeInt(0); // Longueur, renseignée ci-dessous
+        out.writeUTF(stats.profile);
+        out.writeUTF(stats.level);
+        out.writeInt(stats.attempts);
+        out.writeInt(stats.completions);
+        out.writeInt(stats.bestMoves);
+        out.writeInt(stats.bestPushes);
+        out.writeLong(stats.bestTimeMs);
+        out.writeLong(stats.firstCompletedAt);
+        out.writeLong(stats.lastCompletedAt);
+        byte[] bytes = buffer.toByteArray();
+        int length = bytes.length - 4;
+        bytes[0] = (byte) (length >>> 24);
+        bytes[1] = (byte) (length >>> 16);
+        bytes[2] = (byte) (length >>> 8);
+        bytes[3] = (byte) length;
+
+        long offset = data.length();
+        data.seek(offset);
+        data.write(bytes);
+        put(stats.level, stats.profile, offset, bytes.length);
+
+        if (data.length() > COMPACT_MIN_BYTES && liveBytes * 2 < data.length()) {
+            compact();
+        }
+    }
+
+    /**
+     * Lit l'enregistrement situé à une position du journal.
+     */
+    private LevelStats read(long offset) throws IOException {
+        data.seek(offset + 4);
+        LevelStats stats = new LevelStats(data.readUTF(), data.readUTF());
+        stats.attempts = data.readInt();
+        stats.completions = data.readInt();
+        stats.bestMoves = data.readInt();
+        stats.bestPushes = data.readInt();
+        stats.bestTimeMs = data.readLong();
+        stats.firstCompletedAt = data.readLong();
+        stats.lastCompletedAt = data.readLong();
+        return stats;
+    }
+
+    /**
+     * Enregistre la position de la dernière version d'un enregistrement.
+     */
+    private void put(String level, String profile, long offset, int size) {
+        Long previous = index.computeIfAbsent(level, k -> new HashMap<>()).put(profile, offset);
+        if (previous != null) {
+            liveBytes -= sizes.remove(previous);
+        } else {
+            recordCount++;
+        }
+        sizes.put(offset, size);
+        liveBytes += size;
+    }
+
+    /**
+     * Parcourt le journal depuis une position en ne lisant que les clés des enregistrements.
+     * Une fin de fichier tronquée (arrêt brutal pendant une écriture) est supprimée.
+     */
+    private void scan(long from) throws IOException {
+        long length = data.length();
+        long offset = from;
+        while (offset < length) {
+            if (offset + 4 > length) break;
+            data.seek(offset);
+            int size = data.readInt() + 4;
+            if (size < 4 || offset + size > length) break;
+            String profile = data.readUTF();
+            String level = data.readUTF();
+            put(level, profile, offset, size);
+            offset += size;
+        }
+        if (offset < length) {
+            System.err.println("Statistiques : fin de journal tronquée ignorée (" + (length - offset) + " octets)");
+            data.setLength(offset);
+        }
+    }
+
+    /**
+     * Charge l'index sauvegardé, s'il correspond toujours au journal.
+     * @return La position du journal à partir de laquelle il reste à relire.
+     */
+    private long loadIndex() {
+        if (!indexFile.exists()) return 0;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (in.readInt() != INDEX_MAGIC) return 0;
+            long indexedLength = in.readLong();
+            if (indexedLength > data.length()) return 0;
+
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String level = in.readUTF();
+                String profile = in.readUTF();
+                long offset = in.readLong();
+                int size = in.readInt();
+                put(level, profile, offset, size);
+            }
+            return indexedLength;
+        } catch (EOFException e) {
+            System.err.println("Statistiques : index tronqué, reconstruction");
+        } catch (IOException e) {
+            System.err.println("Statistiques : index illisible, reconstruction (" + e.getMessage() + ")");
+        }
+        index.clear();
+        sizes.clear();
+        recordCount = 0;
+        liveBytes = 0;
+        return 0;
+    }
+
+    /**
+     * Sauvegarde l'index, valable pour la longueur actuelle du journal.
+     */
+    private void saveIndex() throws IOException {
+        File tmp = new File(indexFile.getPath() + ".tmp");
+        try (DataOutputStream idx = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            idx.writeInt(INDEX_MAGIC);
+            idx.writeLong(data.length());
+            idx.writeInt(recordCount);
+            for (Map.Entry<String, Map<String, Long>> level : index.entrySet()) {
+                for (Map.Entry<String, Long> profile : level.getValue().entrySet()) {
+                    idx.writeUTF(level.getKey());
+                    idx.writeUTF(profile.getKey());
+                    idx.writeLong(profile.getValue());
+                    idx.writeInt(sizes.get(profile.getValue()));
+                }
+            }
+        }
+        Files.move(tmp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Réécrit le journal avec les seules versions vivantes des enregistrements.
+     */
+    public void compact() throws IOException {
+        File tmp = new File(dataFile.getPath() + ".tmp");
+        Map<String, Map<String, Long>> moved = new HashMap<>();
+        HashMap<Long, Integer> movedSizes = new HashMap<>();
+        byte[] record = new byte[256];
+
+        try (DataOutputStream compacted = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            long offset = 0;
+            for (Map.Entry<String, Map<String, Long>> level : index.entrySet()) {
+                Map<String, Long> profiles = new HashMap<>();
+                for (Map.Entry<String, Long> profile : level.getValue().entrySet()) {
+                    int size = sizes.get(profile.getValue());
+                    if (record.length < size) record = new byte[size];
+                    data.seek(profile.getValue());
+                    data.readFully(record, 0, size);
+                    compacted.write(record, 0, size);
+                    profiles.put(profile.getKey(), offset);
+                    movedSizes.put(offset, size);
+                    offset += size;
+                }
+                moved.put(level.getKey(), profiles);
+            }
+        }
+
+        // L'ancien index ne correspond plus au nouveau journal
+        Files.deleteIfExists(indexFile.toPath());
+        data.close();
+        Files.move(tmp.toPath(), dataFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        data = new RandomAccessFile(dataFile, "rw");
+
+        index.clear();
+        index.putAll(moved);
+        sizes.clear();
+        sizes.putAll(movedSizes);
+        saveIndex();
+    }
+
+    /** @return Le nombre d'enregistrements vivants (couples profil / niveau). */
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    /** @return Le nombre de niveaux ayant au moins un enregistrement. */
+    public int getLevelCount() {
+        return index.size();
+    }
+
+    /** @return La taille actuelle du journal, en octets. */
+    public long getFileSize() throws IOException {
+        return data.length();
+    }
+
+    /**
+     * Sauvegarde l'index et ferme le journal.
+     */
+    public void close() throws IOException {
+        saveIndex();
+        data.close();
+    }
+}
@@ -0,0 +1,92 @@
+package com.bernardpablo.sokoban;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.graphics.GL20;
+import org.junit.BeforeClass;
+
+import java.lang.reflect.Proxy;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Observable;
+import java.util.Observer;
+
+/**
+ * Base des tests nécessitant LibGDX : démarre une fois une application headless et
+ * remplace OpenGL par un bouchon, ce qui permet de charger de vrais niveaux TMX (textures
+ * comprises) et de construire la vue sans fenêtre ni carte graphique.
+ * <p>
+ * Les tests s'exécutent depuis le dossier {@code assets} (voir {@code core/build.gradle}).
+ * </p>
+ * @author Bernard PABLO
+ */
+public abstract class HeadlessGdxTest {
+    private static HeadlessApplication application;
+
+    @BeforeClass
+    public static void startGdx() {
+        if (application != null) return;
+
+        HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+        config.updatesPerSecond = -1; // Pas de boucle de rendu : les tests pilotent eux-mêmes le jeu
+        application = new HeadlessApplication(new ApplicationAdapter() {}, config);
+        Gdx.gl = Gdx.gl20 = stubGL();
+    }
+
+    /**
+     * Bouchon OpenGL : chaque appel réussit. Les requêtes d'état ({@code glGet*iv}) répondent
+     * 1, de sorte que les shaders de {@code SpriteBatch} et {@code ShapeRenderer} sont
+     * considérés comme compilés et liés.
+     */
+    private static GL20 stubGL() {
+        return (GL20) Proxy.newProxyInstance(GL20.class.getClassLoader(), new Class<?>[] {GL20.class},
+            (proxy, method, args) -> {
+                if (method.getName().startsWith("glGet") && args != null) {
+                    for (Object arg : args) {
+                        if (arg instanceof IntBuffer) ((IntBuffer) arg).put(0, 1);
+                    }
+                }
+                Class<?> type = method.getReturnType();
+                if (type == int.class) return 1;
+                if (type == boolean.class) return false;
+                if (type == float.class) return 0f;
+                if (type == String.class) return "";
+                return null;
+            });
+    }
+
+    /**
+     * Enregistre les événements envoyés par le modèle, dans l'ordre.
+     */
+    protected static final class EventRecorder implements Observer {
+        private final List<String> events = new ArrayList<>();
+
+        public EventRecorder(Observable model) {
+            model.addObserver(this);
+        }
+
+        @Override
+        public void update(Observable o, Object arg) {
+            if (arg instanceof String) events.add((String) arg);
+        }
+
+        public List<String> getEvents() {
+            return events;
+        }
+
+        public int count(String event) {
+            int count = 0;
+            for (String e : events) {
+                if (e.equals(event)) count++;
+            }
+            return count;
+        }
+
+        public void clear() {
+            events.clear();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.bernardpablo.sokoban;
+
+import com.badlogic.gdx.Input;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * Journal de sauvegarde automatique : un déplacement dans la ligne de temps ajoute un
+ * enregistrement de taille fixe, et la partie restaurée revient au même coup.
+ * @author Bernard PABLO
+ */
+public class MoveJournalTest extends HeadlessGdxTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void seekIsJournaledAndRestored() throws Exception {
+        File file = folder.newFile("autosave.journal");
+        file.delete();
+        SokobanModel played = new SokobanModel();
+        played.loadLevel(SokobanController.FIRST_LEVEL);
+        MoveJournal journal = new MoveJournal(played, file);
+        assertTrue(played.walkPlayerTo(2, 6));
+        played.movePlayer(-64, 0);
+        assertEquals(4, played.getTimeline().getSize());
+        played.seekTo(1);
+        played.seekTo(2);
+        journal.close();
+
+        // En-tête, quatre pas, puis deux déplacements de cinq octets chacun
+        int header = 3 + SokobanController.FIRST_LEVEL.getBytes(StandardCharsets.UTF_8).length;
+        assertEquals(header + 4 + 2 * 5, file.length());
+
+        SokobanModel restored = new SokobanModel();
+        restored.loadLevel(SokobanController.FIRST_LEVEL);
+        MoveJournal reopened = new MoveJournal(restored, file);
+        assertTrue(reopened.recover());
+        reopened.close();
+
+        assertEquals(2, restored.getMoveCount());
+        assertEquals(4, restored.getTimeline().getSize());
+        assertEquals(played.getPlayer().getX(), restored.getPlayer().getX(), 0);
+        assertEquals(played.getPlayer().getY(), restored.getPlayer().getY(), 0);
+        played.dispose();
+        restored.dispose();
+    }
+}
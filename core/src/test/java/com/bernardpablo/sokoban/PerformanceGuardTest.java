@@ -0,0 +1,262 @@
+package com.bernardpablo.sokoban;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.bernardpablo.sokoban.entities.factory.Crate;
+import com.bernardpablo.sokoban.entities.factory.Player;
+import com.bernardpablo.sokoban.entities.factory.Target;
+import com.bernardpablo.sokoban.logic.BitBoard;
+import com.bernardpablo.sokoban.logic.DistanceTables;
+import com.bernardpablo.sokoban.logic.LevelGrid;
+import com.bernardpablo.sokoban.logic.PathFinder;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Garde-fous de performance : ces tests échouent si un chemin critique dépasse son budget.
+ * <p>
+ * Les budgets sont volontairement larges (environ dix fois le temps mesuré sur un poste
+ * de développement) : ils détectent une régression d'ordre de grandeur (allocation par
+ * mouvement, rechargement de carte, fuite de ressources), pas une variation de quelques
+ * pour cent. Chaque mesure est précédée d'un préchauffage.
+ * </p>
+ * @author Bernard PABLO
+ */
+public class PerformanceGuardTest extends HeadlessGdxTest {
+    private static final String LEVEL_1 = "sokoban_level1.tmx";
+    private static final String LEVEL_2 = "sokoban_level2.tmx";
+
+    /** Budget du chargement synchrone d'un niveau (lecture TMX, décodage du tileset, tables). */
+    private static final double LOAD_BUDGET_MS = 150;
+    /** Budget moyen d'un mouvement du joueur, notifications comprises. */
+    private static final double MOVE_BUDGET_US = 20;
+    /** Budget moyen de la journalisation d'un mouvement sur le thread de rendu. */
+    private static final double JOURNAL_BUDGET_US = 2;
+    /** Budget d'une recherche de chemin sur une grille de 255 x 255 cases. */
+    private static final double PATH_BUDGET_MS = 5;
+    /** Budget de l'énumération des poussées légales (bitboard) sur 30 x 30 cases et 40 caisses. */
+    private static final double PUSHES_BUDGET_US = 60;
+    /** Budget de construction des tables de distances sur 100 x 100 cases et trois couleurs. */
+    private static final double DISTANCES_BUDGET_MS = 8;
+    /** Taille d'une table de distances : un {@code short} par case et par couleur. */
+    private static final int DISTANCE_BYTES_PER_CELL = 2;
+
+    private static double median(long[] samples) {
+        java.util.Arrays.sort(samples);
+        return samples[samples.length / 2];
+    }
+
+    @Test
+    public void levelLoadStaysWithinBudget() {
+        SokobanModel model = new SokobanModel();
+        for (int i = 0; i < 10; i++) {
+            model.loadLevel(i % 2 == 0 ? LEVEL_1 : LEVEL_2);
+        }
+
+        long[] samples = new long[30];
+        for (int i = 0; i < samples.length; i++) {
+            long start = System.nanoTime();
+            model.loadLevel(i % 2 == 0 ? LEVEL_1 : LEVEL_2);
+            samples[i] = System.nanoTime() - start;
+        }
+        model.dispose();
+
+        double ms = median(samples) / 1e6;
+        assertTrue("Chargement d'un niveau : " + ms + " ms (budget " + LOAD_BUDGET_MS + " ms)", ms < LOAD_BUDGET_MS);
+    }
+
+    @Test
+    public void playerMoveStaysWithinBudget() {
+        SokobanModel model = new SokobanModel();
+        model.loadLevel(LEVEL_1);
+        int tile = model.getGrid().getTileSize();
+        // Aller-retour sur deux cases libres : chaque mouvement réussit
+        for (int i = 0; i < 20_000; i++) {
+            model.movePlayer(i % 2 == 0 ? tile : -tile, 0);
+        }
+
+        int moves = 100_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < moves; i++) {
+            model.movePlayer(i % 2 == 0 ? tile : -tile, 0);
+        }
+        double us = (System.nanoTime() - start) / 1e3 / moves;
+        model.dispose();
+
+        assertEquals(120_000, model.getMoveCount());
+        assertTrue("Mouvement : " + us + " µs (budget " + MOVE_BUDGET_US + " µs)", us < MOVE_BUDGET_US);
+    }
+
+    @Test
+    public void journalAppendStaysWithinBudget() throws IOException {
+        File file = File.createTempFile("sokoban", ".journal");
+        file.delete();
+        SokobanModel model = new SokobanModel();
+        model.loadLevel(LEVEL_1);
+        MoveJournal journal = new MoveJournal(model, file);
+        int tile = model.getGrid().getTileSize();
+        for (int i = 0; i < 120_000; i++) {
+            model.movePlayer(i % 2 == 0 ? tile : -tile, 0);
+        }
+        double us = journal.getAverageAppendNanos() / 1e3;
+        journal.close();
+        model.dispose();
+
+        assertTrue(file.length() > 120_000);
+        assertTrue(file.delete());
+        assertTrue("Journalisation : " + us + " µs (budget " + JOURNAL_BUDGET_US + " µs)", us < JOURNAL_BUDGET_US);
+    }
+
+    @Test
+    public void pathSearchStaysWithinBudget() {
+        // Serpentin : un mur sur deux colonnes, ouvert alternativement en haut et en bas
+        int size = 255;
+        LevelGrid grid = new LevelGrid(size, size, 64);
+        for (int x = 1; x < size; x += 2) {
+            for (int y = 0; y < size; y++) {
+                boolean gap = (x / 2) % 2 == 0 ? y == size - 1 : y == 0;
+                if (!gap) grid.setWall(x, y);
+            }
+        }
+        PathFinder finder = new PathFinder();
+        IntArray path = new IntArray();
+        Array<Crate> crates = new Array<>();
+        for (int i = 0; i < 5; i++) {
+            assertTrue(finder.findPath(grid, crates, 0, 0, size - 1, size - 1, path));
+        }
+
+        long[] samples = new long[20];
+        for (int i = 0; i < samples.length; i++) {
+            long start = System.nanoTime();
+            finder.findPath(grid, crates, 0, 0, size - 1, size - 1, path);
+            samples[i] = System.nanoTime() - start;
+        }
+
+        double ms = median(samples) / 1e6;
+        assertTrue(path.size > size * size / 4);
+        assertTrue("Recherche de chemin : " + ms + " ms (budget " + PATH_BUDGET_MS + " ms)", ms < PATH_BUDGET_MS);
+    }
+
+    @Test
+    public void bitBoardPushEnumerationStaysWithinBudget() {
+        // Salle de 30 x 30 cases parsemée de piliers, 40 caisses placées au hasard
+        int size = 30;
+        LevelGrid grid = new LevelGrid(size, size, 64);
+        for (int i = 0; i < size; i++) {
+            grid.setWall(i, 0);
+            grid.setWall(i, size - 1);
+            grid.setWall(0, i);
+            grid.setWall(size - 1, i);
+        }
+        for (int x = 3; x < size - 3; x += 4) {
+            for (int y = 3; y < size - 3; y += 4) grid.setWall(x, y);
+        }
+        Array<Crate> crates = new Array<>();
+        Array<Target> targets = new Array<>();
+        java.util.Random random = new java.util.Random(1);
+        boolean[] used = new boolean[size * size];
+        while (crates.size < 40) {
+            int x = 2 + random.nextInt(size - 4);
+            int y = 2 + random.nextInt(size - 4);
+            if (grid.isWall(x, y) || used[grid.index(x, y)]) continue;
+            used[grid.index(x, y)] = true;
+            crates.add(new Crate(x * 64, y * 64, 2, null));
+            targets.add(new Target(x * 64, y * 64, 26));
+        }
+        BitBoard board = BitBoard.of(grid, crates, targets, new Player(64, 64, 53, null));
+        IntArray pushes = new IntArray();
+        for (int i = 0; i < 20_000; i++) {
+            board.legalPushes(pushes);
+        }
+
+        long[] samples = new long[30];
+        for (int i = 0; i < samples.length; i++) {
+            long start = System.nanoTime();
+            for (int j = 0; j < 100; j++) board.legalPushes(pushes);
+            samples[i] = (System.nanoTime() - start) / 100;
+        }
+
+        double us = median(samples) / 1e3;
+        assertTrue(pushes.size > 0);
+        assertTrue("Énumération des poussées : " + us + " µs (budget " + PUSHES_BUDGET_US + " µs)", us < PUSHES_BUDGET_US);
+    }
+
+    @Test
+    public void distanceTablesStayWithinBudget() {
+        // Salle de 100 x 100 cases parsemée de piliers, 20 cibles de chacune des trois couleurs
+        int size = 100;
+        LevelGrid grid = new LevelGrid(size, size, 64);
+        for (int i = 0; i < size; i++) {
+            grid.setWall(i, 0);
+            grid.setWall(i, size - 1);
+            grid.setWall(0, i);
+            grid.setWall(size - 1, i);
+        }
+        for (int x = 3; x < size - 3; x += 4) {
+            for (int y = 3; y < size - 3; y += 4) grid.setWall(x, y);
+        }
+        Array<Target> targets = new Array<>();
+        java.util.Random random = new java.util.Random(2);
+        int[] colours = {26, 27, 28};
+        while (targets.size < 60) {
+            int x = 2 + random.nextInt(size - 4);
+            int y = 2 + random.nextInt(size - 4);
+            if (grid.isWall(x, y)) continue;
+            targets.add(new Target(x * 64, y * 64, colours[targets.size % colours.length]));
+        }
+        for (int i = 0; i < 50; i++) {
+            DistanceTables.build(grid, targets);
+        }
+
+        long[] samples = new long[30];
+        DistanceTables tables = null;
+        for (int i = 0; i < samples.length; i++) {
+            tables = DistanceTables.build(grid, targets);
+            samples[i] = tables.getBuildNanos();
+        }
+
+        double ms = median(samples) / 1e6;
+        assertEquals(colours.length, tables.getColourCount());
+        long budget = (long) colours.length * size * size * DISTANCE_BYTES_PER_CELL;
+        assertTrue("Tables de distances : " + tables.getMemoryBytes() + " octets (budget " + budget + " octets)",
+            tables.getMemoryBytes() <= budget);
+        assertTrue("Tables de distances : " + ms + " ms (budget " + DISTANCES_BUDGET_MS + " ms)", ms < DISTANCES_BUDGET_MS);
+    }
+
+    /**
+     * Endurance du pipeline de ressources : 10 000 changements de niveau ne doivent laisser
+     * aucune ressource vivante de plus qu'après le premier chargement.
+     */
+    @Test
+    public void levelSwitchSoakDoesNotLeak() {
+        SokobanAssets assets = new SokobanAssets();
+        assets.queueStartup(LEVEL_1);
+        while (!assets.update()) {
+            Thread.yield();
+        }
+        SokobanModel model = new SokobanModel(assets);
+        model.loadLevel(LEVEL_1);
+        model.loadLevel(LEVEL_2);
+        ResourceTracker tracker = assets.getTracker();
+        int maps = tracker.getCount(ResourceTracker.Kind.MAP);
+        int textures = tracker.getCount(ResourceTracker.Kind.TEXTURE);
+        long bytes = tracker.getTotalBytes();
+
+        for (int i = 0; i < 10_000; i++) {
+            model.loadLevel(i % 2 == 0 ? LEVEL_1 : LEVEL_2);
+        }
+        model.loadLevel(LEVEL_2);
+
+        assertEquals(tracker.toString(), maps, tracker.getCount(ResourceTracker.Kind.MAP));
+        assertEquals(tracker.toString(), textures, tracker.getCount(ResourceTracker.Kind.TEXTURE));
+        assertEquals(tracker.toString(), bytes, tracker.getTotalBytes());
+
+        model.dispose();
+        assets.dispose();
+        assertEquals(tracker.toString(), 0, tracker.getTotalBytes());
+    }
+}
@@ -0,0 +1,202 @@
+package com.bernardpablo.sokoban;
+
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.utils.IntArray;
+import com.bernardpablo.sokoban.entities.factory.Crate;
+import com.bernardpablo.sokoban.logic.LevelGrid;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pilotage du jeu complet (modèle, vue, contrôleur) par des événements clavier synthétiques.
+ * <p>
+ * Dans le premier niveau, le joueur démarre en (1, 8) ; la case (2, 8) est libre et
+ * (3, 8) est un mur.
+ * </p>
+ * @author Bernard PABLO
+ */
+public class SokobanControllerTest extends HeadlessGdxTest {
+    private static final float TICK = 1 / 60f;
+
+    private SokobanAssets assets;
+    private SokobanModel model;
+    private SokobanView view;
+    private SokobanController controller;
+    private EventRecorder events;
+
+    @Before
+    public void setUp() {
+        assets = new SokobanAssets();
+        assets.queueStartup(SokobanController.FIRST_LEVEL);
+        while (!assets.update()) {
+            Thread.yield();
+        }
+        model = new SokobanModel(assets);
+        view = new SokobanView(model, assets);
+        events = new EventRecorder(model);
+        controller = new SokobanController(model, view);
+        // L'aide est affichée au lancement : la première touche la ferme
+        view.getTextOverlay().hide();
+        events.clear();
+    }
+
+    @After
+    public void tearDown() {
+        view.dispose();
+        model.dispose();
+        assets.dispose();
+    }
+
+    private void press(int keycode) {
+        controller.keyDown(keycode);
+        controller.keyUp(keycode);
+        controller.update(TICK);
+    }
+
+    private int playerCellX() {
+        return model.getGrid().toCell(model.getPlayer().getX());
+    }
+
+    @Test
+    public void arrowKeyMovesPlayerAndNotifies() {
+        press(Input.Keys.RIGHT);
+
+        assertEquals(2, playerCellX());
+        assertEquals(1, events.count("PLAYER_MOVED"));
+        assertEquals(1, model.getMoveCount());
+    }
+
+    @Test
+    public void wallBlocksMoveWithoutEvent() {
+        press(Input.Keys.RIGHT);
+        events.clear();
+        press(Input.Keys.RIGHT);
+
+        assertEquals(2, playerCellX());
+        assertTrue(events.getEvents().isEmpty());
+    }
+
+    @Test
+    public void bufferedKeysAreAllApplied() {
+        // Quatre appuis entre deux mises à jour : aucun n'est perdu
+        controller.setTickRate(60, 1);
+        for (int i = 0; i < 4; i++) {
+            controller.keyDown(i % 2 == 0 ? Input.Keys.RIGHT : Input.Keys.LEFT);
+            controller.keyUp(i % 2 == 0 ? Input.Keys.RIGHT : Input.Keys.LEFT);
+        }
+        for (int i = 0; i < 10; i++) {
+            controller.update(TICK);
+        }
+
+        assertEquals(4, events.count("PLAYER_MOVED"));
+        assertEquals(1, playerCellX());
+        assertTrue(controller.getInputQueue().isEmpty());
+    }
+
+    @Test
+    public void heldKeyRepeats() {
+        controller.setKeyRepeat(0.1f, 0.05f);
+        controller.keyDown(Input.Keys.DOWN);
+        for (int i = 0; i < 30; i++) {
+            controller.update(TICK);
+        }
+        controller.keyUp(Input.Keys.DOWN);
+
+        assertTrue(events.count("PLAYER_MOVED") > 1);
+    }
+
+    @Test
+    public void invalidRatesAreRejected() {
+        float[][] repeats = {{0.2f, 0f}, {0.2f, -0.05f}, {-1f, 0.05f}, {0.2f, Float.NaN}};
+        for (float[] repeat : repeats) {
+            try {
+                controller.setKeyRepeat(repeat[0], repeat[1]);
+                fail("Répétition acceptée : " + repeat[0] + ", " + repeat[1]);
+            } catch (IllegalArgumentException expected) {
+                // Attendu
+            }
+        }
+        float[][] ticks = {{0f, 4}, {-60f, 4}, {60f, 0}, {60f, -1}};
+        for (float[] tick : ticks) {
+            try {
+                controller.setTickRate(tick[0], (int) tick[1]);
+                fail("Fréquence acceptée : " + tick[0] + ", " + tick[1]);
+            } catch (IllegalArgumentException expected) {
+                // Attendu
+            }
+        }
+
+        // Les réglages précédents restent en vigueur
+        controller.setKeyRepeat(0f, 0.05f);
+        press(Input.Keys.RIGHT);
+        assertEquals(2, playerCellX());
+    }
+
+    @Test
+    public void restartKeyReloadsLevel() {
+        press(Input.Keys.RIGHT);
+        events.clear();
+        controller.keyTyped('r');
+
+        assertEquals(1, events.count("LEVEL_LOADED"));
+        assertEquals(1, playerCellX());
+        assertEquals(0, model.getMoveCount());
+    }
+
+    @Test
+    public void clickWalksToCell() {
+        // (2, 6) : trois pas, au-dessus des caisses du couloir de gauche
+        assertTrue(model.walkPlayerTo(2, 6));
+
+        assertEquals(1, events.count("PLAYER_WALKED"));
+        assertEquals(2, playerCellX());
+        assertEquals(6, model.getGrid().toCell(model.getPlayer().getY()));
+        assertEquals(3, model.getLastWalk().size);
+        assertEquals(model.getLastWalk().size, model.getMoveCount());
+    }
+
+    @Test
+    public void blockedPushPlanStopsHalfway() {
+        // La caisse en (2, 5) descend de quatre cases avant de buter sur le mur du bas
+        Crate crate = model.getCrateAt(2 * 64, 5 * 64);
+        IntArray plan = new IntArray();
+        for (int i = 0; i < 5; i++) plan.add(LevelGrid.DOWN);
+
+        assertFalse(model.playPushPlan(crate, plan));
+        assertEquals(1, model.getGrid().toCell(crate.getY()));
+        assertEquals(4, model.getPushCount());
+        assertEquals(3 + 4, model.getMoveCount());
+        assertEquals(7, model.getTimeline().getSize());
+        assertEquals(1, events.count("PLAYER_WALKED"));
+
+        // Aucun trajet possible derrière la caisse : rien n'est joué ni notifié
+        events.clear();
+        assertFalse(model.pushCrateTo(crate, 2, 2));
+        assertTrue(events.getEvents().isEmpty());
+    }
+
+    @Test
+    public void seekReturnsToEarlierMove() {
+        assertTrue(model.walkPlayerTo(2, 6));
+        press(Input.Keys.LEFT);
+        assertEquals(4, model.getTimeline().getSize());
+        events.clear();
+
+        assertTrue(model.seekTo(1));
+        assertEquals(1, events.count("TIMELINE_SEEK"));
+        assertEquals(1, model.getMoveCount());
+        assertEquals(2, playerCellX());
+        assertTrue(model.seekTo(4));
+        assertEquals(1, playerCellX());
+        assertEquals(6, model.getGrid().toCell(model.getPlayer().getY()));
+
+        // Un nouveau pas après un retour en arrière efface la suite
+        model.seekTo(1);
+        press(Input.Keys.LEFT);
+        assertEquals(2, model.getTimeline().getSize());
+        assertEquals(2, model.getMoveCount());
+    }
+}
@@ -0,0 +1,139 @@
+package com.bernardpablo.sokoban.analysis;
+
+import com.bernardpablo.sokoban.cache.AnalysisCache;
+import com.bernardpablo.sokoban.importer.TmxWriter;
+import com.bernardpablo.sokoban.importer.XsbImporter;
+import com.bernardpablo.sokoban.logic.LevelLoader;
+import com.bernardpablo.sokoban.logic.Solver;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Analyse d'un paquet de niveaux : scores, ordre suggéré et réécriture de la chaîne
+ * "nextLevel". Le paquet est converti depuis le format XSB, du plus difficile au plus facile.
+ * @author Bernard PABLO
+ */
+public class PackAnalyzerTest {
+    private static final String PACK =
+        "#######\n" +
+        "#     #\n" +
+        "# $ $ #\n" +
+        "#  $  #\n" +
+        "#@... #\n" +
+        "#######\n" +
+        "\n" +
+        "######\n" +
+        "#@$ .#\n" +
+        "#  $.#\n" +
+        "######\n" +
+        "\n" +
+        "#####\n" +
+        "#@$.#\n" +
+        "#####\n";
+
+    private File directory;
+    private final List<File> files = new ArrayList<>();
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("paquet").toFile();
+        new XsbImporter().read(new StringReader(PACK), level -> {
+            File file = new File(directory, "paquet_" + level.getIndex() + ".tmx");
+            String next = level.getIndex() < 3 ? "paquet_" + (level.getIndex() + 1) + ".tmx" : null;
+            try (Writer out = new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8)) {
+                TmxWriter.write(level, next, out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            files.add(file);
+        });
+    }
+
+    @After
+    public void tearDown() {
+        deleteRecursively(directory);
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) for (File child : children) deleteRecursively(child);
+        file.delete();
+    }
+
+    @Test
+    public void ordersLevelsByDifficultyAndRewritesTheChain() throws IOException {
+        AnalysisCache cache = new AnalysisCache(new File(directory, "cache"), AnalysisCache.DEFAULT_MAX_BYTES);
+        List<LevelFeatures> levels = PackAnalyzer.analyze(files, 2, 100_000, cache, null);
+
+        assertEquals(3, levels.size());
+        LevelFeatures hardest = levels.get(0);
+        assertEquals(3, hardest.getCrateCount());
+        assertEquals(1, hardest.getColourCount());
+        assertTrue(hardest.isSolved());
+        assertTrue(hardest.getDeadSquareCount() > 0);
+        assertTrue(hardest.getBranchingFactor() > 1);
+        assertEquals(1, levels.get(2).getPushCount());
+
+        List<LevelFeatures> order = PackAnalyzer.suggestOrder(levels);
+        assertEquals("paquet_3.tmx", order.get(0).getName());
+        assertEquals("paquet_2.tmx", order.get(1).getName());
+        assertEquals("paquet_1.tmx", order.get(2).getName());
+        assertTrue(order.get(0).getScore() < order.get(2).getScore());
+
+        assertEquals(3, PackAnalyzer.rewriteChain(order));
+        assertEquals("paquet_2.tmx", LevelLoader.read(files.get(2)).nextLevel);
+        assertEquals("paquet_1.tmx", LevelLoader.read(files.get(1)).nextLevel);
+        assertNull(LevelLoader.read(files.get(0)).nextLevel);
+
+        // Seconde analyse : le contenu n'a pas changé, toutes les analyses viennent du cache
+        List<LevelFeatures> again = PackAnalyzer.analyze(files, 2, 100_000, cache, null);
+        assertEquals(3, cache.getHitCount());
+        assertEquals(0, PackAnalyzer.rewriteChain(PackAnalyzer.suggestOrder(again)));
+    }
+
+    @Test
+    public void mapModeDoesNotChangeTheScore() throws IOException {
+        File file = files.get(0);
+        String tmx = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        tmx = tmx.replaceFirst("<properties>\n", "<properties>\n  <property name=\"solver\" value=\"bidirectional\"/>\n");
+        Files.write(file.toPath(), tmx.getBytes(StandardCharsets.UTF_8));
+        assertEquals(Solver.Mode.BIDIRECTIONAL, LevelLoader.read(file).solverMode);
+
+        LevelFeatures features = new DifficultyEstimator(100_000, null, null).estimate(file);
+        Solver.Result forward = new Solver(100_000).solve(LevelLoader.read(file), DifficultyEstimator.SCORING_MODE);
+        assertEquals(forward.getExpanded(), features.getExpanded());
+    }
+
+    @Test
+    public void unsolvedLevelsComeLast() throws IOException {
+        List<LevelFeatures> levels = PackAnalyzer.analyze(files, 1, 10, null, Solver.Mode.FORWARD);
+        List<LevelFeatures> order = PackAnalyzer.suggestOrder(levels);
+        LevelFeatures last = order.get(order.size() - 1);
+        assertFalse(last.isSolved());
+        assertEquals(Double.POSITIVE_INFINITY, last.getScore(), 0);
+    }
+
+    @Test
+    public void onlyMapPropertiesAreRewritten() {
+        String tmx = "<map>\n <tileset firstgid=\"1\"/>\n <objectgroup>\n  <object>\n   <properties>\n"
+            + "    <property name=\"type\" value=\"player\"/>\n   </properties>\n  </object>\n </objectgroup>\n</map>\n";
+        String chained = PackAnalyzer.withNextLevel(tmx, "suivant.tmx");
+        assertTrue(chained.startsWith("<map>\n <properties>\n  <property name=\"nextLevel\" value=\"suivant.tmx\"/>\n </properties>\n"));
+        assertTrue(chained.endsWith(tmx.substring(tmx.indexOf(" <tileset"))));
+        assertEquals(tmx, PackAnalyzer.withNextLevel(chained, null));
+    }
+}
@@ -0,0 +1,105 @@
+package com.bernardpablo.sokoban.audio;
+
+import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.files.FileHandle;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Fusion des rafales, limite de voix et priorités de l'{@link AudioEngine}, avec des sons
+ * factices qui consignent leurs lectures.
+ * @author Bernard PABLO
+ */
+public class AudioEngineTest {
+    private AudioEngine engine;
+    /** Effets joués ("play") ou interrompus ("stop"), dans l'ordre. */
+    private final List<String> log = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        engine = new AudioEngine();
+        for (SoundCue cue : SoundCue.values()) {
+            engine.setSound(cue, recordingSound(cue), 1f);
+        }
+    }
+
+    private Sound recordingSound(SoundCue cue) {
+        long[] nextId = {0};
+        return (Sound) Proxy.newProxyInstance(Sound.class.getClassLoader(), new Class<?>[] {Sound.class},
+            (proxy, method, args) -> {
+                if (method.getName().equals("play")) {
+                    log.add("play " + cue);
+                    return ++nextId[0];
+                }
+                if (method.getName().equals("stop") && args != null) log.add("stop " + cue);
+                return method.getReturnType() == long.class ? 0L : null;
+            });
+    }
+
+    @Test
+    public void burstOfIdenticalCuesPlaysOnce() {
+        for (int i = 0; i < 100; i++) engine.trigger(SoundCue.PUSH);
+        engine.update(0.016f);
+
+        assertEquals(1, log.size());
+        assertEquals(99, engine.getMergedCount());
+    }
+
+    @Test
+    public void startsAtMostTwoCuesPerFrameByPriority() {
+        for (SoundCue cue : SoundCue.values()) engine.trigger(cue);
+        engine.update(0.016f);
+
+        assertEquals(AudioEngine.MAX_STARTS_PER_FRAME, log.size());
+        assertEquals("play LEVEL_COMPLETED", log.get(0));
+        assertEquals("play BOX_ON_TARGET", log.get(1));
+    }
+
+    @Test
+    public void fullVoicesAreStolenOnlyByHigherPriority() {
+        for (int i = 0; i < AudioEngine.MAX_VOICES; i++) {
+            engine.trigger(SoundCue.PUSH);
+            engine.update(0.016f);
+        }
+        assertEquals(AudioEngine.MAX_VOICES, engine.getActiveVoices());
+
+        engine.trigger(SoundCue.STEP);
+        engine.update(0.016f);
+        assertEquals(1, engine.getDroppedCount());
+
+        engine.trigger(SoundCue.BOX_ON_TARGET);
+        engine.update(0.016f);
+        assertEquals(1, engine.getStolenCount());
+        assertEquals("stop PUSH", log.get(log.size() - 2));
+        assertEquals("play BOX_ON_TARGET", log.get(log.size() - 1));
+
+        // Les sons durent une seconde : toutes les voix se libèrent
+        engine.update(1f);
+        assertEquals(0, engine.getActiveVoices());
+    }
+
+    @Test
+    public void cuesTriggeredWhileMutedAreNeverPlayed() {
+        // Rejeu du journal de sauvegarde, son coupé, puis première image de la partie
+        engine.setMuted(true);
+        for (SoundCue cue : SoundCue.values()) engine.trigger(cue);
+        engine.setMuted(false);
+        engine.update(0.016f);
+
+        assertTrue(log.isEmpty());
+        assertEquals(0, engine.getPlayedCount());
+    }
+
+    @Test
+    public void readsWavDurationFromHeaders() {
+        float duration = AudioEngine.wavDuration(new FileHandle(new File("sounds/step.wav")));
+        assertEquals(0.04f, duration, 0.001f);
+    }
+}
@@ -0,0 +1,146 @@
+package com.bernardpablo.sokoban.cache;
+
+import com.bernardpablo.sokoban.HeadlessGdxTest;
+import com.bernardpablo.sokoban.SokobanModel;
+import com.bernardpablo.sokoban.entities.factory.Crate;
+import com.bernardpablo.sokoban.logic.LevelContent;
+import com.bernardpablo.sokoban.logic.LevelGenerator;
+import com.bernardpablo.sokoban.logic.LevelLoader;
+import com.bernardpablo.sokoban.logic.PushEngine;
+import com.bernardpablo.sokoban.logic.Solver;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+/**
+ * Cache disque des analyses : adressage par contenu, réutilisation des solutions,
+ * éviction et résistance aux fichiers corrompus.
+ * @author Bernard PABLO
+ */
+public class AnalysisCacheTest extends HeadlessGdxTest {
+    private File directory;
+    private SokobanModel model;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("analyses").toFile();
+        model = new SokobanModel();
+    }
+
+    @After
+    public void tearDown() {
+        LevelLoader.setAnalysisCache(null);
+        model.dispose();
+        File[] files = directory.listFiles();
+        if (files != null) for (File file : files) file.delete();
+        directory.delete();
+    }
+
+    @Test
+    public void secondLoadReadsDistanceTablesFromCache() throws IOException {
+        AnalysisCache cache = new AnalysisCache(directory, AnalysisCache.DEFAULT_MAX_BYTES);
+        LevelLoader.setAnalysisCache(cache);
+
+        LevelContent cold = LevelLoader.load("sokoban_level1.tmx", model);
+        LevelContent warm = LevelLoader.load("sokoban_level1.tmx", model);
+        cold.map.dispose();
+        warm.map.dispose();
+
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(cold.contentHash, warm.contentHash);
+        assertNotNull(warm.analysis);
+        assertEquals(5, warm.analysis.getCrateCount());
+        assertEquals(cold.distances.getColourCount(), warm.distances.getColourCount());
+        for (Crate crate : warm.crates) {
+            assertEquals(cold.distances.distance(crate), warm.distances.distance(crate));
+        }
+
+        // Le contenu, et non le chemin, fait la clé
+        LevelContent other = LevelLoader.load("sokoban_level2.tmx", model);
+        other.map.dispose();
+        assertNotEquals(cold.contentHash, other.contentHash);
+    }
+
+    @Test
+    public void solutionIsReusedForTheSameContent() throws IOException {
+        AnalysisCache cache = new AnalysisCache(directory, AnalysisCache.DEFAULT_MAX_BYTES);
+        Solver solver = new Solver();
+        LevelContent content = LevelGenerator.generate(3, 12, 12, 10, 10);
+
+        LevelAnalysis cold = cache.solve(content, solver, Solver.Mode.BIDIRECTIONAL);
+        assertTrue(cold.isSolved());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0, cache.getHitCount());
+
+        // Même plateau, objets dans un autre ordre et nouvelle instance du cache
+        LevelContent copy = LevelGenerator.generate(3, 12, 12, 10, 10);
+        copy.crates.reverse();
+        copy.targets.reverse();
+        assertEquals(AnalysisCache.contentHash(content), AnalysisCache.contentHash(copy));
+        AnalysisCache reopened = new AnalysisCache(directory, AnalysisCache.DEFAULT_MAX_BYTES);
+        LevelAnalysis warm = reopened.solve(copy, solver, Solver.Mode.BIDIRECTIONAL);
+
+        // Solution lue sur disque, sans nouvelle écriture
+        assertEquals(1, reopened.getHitCount());
+        assertEquals(0, reopened.getMissCount());
+        assertEquals(0, reopened.getWriteCount());
+        assertEquals(cold.getPushes(), warm.getPushes());
+        assertEquals(cold.getSteps(), warm.getSteps());
+        assertEquals(cold.getExpanded(), warm.getExpanded());
+        assertEquals(Solver.Mode.BIDIRECTIONAL, warm.getMode());
+
+        // Une solution obtenue dans un autre mode n'est pas reprise
+        LevelAnalysis forward = reopened.solve(copy, solver, Solver.Mode.FORWARD);
+        assertEquals(Solver.Mode.FORWARD, forward.getMode());
+        assertEquals(solver.solve(copy, Solver.Mode.FORWARD).getExpanded(), forward.getExpanded());
+        assertNotEquals(cold.getExpanded(), forward.getExpanded());
+
+        // La règle de file change l'empreinte
+        copy.pushChain = PushEngine.CLASSIC;
+        assertNotEquals(AnalysisCache.contentHash(content), AnalysisCache.contentHash(copy));
+        copy.pushChain = content.pushChain;
+
+        // Une caisse déplacée change l'empreinte
+        Crate crate = copy.crates.first();
+        copy.crates.set(0, new Crate(crate.getX(), crate.getY() + 64, crate.getTileId(), null));
+        assertNotEquals(AnalysisCache.contentHash(content), AnalysisCache.contentHash(copy));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedEntriesBeyondTheSizeLimit() throws IOException {
+        AnalysisCache cache = new AnalysisCache(directory, 2_000);
+        String[] hashes = new String[20];
+        for (int i = 0; i < hashes.length; i++) {
+            LevelContent content = LevelGenerator.generate(i, 14, 14, 10, 10);
+            hashes[i] = AnalysisCache.contentHash(content);
+            cache.store(hashes[i], LevelAnalysis.of(content));
+        }
+        assertTrue(cache.getEvictionCount() > 0);
+        assertTrue(cache.getTotalBytes() + " octets", cache.getTotalBytes() <= 2_000);
+        assertNotNull("La dernière analyse écrite est conservée", cache.lookup(hashes[hashes.length - 1]));
+        assertNull(cache.lookup(hashes[0]));
+    }
+
+    @Test
+    public void corruptedEntryIsDiscarded() throws IOException {
+        AnalysisCache cache = new AnalysisCache(directory, AnalysisCache.DEFAULT_MAX_BYTES);
+        LevelContent content = LevelGenerator.generate(1, 12, 12, 10, 10);
+        String hash = AnalysisCache.contentHash(content);
+        cache.store(hash, LevelAnalysis.of(content));
+
+        File file = new File(directory, hash + ".lvc");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[] {1, 2, 3, 4, 5});
+        }
+        assertNull(cache.lookup(hash));
+        assertFalse(file.exists());
+    }
+}
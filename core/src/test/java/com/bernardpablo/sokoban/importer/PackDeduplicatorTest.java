@@ -0,0 +1,146 @@
+package com.bernardpablo.sokoban.importer;
+
+import com.bernardpablo.sokoban.logic.LevelLoader;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Empreintes canoniques des niveaux et retrait des doublons d'une collection XSB.
+ * @author Bernard PABLO
+ */
+public class PackDeduplicatorTest {
+    private static final String LEVEL =
+        "#######\n" +
+        "#     #\n" +
+        "# $ $ #\n" +
+        "#  $  #\n" +
+        "#@... #\n" +
+        "#######\n";
+
+    private static List<LevelFingerprint> fingerprints(String collection) throws IOException {
+        List<LevelFingerprint> result = new ArrayList<>();
+        new XsbImporter().read(new StringReader(collection), level -> result.add(LevelFingerprint.of(level)));
+        return result;
+    }
+
+    /** @return Le plateau tourné d'un quart de tour dans le sens horaire. */
+    private static String rotate(String board) {
+        String[] rows = board.split("\n");
+        int width = 0;
+        for (String row : rows) width = Math.max(width, row.length());
+        StringBuilder sb = new StringBuilder();
+        for (int x = 0; x < width; x++) {
+            for (int y = rows.length - 1; y >= 0; y--) {
+                sb.append(x < rows[y].length() ? rows[y].charAt(x) : ' ');
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    /** @return Le plateau retourné de gauche à droite, décalé et entouré d'un second mur. */
+    private static String mirrorAndWrap(String board) {
+        String[] rows = board.split("\n");
+        StringBuilder sb = new StringBuilder("   #########\n");
+        for (String row : rows) {
+            sb.append("   #").append(new StringBuilder(row).reverse()).append("#\n");
+        }
+        return sb.append("   #########\n").toString();
+    }
+
+    @Test
+    public void symmetricVariantsShareTheirFingerprint() throws IOException {
+        String playerMoved = LEVEL.replace("#@...", "# ...").replace("#     #", "#    @#");
+        String targetMoved = LEVEL.replace("#@... #", "#@.. .#");
+        List<LevelFingerprint> prints = fingerprints(LEVEL + "\n" + rotate(LEVEL) + "\n" + rotate(rotate(LEVEL))
+            + "\n" + mirrorAndWrap(LEVEL) + "\n" + playerMoved + "\n" + targetMoved);
+
+        assertEquals(6, prints.size());
+        for (int i = 1; i < 5; i++) assertEquals("Variante " + i, prints.get(0), prints.get(i));
+        assertNotEquals(prints.get(0), prints.get(5));
+        assertEquals(32, prints.get(0).toString().length());
+    }
+
+    @Test
+    public void xsbAndTmxConversionShareTheirFingerprint() throws IOException {
+        File file = File.createTempFile("empreinte", ".tmx");
+        try {
+            new XsbImporter().read(new StringReader(rotate(LEVEL)), level -> {
+                try (Writer out = new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8)) {
+                    TmxWriter.write(level, null, out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            assertEquals(fingerprints(LEVEL).get(0), LevelFingerprint.of(LevelLoader.read(file)));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void removesDuplicatesWithinTheMemoryBudget() throws IOException {
+        // Une caisse à chaque position de la salle, puis le même niveau tourné
+        StringBuilder collection = new StringBuilder();
+        int count = 0;
+        for (int row = 1; row <= 3; row++) {
+            for (int x = 1; x <= 8; x++) {
+                if (row == 3 && x == 1) continue;
+                char[][] board = {
+                    "##########".toCharArray(),
+                    "#        #".toCharArray(),
+                    "#        #".toCharArray(),
+                    "#        #".toCharArray(),
+                    "#@      .#".toCharArray(),
+                    "##########".toCharArray()};
+                board[row][x] = '$';
+                StringBuilder level = new StringBuilder();
+                for (char[] line : board) level.append(line).append('\n');
+                collection.append("; Niveau ").append(++count).append('\n').append(level).append('\n')
+                    .append(rotate(level.toString())).append('\n');
+            }
+        }
+        Set<LevelFingerprint> distinct = new HashSet<>(fingerprints(collection.toString()));
+
+        File input = File.createTempFile("collection", ".xsb");
+        try {
+            Files.write(input.toPath(), collection.toString().getBytes(StandardCharsets.UTF_8));
+            PackDeduplicator large = new PackDeduplicator(2, PackDeduplicator.DEFAULT_MAX_BYTES);
+            StringWriter onePass = new StringWriter();
+            assertEquals(distinct.size(), large.deduplicate(input, onePass));
+            assertEquals(count * 2, large.getLevelCount());
+            assertEquals(count * 2 - distinct.size(), large.getDuplicateCount());
+            assertEquals(1, large.getPassCount());
+
+            PackDeduplicator small = new PackDeduplicator(2, 0);
+            StringWriter severalPasses = new StringWriter();
+            assertEquals(distinct.size(), small.deduplicate(input, severalPasses));
+            assertTrue(small.getPassCount() > 1);
+            assertEquals(onePass.toString(), severalPasses.toString());
+
+            // La sortie se relit : plus aucun doublon, titres conservés
+            List<LevelFingerprint> output = fingerprints(onePass.toString());
+            assertEquals(distinct.size(), new HashSet<>(output).size());
+            assertEquals(distinct.size(), output.size());
+            assertTrue(onePass.toString().startsWith("##########\n#$       #\n"));
+            assertTrue(onePass.toString().contains("Title: Niveau 2\n"));
+        } finally {
+            input.delete();
+        }
+    }
+}
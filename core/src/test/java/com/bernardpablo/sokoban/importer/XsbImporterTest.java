@@ -0,0 +1,171 @@
+package com.bernardpablo.sokoban.importer;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TmxMapLoader;
+import com.bernardpablo.sokoban.HeadlessGdxTest;
+import com.bernardpablo.sokoban.SokobanModel;
+import com.bernardpablo.sokoban.entities.factory.Crate;
+import com.bernardpablo.sokoban.logic.LevelContent;
+import com.bernardpablo.sokoban.logic.LevelLoader;
+import com.bernardpablo.sokoban.logic.SokobanRules;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Lecture des collections XSB/SOK et conversion en cartes TMX chargées par le jeu.
+ * @author Bernard PABLO
+ */
+public class XsbImporterTest extends HeadlessGdxTest {
+    private static final String COLLECTION =
+        "; Premier\n" +
+        "\n" +
+        "#####\n" +
+        "#@$.#\n" +
+        "#####\n" +
+        "\n" +
+        "  ######\n" +
+        "  #+ * #\n" +
+        "###$---#\n" +
+        "#______#\n" +
+        "########\n" +
+        "Title: Deuxième\n" +
+        "Author: Anonyme\n" +
+        "\n" +
+        "; Incohérent : deux caisses, une cible\n" +
+        "#####\n" +
+        "#@$$.#\n" +
+        "######\n" +
+        "\n" +
+        "5#|#@$.#|5#\n";
+
+    private List<String> read(Reader reader, XsbImporter importer) throws IOException {
+        List<String> titles = new ArrayList<>();
+        importer.read(reader, level -> titles.add(level.getTitle() + "\n" + level));
+        return titles;
+    }
+
+    @Test
+    public void readsTitlesRunLengthAndRejectsInconsistentLevels() throws IOException {
+        XsbImporter importer = new XsbImporter();
+        List<String> levels = read(new StringReader(COLLECTION), importer);
+
+        assertEquals(3, importer.getImportedCount());
+        assertEquals(1, importer.getRejectedCount());
+        assertEquals("Premier\n#####\n#@$.#\n#####\n", levels.get(0));
+        assertEquals("Deuxième\n  ######\n  #+ * #\n###$   #\n#      #\n########\n", levels.get(1));
+        // Format RLE sur une seule ligne, sans titre : numéro dans la collection
+        assertEquals("4\n#####\n#@$.#\n#####\n", levels.get(2));
+    }
+
+    @Test
+    public void convertedMapLoadsWithDefaultColours() throws IOException {
+        XsbLevel[] copy = new XsbLevel[1];
+        StringWriter tmx = new StringWriter();
+        new XsbImporter().read(new StringReader(COLLECTION), level -> {
+            if (level.getIndex() != 2) return;
+            try {
+                TmxWriter.write(level, null, tmx);
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+            copy[0] = level;
+        });
+
+        TiledMap map = loadFromString(tmx.toString());
+        SokobanModel model = new SokobanModel();
+        LevelContent content = LevelLoader.load("imported.tmx", map, model);
+
+        assertEquals(2, content.crates.size);
+        assertEquals(2, content.targets.size);
+        assertNull(content.nextLevel);
+        for (Crate crate : content.crates) {
+            assertEquals(SokobanRules.DEFAULT_CRATE_TILE_ID, crate.getTileId());
+        }
+        // Joueur sur une cible en colonne 3, rangée 1 depuis le haut : ligne 5 - 1 - 1 = 3 dans le repère du jeu
+        assertEquals(3 * 64, content.player.getX(), 0);
+        assertEquals(3 * 64, content.player.getY(), 0);
+        assertTrue(content.grid.isWall(0, 2));
+        assertFalse(content.grid.isWall(1, 1));
+        map.dispose();
+    }
+
+    @Test
+    public void importsHundredThousandLevelsPerMinuteInConstantMemory() throws IOException {
+        int levels = 100_000;
+        String level = "; Niveau\n" +
+            "#######\n" +
+            "#.@ # #\n" +
+            "#$* $ #\n" +
+            "#   $ #\n" +
+            "# ..  #\n" +
+            "#  *  #\n" +
+            "#######\n\n";
+        XsbImporter importer = new XsbImporter();
+        long start = System.nanoTime();
+        importer.read(new RepeatingReader(level, levels), l -> { });
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(levels, importer.getImportedCount());
+        System.out.println("Import XSB : " + levels + " niveaux en " + millis + " ms");
+        assertTrue("Import de " + levels + " niveaux : " + millis + " ms", millis < 60_000);
+    }
+
+    /**
+     * Carte TMX lue depuis une chaîne, le tileset étant résolu par rapport au dossier "maps".
+     */
+    private static TiledMap loadFromString(String tmx) {
+        byte[] bytes = tmx.getBytes(StandardCharsets.UTF_8);
+        FileHandle file = new FileHandle(new File("maps/imported.tmx").getAbsoluteFile()) {
+            @Override
+            public InputStream read() {
+                return new ByteArrayInputStream(bytes);
+            }
+        };
+        return new TmxMapLoader(name -> name.endsWith("imported.tmx") ? file : new FileHandle(name)).load("imported.tmx");
+    }
+
+    /**
+     * Texte d'une collection engendré à la volée : un même niveau répété, sans jamais
+     * matérialiser la collection en mémoire.
+     */
+    private static final class RepeatingReader extends Reader {
+        private final char[] level;
+        private int remaining;
+        private int position;
+
+        RepeatingReader(String level, int count) {
+            this.level = level.toCharArray();
+            this.remaining = count;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (remaining == 0) return -1;
+            int n = Math.min(length, level.length - position);
+            System.arraycopy(level, position, buffer, offset, n);
+            position += n;
+            if (position == level.length) {
+                position = 0;
+                remaining--;
+            }
+            return n;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
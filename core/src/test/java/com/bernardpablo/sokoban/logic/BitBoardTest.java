@@ -0,0 +1,178 @@
+package com.bernardpablo.sokoban.logic;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.bernardpablo.sokoban.HeadlessGdxTest;
+import com.bernardpablo.sokoban.SokobanModel;
+import com.bernardpablo.sokoban.entities.factory.Crate;
+import com.bernardpablo.sokoban.entities.factory.Player;
+import com.bernardpablo.sokoban.entities.factory.Target;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test différentiel du {@link BitBoard} : sur les vrais niveaux, chaque pas et chaque
+ * poussée doivent donner le même résultat que le {@link SokobanModel}.
+ * @author Bernard PABLO
+ */
+public class BitBoardTest extends HeadlessGdxTest {
+    private static final String[] LEVELS = {"sokoban_level1.tmx", "sokoban_level2.tmx"};
+
+    private SokobanModel model;
+    private long seed = 0x9E3779B97F4A7C15L;
+
+    @Before
+    public void setUp() {
+        model = new SokobanModel();
+    }
+
+    @After
+    public void tearDown() {
+        model.dispose();
+    }
+
+    private int random(int bound) {
+        seed ^= seed << 13;
+        seed ^= seed >>> 7;
+        seed ^= seed << 17;
+        return (int) ((seed >>> 33) % bound);
+    }
+
+    private BitBoard board() {
+        return BitBoard.of(model.getGrid(), model.getCrates(), model.getTargets(), model.getPlayer());
+    }
+
+    private int cell(float x, float y) {
+        LevelGrid grid = model.getGrid();
+        return grid.index(grid.toCell(x), grid.toCell(y));
+    }
+
+    private void assertSameState(BitBoard board, String context) {
+        assertEquals(context, cell(model.getPlayer().getX(), model.getPlayer().getY()), board.getPlayerCell());
+        for (Crate crate : model.getCrates()) {
+            assertEquals(context, SokobanRules.getExpectedTargetTileId(crate.getTileId()),
+                board.crateColourAt(cell(crate.getX(), crate.getY())));
+        }
+        assertEquals(context, model.isLevelCompleted(), board.isSolved());
+    }
+
+    @Test
+    public void randomMovesAgreeWithModel() {
+        for (String level : LEVELS) {
+            model.loadLevel(level);
+            BitBoard board = board();
+            int tile = model.getGrid().getTileSize();
+
+            for (int i = 0; i < 20_000; i++) {
+                if (i % 2_000 == 0) {
+                    model.loadLevel(level);
+                    board = board();
+                }
+                int dir = random(4);
+                int moves = model.getMoveCount();
+                int pushes = model.getPushCount();
+                model.movePlayer(LevelGrid.DX[dir] * tile, LevelGrid.DY[dir] * tile);
+
+                int expected = model.getMoveCount() == moves ? 0
+                    : model.getPushCount() != pushes ? BitBoard.MOVED | BitBoard.PUSHED : BitBoard.MOVED;
+                assertEquals(level + " pas " + i, expected, board.move(dir));
+                if (i % 16 == 0) assertSameState(board, level + " pas " + i);
+            }
+        }
+    }
+
+    @Test
+    public void legalPushesAgreeWithModel() {
+        IntArray history = new IntArray();
+        IntArray pushes = new IntArray();
+        IntArray path = new IntArray();
+        PathFinder finder = new PathFinder();
+        int legalSeen = 0;
+
+        for (String level : LEVELS) {
+            history.clear();
+            for (int sample = 0; sample < 12; sample++) {
+                replay(level, history);
+                BitBoard board = board();
+                board.legalPushes(pushes);
+
+                // Référence : chaque caisse, dans chaque direction, poussée par le modèle
+                LevelGrid grid = model.getGrid();
+                int candidates = model.getCrates().size;
+                for (int c = 0; c < candidates; c++) {
+                    for (int dir = 0; dir < 4; dir++) {
+                        replay(level, history);
+                        Crate crate = model.getCrates().get(c);
+                        int cx = grid.toCell(crate.getX());
+                        int cy = grid.toCell(crate.getY());
+                        int bx = cx - LevelGrid.DX[dir];
+                        int by = cy - LevelGrid.DY[dir];
+                        boolean legal = false;
+                        Player player = model.getPlayer();
+                        if (finder.findPath(grid, model.getCrates(), grid.toCell(player.getX()), grid.toCell(player.getY()), bx, by, path)) {
+                            model.walkPlayerTo(bx, by);
+                            int before = model.getPushCount();
+                            model.movePlayer(LevelGrid.DX[dir] * grid.getTileSize(), LevelGrid.DY[dir] * grid.getTileSize());
+                            legal = model.getPushCount() != before;
+                        }
+                        int push = grid.index(cx, cy) << 2 | dir;
+                        assertEquals(level + " état " + sample + " poussée " + cx + "," + cy + " dir " + dir,
+                            legal, pushes.contains(push));
+                    }
+                }
+                legalSeen += pushes.size;
+
+                // Avance de quelques pas aléatoires pour l'état suivant
+                for (int i = 0; i < 25; i++) history.add(random(4));
+            }
+        }
+        assertTrue(legalSeen > 0);
+    }
+
+    /**
+     * Recharge le niveau puis rejoue une suite de pas.
+     */
+    private void replay(String level, IntArray moves) {
+        model.loadLevel(level);
+        int tile = model.getGrid().getTileSize();
+        for (int i = 0; i < moves.size; i++) {
+            model.movePlayer(LevelGrid.DX[moves.get(i)] * tile, LevelGrid.DY[moves.get(i)] * tile);
+        }
+    }
+
+    @Test
+    public void pushesWholeChainUntilAWall() {
+        // Couloir : joueur, deux caisses, une case libre, puis un mur
+        LevelGrid grid = new LevelGrid(7, 3, 64);
+        for (int x = 0; x < 7; x++) {
+            grid.setWall(x, 0);
+            grid.setWall(x, 2);
+        }
+        grid.setWall(0, 1);
+        grid.setWall(6, 1);
+        Array<Crate> crates = new Array<>();
+        crates.add(new Crate(2 * 64, 64, 2, null));
+        crates.add(new Crate(3 * 64, 64, 3, null));
+        Array<Target> targets = new Array<>();
+        targets.add(new Target(3 * 64, 64, 26));
+        targets.add(new Target(4 * 64, 64, 39));
+        BitBoard board = BitBoard.of(grid, crates, targets, new Player(64, 64, 53, null));
+
+        IntArray pushes = new IntArray();
+        assertEquals(1, board.legalPushes(pushes));
+        assertEquals(grid.index(2, 1) << 2 | LevelGrid.RIGHT, pushes.first());
+
+        assertEquals(BitBoard.MOVED | BitBoard.PUSHED, board.move(LevelGrid.RIGHT));
+        assertEquals(26, board.crateColourAt(grid.index(3, 1)));
+        assertEquals(39, board.crateColourAt(grid.index(4, 1)));
+        assertTrue(board.isSolved());
+
+        assertEquals(BitBoard.MOVED | BitBoard.PUSHED, board.move(LevelGrid.RIGHT));
+        assertEquals("File bloquée par le mur", 0, board.move(LevelGrid.RIGHT));
+        assertEquals(0, board.legalPushes(pushes));
+        assertFalse(board.isReachable(grid.index(5, 1)));
+    }
+}
@@ -0,0 +1,83 @@
+package com.bernardpablo.sokoban.logic;
+
+import com.badlogic.gdx.utils.Array;
+import com.bernardpablo.sokoban.entities.factory.Crate;
+import com.bernardpablo.sokoban.entities.factory.Target;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Stockage en colonnes des caisses et des cibles : couleurs, décompte des caisses bien
+ * placées, copie d'état et synchronisation de la vue d'objets.
+ * @author Bernard PABLO
+ */
+public class EntityStoreTest {
+    private static final int TILE = 64;
+
+    private static float px(int cell) {
+        return cell * TILE;
+    }
+
+    @Test
+    public void tracksPlacedCratesByColour() {
+        LevelGrid grid = new LevelGrid(6, 3, TILE);
+        Array<Crate> crates = new Array<>();
+        crates.add(new Crate(px(1), px(1), 2, null));
+        crates.add(new Crate(px(2), px(1), 3, null));
+        Array<Target> targets = new Array<>();
+        targets.add(new Target(px(3), px(1), SokobanRules.getExpectedTargetTileId(2)));
+        targets.add(new Target(px(4), px(1), SokobanRules.getExpectedTargetTileId(3)));
+        EntityStore store = new EntityStore();
+        store.load(grid, crates, targets);
+
+        assertEquals(2, store.getColourCount());
+        assertEquals(3, store.getCrateTileId(1));
+        assertEquals(SokobanRules.getExpectedTargetTileId(3), store.getTargetTileId(1));
+        assertEquals(0, store.getPlacedCount());
+        assertFalse(store.isSolved());
+
+        // Mauvaise couleur : la caisse 2 sur la cible de la caisse 1
+        store.moveCrate(1, grid.index(3, 1));
+        assertEquals(0, store.getPlacedCount());
+        assertEquals(px(3), crates.get(1).getX(), 0);
+        int[] saved = store.snapshot(null);
+        store.clearMoved();
+
+        store.moveCrate(1, grid.index(4, 1));
+        store.moveCrate(0, grid.index(3, 1));
+        assertTrue(store.isSolved());
+        assertEquals(2, store.getMoved().size);
+        assertEquals(0, store.crateAt(grid.index(3, 1)));
+        assertEquals(-1, store.crateAt(grid.index(1, 1)));
+
+        store.restore(saved);
+        assertEquals(0, store.getPlacedCount());
+        assertEquals(px(1), crates.get(0).getX(), 0);
+        assertEquals(px(3), crates.get(1).getX(), 0);
+        assertEquals(1, store.crateAt(grid.index(3, 1)));
+        assertEquals(-1, store.crateAt(grid.index(4, 1)));
+    }
+
+    @Test
+    public void agreesWithTheRulesOnGeneratedLevels() {
+        // Niveau généré avec ses caisses sur les cibles, puis écartées par des tractions
+        LevelContent content = LevelGenerator.generate(7, 12, 12, 10, 0);
+        EntityStore store = new EntityStore();
+        store.load(content.grid, content.crates, content.targets);
+        assertTrue(store.isSolved());
+        assertEquals(10, store.getPlacedCount());
+
+        LevelContent pulled = LevelGenerator.generate(7, 12, 12, 10, 25);
+        store.load(pulled.grid, pulled.crates, pulled.targets);
+        int placed = 0;
+        for (Target target : pulled.targets) {
+            for (Crate crate : pulled.crates) {
+                if (crate.getX() == target.getX() && crate.getY() == target.getY()
+                    && SokobanRules.crateMatchesTarget(crate, target)) placed++;
+            }
+        }
+        assertEquals(placed, store.getPlacedCount());
+        assertEquals(placed == 10, store.isSolved());
+    }
+}
@@ -0,0 +1,77 @@
+package com.bernardpablo.sokoban.logic;
+
+import com.bernardpablo.sokoban.HeadlessGdxTest;
+import com.bernardpablo.sokoban.SokobanModel;
+import com.bernardpablo.sokoban.entities.factory.Crate;
+import com.bernardpablo.sokoban.entities.factory.Target;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Chargement des vrais niveaux TMX par {@link LevelLoader}.
+ * @author Bernard PABLO
+ */
+public class LevelLoaderTest extends HeadlessGdxTest {
+    private SokobanModel model;
+
+    @Before
+    public void setUp() {
+        model = new SokobanModel();
+    }
+
+    @After
+    public void tearDown() {
+        model.dispose();
+    }
+
+    @Test
+    public void loadsEntitiesAndGridOfFirstLevel() {
+        LevelContent content = LevelLoader.load("sokoban_level1.tmx", model);
+
+        assertNotNull(content.player);
+        assertEquals(5, content.crates.size);
+        assertEquals(5, content.targets.size);
+        assertEquals("sokoban_level2.tmx", content.nextLevel);
+
+        LevelGrid grid = content.grid;
+        assertEquals(10, grid.getWidth());
+        assertEquals(10, grid.getHeight());
+        assertEquals(64, grid.getTileSize());
+        // Bordure de murs et joueur sur une case libre
+        assertTrue(grid.isWall(0, 0));
+        assertTrue(grid.isWall(9, 9));
+        assertTrue(grid.isWall(-1, 5));
+        assertFalse(grid.isWall(grid.toCell(content.player.getX()), grid.toCell(content.player.getY())));
+        content.map.dispose();
+    }
+
+    @Test
+    public void everyCrateHasAReachableTargetColour() {
+        LevelContent content = LevelLoader.load("sokoban_level1.tmx", model);
+
+        for (Crate crate : content.crates) {
+            int expected = SokobanRules.getExpectedTargetTileId(crate.getTileId());
+            boolean found = false;
+            for (Target target : content.targets) {
+                found |= target.getTileId() == expected;
+            }
+            assertTrue("Aucune cible pour la caisse " + crate.getTileId(), found);
+            assertNotEquals(DistanceTables.UNREACHABLE, content.distances.distance(crate));
+        }
+        content.map.dispose();
+    }
+
+    @Test
+    public void modelLoadsChainedLevels() {
+        model.loadLevel("sokoban_level1.tmx");
+        assertEquals("sokoban_level2.tmx", model.getNextLevel());
+
+        model.loadLevel(model.getNextLevel());
+        assertEquals("sokoban_level2.tmx", model.getCurrentLevelPath());
+        assertNotNull(model.getPlayer());
+        assertFalse(model.isLevelCompleted());
+    }
+}
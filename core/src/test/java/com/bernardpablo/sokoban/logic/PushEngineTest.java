@@ -0,0 +1,93 @@
+package com.bernardpablo.sokoban.logic;
+
+import com.badlogic.gdx.utils.Array;
+import com.bernardpablo.sokoban.entities.factory.Crate;
+import com.bernardpablo.sokoban.entities.factory.Player;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Poussée des files de caisses : validation complète avant déplacement, règle de longueur
+ * et files très longues sans récursion.
+ * @author Bernard PABLO
+ */
+public class PushEngineTest {
+    private static final int TILE = PushFixture.TILE;
+
+    private final PushFixture board = new PushFixture();
+    private final PushEngine engine = board.getEngine();
+    private final Array<Crate> crates = board.getCrates();
+
+    /**
+     * Couloir horizontal d'une case de haut, fermé par des murs : les caisses occupent les
+     * cases 2 à {@code count + 1}, le joueur la case 1.
+     */
+    private Player corridor(int length, int count, int maxChain) {
+        LevelGrid grid = board.newGrid(length + 2, 3);
+        for (int x = 0; x < length + 2; x++) {
+            grid.setWall(x, 0);
+            grid.setWall(x, 2);
+        }
+        grid.setWall(0, 1);
+        grid.setWall(length + 1, 1);
+        for (int i = 0; i < count; i++) board.addCrate(2 + i, 1);
+        return board.start(maxChain, 1, 1);
+    }
+
+    private void assertCratesFrom(int firstCell) {
+        for (int i = 0; i < crates.size; i++) {
+            assertEquals("Caisse " + i, (firstCell + i) * TILE, crates.get(i).getX(), 0);
+            assertSame(crates.get(i), engine.getCrateAt((firstCell + i) * TILE, TILE));
+        }
+    }
+
+    @Test
+    public void longRowIsPushedWithoutRecursion() {
+        int count = 200_000;
+        Player player = corridor(count + 3, count, PushEngine.UNLIMITED);
+
+        assertTrue(player.tryMove(TILE, 0));
+        assertCratesFrom(3);
+        assertTrue(player.tryMove(TILE, 0));
+        assertCratesFrom(4);
+        // Plus de place derrière la dernière caisse
+        assertFalse(player.tryMove(TILE, 0));
+        assertCratesFrom(4);
+        assertEquals(3 * TILE, player.getX(), 0);
+    }
+
+    @Test
+    public void blockedRowMovesNothing() {
+        Player player = corridor(5, 4, PushEngine.UNLIMITED);
+        assertEquals(0, engine.push(crates.get(0), TILE, 0));
+        assertFalse(player.tryMove(TILE, 0));
+        assertCratesFrom(2);
+        assertNull(engine.getCrateAt(TILE, TILE));
+    }
+
+    @Test
+    public void chainLengthFollowsTheLevelRule() {
+        Player classic = corridor(6, 2, PushEngine.CLASSIC);
+        assertFalse(classic.tryMove(TILE, 0));
+        assertCratesFrom(2);
+        assertEquals(1, engine.push(crates.get(1), TILE, 0));
+
+        corridor(6, 3, 2);
+        assertEquals(0, engine.push(crates.get(0), TILE, 0));
+        assertEquals(2, engine.push(crates.get(1), TILE, 0));
+        assertEquals(4 * TILE, crates.get(1).getX(), 0);
+        assertEquals(5 * TILE, crates.get(2).getX(), 0);
+        assertEquals(1, engine.push(crates.get(0), -TILE, 0));
+    }
+
+    @Test
+    public void parsesChainProperty() {
+        assertEquals(PushEngine.UNLIMITED, PushEngine.parseChain(null));
+        assertEquals(PushEngine.CLASSIC, PushEngine.parseChain("Classic"));
+        assertEquals(PushEngine.UNLIMITED, PushEngine.parseChain(" unlimited "));
+        assertEquals(3, PushEngine.parseChain("3"));
+        assertEquals(PushEngine.UNLIMITED, PushEngine.parseChain("0"));
+        assertEquals(PushEngine.UNLIMITED, PushEngine.parseChain("beaucoup"));
+    }
+}
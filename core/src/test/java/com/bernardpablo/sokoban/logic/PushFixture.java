@@ -0,0 +1,87 @@
+package com.bernardpablo.sokoban.logic;
+
+import com.badlogic.gdx.utils.Array;
+import com.bernardpablo.sokoban.entities.factory.Crate;
+import com.bernardpablo.sokoban.entities.factory.Player;
+import com.bernardpablo.sokoban.entities.factory.Target;
+
+/**
+ * Plateau de test sans carte : une grille, des caisses indexées par un {@link EntityStore}
+ * et poussées par un {@link PushEngine}, et un {@link ILevelState} minimal qui les relie
+ * au joueur.
+ * @author Bernard PABLO
+ */
+final class PushFixture {
+    static final int TILE = 64;
+    private static final int PLAYER_TILE = 53;
+
+    private final EntityStore store = new EntityStore();
+    private final PushEngine engine = new PushEngine();
+    private final Array<Crate> crates = new Array<>();
+    private LevelGrid grid;
+
+    private final ILevelState level = new ILevelState() {
+        @Override
+        public boolean isWall(float x, float y) {
+            return grid.isWall(grid.toCell(x), grid.toCell(y));
+        }
+
+        @Override
+        public Crate getCrateAt(float x, float y) {
+            return engine.getCrateAt(x, y);
+        }
+
+        @Override
+        public int pushCrates(Crate crate, int dx, int dy) {
+            return engine.push(crate, dx, dy);
+        }
+
+        @Override
+        public Target getTargetAt(float x, float y) {
+            return null;
+        }
+    };
+
+    /**
+     * Remplace le plateau par une grille vide, sans mur ni caisse.
+     * @param width  Largeur en cases.
+     * @param height Hauteur en cases.
+     * @return La nouvelle grille.
+     */
+    LevelGrid newGrid(int width, int height) {
+        grid = new LevelGrid(width, height, TILE);
+        crates.clear();
+        return grid;
+    }
+
+    /**
+     * Ajoute une caisse de la couleur par défaut.
+     * @param x Colonne de la caisse.
+     * @param y Ligne de la caisse.
+     */
+    void addCrate(int x, int y) {
+        crates.add(new Crate(x * TILE, y * TILE, SokobanRules.DEFAULT_CRATE_TILE_ID, level));
+    }
+
+    /**
+     * Indexe les caisses ajoutées et prépare le moteur de poussée.
+     * @param maxChain Longueur maximale d'une file ({@link PushEngine#CLASSIC}, {@link PushEngine#UNLIMITED}...).
+     * @param x        Colonne du joueur.
+     * @param y        Ligne du joueur.
+     * @return Le joueur, placé sur sa case.
+     */
+    Player start(int maxChain, int x, int y) {
+        store.load(grid, crates, new Array<Target>());
+        engine.reset(store, maxChain);
+        return new Player(x * TILE, y * TILE, PLAYER_TILE, level);
+    }
+
+    /** @return La case occupée par le joueur. */
+    int cellOf(Player player) {
+        return grid.index(grid.toCell(player.getX()), grid.toCell(player.getY()));
+    }
+
+    EntityStore getStore() { return store; }
+    PushEngine getEngine() { return engine; }
+    Array<Crate> getCrates() { return crates; }
+}
@@ -0,0 +1,161 @@
+package com.bernardpablo.sokoban.logic;
+
+import com.badlogic.gdx.utils.IntArray;
+import com.bernardpablo.sokoban.HeadlessGdxTest;
+import com.bernardpablo.sokoban.SokobanModel;
+import com.bernardpablo.sokoban.entities.factory.Crate;
+import com.bernardpablo.sokoban.entities.factory.Player;
+import com.bernardpablo.sokoban.entities.factory.Target;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Résolution des niveaux par le {@link Solver} : les solutions des deux modes, rejouées
+ * pas à pas par le {@link SokobanModel}, doivent terminer le niveau.
+ * @author Bernard PABLO
+ */
+public class SolverTest extends HeadlessGdxTest {
+    private SokobanModel model;
+
+    @Before
+    public void setUp() {
+        model = new SokobanModel();
+    }
+
+    @After
+    public void tearDown() {
+        model.dispose();
+    }
+
+    private void assertSolves(String level, Solver.Result result) {
+        assertTrue(level + " : " + result, result.isSolved());
+        model.loadLevel(level);
+        int tile = model.getGrid().getTileSize();
+        IntArray steps = result.getSteps();
+        int pushes = model.getPushCount();
+        for (int i = 0; i < steps.size; i++) {
+            model.movePlayer(LevelGrid.DX[steps.get(i)] * tile, LevelGrid.DY[steps.get(i)] * tile);
+        }
+        assertTrue(level + " : " + result, model.isLevelCompleted());
+        assertEquals(level, result.getPushes().size, model.getPushCount() - pushes);
+    }
+
+    @Test
+    public void bothModesSolveTheFirstLevel() {
+        String level = "sokoban_level1.tmx";
+        Solver solver = new Solver();
+        LevelContent content = LevelLoader.load(level, model);
+        Solver.Result forward = solver.solve(content, Solver.Mode.FORWARD);
+        Solver.Result bidirectional = solver.solve(content, Solver.Mode.BIDIRECTIONAL);
+        content.map.dispose();
+
+        assertSolves(level, forward);
+        assertSolves(level, bidirectional);
+        assertEquals(Solver.Mode.BIDIRECTIONAL, bidirectional.getMode());
+        assertTrue(bidirectional.getBackwardExpanded() > 0);
+        // La recherche simple en largeur donne le nombre minimal de poussées
+        assertTrue(forward.getPushes().size <= bidirectional.getPushes().size);
+        assertTrue(bidirectional.getExpanded() < forward.getExpanded());
+    }
+
+    @Test
+    public void modeIsSelectedPerLevel() {
+        LevelContent first = LevelLoader.load("sokoban_level1.tmx", model);
+        LevelContent second = LevelLoader.load("sokoban_level2.tmx", model);
+        assertEquals(Solver.Mode.FORWARD, Solver.Mode.forMap(first.map));
+        assertEquals(Solver.Mode.BIDIRECTIONAL, Solver.Mode.forMap(second.map));
+        assertEquals(Solver.Mode.BIDIRECTIONAL, new Solver().solve(second).getMode());
+        first.map.dispose();
+        second.map.dispose();
+
+        assertEquals(Solver.Mode.BIDIRECTIONAL, Solver.Mode.of(" Bidirectional "));
+        assertEquals(Solver.Mode.FORWARD, Solver.Mode.of(null));
+        try {
+            Solver.Mode.of("profondeur");
+            fail("Mode inconnu accepté");
+        } catch (IllegalArgumentException expected) {
+            // Attendu
+        }
+    }
+
+    @Test
+    public void smallLimitsGiveUpWithoutSolution() {
+        LevelContent content = LevelLoader.load("sokoban_level1.tmx", model);
+        content.map.dispose();
+        for (int maxStates = 1; maxStates <= 3; maxStates++) {
+            for (Solver.Mode mode : Solver.Mode.values()) {
+                Solver.Result result = new Solver(maxStates).solve(content, mode);
+                assertFalse(result.toString(), result.isSolved());
+                assertTrue(result.toString(), result.isLimitReached());
+                assertTrue(result.toString(), result.getStates() <= maxStates);
+            }
+        }
+        try {
+            new Solver(0);
+            fail("Limite d'états nulle acceptée");
+        } catch (IllegalArgumentException expected) {
+            // Attendu
+        }
+    }
+
+    @Test
+    public void chainPushesFollowTheLevelRule() {
+        // Couloir « @$$.. » : les deux caisses n'atteignent leurs cibles qu'en file
+        int tile = 64;
+        LevelContent content = new LevelContent();
+        content.grid = new LevelGrid(7, 3, tile);
+        for (int x = 0; x < 7; x++) {
+            content.grid.setWall(x, 0);
+            content.grid.setWall(x, 2);
+        }
+        content.grid.setWall(0, 1);
+        content.grid.setWall(6, 1);
+        for (int x = 2; x <= 3; x++) {
+            content.crates.add(new Crate(x * tile, tile, SokobanRules.DEFAULT_CRATE_TILE_ID, null));
+            content.targets.add(new Target((x + 2) * tile, tile,
+                SokobanRules.getExpectedTargetTileId(SokobanRules.DEFAULT_CRATE_TILE_ID)));
+        }
+        content.player = new Player(tile, tile, 53, null);
+
+        Solver solver = new Solver();
+        for (int chain : new int[] {PushEngine.UNLIMITED, 2}) {
+            content.pushChain = chain;
+            for (Solver.Mode mode : Solver.Mode.values()) {
+                Solver.Result result = solver.solve(content, mode);
+                assertTrue(result.toString(), result.isSolved());
+                assertEquals(mode, result.getMode());
+                assertEquals(2, result.getPushes().size);
+                assertEquals(2, result.getSteps().size);
+                assertEquals(LevelGrid.RIGHT, result.getSteps().get(0));
+                assertEquals(LevelGrid.RIGHT, result.getSteps().get(1));
+            }
+        }
+
+        content.pushChain = PushEngine.CLASSIC;
+        for (Solver.Mode mode : Solver.Mode.values()) {
+            Solver.Result result = solver.solve(content, mode);
+            assertFalse(result.toString(), result.isSolved());
+            assertFalse(result.toString(), result.isLimitReached());
+        }
+    }
+
+    @Test
+    public void bidirectionalExpandsFewerStatesOnGeneratedLevels() {
+        Solver solver = new Solver(200_000);
+        long forwardExpanded = 0;
+        long bidirectionalExpanded = 0;
+        for (int seed = 0; seed < 4; seed++) {
+            LevelContent content = LevelGenerator.generate(seed, 12, 12, 10, 8);
+            Solver.Result forward = solver.solve(content, Solver.Mode.FORWARD);
+            Solver.Result bidirectional = solver.solve(content, Solver.Mode.BIDIRECTIONAL);
+            assertTrue("Niveau " + seed + " : " + bidirectional, bidirectional.isSolved());
+            assertEquals(10, content.crates.size);
+            forwardExpanded += forward.getExpanded();
+            bidirectionalExpanded += bidirectional.getExpanded();
+        }
+        assertTrue(forwardExpanded + " / " + bidirectionalExpanded, bidirectionalExpanded < forwardExpanded);
+    }
+}
@@ -0,0 +1,113 @@
+package com.bernardpablo.sokoban.logic;
+
+import com.badlogic.gdx.utils.Array;
+import com.bernardpablo.sokoban.entities.factory.Crate;
+import com.bernardpablo.sokoban.entities.factory.Player;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Ligne de temps d'une partie : retour à un coup quelconque par image clé et rejeu, et
+ * effacement de la suite lorsqu'un nouveau pas est joué.
+ * @author Bernard PABLO
+ */
+public class TimelineTest {
+    private static final int TILE = PushFixture.TILE;
+
+    private final PushFixture board = new PushFixture();
+    private final EntityStore store = board.getStore();
+    private final PushEngine engine = board.getEngine();
+    private final Array<Crate> crates = board.getCrates();
+    private LevelGrid grid;
+
+    /** Salle de 12 x 12 entourée de murs, avec quelques caisses et le joueur en (1, 1). */
+    private Player room(Timeline timeline) {
+        grid = board.newGrid(12, 12);
+        for (int i = 0; i < 12; i++) {
+            grid.setWall(i, 0);
+            grid.setWall(i, 11);
+            grid.setWall(0, i);
+            grid.setWall(11, i);
+        }
+        for (int i = 0; i < 6; i++) board.addCrate(3 + i, 3 + i % 3);
+        Player player = board.start(PushEngine.UNLIMITED, 1, 1);
+        timeline.start(store, grid.index(1, 1));
+        return player;
+    }
+
+    private int cellOf(Player player) {
+        return board.cellOf(player);
+    }
+
+    /** Joue des pas aléatoires et renvoie l'état (joueur, poussées, caisses) après chacun. */
+    private List<int[]> play(Player player, Timeline timeline, Random random, int steps) {
+        List<int[]> states = new ArrayList<>();
+        int pushes = timeline.getPushCount();
+        while (states.size() < steps) {
+            int dir = random.nextInt(4);
+            store.clearMoved();
+            if (!player.tryMove(LevelGrid.DX[dir] * TILE, LevelGrid.DY[dir] * TILE)) continue;
+            boolean pushed = store.getMoved().size > 0;
+            if (pushed) pushes++;
+            timeline.record(dir, pushed, store, cellOf(player));
+            states.add(state(cellOf(player), pushes));
+        }
+        return states;
+    }
+
+    private int[] state(int playerCell, int pushes) {
+        int[] cells = store.snapshot(null);
+        int[] state = Arrays.copyOf(new int[] {playerCell, pushes}, cells.length + 2);
+        System.arraycopy(cells, 0, state, 2, cells.length);
+        return state;
+    }
+
+    @Test
+    public void seekMatchesThePlayedState() {
+        Timeline timeline = new Timeline(16);
+        Player player = room(timeline);
+        int[] initial = state(cellOf(player), 0);
+        List<int[]> states = play(player, timeline, new Random(3), 5000);
+        assertEquals(5000, timeline.getSize());
+        assertEquals(5000 / 16 + 1, timeline.getKeyframeCount());
+
+        Random random = new Random(7);
+        for (int i = 0; i < 300; i++) {
+            int move = random.nextInt(5001);
+            int cell = timeline.seek(move, store, engine);
+            int[] expected = move == 0 ? initial : states.get(move - 1);
+            assertArrayEquals("Coup " + move, expected, state(cell, timeline.getPushCount()));
+            assertEquals(move, timeline.getPosition());
+            // Les vues d'objets suivent l'état restauré
+            int first = store.getCrateCell(0);
+            assertEquals(first % grid.getWidth() * TILE, crates.get(0).getX(), 0);
+        }
+    }
+
+    @Test
+    public void recordingAfterSeekDropsTheFuture() {
+        Timeline timeline = new Timeline(8);
+        Player player = room(timeline);
+        List<int[]> states = play(player, timeline, new Random(11), 100);
+
+        int cell = timeline.seek(37, store, engine);
+        int tile = grid.getTileSize();
+        player.placeAt(cell % grid.getWidth() * tile, cell / grid.getWidth() * tile);
+        assertArrayEquals(states.get(36), state(cellOf(player), timeline.getPushCount()));
+
+        List<int[]> branch = play(player, timeline, new Random(12), 20);
+        assertEquals(57, timeline.getSize());
+        assertEquals(57 / 8 + 1, timeline.getKeyframeCount());
+        cell = timeline.seek(50, store, engine);
+        assertArrayEquals(branch.get(12), state(cell, timeline.getPushCount()));
+        // Au-delà de la fin : borné au dernier pas (position du joueur non replacé)
+        assertEquals(cellOf(player), timeline.seek(1000, store, engine));
+        assertEquals(57, timeline.getPosition());
+    }
+}
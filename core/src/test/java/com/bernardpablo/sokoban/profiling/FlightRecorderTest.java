@@ -0,0 +1,81 @@
+package com.bernardpablo.sokoban.profiling;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Enregistrement JFR continu : points de mesure inertes sans enregistrement, puis
+ * événements retrouvés dans un fichier écrit à la demande.
+ * @author Bernard PABLO
+ */
+public class FlightRecorderTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    @After
+    public void stopRecording() {
+        FlightRecorder.stop();
+    }
+
+    @Test
+    public void probesDoNothingWhenStopped() throws Exception {
+        assertFalse(FlightRecorder.isActive());
+        for (ProfileEvent type : ProfileEvent.values()) {
+            Object span = FlightRecorder.begin(type);
+            assertNull(span);
+            FlightRecorder.end(span, "rien", 1);
+        }
+        FlightRecorder.checkFrame(10f);
+        FlightRecorder.dump("rien");
+        try {
+            FlightRecorder.dumpNow("rien");
+            fail("Aucun enregistrement en cours");
+        } catch (java.io.IOException expected) {
+            // Attendu
+        }
+    }
+
+    @Test
+    public void dumpContainsGameEvents() throws Exception {
+        Assume.assumeTrue(FlightRecorder.isSupported());
+        File dir = new File(folder.getRoot(), "recordings");
+        assertTrue(FlightRecorder.start(60, 16L << 20, 0, dir));
+
+        for (ProfileEvent type : ProfileEvent.values()) {
+            Object span = FlightRecorder.begin(type);
+            assertNotNull(span);
+            FlightRecorder.end(span, "test", type.ordinal());
+        }
+        File file = FlightRecorder.dumpNow("test");
+        assertTrue(file.getName().endsWith("-test.jfr"));
+
+        Set<String> names = new HashSet<>();
+        for (Object event : readAllEvents(file.toPath())) {
+            Object eventType = event.getClass().getMethod("getEventType").invoke(event);
+            names.add((String) eventType.getClass().getMethod("getName").invoke(eventType));
+        }
+        for (ProfileEvent type : ProfileEvent.values()) {
+            assertTrue(type.getEventName(), names.contains(type.getEventName()));
+        }
+    }
+
+    /** Lecture par {@code jdk.jfr.consumer.RecordingFile}, absent de l'API de Java 8. */
+    private static List<?> readAllEvents(Path path) throws Exception {
+        Method read = Class.forName("jdk.jfr.consumer.RecordingFile").getMethod("readAllEvents", Path.class);
+        return (List<?>) read.invoke(null, path);
+    }
+}
@@ -0,0 +1,187 @@
+package com.bernardpablo.sokoban.stats;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Journal des statistiques : index sauvegardé et relu, fin de journal tronquée, index
+ * corrompu reconstruit et compactage conservant les meilleurs scores.
+ * @author Bernard PABLO
+ */
+public class StatsStoreTest {
+    private static final String LEVEL = "sokoban_level1.tmx";
+    private static final String OTHER_LEVEL = "sokoban_level2.tmx";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File dataFile() {
+        return new File(folder.getRoot(), "stats.db");
+    }
+
+    private File indexFile() {
+        return new File(dataFile().getPath() + ".idx");
+    }
+
+    /** Deux profils sur le premier niveau, un seul sur le second. */
+    private void fill(StatsStore store) throws IOException {
+        store.recordAttempt("alice", LEVEL);
+        store.recordCompletion("alice", LEVEL, 120, 30, 50_000);
+        store.recordCompletion("bruno", LEVEL, 100, 40, 70_000);
+        store.recordAttempt("alice", OTHER_LEVEL);
+    }
+
+    private void assertFilled(StatsStore store) throws IOException {
+        assertEquals(3, store.getRecordCount());
+        assertEquals(2, store.getLevelCount());
+        LevelStats alice = store.getStats("alice", LEVEL);
+        assertEquals(1, alice.getAttempts());
+        assertEquals(1, alice.getCompletions());
+        assertEquals(120, alice.getBestMoves());
+        assertEquals(100, store.getStats("bruno", LEVEL).getBestMoves());
+        assertFalse(store.getStats("alice", OTHER_LEVEL).isCompleted());
+        assertNull(store.getStats("bruno", OTHER_LEVEL));
+    }
+
+    @Test
+    public void appendedRecordsSurviveReopening() throws IOException {
+        StatsStore store = new StatsStore(dataFile());
+        fill(store);
+        long size = store.getFileSize();
+        store.close();
+        assertTrue(indexFile().exists());
+        byte[] savedIndex = Files.readAllBytes(indexFile().toPath());
+
+        // Le profil est réécrit dans le journal, à longueur égale : l'index sauvegardé, qui
+        // le connaît sous son ancien nom, est relu sans nouveau parcours du journal
+        byte[] bytes = Files.readAllBytes(dataFile().toPath());
+        String text = new String(bytes, StandardCharsets.ISO_8859_1).replace("bruno", "brune");
+        Files.write(dataFile().toPath(), text.getBytes(StandardCharsets.ISO_8859_1));
+        StatsStore reopened = new StatsStore(dataFile());
+        assertFilled(reopened);
+        assertEquals(size, reopened.getFileSize());
+        assertEquals("brune", reopened.getStats("bruno", LEVEL).getProfile());
+
+        // Index antérieur à la dernière écriture : seule la fin du journal est relue
+        reopened.recordCompletion("alice", OTHER_LEVEL, 80, 20, 30_000);
+        reopened.close();
+        Files.write(indexFile().toPath(), savedIndex);
+        StatsStore last = new StatsStore(dataFile());
+        assertEquals(80, last.getStats("alice", OTHER_LEVEL).getBestMoves());
+        assertEquals(3, last.getRecordCount());
+        assertEquals("brune", last.getStats("bruno", LEVEL).getProfile());
+        last.close();
+    }
+
+    @Test
+    public void truncatedLastRecordIsIgnored() throws IOException {
+        StatsStore store = new StatsStore(dataFile());
+        fill(store);
+        long complete = store.getFileSize();
+        store.recordAttempt("carla", OTHER_LEVEL);
+        long size = store.getFileSize();
+        store.close();
+
+        // Arrêt brutal pendant l'écriture du dernier enregistrement, index jamais sauvegardé
+        Files.delete(indexFile().toPath());
+        try (RandomAccessFile data = new RandomAccessFile(dataFile(), "rw")) {
+            data.setLength(size - 5);
+        }
+
+        StatsStore reopened = new StatsStore(dataFile());
+        assertFilled(reopened);
+        assertNull(reopened.getStats("carla", OTHER_LEVEL));
+        assertEquals(complete, reopened.getFileSize());
+
+        // Le journal reste utilisable après la troncature
+        reopened.recordAttempt("carla", OTHER_LEVEL);
+        reopened.close();
+        StatsStore last = new StatsStore(dataFile());
+        assertEquals(1, last.getStats("carla", OTHER_LEVEL).getAttempts());
+        assertEquals(4, last.getRecordCount());
+        last.close();
+    }
+
+    @Test
+    public void corruptIndexIsRebuilt() throws IOException {
+        StatsStore store = new StatsStore(dataFile());
+        fill(store);
+        store.close();
+
+        // Index coupé au milieu d'une entrée
+        byte[] index = Files.readAllBytes(indexFile().toPath());
+        Files.write(indexFile().toPath(), Arrays.copyOf(index, 24));
+        StatsStore rebuilt = new StatsStore(dataFile());
+        assertFilled(rebuilt);
+        rebuilt.close();
+
+        // En-tête illisible
+        Files.write(indexFile().toPath(), new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+        rebuilt = new StatsStore(dataFile());
+        assertFilled(rebuilt);
+        rebuilt.close();
+
+        // Index décrivant un journal plus long que le fichier
+        rebuilt = new StatsStore(dataFile());
+        rebuilt.recordAttempt("carla", LEVEL);
+        rebuilt.close();
+        try (RandomAccessFile data = new RandomAccessFile(dataFile(), "rw")) {
+            data.setLength(data.length() - 1);
+        }
+        rebuilt = new StatsStore(dataFile());
+        assertFilled(rebuilt);
+        assertNull(rebuilt.getStats("carla", LEVEL));
+        rebuilt.close();
+    }
+
+    @Test
+    public void compactionKeepsBestResultsAndLeaderboard() throws IOException {
+        StatsStore store = new StatsStore(dataFile());
+        long largest = 0;
+        for (int i = 0; i < 2000; i++) {
+            store.recordCompletion("alice", LEVEL, 200 - i % 50, 40, 60_000 + i);
+            store.recordCompletion("bruno", LEVEL, 160, 50 - i % 20, 90_000);
+            store.recordCompletion("carla", LEVEL, 160, 35, 80_000 - i);
+            largest = Math.max(largest, store.getFileSize());
+        }
+        store.recordAttempt("denis", LEVEL);
+
+        // Le journal a été compacté en route : il ne garde que les versions vivantes
+        assertTrue(largest + " octets", largest <= 64 * 1024 + 256);
+        assertEquals(4, store.getRecordCount());
+        store.compact();
+        long compacted = store.getFileSize();
+        assertTrue(compacted + " octets", compacted < 400);
+        store.close();
+
+        StatsStore reopened = new StatsStore(dataFile());
+        assertEquals(compacted, reopened.getFileSize());
+        LevelStats alice = reopened.getStats("alice", LEVEL);
+        assertEquals(2000, alice.getCompletions());
+        assertEquals(151, alice.getBestMoves());
+        assertEquals(60_000, alice.getBestTimeMs());
+        assertEquals(31, reopened.getStats("bruno", LEVEL).getBestPushes());
+        assertEquals(78_001, reopened.getStats("carla", LEVEL).getBestTimeMs());
+
+        // Moins de pas, puis moins de poussées ; un profil sans résolution n'est pas classé
+        List<LevelStats> leaderboard = reopened.leaderboard(LEVEL, 10);
+        assertEquals(3, leaderboard.size());
+        assertEquals("alice", leaderboard.get(0).getProfile());
+        assertEquals("bruno", leaderboard.get(1).getProfile());
+        assertEquals("carla", leaderboard.get(2).getProfile());
+        assertEquals(2, reopened.leaderboard(LEVEL, 2).size());
+        assertTrue(reopened.leaderboard(OTHER_LEVEL, 10).isEmpty());
+        reopened.close();
+    }
+}
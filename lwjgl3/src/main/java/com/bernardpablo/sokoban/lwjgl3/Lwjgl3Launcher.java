@@ -3,14 +3,51 @@ package com.bernardpablo.sokoban.lwjgl3;
 import com.badlogic.gdx.backends.lwjgl3.Lwjgl3Application;
 import com.badlogic.gdx.backends.lwjgl3.Lwjgl3ApplicationConfiguration;
 import com.bernardpablo.sokoban.MySokoban;
+import com.bernardpablo.sokoban.profiling.FlightRecorder;
+
+import java.io.File;
 
 /** Launches the desktop (LWJGL3) application. */
 public class Lwjgl3Launcher {
+    /**
+     * Option démarrant l'enregistrement JFR continu : {@code --flight-recorder[=secondes]}.
+     * La propriété système {@code sokoban.flightRecorder} a le même effet (elle survit au
+     * redémarrage de la JVM sur macOS, contrairement aux arguments du programme).
+     */
+    private static final String FLIGHT_RECORDER_FLAG = "--flight-recorder";
+
     public static void main(String[] args) {
         if (StartupHelper.startNewJvmIfRequired()) return; // This handles macOS support and helps on Windows.
+        startFlightRecorder(args);
         createApplication();
     }
 
+    /**
+     * Démarre l'enregistrement JFR continu si l'option ou la propriété est présente. La durée
+     * d'image déclenchant une écriture est lue dans la propriété {@code sokoban.slowFrameMs}.
+     */
+    private static void startFlightRecorder(String[] args) {
+        String value = System.getProperty("sokoban.flightRecorder");
+        for (String arg : args) {
+            if (arg.equals(FLIGHT_RECORDER_FLAG)) {
+                value = "";
+            } else if (arg.startsWith(FLIGHT_RECORDER_FLAG + "=")) {
+                value = arg.substring(FLIGHT_RECORDER_FLAG.length() + 1);
+            }
+        }
+        if (value == null) return;
+
+        int maxAge = FlightRecorder.DEFAULT_MAX_AGE_SECONDS;
+        try {
+            if (!value.isEmpty() && !value.equals("true")) maxAge = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            System.err.println("Durée d'enregistrement invalide '" + value + "', " + maxAge + " s utilisées.");
+        }
+        FlightRecorder.start(maxAge, FlightRecorder.DEFAULT_MAX_BYTES,
+            Integer.getInteger("sokoban.slowFrameMs", FlightRecorder.DEFAULT_SLOW_FRAME_MS),
+            new File(FlightRecorder.DUMP_DIR));
+    }
+
     private static Lwjgl3Application createApplication() {
         return new Lwjgl3Application(new MySokoban(), getDefaultConfiguration());
     }
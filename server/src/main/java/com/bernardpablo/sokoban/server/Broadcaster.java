@@ -0,0 +1,88 @@
+package com.bernardpablo.sokoban.server;
+
+import com.badlogic.gdx.utils.Array;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Diffusion de l'état d'une session à ses abonnés (le joueur et ses spectateurs).
+ * <p>
+ * Chaque mouvement est encodé une seule fois ; chaque abonné reçoit une vue en lecture
+ * seule du même tampon, sans copie des octets. Un abonné trop lent (plus de
+ * {@link #MAX_PENDING} messages en attente) ne reçoit plus de deltas : il recevra un
+ * instantané complet dès que sa file se sera vidée.
+ * </p>
+ * <p>
+ * Toutes les méthodes sont appelées sur le thread de la partition de la session.
+ * </p>
+ * @author Bernard PABLO
+ */
+final class Broadcaster implements SessionEngine.MoveListener {
+    /** Nombre de messages en attente au-delà duquel un abonné est considéré en retard. */
+    static final int MAX_PENDING = 256;
+
+    private final GameServer server;
+    private final Array<Connection> subscribers = new Array<>(false, 4);
+
+    Broadcaster(GameServer server) {
+        this.server = server;
+    }
+
+    /**
+     * Abonne une connexion et lui envoie l'état complet de la session.
+     */
+    void subscribe(Connection connection, GameSession session) {
+        subscribers.add(connection);
+        server.send(connection, Protocol.snapshot(session));
+    }
+
+    /**
+     * Envoie un instantané à un abonné en retard dont la file d'envoi s'est vidée.
+     */
+    void resync(Connection connection, GameSession session) {
+        if (!connection.needsSnapshot || connection.getPending() > 0 || connection.closed) return;
+        connection.needsSnapshot = false;
+        server.send(connection, Protocol.snapshot(session));
+    }
+
+    void unsubscribe(Connection connection) {
+        subscribers.removeValue(connection, true);
+    }
+
+    /**
+     * Diffuse le résultat d'un mouvement à tous les abonnés.
+     * @param session La session.
+     * @param result  Le résultat du mouvement (rien n'est envoyé s'il a été bloqué).
+     */
+    @Override
+    public void onMove(GameSession session, int result) {
+        if (result == 0) return;
+        ByteBuffer delta = Protocol.delta(session, result).asReadOnlyBuffer();
+        ByteBuffer snapshot = null;
+
+        for (int i = subscribers.size - 1; i >= 0; i--) {
+            Connection connection = subscribers.get(i);
+            if (connection.closed) {
+                subscribers.removeIndex(i);
+                continue;
+            }
+            if (connection.getPending() >= MAX_PENDING) {
+                connection.needsSnapshot = true;
+                continue;
+            }
+            if (connection.needsSnapshot) {
+                if (connection.getPending() > 0) continue;
+                connection.needsSnapshot = false;
+                if (snapshot == null) snapshot = Protocol.snapshot(session).asReadOnlyBuffer();
+                server.send(connection, snapshot.duplicate());
+            } else {
+                server.send(connection, delta.duplicate());
+            }
+        }
+    }
+
+    /** @return Le nombre d'abonnés. */
+    int getSubscriberCount() {
+        return subscribers.size;
+    }
+}
@@ -0,0 +1,90 @@
+package com.bernardpablo.sokoban.server;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Connexion d'un client au {@link GameServer} (joueur ou spectateur).
+ * <p>
+ * Les messages à envoyer peuvent être déposés depuis n'importe quel thread ; seul le
+ * thread d'entrées-sorties du serveur les écrit sur le réseau, en regroupant plusieurs
+ * messages par appel système. Les tampons déposés ne sont jamais modifiés : un même
+ * message diffusé à plusieurs connexions est partagé, chacune n'en recevant qu'une vue.
+ * </p>
+ * @author Bernard PABLO
+ */
+final class Connection {
+    /** Nombre maximal de tampons regroupés dans une écriture. */
+    private static final int GATHER = 64;
+
+    final SocketChannel channel;
+    final SelectionKey key;
+    final ByteBuffer in = ByteBuffer.allocate(256);
+    private final Queue<ByteBuffer> out = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    /** Vrai si la connexion est déjà en attente d'écriture auprès du serveur. */
+    final AtomicBoolean writeRequested = new AtomicBoolean();
+    private final ByteBuffer[] gather = new ByteBuffer[GATHER];
+
+    /** Session suivie, ou -1 ; n'est modifiée que par le thread d'entrées-sorties. */
+    int sessionId = -1;
+    boolean player;
+    /** Vrai si des messages ont été abandonnés : un instantané est dû dès que la file se vide. */
+    volatile boolean needsSnapshot;
+    volatile boolean closed;
+
+    Connection(SocketChannel channel, SelectionKey key) {
+        this.channel = channel;
+        this.key = key;
+    }
+
+    /**
+     * Dépose un message dans la file d'envoi.
+     * @param message Le message ; sa position et sa limite ne doivent plus être modifiées par l'appelant.
+     */
+    void enqueue(ByteBuffer message) {
+        out.add(message);
+        pending.incrementAndGet();
+    }
+
+    /** @return Le nombre de messages en attente d'envoi. */
+    int getPending() {
+        return pending.get();
+    }
+
+    /**
+     * Écrit autant de messages en attente que le réseau en accepte (thread d'entrées-sorties).
+     * @return true si la file a été entièrement vidée.
+     */
+    boolean flush() throws IOException {
+        while (true) {
+            int count = 0;
+            for (ByteBuffer buffer : out) {
+                gather[count++] = buffer;
+                if (count == GATHER) break;
+            }
+            if (count == 0) return true;
+
+            channel.write(gather, 0, count);
+            for (int i = 0; i < count; i++) {
+                if (gather[i].hasRemaining()) {
+                    clearGather(count);
+                    return false;
+                }
+                out.poll();
+                pending.decrementAndGet();
+            }
+            clearGather(count);
+        }
+    }
+
+    private void clearGather(int count) {
+        for (int i = 0; i < count; i++) gather[i] = null;
+    }
+}
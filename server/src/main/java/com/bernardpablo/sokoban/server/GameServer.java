@@ -0,0 +1,252 @@
+package com.bernardpablo.sokoban.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Serveur de jeu en réseau (NIO, un seul thread d'entrées-sorties).
+ * <p>
+ * Le thread d'entrées-sorties accepte les connexions, décode les messages
+ * ({@link Protocol}) et les transmet au {@link SessionEngine} ; les résultats sont
+ * encodés sur le thread de la partition de la session puis diffusés par son
+ * {@link Broadcaster}. Les connexions ayant des messages à écrire sont signalées au
+ * thread d'entrées-sorties par une file, qu'il vide à chaque tour de boucle.
+ * </p>
+ * @author Bernard PABLO
+ */
+public class GameServer implements Runnable {
+    private final SessionEngine engine;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    /** Diffuseur de chaque session ouverte par un joueur. */
+    private final Map<Integer, Broadcaster> broadcasters = new ConcurrentHashMap<>();
+    private final Queue<Connection> writes = new ConcurrentLinkedQueue<>();
+    private final ByteBuffer nameBuffer = ByteBuffer.allocate(256);
+    private volatile boolean running = true;
+
+    /**
+     * Ouvre le port d'écoute du serveur.
+     * @param engine Le moteur de sessions.
+     * @param port   Le port TCP (0 pour un port libre quelconque).
+     * @throws IOException Si le port ne peut pas être ouvert.
+     */
+    public GameServer(SessionEngine engine, int port) throws IOException {
+        this.engine = engine;
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress("127.0.0.1", port), 1024);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /** @return Le port d'écoute effectif. */
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Boucle d'entrées-sorties, jusqu'à l'appel de {@link #stop()}.
+     */
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                selector.select();
+                flushPendingWrites();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) continue;
+                    try {
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else {
+                            Connection connection = (Connection) key.attachment();
+                            if (key.isReadable()) read(connection);
+                            if (key.isValid() && key.isWritable()) write(connection);
+                        }
+                    } catch (IOException e) {
+                        close((Connection) key.attachment());
+                    }
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (running) System.err.println("Serveur arrêté : " + e.getMessage());
+        } finally {
+            closeAll();
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+            key.attach(new Connection(channel, key));
+        }
+    }
+
+    /**
+     * Lit et traite tous les messages complets reçus sur une connexion.
+     */
+    private void read(Connection connection) throws IOException {
+        if (connection.channel.read(connection.in) < 0) {
+            close(connection);
+            return;
+        }
+        ByteBuffer in = connection.in;
+        in.flip();
+        int length;
+        while ((length = Protocol.clientMessageLength(in)) > 0) {
+            int start = in.position();
+            handle(connection, in, start);
+            in.position(start + length);
+        }
+        if (length == -2 || (length == -1 && in.remaining() == in.capacity())) {
+            // Message invalide ou trop long pour le tampon
+            send(connection, Protocol.error(Protocol.BAD_REQUEST));
+            close(connection);
+            return;
+        }
+        in.compact();
+    }
+
+    private void handle(Connection connection, ByteBuffer in, int start) {
+        int type = in.get(start);
+        if (type >= 0 && type <= 3) {
+            if (connection.player) {
+                engine.move(connection.sessionId, type, broadcasters.get(connection.sessionId));
+            }
+            return;
+        }
+        if (connection.sessionId >= 0) {
+            // Une connexion ne suit qu'une seule partie
+            send(connection, Protocol.error(Protocol.BAD_REQUEST));
+            return;
+        }
+
+        if (type == Protocol.PLAY) {
+            int length = in.getShort(start + 1) & 0xFFFF;
+            nameBuffer.clear();
+            for (int i = 0; i < length; i++) nameBuffer.put(in.get(start + 3 + i));
+            String level = new String(nameBuffer.array(), 0, length, StandardCharsets.UTF_8);
+            int id;
+            try {
+                id = engine.createSession(level);
+            } catch (RuntimeException e) {
+                send(connection, Protocol.error(Protocol.UNKNOWN_LEVEL));
+                return;
+            }
+            Broadcaster broadcaster = new Broadcaster(this);
+            broadcasters.put(id, broadcaster);
+            connection.sessionId = id;
+            connection.player = true;
+            engine.execute(id, session -> broadcaster.subscribe(connection, session));
+        } else if (type == Protocol.SPECTATE) {
+            int id = in.getInt(start + 1);
+            Broadcaster broadcaster = broadcasters.get(id);
+            if (broadcaster == null) {
+                send(connection, Protocol.error(Protocol.UNKNOWN_SESSION));
+                return;
+            }
+            connection.sessionId = id;
+            engine.execute(id, session -> broadcaster.subscribe(connection, session));
+        }
+    }
+
+    /**
+     * Dépose un message pour une connexion (depuis n'importe quel thread) et signale
+     * la connexion au thread d'entrées-sorties.
+     */
+    void send(Connection connection, ByteBuffer message) {
+        if (connection.closed) return;
+        connection.enqueue(message);
+        if (connection.writeRequested.compareAndSet(false, true)) {
+            writes.add(connection);
+            selector.wakeup();
+        }
+    }
+
+    private void flushPendingWrites() {
+        Connection connection;
+        while ((connection = writes.poll()) != null) {
+            connection.writeRequested.set(false);
+            try {
+                write(connection);
+            } catch (IOException e) {
+                close(connection);
+            }
+        }
+    }
+
+    private void write(Connection connection) throws IOException {
+        if (connection.closed || !connection.key.isValid()) return;
+        boolean drained = connection.flush();
+        int ops = connection.key.interestOps();
+        int wanted = drained ? ops & ~SelectionKey.OP_WRITE : ops | SelectionKey.OP_WRITE;
+        if (wanted != ops) connection.key.interestOps(wanted);
+
+        if (drained && connection.needsSnapshot) {
+            // Abonné en retard : sa file est vide, il peut recevoir l'état complet
+            Broadcaster broadcaster = broadcasters.get(connection.sessionId);
+            if (broadcaster != null) engine.execute(connection.sessionId, session -> broadcaster.resync(connection, session));
+        }
+    }
+
+    private void close(Connection connection) {
+        if (connection == null || connection.closed) return;
+        connection.closed = true;
+        connection.key.cancel();
+        try {
+            connection.channel.close();
+        } catch (IOException e) {
+            // Connexion déjà fermée
+        }
+
+        int id = connection.sessionId;
+        if (id < 0) return;
+        if (connection.player) {
+            // Les spectateurs restent connectés mais ne recevront plus rien
+            broadcasters.remove(id);
+            engine.closeSession(id);
+        } else {
+            Broadcaster broadcaster = broadcasters.get(id);
+            if (broadcaster != null) engine.execute(id, session -> broadcaster.unsubscribe(connection));
+        }
+    }
+
+    private void closeAll() {
+        try {
+            for (SelectionKey key : selector.keys()) {
+                key.channel().close();
+            }
+            selector.close();
+        } catch (IOException | ClosedSelectorException e) {
+            // Arrêt en cours : rien à faire de plus
+        }
+    }
+
+    /**
+     * Demande l'arrêt de la boucle d'entrées-sorties, qui ferme alors toutes les connexions.
+     */
+    public void stop() {
+        running = false;
+        selector.wakeup();
+    }
+}
@@ -0,0 +1,161 @@
+package com.bernardpablo.sokoban.server;
+
+import com.bernardpablo.sokoban.logic.LevelGrid;
+
+import java.util.Arrays;
+
+/**
+ * État d'une partie hébergée par le serveur : position du joueur et des caisses.
+ * <p>
+ * Seul cet état mutable est propre à la session ; murs et cibles sont lus dans la
+ * {@link LevelLayout} partagée. Les règles sont celles du jeu de bureau
+ * (voir {@code Player.tryMove} et {@code PushEngine}) : une file de caisses alignées est
+ * poussée d'un bloc si la case située après la dernière est libre et si la file ne dépasse
+ * pas la longueur maximale du niveau ({@link LevelLayout#getMaxChain()}).
+ * </p>
+ * <p>
+ * Une session n'est pas thread-safe : le {@link SessionEngine} garantit qu'elle n'est
+ * manipulée que par le thread de sa partition.
+ * </p>
+ * @author Bernard PABLO
+ */
+public final class GameSession {
+    /** Résultat de {@link #move(int)} : le joueur s'est déplacé. */
+    public static final int MOVED = 1;
+    /** Résultat de {@link #move(int)} : au moins une caisse a été poussée. */
+    public static final int PUSHED = 2;
+    /** Résultat de {@link #move(int)} : le niveau est terminé. */
+    public static final int SOLVED = 4;
+
+    private final int id;
+    private final LevelLayout layout;
+    private final LevelGrid grid;
+    private final int[] crateCells;
+    /** Index + 1 de la caisse occupant chaque case (0 si aucune). */
+    private final short[] crateAt;
+    /** Caisses déplacées par le dernier mouvement (voir {@link #getMovedCrate(int)}). */
+    private final int[] moved;
+    private int movedCount;
+    private int playerCell;
+    private int matched;
+    private int moves;
+    private int pushes;
+
+    /**
+     * Crée une session placée dans l'état initial du niveau.
+     * @param id     Identifiant de la session.
+     * @param layout La disposition partagée du niveau.
+     */
+    public GameSession(int id, LevelLayout layout) {
+        this.id = id;
+        this.layout = layout;
+        this.grid = layout.getGrid();
+        this.crateCells = new int[layout.getCrateCount()];
+        this.crateAt = new short[grid.getWidth() * grid.getHeight()];
+        this.moved = new int[crateCells.length];
+        reset();
+    }
+
+    /**
+     * Replace le joueur et les caisses dans leur position initiale.
+     */
+    public void reset() {
+        Arrays.fill(crateAt, (short) 0);
+        matched = 0;
+        for (int i = 0; i < crateCells.length; i++) {
+            int cell = layout.getInitialCrateCell(i);
+            crateCells[i] = cell;
+            crateAt[cell] = (short) (i + 1);
+            if (layout.matches(i, cell)) matched++;
+        }
+        playerCell = layout.getPlayerCell();
+        movedCount = 0;
+        moves = 0;
+        pushes = 0;
+    }
+
+    /**
+     * Tente de déplacer le joueur d'une case.
+     * @param dir Direction ({@link LevelGrid#LEFT}, {@link LevelGrid#RIGHT}, {@link LevelGrid#UP}, {@link LevelGrid#DOWN}).
+     * @return Une combinaison de {@link #MOVED}, {@link #PUSHED} et {@link #SOLVED}, ou 0 si le mouvement est bloqué.
+     */
+    public int move(int dir) {
+        int width = grid.getWidth();
+        int dx = LevelGrid.DX[dir];
+        int dy = LevelGrid.DY[dir];
+        int x = playerCell % width + dx;
+        int y = playerCell / width + dy;
+        movedCount = 0;
+        if (grid.isWall(x, y)) return 0;
+
+        // Recherche de la première case libre derrière la file de caisses
+        int count = 0;
+        int ex = x;
+        int ey = y;
+        while (crateAt[grid.index(ex, ey)] != 0) {
+            if (count == layout.getMaxChain()) return 0;
+            ex += dx;
+            ey += dy;
+            if (grid.isWall(ex, ey)) return 0;
+            count++;
+        }
+
+        // Décalage des caisses, de la dernière vers la première
+        for (int i = 0; i < count; i++) {
+            int to = grid.index(ex, ey);
+            ex -= dx;
+            ey -= dy;
+            int from = grid.index(ex, ey);
+            int crate = crateAt[from] - 1;
+            if (layout.matches(crate, from)) matched--;
+            if (layout.matches(crate, to)) matched++;
+            crateCells[crate] = to;
+            moved[movedCount++] = crate;
+            crateAt[to] = crateAt[from];
+            crateAt[from] = 0;
+        }
+
+        playerCell = grid.index(x, y);
+        moves++;
+        int result = MOVED;
+        if (count > 0) {
+            pushes++;
+            result |= PUSHED;
+        }
+        if (isSolved()) result |= SOLVED;
+        return result;
+    }
+
+    /** @return true si toutes les cibles sont occupées par une caisse correspondante. */
+    public boolean isSolved() {
+        return layout.getTargetCount() > 0 && matched == layout.getTargetCount();
+    }
+
+    /**
+     * @return Une estimation de la mémoire propre à la session (hors disposition partagée), en octets.
+     */
+    public long getMemoryBytes() {
+        return 56 + 2 * (16 + crateCells.length * 4L) + 16 + crateAt.length * 2L;
+    }
+
+    /** @return Le nombre de caisses déplacées par le dernier mouvement. */
+    public int getMovedCrateCount() {
+        return movedCount;
+    }
+
+    /**
+     * @param i Rang dans la liste des caisses déplacées par le dernier mouvement.
+     * @return L'index de la caisse.
+     */
+    public int getMovedCrate(int i) {
+        return moved[i];
+    }
+
+    // Getters
+    public int getId() { return id; }
+    public LevelLayout getLayout() { return layout; }
+    public int getPlayerCell() { return playerCell; }
+    public int getCrateCell(int crate) { return crateCells[crate]; }
+    public int getMoves() { return moves; }
+    public int getPushes() { return pushes; }
+}
@@ -0,0 +1,68 @@
+package com.bernardpablo.sokoban.server;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogramme de latences à la microseconde, alimenté sans verrou depuis plusieurs threads.
+ * <p>
+ * Les latences au-delà de {@link #MAX_MICROS} sont regroupées dans un dernier seau ;
+ * leur maximum exact reste connu.
+ * </p>
+ * @author Bernard PABLO
+ */
+public final class LatencyHistogram {
+    /** Latence maximale distinguée, en microsecondes. */
+    public static final int MAX_MICROS = 100_000;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(MAX_MICROS + 1);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Enregistre une latence.
+     * @param nanos Latence en nanosecondes.
+     */
+    public void record(long nanos) {
+        buckets.incrementAndGet((int) Math.min(nanos / 1000, MAX_MICROS));
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+        long max;
+        while (nanos > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, nanos)) {
+            // Nouvelle tentative : un autre thread a modifié le maximum
+        }
+    }
+
+    /**
+     * @param percentile Le centile voulu (ex: 99.0).
+     * @return La latence correspondante, en microsecondes.
+     */
+    public long percentileMicros(double percentile) {
+        long total = count.get();
+        if (total == 0) return 0;
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i <= MAX_MICROS; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) return i;
+        }
+        return MAX_MICROS;
+    }
+
+    /** @return Le nombre de latences enregistrées. */
+    public long getCount() {
+        return count.get();
+    }
+
+    /** @return La latence moyenne, en microsecondes. */
+    public double getMeanMicros() {
+        long total = count.get();
+        return total == 0 ? 0 : totalNanos.get() / 1000.0 / total;
+    }
+
+    /** @return La latence maximale, en microsecondes. */
+    public long getMaxMicros() {
+        return maxNanos.get() / 1000;
+    }
+}
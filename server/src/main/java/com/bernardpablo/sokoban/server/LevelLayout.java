@@ -0,0 +1,176 @@
+package com.bernardpablo.sokoban.server;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.XmlReader;
+import com.bernardpablo.sokoban.logic.LevelGrid;
+import com.bernardpablo.sokoban.logic.PushEngine;
+import com.bernardpablo.sokoban.logic.SokobanRules;
+
+import java.io.File;
+
+/**
+ * Partie immuable d'un niveau : murs, cibles et position initiale des entités.
+ * <p>
+ * Une même instance est partagée par toutes les sessions jouant ce niveau ; chaque
+ * {@link GameSession} ne copie que l'état qui évolue (joueur et caisses). Le fichier TMX
+ * est lu directement avec {@link XmlReader}, sans {@code TmxMapLoader} : le serveur n'a ni
+ * contexte graphique ni textures à charger.
+ * </p>
+ * @author Bernard PABLO
+ */
+public final class LevelLayout {
+    private final String name;
+    private final LevelGrid grid;
+    private final String nextLevel;
+    /** Longueur maximale d'une file de caisses poussée ({@link PushEngine#CHAIN_PROPERTY}). */
+    private final int maxChain;
+    /** Identifiant de tuile de la cible de chaque case (0 si aucune). */
+    private final int[] targetAt;
+    private final int targetCount;
+    private final int[] crateCells;
+    private final int[] crateTileIds;
+    /** Identifiant de tuile de la cible attendue par chaque caisse. */
+    private final int[] crateGoals;
+    private final int playerCell;
+
+    private LevelLayout(String name, LevelGrid grid, String nextLevel, int maxChain, int[] targetAt, int targetCount,
+                        int[] crateCells, int[] crateTileIds, int playerCell) {
+        this.name = name;
+        this.grid = grid;
+        this.nextLevel = nextLevel;
+        this.maxChain = maxChain;
+        this.targetAt = targetAt;
+        this.targetCount = targetCount;
+        this.crateCells = crateCells;
+        this.crateTileIds = crateTileIds;
+        this.crateGoals = new int[crateTileIds.length];
+        for (int i = 0; i < crateTileIds.length; i++) {
+            crateGoals[i] = SokobanRules.getExpectedTargetTileId(crateTileIds[i]);
+        }
+        this.playerCell = playerCell;
+    }
+
+    /**
+     * Lit un niveau au format TMX (couche "Walls" en CSV, calques d'objets "targets",
+     * "crates" et "player").
+     * @param file Le fichier .tmx.
+     * @return La disposition du niveau.
+     * @throws IllegalArgumentException Si la carte est mal formée ou si des couches essentielles sont manquantes.
+     */
+    public static LevelLayout load(File file) {
+        XmlReader.Element map = new XmlReader().parse(new FileHandle(file));
+        if (map.getBooleanAttribute("infinite", false)) {
+            throw new IllegalArgumentException("Les cartes de taille infinie ne sont pas supportées.");
+        }
+        int width = map.getIntAttribute("width");
+        int height = map.getIntAttribute("height");
+        int tileSize = map.getIntAttribute("tilewidth");
+        LevelGrid grid = new LevelGrid(width, height, tileSize);
+
+        String nextLevel = null;
+        int maxChain = PushEngine.UNLIMITED;
+        XmlReader.Element properties = map.getChildByName("properties");
+        if (properties != null) {
+            for (XmlReader.Element property : properties.getChildrenByName("property")) {
+                String name = property.getAttribute("name", null);
+                if ("nextLevel".equals(name)) {
+                    nextLevel = property.getAttribute("value", null);
+                } else if (PushEngine.CHAIN_PROPERTY.equals(name)) {
+                    maxChain = PushEngine.parseChain(property.getAttribute("value", null));
+                }
+            }
+        }
+
+        boolean walls = false;
+        for (XmlReader.Element layer : map.getChildrenByName("layer")) {
+            if (!"Walls".equals(layer.getAttribute("name", null))) continue;
+            XmlReader.Element data = layer.getChildByName("data");
+            if (!"csv".equals(data.getAttribute("encoding", null))) {
+                throw new IllegalArgumentException("Seul l'encodage CSV de la couche 'Walls' est supporté.");
+            }
+            String[] gids = data.getText().trim().split("\\s*,\\s*");
+            for (int i = 0; i < gids.length && i < width * height; i++) {
+                if (Long.parseLong(gids[i]) != 0) {
+                    // Les lignes du fichier vont de haut en bas, l'axe Y du jeu vers le haut
+                    grid.setWall(i % width, height - 1 - i / width);
+                }
+            }
+            walls = true;
+        }
+        if (!walls) {
+            throw new IllegalArgumentException("Couche 'Walls' manquante dans le fichier TMX.");
+        }
+
+        int[] targetAt = new int[width * height];
+        int targetCount = 0;
+        Array<int[]> crates = new Array<>();
+        int playerCell = -1;
+        for (XmlReader.Element group : map.getChildrenByName("objectgroup")) {
+            String layerName = group.getAttribute("name", "");
+            for (XmlReader.Element object : group.getChildrenByName("object")) {
+                int gid = object.getIntAttribute("gid", 0);
+                if (gid == 0) continue;
+                int x = (int) (object.getFloatAttribute("x") / tileSize);
+                // Tiled place l'origine des objets tuiles en bas à gauche, l'axe Y vers le bas
+                int y = height - (int) (object.getFloatAttribute("y") / tileSize);
+                if (grid.isWall(x, y)) continue;
+                int cell = grid.index(x, y);
+                switch (layerName) {
+                    case "targets":
+                        if (targetAt[cell] == 0) targetCount++;
+                        targetAt[cell] = gid;
+                        break;
+                    case "crates":
+                        crates.add(new int[] {cell, gid});
+                        break;
+                    case "player":
+                        if (playerCell < 0) playerCell = cell;
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        if (playerCell < 0) {
+            throw new IllegalArgumentException("Aucun point de départ pour le joueur dans " + file.getName());
+        }
+
+        int[] crateCells = new int[crates.size];
+        int[] crateTileIds = new int[crates.size];
+        for (int i = 0; i < crates.size; i++) {
+            crateCells[i] = crates.get(i)[0];
+            crateTileIds[i] = crates.get(i)[1];
+        }
+        return new LevelLayout(file.getName(), grid, nextLevel, maxChain, targetAt, targetCount, crateCells, crateTileIds, playerCell);
+    }
+
+    /**
+     * @param crate Index d'une caisse.
+     * @param cell  Une case de la grille.
+     * @return true si la case porte une cible correspondant à la caisse.
+     */
+    public boolean matches(int crate, int cell) {
+        return targetAt[cell] != 0 && targetAt[cell] == crateGoals[crate];
+    }
+
+    /**
+     * @return Le nombre d'octets occupés par la disposition (partagé entre toutes les sessions).
+     */
+    public long getMemoryBytes() {
+        int cells = grid.getWidth() * grid.getHeight();
+        return ((cells + 63) >>> 6) * 8L + cells * 4L + crateCells.length * 12L;
+    }
+
+    // Getters
+    public String getName() { return name; }
+    public LevelGrid getGrid() { return grid; }
+    public String getNextLevel() { return nextLevel; }
+    public int getMaxChain() { return maxChain; }
+    public int getTargetTileId(int cell) { return targetAt[cell]; }
+    public int getTargetCount() { return targetCount; }
+    public int getCrateCount() { return crateCells.length; }
+    public int getInitialCrateCell(int crate) { return crateCells[crate]; }
+    public int getCrateTileId(int crate) { return crateTileIds[crate]; }
+    public int getPlayerCell() { return playerCell; }
+}
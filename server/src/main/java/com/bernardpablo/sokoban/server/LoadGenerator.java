@@ -0,0 +1,133 @@
+package com.bernardpablo.sokoban.server;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Générateur de charge du moteur de sessions.
+ * <p>
+ * Ouvre un grand nombre de sessions réparties sur les niveaux disponibles, puis fait
+ * jouer à chacune une suite de mouvements aléatoires en boucle fermée (un seul mouvement
+ * en cours par session : le suivant est envoyé dès la réception du résultat). Affiche le
+ * débit en mouvements par seconde et la distribution des latences (de l'envoi à
+ * l'exécution du rappel).
+ * </p>
+ * <p>
+ * Options : {@code --sessions=N}, {@code --moves=N} (par session), {@code --partitions=N},
+ * {@code --maps=répertoire}.
+ * </p>
+ * @author Bernard PABLO
+ */
+public final class LoadGenerator {
+    private static final String[] LEVELS = {"sokoban_level1.tmx", "sokoban_level2.tmx"};
+
+    private LoadGenerator() {}
+
+    public static void main(String[] args) throws InterruptedException {
+        int sessions = intOption(args, "sessions", 10_000);
+        int movesPerSession = intOption(args, "moves", 500);
+        int partitions = intOption(args, "partitions", Runtime.getRuntime().availableProcessors());
+        File mapsDir = new File(ServerLauncher.option(args, "maps", "maps"));
+
+        SessionEngine engine = new SessionEngine(mapsDir, partitions);
+        long heapBefore = usedHeap();
+        int[] ids = new int[sessions];
+        for (int i = 0; i < sessions; i++) {
+            ids[i] = engine.createSession(LEVELS[i % LEVELS.length]);
+        }
+
+        // Préchauffage, hors mesure
+        run(engine, ids, Math.max(1, movesPerSession / 10), new LatencyHistogram());
+        long heapAfter = usedHeap();
+
+        LatencyHistogram latencies = new LatencyHistogram();
+        long start = System.nanoTime();
+        run(engine, ids, movesPerSession, latencies);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long layoutBytes = 0;
+        for (LevelLayout layout : engine.getLayouts().values()) {
+            layoutBytes += layout.getMemoryBytes();
+        }
+        System.out.println("Sessions : " + engine.getSessionCount() + " sur " + partitions + " partition(s), "
+            + engine.getLayouts().size() + " disposition(s) partagée(s) (" + layoutBytes + " octets)");
+        System.out.printf("Mémoire : ~%d octets par session (tas)%n", (heapAfter - heapBefore) / sessions);
+        System.out.printf("Débit : %.0f mouvements/s (%d mouvements en %.2f s)%n",
+            latencies.getCount() / seconds, latencies.getCount(), seconds);
+        System.out.printf("Latence : moyenne %.1f µs, p50 %d µs, p99 %d µs, p99.9 %d µs, max %d µs%n",
+            latencies.getMeanMicros(), latencies.percentileMicros(50), latencies.percentileMicros(99),
+            latencies.percentileMicros(99.9), latencies.getMaxMicros());
+
+        engine.shutdown();
+    }
+
+    /**
+     * Fait jouer {@code moves} mouvements aléatoires à chaque session, en boucle fermée.
+     */
+    private static void run(SessionEngine engine, int[] ids, int moves, LatencyHistogram latencies)
+        throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            new Player(engine, ids[i], moves, latencies, done, 0x9E3779B97F4A7C15L * (i + 1)).next();
+        }
+        if (!done.await(10, TimeUnit.MINUTES)) {
+            System.err.println("Générateur de charge : délai dépassé");
+        }
+    }
+
+    /**
+     * Joueur simulé : une session, un mouvement en cours à la fois.
+     * Ses champs ne sont accédés que par le thread de la partition de la session.
+     */
+    private static final class Player implements SessionEngine.MoveListener {
+        private final SessionEngine engine;
+        private final int id;
+        private final LatencyHistogram latencies;
+        private final CountDownLatch done;
+        private int remaining;
+        private long seed;
+        private long sentAt;
+
+        Player(SessionEngine engine, int id, int moves, LatencyHistogram latencies, CountDownLatch done, long seed) {
+            this.engine = engine;
+            this.id = id;
+            this.remaining = moves;
+            this.latencies = latencies;
+            this.done = done;
+            this.seed = seed;
+        }
+
+        void next() {
+            // xorshift : pas d'allocation ni de contention entre joueurs
+            seed ^= seed << 13;
+            seed ^= seed >>> 7;
+            seed ^= seed << 17;
+            sentAt = System.nanoTime();
+            engine.move(id, (int) (seed & 3), this);
+        }
+
+        @Override
+        public void onMove(GameSession session, int result) {
+            latencies.record(System.nanoTime() - sentAt);
+            if ((result & GameSession.SOLVED) != 0) {
+                session.reset();
+            }
+            if (--remaining > 0) {
+                next();
+            } else {
+                done.countDown();
+            }
+        }
+    }
+
+    private static int intOption(String[] args, String name, int defaultValue) {
+        return Integer.parseInt(ServerLauncher.option(args, name, String.valueOf(defaultValue)));
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,165 @@
+package com.bernardpablo.sokoban.server;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Protocole binaire du serveur de jeu (gros-boutiste, sur TCP).
+ * <p>
+ * Client vers serveur :
+ * </p>
+ * <ul>
+ *   <li>un mouvement tient sur un seul octet : sa direction (0 à 3, voir {@code LevelGrid}) ;</li>
+ *   <li>{@link #PLAY} : ouvre une partie ({@code u16} longueur puis nom du niveau en UTF-8) ;</li>
+ *   <li>{@link #SPECTATE} : suit une partie existante ({@code i32} identifiant de session).</li>
+ * </ul>
+ * <p>
+ * Serveur vers client :
+ * </p>
+ * <ul>
+ *   <li>{@link #SNAPSHOT} : état complet, envoyé à l'arrivée dans une partie (et pour
+ *       resynchroniser un client en retard) : {@code i32} session, {@code u8} drapeaux,
+ *       {@code i32} pas, {@code i32} poussées, {@code u16} case du joueur, {@code u16}
+ *       nombre de caisses puis leurs cases ({@code u16} chacune), {@code u16} longueur et
+ *       nom du niveau ;</li>
+ *   <li>{@link #DELTA} : résultat d'un mouvement, limité aux caisses déplacées :
+ *       {@code u8} drapeaux, {@code i32} pas, {@code u16} case du joueur, {@code u16} nombre
+ *       de caisses déplacées puis, pour chacune, {@code u16} index et {@code u16} case ;</li>
+ *   <li>{@link #ERROR} : {@code u8} code d'erreur.</li>
+ * </ul>
+ * <p>
+ * Les drapeaux reprennent les résultats de {@link GameSession#move(int)}. Les cases sont
+ * des index de grille ({@code y * largeur + x}).
+ * </p>
+ * @author Bernard PABLO
+ */
+public final class Protocol {
+    public static final byte PLAY = 0x10;
+    public static final byte SPECTATE = 0x11;
+
+    public static final byte SNAPSHOT = 0x20;
+    public static final byte DELTA = 0x21;
+    public static final byte ERROR = 0x2F;
+
+    /** Code d'erreur : niveau inconnu. */
+    public static final int UNKNOWN_LEVEL = 1;
+    /** Code d'erreur : session inconnue. */
+    public static final int UNKNOWN_SESSION = 2;
+    /** Code d'erreur : message invalide. */
+    public static final int BAD_REQUEST = 3;
+
+    private Protocol() {}
+
+    /**
+     * Encode l'état complet d'une session.
+     * @param session La session.
+     * @return Le message, prêt à être écrit.
+     */
+    public static ByteBuffer snapshot(GameSession session) {
+        byte[] name = session.getLayout().getName().getBytes(StandardCharsets.UTF_8);
+        int crates = session.getLayout().getCrateCount();
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 4 + 1 + 4 + 4 + 2 + 2 + crates * 2 + 2 + name.length);
+        buffer.put(SNAPSHOT)
+            .putInt(session.getId())
+            .put((byte) (session.isSolved() ? GameSession.SOLVED : 0))
+            .putInt(session.getMoves())
+            .putInt(session.getPushes())
+            .putShort((short) session.getPlayerCell())
+            .putShort((short) crates);
+        for (int i = 0; i < crates; i++) {
+            buffer.putShort((short) session.getCrateCell(i));
+        }
+        buffer.putShort((short) name.length).put(name);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Encode le résultat du dernier mouvement d'une session.
+     * @param session La session.
+     * @param result  Le résultat de {@link GameSession#move(int)}.
+     * @return Le message, prêt à être écrit.
+     */
+    public static ByteBuffer delta(GameSession session, int result) {
+        int moved = session.getMovedCrateCount();
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 1 + 4 + 2 + 2 + moved * 4);
+        buffer.put(DELTA)
+            .put((byte) result)
+            .putInt(session.getMoves())
+            .putShort((short) session.getPlayerCell())
+            .putShort((short) moved);
+        for (int i = 0; i < moved; i++) {
+            int crate = session.getMovedCrate(i);
+            buffer.putShort((short) crate).putShort((short) session.getCrateCell(crate));
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * @param code Le code d'erreur.
+     * @return Le message d'erreur, prêt à être écrit.
+     */
+    public static ByteBuffer error(int code) {
+        ByteBuffer buffer = ByteBuffer.allocate(2);
+        buffer.put(ERROR).put((byte) code);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Longueur d'un message envoyé par le serveur, sans le consommer.
+     * @param buffer Les octets reçus, à partir de la position courante.
+     * @return La longueur du message complet, ou -1 s'il n'est pas encore entièrement reçu.
+     */
+    public static int serverMessageLength(ByteBuffer buffer) {
+        int start = buffer.position();
+        int available = buffer.remaining();
+        if (available < 1) return -1;
+        switch (buffer.get(start)) {
+            case SNAPSHOT: {
+                int fixed = 1 + 4 + 1 + 4 + 4 + 2 + 2;
+                if (available < fixed) return -1;
+                int crates = buffer.getShort(start + fixed - 2) & 0xFFFF;
+                int nameAt = start + fixed + crates * 2;
+                if (available < fixed + crates * 2 + 2) return -1;
+                int length = fixed + crates * 2 + 2 + (buffer.getShort(nameAt) & 0xFFFF);
+                return available < length ? -1 : length;
+            }
+            case DELTA: {
+                int fixed = 1 + 1 + 4 + 2 + 2;
+                if (available < fixed) return -1;
+                int length = fixed + (buffer.getShort(start + fixed - 2) & 0xFFFF) * 4;
+                return available < length ? -1 : length;
+            }
+            case ERROR:
+                return available < 2 ? -1 : 2;
+            default:
+                throw new IllegalStateException("Message serveur inconnu : " + buffer.get(start));
+        }
+    }
+
+    /**
+     * Longueur d'un message envoyé par un client, sans le consommer.
+     * @param buffer Les octets reçus, à partir de la position courante.
+     * @return La longueur du message complet, -1 s'il n'est pas encore entièrement reçu,
+     *         ou -2 si le message est invalide.
+     */
+    public static int clientMessageLength(ByteBuffer buffer) {
+        int start = buffer.position();
+        int available = buffer.remaining();
+        if (available < 1) return -1;
+        int type = buffer.get(start);
+        if (type >= 0 && type <= 3) return 1;
+        switch (type) {
+            case PLAY:
+                if (available < 3) return -1;
+                int length = 3 + (buffer.getShort(start + 1) & 0xFFFF);
+                return available < length ? -1 : length;
+            case SPECTATE:
+                return available < 5 ? -1 : 5;
+            default:
+                return -2;
+        }
+    }
+}
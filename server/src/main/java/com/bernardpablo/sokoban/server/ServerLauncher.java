@@ -0,0 +1,36 @@
+package com.bernardpablo.sokoban.server;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Point d'entrée du serveur de jeu.
+ * <p>
+ * Options : {@code --port=N} (7777 par défaut), {@code --partitions=N},
+ * {@code --maps=répertoire}.
+ * </p>
+ * @author Bernard PABLO
+ */
+public final class ServerLauncher {
+    private ServerLauncher() {}
+
+    public static void main(String[] args) throws IOException {
+        int port = Integer.parseInt(option(args, "port", "7777"));
+        int partitions = Integer.parseInt(option(args, "partitions",
+            String.valueOf(Runtime.getRuntime().availableProcessors())));
+        SessionEngine engine = new SessionEngine(new File(option(args, "maps", "maps")), partitions);
+
+        GameServer server = new GameServer(engine, port);
+        System.out.println("Serveur Sokoban à l'écoute sur le port " + server.getPort()
+            + " (" + partitions + " partition(s))");
+        server.run();
+    }
+
+    static String option(String[] args, String name, String defaultValue) {
+        String prefix = "--" + name + "=";
+        for (String arg : args) {
+            if (arg.startsWith(prefix)) return arg.substring(prefix.length());
+        }
+        return defaultValue;
+    }
+}
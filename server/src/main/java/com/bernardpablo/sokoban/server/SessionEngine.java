@@ -0,0 +1,188 @@
+package com.bernardpablo.sokoban.server;
+
+import com.badlogic.gdx.utils.IntMap;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Moteur de sessions du serveur : héberge un grand nombre de parties indépendantes.
+ * <p>
+ * Les sessions sont réparties en partitions ({@code id % partitions}) ; chaque partition
+ * est une boucle d'événements mono-thread qui possède ses sessions et exécute dans
+ * l'ordre toutes les opérations qui les concernent. Une session n'est donc jamais
+ * accédée par deux threads, sans verrou ni synchronisation sur l'état de jeu.
+ * </p>
+ * <p>
+ * Les dispositions de niveaux ({@link LevelLayout}) sont chargées une seule fois et
+ * partagées par toutes les sessions qui les jouent.
+ * </p>
+ * @author Bernard PABLO
+ */
+public class SessionEngine {
+    /**
+     * Rappel exécuté sur le thread de la partition après un mouvement.
+     */
+    public interface MoveListener {
+        /**
+         * @param session La session concernée.
+         * @param result  Le résultat de {@link GameSession#move(int)}.
+         */
+        void onMove(GameSession session, int result);
+    }
+
+    private final File mapsDir;
+    private final Partition[] partitions;
+    private final Map<String, LevelLayout> layouts = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final AtomicInteger sessionCount = new AtomicInteger();
+
+    /**
+     * Démarre le moteur.
+     * @param mapsDir        Le répertoire contenant les fichiers .tmx.
+     * @param partitionCount Nombre de boucles d'événements (en général, le nombre de cœurs).
+     */
+    public SessionEngine(File mapsDir, int partitionCount) {
+        this.mapsDir = mapsDir;
+        this.partitions = new Partition[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = new Partition(i);
+        }
+    }
+
+    /**
+     * @param level Le nom du fichier de niveau (ex: "sokoban_level1.tmx").
+     * @return La disposition partagée du niveau, chargée au premier appel.
+     * @throws IllegalArgumentException Si le nom ne désigne pas un fichier .tmx du
+     *                                  répertoire des cartes (voir {@link #isLevelName}).
+     */
+    public LevelLayout getLayout(String level) {
+        if (!isLevelName(level)) {
+            throw new IllegalArgumentException("Nom de niveau invalide : " + level);
+        }
+        return layouts.computeIfAbsent(level, name -> LevelLayout.load(new File(mapsDir, name)));
+    }
+
+    /**
+     * Le nom d'un niveau vient du client : il doit désigner un fichier du répertoire des
+     * cartes lui-même, sans chemin ni remontée vers le répertoire parent.
+     * @param name Le nom reçu.
+     * @return true si le nom est celui d'un fichier .tmx, sans séparateur ni "..".
+     */
+    static boolean isLevelName(String name) {
+        return name != null && name.endsWith(".tmx") && !name.contains("..")
+            && name.indexOf('/') < 0 && name.indexOf('\\') < 0 && name.indexOf(':') < 0 && name.indexOf('\0') < 0;
+    }
+
+    /**
+     * Crée une session sur un niveau. La création est exécutée par la partition de la
+     * session, avant toute opération ultérieure sur celle-ci.
+     * @param level Le nom du fichier de niveau.
+     * @return L'identifiant de la session.
+     * @throws IllegalArgumentException Si le nom est invalide ou la carte mal formée.
+     */
+    public int createSession(String level) {
+        LevelLayout layout = getLayout(level);
+        int id = nextId.getAndIncrement();
+        Partition partition = partitionOf(id);
+        partition.executor.execute(() -> {
+            partition.sessions.put(id, new GameSession(id, layout));
+            sessionCount.incrementAndGet();
+        });
+        return id;
+    }
+
+    /**
+     * Ferme une session.
+     * @param id L'identifiant de la session.
+     */
+    public void closeSession(int id) {
+        Partition partition = partitionOf(id);
+        partition.executor.execute(() -> {
+            if (partition.sessions.remove(id) != null) sessionCount.decrementAndGet();
+        });
+    }
+
+    /**
+     * Joue un mouvement dans une session, de manière asynchrone.
+     * @param id       L'identifiant de la session.
+     * @param dir      La direction du mouvement.
+     * @param listener Rappel exécuté avec le résultat (peut être null).
+     */
+    public void move(int id, int dir, MoveListener listener) {
+        Partition partition = partitionOf(id);
+        partition.executor.execute(() -> {
+            GameSession session = partition.sessions.get(id);
+            if (session == null) return;
+            int result = session.move(dir);
+            if (listener != null) listener.onMove(session, result);
+        });
+    }
+
+    /**
+     * Exécute une opération quelconque sur une session, sur le thread de sa partition.
+     * @param id   L'identifiant de la session.
+     * @param task L'opération (ignorée si la session n'existe pas).
+     */
+    public void execute(int id, Consumer<GameSession> task) {
+        Partition partition = partitionOf(id);
+        partition.executor.execute(() -> {
+            GameSession session = partition.sessions.get(id);
+            if (session != null) task.accept(session);
+        });
+    }
+
+    private Partition partitionOf(int id) {
+        return partitions[id % partitions.length];
+    }
+
+    /** @return Le nombre de sessions ouvertes. */
+    public int getSessionCount() {
+        return sessionCount.get();
+    }
+
+    /** @return Le nombre de partitions (boucles d'événements). */
+    public int getPartitionCount() {
+        return partitions.length;
+    }
+
+    /** @return Les dispositions de niveaux chargées, partagées entre les sessions. */
+    public Map<String, LevelLayout> getLayouts() {
+        return layouts;
+    }
+
+    /**
+     * Arrête les boucles d'événements après l'exécution des opérations en attente.
+     */
+    public void shutdown() throws InterruptedException {
+        for (Partition partition : partitions) {
+            partition.executor.shutdown();
+        }
+        for (Partition partition : partitions) {
+            partition.executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Boucle d'événements mono-thread et sessions qu'elle possède.
+     */
+    private static final class Partition {
+        final ExecutorService executor;
+        /** N'est accédée que par le thread de la partition. */
+        final IntMap<GameSession> sessions = new IntMap<>();
+
+        Partition(int index) {
+            executor = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "sokoban-partition-" + index);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.bernardpablo.sokoban.server;
+
+import com.bernardpablo.sokoban.logic.LevelGrid;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+/**
+ * Banc d'essai de la diffusion aux spectateurs, avec des clients de substitution locaux.
+ * <p>
+ * Démarre un {@link GameServer} sur un port libre, ouvre une partie, y abonne un grand
+ * nombre de spectateurs puis joue une suite de mouvements (aller-retour du joueur, chacun
+ * produisant un delta). Mesure le temps nécessaire pour que chaque spectateur ait reçu
+ * l'état final, le débit de messages livrés et le nombre de resynchronisations par
+ * instantané des spectateurs en retard.
+ * </p>
+ * <p>
+ * Options : {@code --spectators=N} (10 000 par défaut), {@code --moves=N},
+ * {@code --partitions=N}, {@code --maps=répertoire}. Chaque spectateur consomme deux
+ * descripteurs de fichiers (client et serveur dans le même processus).
+ * </p>
+ * @author Bernard PABLO
+ */
+public final class SpectatorBench {
+    private static final String LEVEL = "sokoban_level1.tmx";
+
+    private SpectatorBench() {}
+
+    public static void main(String[] args) throws Exception {
+        int spectatorCount = Integer.parseInt(ServerLauncher.option(args, "spectators", "10000"));
+        int moves = Integer.parseInt(ServerLauncher.option(args, "moves", "1000"));
+        int partitions = Integer.parseInt(ServerLauncher.option(args, "partitions",
+            String.valueOf(Runtime.getRuntime().availableProcessors())));
+
+        SessionEngine engine = new SessionEngine(new File(ServerLauncher.option(args, "maps", "maps")), partitions);
+        GameServer server = new GameServer(engine, 0);
+        Thread serverThread = new Thread(server, "sokoban-server");
+        serverThread.start();
+        InetSocketAddress address = new InetSocketAddress("127.0.0.1", server.getPort());
+
+        // Joueur : ouvre la partie et lit l'instantané pour connaître l'identifiant de session
+        Client player = new Client(SocketChannel.open(address));
+        byte[] name = LEVEL.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer play = ByteBuffer.allocate(3 + name.length);
+        play.put(Protocol.PLAY).putShort((short) name.length).put(name).flip();
+        writeFully(player.channel, play);
+        while (player.snapshots == 0) {
+            player.channel.read(player.in);
+            player.parse();
+        }
+        int sessionId = player.sessionId;
+
+        Selector selector = Selector.open();
+        player.channel.configureBlocking(false);
+        player.channel.register(selector, SelectionKey.OP_READ, player);
+
+        Client[] spectators = new Client[spectatorCount];
+        for (int i = 0; i < spectatorCount; i++) {
+            SocketChannel channel = SocketChannel.open(address);
+            ByteBuffer spectate = ByteBuffer.allocate(5);
+            spectate.put(Protocol.SPECTATE).putInt(sessionId).flip();
+            writeFully(channel, spectate);
+            channel.configureBlocking(false);
+            spectators[i] = new Client(channel);
+            channel.register(selector, SelectionKey.OP_READ, spectators[i]);
+        }
+
+        // Attente des instantanés initiaux
+        long joinStart = System.nanoTime();
+        while (countSnapshots(spectators) < spectatorCount) {
+            poll(selector);
+        }
+        System.out.printf("%d spectateurs abonnés en %.1f ms%n", spectatorCount, (System.nanoTime() - joinStart) / 1e6);
+
+        // Aller-retour horizontal : chaque mouvement réussit et produit un delta
+        ByteBuffer sequence = ByteBuffer.allocate(moves);
+        for (int i = 0; i < moves; i++) {
+            sequence.put((byte) (i % 2 == 0 ? LevelGrid.RIGHT : LevelGrid.LEFT));
+        }
+        sequence.flip();
+
+        long start = System.nanoTime();
+        while (sequence.hasRemaining()) {
+            player.channel.write(sequence);
+            poll(selector);
+        }
+        while (countFinished(spectators, moves) < spectatorCount) {
+            poll(selector);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long deltas = 0;
+        long snapshots = 0;
+        long bytes = 0;
+        for (Client spectator : spectators) {
+            deltas += spectator.deltas;
+            snapshots += spectator.snapshots - 1;
+            bytes += spectator.bytes;
+        }
+        System.out.printf("%d mouvements diffusés à %d spectateurs en %.3f s%n", moves, spectatorCount, seconds);
+        System.out.printf("Livré : %d deltas + %d instantanés de resynchronisation, %.0f messages/s, %.1f Mo/s%n",
+            deltas, snapshots, (deltas + snapshots) / seconds, bytes / seconds / 1e6);
+
+        server.stop();
+        serverThread.join();
+        engine.shutdown();
+        for (Client spectator : spectators) spectator.channel.close();
+        player.channel.close();
+        selector.close();
+    }
+
+    private static void poll(Selector selector) throws IOException {
+        selector.select(10);
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            Client client = (Client) key.attachment();
+            if (client.channel.read(client.in) < 0) {
+                throw new IOException("Connexion fermée par le serveur");
+            }
+            client.parse();
+        }
+    }
+
+    private static void writeFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) channel.write(buffer);
+    }
+
+    private static int countSnapshots(Client[] clients) {
+        int count = 0;
+        for (Client client : clients) if (client.snapshots > 0) count++;
+        return count;
+    }
+
+    private static int countFinished(Client[] clients, int moves) {
+        int count = 0;
+        for (Client client : clients) if (client.moves >= moves) count++;
+        return count;
+    }
+
+    /**
+     * Client de substitution : décode les messages reçus sans les conserver.
+     */
+    private static final class Client {
+        final SocketChannel channel;
+        final ByteBuffer in = ByteBuffer.allocate(8192);
+        int sessionId = -1;
+        int moves;
+        int snapshots;
+        long deltas;
+        long bytes;
+
+        Client(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void parse() {
+            in.flip();
+            int length;
+            while ((length = Protocol.serverMessageLength(in)) > 0) {
+                int start = in.position();
+                switch (in.get(start)) {
+                    case Protocol.SNAPSHOT:
+                        sessionId = in.getInt(start + 1);
+                        moves = in.getInt(start + 6);
+                        snapshots++;
+                        break;
+                    case Protocol.DELTA:
+                        moves = in.getInt(start + 2);
+                        deltas++;
+                        break;
+                    default:
+                        throw new IllegalStateException("Erreur du serveur : " + in.get(start + 1));
+                }
+                bytes += length;
+                in.position(start + length);
+            }
+            in.compact();
+        }
+    }
+}
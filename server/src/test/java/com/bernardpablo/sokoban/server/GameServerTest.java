@@ -0,0 +1,133 @@
+package com.bernardpablo.sokoban.server;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Protocole du serveur de jeu sur une vraie connexion TCP : ouverture d'une partie,
+ * diffusion d'un mouvement et refus des noms de niveau hors du répertoire des cartes.
+ * <p>
+ * Dans le premier niveau (10 cases de large), le joueur démarre en (1, 8), soit la case
+ * 81 ; la case (2, 8) est libre.
+ * </p>
+ * @author Bernard PABLO
+ */
+public class GameServerTest {
+    private static final String LEVEL = "sokoban_level1.tmx";
+
+    private SessionEngine engine;
+    private GameServer server;
+    private Thread serverThread;
+    private Socket socket;
+    private InputStream in;
+    private OutputStream out;
+
+    @Before
+    public void setUp() throws IOException {
+        engine = new SessionEngine(new File("maps"), 2);
+        server = new GameServer(engine, 0);
+        serverThread = new Thread(server, "sokoban-server");
+        serverThread.start();
+        socket = new Socket("127.0.0.1", server.getPort());
+        socket.setSoTimeout(5000);
+        in = new BufferedInputStream(socket.getInputStream());
+        out = socket.getOutputStream();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        socket.close();
+        server.stop();
+        serverThread.join();
+        engine.shutdown();
+    }
+
+    private void play(String level) throws IOException {
+        byte[] name = level.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer message = ByteBuffer.allocate(3 + name.length);
+        message.put(Protocol.PLAY).putShort((short) name.length).put(name);
+        out.write(message.array());
+        out.flush();
+    }
+
+    /** Lit un message complet du serveur. */
+    private ByteBuffer receive() throws IOException {
+        byte[] bytes = new byte[256];
+        int count = 0;
+        while (true) {
+            int length = Protocol.serverMessageLength(ByteBuffer.wrap(bytes, 0, count));
+            if (length > 0) return ByteBuffer.wrap(bytes, 0, length);
+            int b = in.read();
+            if (b < 0) throw new EOFException("Connexion fermée par le serveur");
+            if (count == bytes.length) bytes = Arrays.copyOf(bytes, count * 2);
+            bytes[count++] = (byte) b;
+        }
+    }
+
+    @Test
+    public void playSendsSnapshotThenDeltas() throws IOException {
+        play(LEVEL);
+        ByteBuffer snapshot = receive();
+        assertEquals(Protocol.SNAPSHOT, snapshot.get());
+        snapshot.getInt();
+        assertEquals(0, snapshot.get());
+        assertEquals(0, snapshot.getInt());
+        assertEquals(0, snapshot.getInt());
+        assertEquals(81, snapshot.getShort());
+        int crates = snapshot.getShort();
+        assertEquals(5, crates);
+        snapshot.position(snapshot.position() + crates * 2);
+        byte[] name = new byte[snapshot.getShort()];
+        snapshot.get(name);
+        assertEquals(LEVEL, new String(name, StandardCharsets.UTF_8));
+
+        out.write(1); // Droite
+        out.flush();
+        ByteBuffer delta = receive();
+        assertEquals(Protocol.DELTA, delta.get());
+        assertEquals(GameSession.MOVED, delta.get());
+        assertEquals(1, delta.getInt());
+        assertEquals(82, delta.getShort());
+        assertEquals(0, delta.getShort());
+    }
+
+    @Test
+    public void levelNamesOutsideTheMapsDirectoryAreRejected() throws IOException {
+        String[] names = {"../maps/" + LEVEL, "maps/" + LEVEL, "..\\maps\\" + LEVEL, "/etc/passwd", "absent.tmx", ""};
+        for (String name : names) {
+            play(name);
+            ByteBuffer error = receive();
+            assertEquals(name, Protocol.ERROR, error.get());
+            assertEquals(name, Protocol.UNKNOWN_LEVEL, error.get());
+        }
+        assertEquals(0, engine.getSessionCount());
+
+        // La connexion reste utilisable pour un nom valide
+        play(LEVEL);
+        assertEquals(Protocol.SNAPSHOT, receive().get());
+    }
+
+    @Test
+    public void levelNameValidation() {
+        assertTrue(SessionEngine.isLevelName(LEVEL));
+        assertFalse(SessionEngine.isLevelName("../" + LEVEL));
+        assertFalse(SessionEngine.isLevelName("sous/" + LEVEL));
+        assertFalse(SessionEngine.isLevelName("C:" + LEVEL));
+        assertFalse(SessionEngine.isLevelName("niveau.txt"));
+        assertFalse(SessionEngine.isLevelName(null));
+    }
+}
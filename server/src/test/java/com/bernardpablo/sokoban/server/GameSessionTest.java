@@ -0,0 +1,39 @@
+package com.bernardpablo.sokoban.server;
+
+import com.bernardpablo.sokoban.logic.LevelGrid;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+/**
+ * Règles de déplacement d'une session : poussée d'une caisse, puis mouvement bloqué par
+ * un mur qui ne doit plus signaler la caisse déplacée au coup précédent.
+ * <p>
+ * Dans le premier niveau, le joueur démarre en (1, 8) et une caisse se trouve en (2, 5) ;
+ * la case (3, 5) est un mur.
+ * </p>
+ * @author Bernard PABLO
+ */
+public class GameSessionTest {
+    @Test
+    public void blockedMoveReportsNoMovedCrate() {
+        LevelLayout layout = LevelLayout.load(new File("maps/sokoban_level1.tmx"));
+        GameSession session = new GameSession(1, layout);
+        LevelGrid grid = layout.getGrid();
+
+        assertEquals(GameSession.MOVED, session.move(LevelGrid.RIGHT));
+        assertEquals(GameSession.MOVED, session.move(LevelGrid.DOWN));
+        assertEquals(GameSession.MOVED, session.move(LevelGrid.DOWN));
+        assertEquals(GameSession.MOVED | GameSession.PUSHED, session.move(LevelGrid.DOWN));
+        assertEquals(1, session.getMovedCrateCount());
+        assertEquals(grid.index(2, 4), session.getCrateCell(session.getMovedCrate(0)));
+
+        assertEquals(0, session.move(LevelGrid.RIGHT));
+        assertEquals(0, session.getMovedCrateCount());
+        assertEquals(grid.index(2, 5), session.getPlayerCell());
+        assertEquals(4, session.getMoves());
+        assertEquals(1, session.getPushes());
+    }
+}